@@ -10,6 +10,8 @@ export default function MeusAgendamentosCliente() {
   const { confirm, ConfirmComponent } = useConfirm()
   const [agendamentos, setAgendamentos] = useState<any[]>([])
   const [loading, setLoading] = useState(false)
+  const [pagina, setPagina] = useState(0)
+  const [temProxima, setTemProxima] = useState(false)
 
   useEffect(() => {
     if (!clientePublicoService.isAuthenticated()) {
@@ -20,12 +22,16 @@ export default function MeusAgendamentosCliente() {
     carregarAgendamentos()
   }, [navigate])
 
-  const carregarAgendamentos = async () => {
+  const carregarAgendamentos = async (proximaPagina = 0) => {
     setLoading(true)
 
     try {
-      const dados = await clientePublicoService.meusAgendamentos()
-      setAgendamentos(dados)
+      const dados = await clientePublicoService.meusAgendamentos(proximaPagina)
+      setAgendamentos((atuais) =>
+        proximaPagina === 0 ? dados.conteudo : [...atuais, ...dados.conteudo]
+      )
+      setPagina(dados.pagina)
+      setTemProxima(dados.temProxima)
     } catch (error: any) {
       const errorMessage = error.response?.data?.message || 'Erro ao carregar agendamentos'
       showNotification('error', errorMessage)
@@ -156,14 +162,14 @@ export default function MeusAgendamentosCliente() {
                         )}
                         {agendamento.atendente && (
                           <div>
-                            <strong>Atendente:</strong> {agendamento.atendente.usuario?.nome}
+                            <strong>Atendente:</strong> {agendamento.atendente.nomeUsuario}
                           </div>
                         )}
                         {agendamento.servicos && agendamento.servicos.length > 0 && (
                           <div>
                             <strong>Serviços:</strong>{' '}
                             {agendamento.servicos
-                              .map((s: any) => s.servico?.nome || s.descricao)
+                              .map((s: any) => s.nomeServico || s.descricao)
                               .join(', ')}
                           </div>
                         )}
@@ -187,6 +193,17 @@ export default function MeusAgendamentosCliente() {
                   </div>
                 </div>
               ))}
+              {temProxima && (
+                <div className="text-center">
+                  <button
+                    onClick={() => carregarAgendamentos(pagina + 1)}
+                    disabled={loading}
+                    className="px-4 py-2 text-indigo-600 hover:text-indigo-500 disabled:opacity-50"
+                  >
+                    {loading ? 'Carregando...' : 'Ver mais'}
+                  </button>
+                </div>
+              )}
             </div>
           )}
         </div>
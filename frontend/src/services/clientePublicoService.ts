@@ -22,6 +22,15 @@ export interface HorarioDisponivel {
   unidadeNome: string
 }
 
+export interface Pagina<T> {
+  conteudo: T[]
+  pagina: number
+  tamanho: number
+  totalElementos: number
+  totalPaginas: number
+  temProxima: boolean
+}
+
 export interface ClienteCadastroRequest {
   nome: string
   cpfCnpj: string
@@ -91,8 +100,10 @@ export const clientePublicoService = {
     return response.data
   },
 
-  meusAgendamentos: async (): Promise<any[]> => {
-    const response = await api.get<any[]>('/publico/clientes/meus-agendamentos')
+  meusAgendamentos: async (pagina = 0): Promise<Pagina<any>> => {
+    const response = await api.get<Pagina<any>>('/publico/clientes/meus-agendamentos', {
+      params: { pagina },
+    })
     return response.data
   },
 
@@ -36,5 +36,22 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
 
+    /**
+     * Geração de miniaturas (uso intenso de CPU): poucas threads e fila curta; o excedente é recusado
+     * e a miniatura é gerada na próxima requisição que precisar dela.
+     */
+    @Bean(name = "imagemExecutor")
+    public Executor imagemExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("imagem-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
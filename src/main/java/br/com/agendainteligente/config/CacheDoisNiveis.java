@@ -0,0 +1,194 @@
+package br.com.agendainteligente.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache com um nível local (Caffeine, por instância) na frente do Redis.
+ *
+ * Leituras procuram primeiro na memória local e, em caso de falta, no Redis, copiando o valor para a
+ * memória local. Escritas e remoções vão para os dois níveis e são avisadas às outras instâncias
+ * (pub/sub), que descartam a cópia local da chave. As chaves locais são sempre String, como no Redis.
+ */
+public class CacheDoisNiveis implements Cache {
+
+    private final String nome;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remoto;
+    private final BiConsumer<String, String> notificarInvalidacao;
+
+    private final LongAdder acertosLocais = new LongAdder();
+    private final LongAdder acertosRemotos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder gravacoes = new LongAdder();
+    private final LongAdder remocoes = new LongAdder();
+
+    /**
+     * @param notificarInvalidacao recebe o nome do cache e a chave removida (null quando o cache foi limpo)
+     */
+    public CacheDoisNiveis(String nome, com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                           Cache remoto, BiConsumer<String, String> notificarInvalidacao) {
+        this.nome = nome;
+        this.local = local;
+        this.remoto = remoto;
+        this.notificarInvalidacao = notificarInvalidacao;
+    }
+
+    @Override
+    public String getName() {
+        return nome;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String chave = chave(key);
+        Object valor = local.getIfPresent(chave);
+        if (valor != null) {
+            acertosLocais.increment();
+            return new SimpleValueWrapper(valor);
+        }
+        ValueWrapper remoto = this.remoto.get(key);
+        if (remoto != null && remoto.get() != null) {
+            acertosRemotos.increment();
+            local.put(chave, remoto.get());
+        } else {
+            faltas.increment();
+        }
+        return remoto;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valor = get(key);
+        Object conteudo = valor != null ? valor.get() : null;
+        if (conteudo != null && type != null && !type.isInstance(conteudo)) {
+            throw new IllegalStateException("Valor em cache não é do tipo " + type.getName() + ": " + conteudo);
+        }
+        return (T) conteudo;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valor = get(key);
+        if (valor != null && valor.get() != null) {
+            return (T) valor.get();
+        }
+        return (T) local.get(chave(key), k -> remoto.get(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remoto.put(key, value);
+        String chave = chave(key);
+        if (value != null) {
+            local.put(chave, value);
+        }
+        gravacoes.increment();
+        notificarInvalidacao.accept(nome, chave);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoto.evict(key);
+        String chave = chave(key);
+        local.invalidate(chave);
+        remocoes.increment();
+        notificarInvalidacao.accept(nome, chave);
+    }
+
+    @Override
+    public void clear() {
+        remoto.clear();
+        local.invalidateAll();
+        notificarInvalidacao.accept(nome, null);
+    }
+
+    /**
+     * Aviso de outra instância: descarta só a cópia local
+     */
+    void invalidarLocal(String chave) {
+        if (chave == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(chave);
+        }
+    }
+
+    private static String chave(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * Métricas cache.* do Micrometer: acerto é encontrar o valor em qualquer nível; falta é ir ao banco.
+     * cache.nivel.acertos separa os acertos da memória local e do Redis.
+     */
+    public static class Metricas extends CacheMeterBinder<CacheDoisNiveis> {
+
+        public Metricas(CacheDoisNiveis cache, Iterable<Tag> tags) {
+            super(cache, cache.getName(), tags);
+        }
+
+        @Override
+        protected Long size() {
+            CacheDoisNiveis cache = getCache();
+            return cache != null ? cache.local.estimatedSize() : null;
+        }
+
+        @Override
+        protected long hitCount() {
+            CacheDoisNiveis cache = getCache();
+            return cache != null ? cache.acertosLocais.sum() + cache.acertosRemotos.sum() : 0;
+        }
+
+        @Override
+        protected Long missCount() {
+            CacheDoisNiveis cache = getCache();
+            return cache != null ? cache.faltas.sum() : null;
+        }
+
+        @Override
+        protected Long evictionCount() {
+            CacheDoisNiveis cache = getCache();
+            return cache != null ? cache.remocoes.sum() : null;
+        }
+
+        @Override
+        protected long putCount() {
+            CacheDoisNiveis cache = getCache();
+            return cache != null ? cache.gravacoes.sum() : 0;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            CacheDoisNiveis cache = getCache();
+            if (cache == null) {
+                return;
+            }
+            FunctionCounter.builder("cache.nivel.acertos", cache, c -> c.acertosLocais.sum())
+                    .tags(getTagsWithCacheName())
+                    .tag("nivel", "local")
+                    .description("Leituras atendidas pela memória local")
+                    .register(registry);
+            FunctionCounter.builder("cache.nivel.acertos", cache, c -> c.acertosRemotos.sum())
+                    .tags(getTagsWithCacheName())
+                    .tag("nivel", "redis")
+                    .description("Leituras atendidas pelo Redis")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.agendainteligente.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * CacheManager em dois níveis: {@link CacheDoisNiveis} com Caffeine local sobre os caches do RedisCacheManager.
+ *
+ * Cada remoção ou escrita publica "instância|cache|chave" no canal {@link #CANAL_INVALIDACAO}; as demais
+ * instâncias descartam a chave da memória local. Como a mensagem pode se perder (pub/sub não é durável),
+ * o nível local expira bem antes do Redis. Sensível a transação: escritas e remoções após o commit.
+ */
+@Slf4j
+public class CacheDoisNiveisManager extends AbstractTransactionSupportingCacheManager {
+
+    public static final String CANAL_INVALIDACAO = "cache:invalidacao";
+
+    private static final String SEPARADOR = "|";
+    private static final String TODAS_AS_CHAVES = "*";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long tamanhoMaximoLocal;
+    private final Duration expiracaoLocal;
+    private final String idInstancia = UUID.randomUUID().toString();
+
+    public CacheDoisNiveisManager(RedisCacheManager redisCacheManager, StringRedisTemplate stringRedisTemplate,
+                                  long tamanhoMaximoLocal, Duration expiracaoLocal) {
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.tamanhoMaximoLocal = tamanhoMaximoLocal;
+        this.expiracaoLocal = expiracaoLocal;
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        redisCacheManager.afterPropertiesSet();
+        return redisCacheManager.getCacheNames().stream()
+                .map(nome -> criar(nome, redisCacheManager.getCache(nome)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache remoto = redisCacheManager.getCache(name);
+        return remoto != null ? criar(name, remoto) : null;
+    }
+
+    /**
+     * Mensagem recebida do canal de invalidação. Mensagens da própria instância são ignoradas.
+     */
+    public void processarInvalidacao(String mensagem) {
+        String[] partes = mensagem.split("\\|", 3);
+        if (partes.length != 3 || idInstancia.equals(partes[0])) {
+            return;
+        }
+        Cache cache = lookupCache(partes[1]);
+        if (cache == null) {
+            return;
+        }
+        // lookupCache devolve o decorador transacional; a invalidação local não espera transação
+        CacheDoisNiveis doisNiveis = (CacheDoisNiveis) cache.getNativeCache();
+        doisNiveis.invalidarLocal(TODAS_AS_CHAVES.equals(partes[2]) ? null : partes[2]);
+        log.trace("Chave {} do cache {} invalidada por outra instância", partes[2], partes[1]);
+    }
+
+    private CacheDoisNiveis criar(String nome, Cache remoto) {
+        return new CacheDoisNiveis(nome,
+                Caffeine.newBuilder()
+                        .maximumSize(tamanhoMaximoLocal)
+                        .expireAfterWrite(expiracaoLocal)
+                        .build(),
+                remoto,
+                this::publicarInvalidacao);
+    }
+
+    private void publicarInvalidacao(String nomeCache, String chave) {
+        try {
+            stringRedisTemplate.convertAndSend(CANAL_INVALIDACAO,
+                    idInstancia + SEPARADOR + nomeCache + SEPARADOR + (chave != null ? chave : TODAS_AS_CHAVES));
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível publicar invalidação do cache {} (chave {}): {}", nomeCache, chave,
+                    e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.agendainteligente.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache de segundo nível do Hibernate (JCache com Caffeine) para as entidades de referência: serviços,
+ * unidades, empresas e perfis, além das coleções Atendente.servicos e Usuario.unidades.
+ *
+ * O cache fica na memória de cada instância. As alterações são repassadas às outras instâncias via Redis
+ * pub/sub ({@link br.com.agendainteligente.service.CacheEntidadesInvalidacao}); a expiração
+ * (cache.entidades.expiracao) limita por quanto tempo uma instância que perdeu a mensagem enxerga o valor
+ * antigo, como no cache local do catálogo.
+ * Ativado por spring.jpa.properties.hibernate.cache.use_second_level_cache (desligado nos testes).
+ * Acertos e falhas por região ficam nas métricas hibernate.second.level.cache.* do Actuator.
+ */
+@Configuration
+public class CacheEntidadesConfig {
+
+    /**
+     * Regiões declaradas nas entidades (@Cache(region = ...)) e o tamanho máximo de cada uma
+     */
+    private static final Map<String, Long> REGIOES = Map.of(
+            "servico", 5_000L,
+            "unidade", 1_000L,
+            "empresa", 500L,
+            "perfil", 200L,
+            "atendente.servicos", 5_000L,
+            "usuario.unidades", 10_000L);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheEntidadesManager(@Value("${cache.entidades.expiracao:300000}") long expiracao) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        REGIOES.forEach((regiao, tamanhoMaximo) -> {
+            if (cacheManager.getCache(regiao) != null) {
+                return;
+            }
+            CaffeineConfiguration<Object, Object> configuracao = new CaffeineConfiguration<>();
+            configuracao.setMaximumSize(OptionalLong.of(tamanhoMaximo));
+            configuracao.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(expiracao)));
+            configuracao.setStatisticsEnabled(true);
+            cacheManager.createCache(regiao, configuracao);
+        });
+        return cacheManager;
+    }
+
+    /**
+     * Entrega ao Hibernate o CacheManager com as regiões já configuradas
+     */
+    @Bean
+    public HibernatePropertiesCustomizer cacheEntidadesHibernateCustomizer(CacheManager cacheEntidadesManager) {
+        return propriedades -> propriedades.put("hibernate.javax.cache.cache_manager", cacheEntidadesManager);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.agendainteligente.config;
+
+/**
+ * Formato dos valores gravados no Redis (caches e redisTemplate)
+ */
+public enum FormatoSerializacao {
+    /** JSON textual com informação de tipo (formato anterior) */
+    JSON,
+    /** Jackson Smile: JSON binário com nomes de propriedades e valores repetidos referenciados */
+    SMILE
+}
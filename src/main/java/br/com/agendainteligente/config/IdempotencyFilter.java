@@ -0,0 +1,238 @@
+package br.com.agendainteligente.config;
+
+import br.com.agendainteligente.service.IdempotenciaService;
+import br.com.agendainteligente.service.IdempotenciaService.RespostaArmazenada;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Suporte ao header Idempotency-Key nas rotas de criação de agendamento e pagamento.
+ *
+ * Roda depois da cadeia do Spring Security (a chave é separada por usuário). A primeira requisição reserva
+ * a chave e tem a resposta gravada; repetições com o mesmo corpo recebem a resposta gravada sem chegar ao
+ * controller, ou 409 enquanto a original ainda está em andamento. A mesma chave com outro corpo recebe 422
+ * (usuários autenticados; ver {@link #montarChave}).
+ */
+@Slf4j
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String HEADER_REPLAY = "Idempotent-Replayed";
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    private final IdempotenciaService idempotenciaService;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${idempotencia.rotas:/api/publico/clientes/agendamentos,/api/pagamentos/agendamento/*}")
+    private List<String> rotas;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(HEADER_IDEMPOTENCY_KEY) == null) {
+            return true;
+        }
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        return rotas.stream().noneMatch(rota -> pathMatcher.match(rota.trim(), caminho));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String valorChave = request.getHeader(HEADER_IDEMPOTENCY_KEY).trim();
+        if (valorChave.isEmpty() || valorChave.length() > TAMANHO_MAXIMO_CHAVE) {
+            escreverErro(response, HttpStatus.BAD_REQUEST,
+                    "Header " + HEADER_IDEMPOTENCY_KEY + " deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+            return;
+        }
+
+        CorpoEmCache requisicao = new CorpoEmCache(request);
+        String impressaoDigital = impressaoDigitalRequisicao(request.getQueryString(), requisicao.corpo);
+        String chave = montarChave(request, valorChave, impressaoDigital);
+
+        if (!idempotenciaService.reservar(chave, impressaoDigital)) {
+            responderRepeticao(chave, impressaoDigital, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+        boolean concluida = false;
+        try {
+            filterChain.doFilter(requisicao, resposta);
+            if (resposta.getStatus() < 500) {
+                idempotenciaService.concluir(chave, new RespostaArmazenada(impressaoDigital, true,
+                        resposta.getStatus(), resposta.getContentType(),
+                        new String(resposta.getContentAsByteArray(), StandardCharsets.UTF_8)));
+                concluida = true;
+            }
+        } finally {
+            if (!concluida) {
+                idempotenciaService.liberar(chave);
+            }
+            resposta.copyBodyToResponse();
+        }
+    }
+
+    private void responderRepeticao(String chave, String impressaoDigital, HttpServletResponse response)
+            throws IOException {
+        Optional<RespostaArmazenada> armazenada = idempotenciaService.buscar(chave);
+        if (armazenada.isEmpty() || !armazenada.get().isConcluida()) {
+            escreverErro(response, HttpStatus.CONFLICT, "Requisição com esta " + HEADER_IDEMPOTENCY_KEY
+                    + " ainda está em processamento");
+            return;
+        }
+        RespostaArmazenada registro = armazenada.get();
+        if (!registro.getImpressaoDigital().equals(impressaoDigital)) {
+            escreverErro(response, HttpStatus.UNPROCESSABLE_ENTITY, HEADER_IDEMPOTENCY_KEY
+                    + " já utilizada com outro conteúdo de requisição");
+            return;
+        }
+
+        log.debug("Repetindo resposta armazenada para a chave de idempotência {}", chave);
+        response.setStatus(registro.getStatusHttp());
+        response.setHeader(HEADER_REPLAY, "true");
+        if (registro.getContentType() != null) {
+            response.setContentType(registro.getContentType());
+        }
+        if (registro.getCorpo() != null) {
+            byte[] corpo = registro.getCorpo().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(corpo.length);
+            response.getOutputStream().write(corpo);
+        }
+    }
+
+    /**
+     * Escopo da chave: rota + usuário. Sem usuário (rotas de /api/publico) não há nada confiável que separe um
+     * cliente do outro (atrás do proxy todos têm o mesmo IP), então o escopo é o próprio conteúdo da
+     * requisição: uma repetição só recebe a resposta de uma requisição idêntica à que enviou, e a mesma chave
+     * com outro corpo vira outra chave em vez de 422
+     */
+    private static String montarChave(HttpServletRequest request, String valorChave, String impressaoDigital) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String usuario = auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)
+                ? auth.getName()
+                : "anonimo@" + impressaoDigital;
+        return impressaoDigital((request.getRequestURI() + "|" + usuario).getBytes(StandardCharsets.UTF_8))
+                .substring(0, 32) + ":" + valorChave;
+    }
+
+    /**
+     * Parâmetros de query entram na impressão digital (o pagamento recebe o tipo via query string)
+     */
+    private static String impressaoDigitalRequisicao(String queryString, byte[] corpo) {
+        byte[] query = (queryString != null ? queryString : "").getBytes(StandardCharsets.UTF_8);
+        byte[] dados = new byte[query.length + 1 + corpo.length];
+        System.arraycopy(query, 0, dados, 0, query.length);
+        dados[query.length] = '\n';
+        System.arraycopy(corpo, 0, dados, query.length + 1, corpo.length);
+        return impressaoDigital(dados);
+    }
+
+    private static String impressaoDigital(byte[] dados) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(dados));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void escreverErro(HttpServletResponse response, HttpStatus status, String mensagem)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"status\":" + status.value() + ",\"error\":\"" + status.getReasonPhrase()
+                + "\",\"message\":\"" + mensagem + "\"}");
+    }
+
+    /**
+     * Lê o corpo uma vez (para a impressão digital) e o entrega novamente ao controller
+     */
+    private static class CorpoEmCache extends HttpServletRequestWrapper {
+        private final byte[] corpo;
+
+        CorpoEmCache(HttpServletRequest request) throws IOException {
+            super(request);
+            this.corpo = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(corpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return corpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return corpo.length;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package br.com.agendainteligente.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Cliente HTTP dedicado aos web services da NFS-e de Manaus
+ *
+ * Pool de conexões limitado e reaproveitado (keep-alive), com fila de espera curta: quando a prefeitura
+ * fica lenta, as emissões excedentes falham rápido em vez de acumular conexões e threads bloqueadas.
+ */
+@Configuration
+public class NfseHttpClientConfig {
+
+    @Value("${nfse.manaus.http.max-conexoes:20}")
+    private int maxConexoes;
+
+    @Value("${nfse.manaus.http.max-pendentes:50}")
+    private int maxPendentes;
+
+    @Value("${nfse.manaus.http.espera-conexao:5000}")
+    private long esperaConexao;
+
+    @Value("${nfse.manaus.http.connect-timeout:5000}")
+    private int connectTimeout;
+
+    @Value("${nfse.manaus.http.read-timeout:30000}")
+    private long readTimeout;
+
+    @Value("${nfse.manaus.http.max-ociosidade:30000}")
+    private long maxOciosidade;
+
+    @Value("${nfse.manaus.http.max-vida-conexao:300000}")
+    private long maxVidaConexao;
+
+    @Value("${nfse.manaus.circuit-breaker.taxa-falha:50}")
+    private float taxaFalha;
+
+    @Value("${nfse.manaus.circuit-breaker.chamada-lenta:20000}")
+    private long chamadaLenta;
+
+    @Value("${nfse.manaus.circuit-breaker.janela:20}")
+    private int janela;
+
+    @Value("${nfse.manaus.circuit-breaker.minimo-chamadas:10}")
+    private int minimoChamadas;
+
+    @Value("${nfse.manaus.circuit-breaker.espera-aberto:30000}")
+    private long esperaAberto;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider nfseConnectionProvider() {
+        return ConnectionProvider.builder("nfse")
+                .maxConnections(maxConexoes)
+                .pendingAcquireMaxCount(maxPendentes)
+                .pendingAcquireTimeout(Duration.ofMillis(esperaConexao))
+                .maxIdleTime(Duration.ofMillis(maxOciosidade))
+                .maxLifeTime(Duration.ofMillis(maxVidaConexao))
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean(name = "nfseWebClient")
+    public WebClient nfseWebClient(WebClient.Builder builder, ConnectionProvider nfseConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(nfseConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                // Tempo máximo entre o envio da requisição e a resposta; não afeta conexões ociosas no pool
+                .responseTimeout(Duration.ofMillis(readTimeout));
+
+        // O builder do Spring já vem com a observação http.client.requests (timer por URI)
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader("Content-Type", MediaType.TEXT_XML_VALUE + "; charset=UTF-8")
+                .defaultHeader("SOAPAction", "")
+                .build();
+    }
+
+    @Bean
+    public CircuitBreakerRegistry nfseCircuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(taxaFalha)
+                .slowCallDurationThreshold(Duration.ofMillis(chamadaLenta))
+                .slowCallRateThreshold(80)
+                .slidingWindowSize(janela)
+                .minimumNumberOfCalls(minimoChamadas)
+                .waitDurationInOpenState(Duration.ofMillis(esperaAberto))
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // 4xx indica problema na mensagem enviada, não indisponibilidade da prefeitura
+                .ignoreException(e -> e instanceof WebClientResponseException resposta
+                        && resposta.getStatusCode().is4xxClientError())
+                .build();
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+}
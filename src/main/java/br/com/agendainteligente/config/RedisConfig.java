@@ -1,30 +1,53 @@
 package br.com.agendainteligente.config;
 
+import br.com.agendainteligente.service.AgendaEventosService;
+import br.com.agendainteligente.service.CacheEntidadesInvalidacao;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    /**
+     * TTL de cada cache. A linha do tempo do cliente expira logo porque alguns status mudam em processos
+     * assíncronos; a mudança de ordem (próximos/anteriores) com o horário é tratada no AgendamentoService.
+     */
+    private static final Map<String, Duration> CACHES = Map.of(
+            "clientes", Duration.ofHours(1),
+            "servicos", Duration.ofHours(1),
+            "unidades", Duration.ofHours(1),
+            "atendentes", Duration.ofHours(1),
+            "agendamentosCliente", Duration.ofMinutes(5));
+
+    @Value("${cache.serializacao.padrao:SMILE}")
+    private FormatoSerializacao formatoPadrao;
+
     @Bean
     public ObjectMapper redisObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -40,33 +63,107 @@ public class RedisConfig {
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory, ObjectMapper redisObjectMapper) {
+        RedisValorSerializer serializer = new RedisValorSerializer(redisObjectMapper, formatoPadrao);
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer(redisObjectMapper));
+        template.setValueSerializer(serializer);
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer(redisObjectMapper));
+        template.setHashValueSerializer(serializer);
         template.afterPropertiesSet();
         return template;
     }
 
+    /**
+     * Cache em dois níveis: Caffeine local na frente do Redis (ver {@link CacheDoisNiveisManager}).
+     * Sensível a transação: put e evict dentro de uma transação só valem após o commit.
+     * Com spring.cache.type=none (testes) o Spring Boot usa um cache no-op.
+     * O formato dos valores é definido por cache em cache.serializacao.caches.{nome} (padrão em
+     * cache.serializacao.padrao).
+     */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, ObjectMapper redisObjectMapper) {
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(redisObjectMapper);
-        
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
-                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer))
-                .disableCachingNullValues();
+    @ConditionalOnProperty(prefix = "spring.cache", name = "type", havingValue = "redis", matchIfMissing = true)
+    public CacheDoisNiveisManager cacheManager(RedisConnectionFactory connectionFactory, ObjectMapper redisObjectMapper,
+                                               StringRedisTemplate stringRedisTemplate, Environment environment,
+                                               @Value("${cache.local.tamanho-maximo:10000}") long tamanhoMaximoLocal,
+                                               @Value("${cache.local.expiracao:300000}") long expiracaoLocal) {
+        RedisCacheConfiguration config = configuracaoCache(redisObjectMapper, formatoPadrao)
+                .entryTtl(Duration.ofMinutes(10));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
-                .withCacheConfiguration("clientes", config.entryTtl(Duration.ofHours(1)))
-                .withCacheConfiguration("servicos", config.entryTtl(Duration.ofHours(1)))
-                .withCacheConfiguration("unidades", config.entryTtl(Duration.ofHours(1)))
-                .withCacheConfiguration("atendentes", config.entryTtl(Duration.ofHours(1)))
-                .build();
+                .enableStatistics();
+        CACHES.forEach((nome, ttl) -> {
+            FormatoSerializacao formato = environment.getProperty("cache.serializacao.caches." + nome,
+                    FormatoSerializacao.class, formatoPadrao);
+            builder.withCacheConfiguration(nome, configuracaoCache(redisObjectMapper, formato).entryTtl(ttl));
+        });
+        RedisCacheManager redisCacheManager = builder.build();
+        return new CacheDoisNiveisManager(redisCacheManager, stringRedisTemplate, tamanhoMaximoLocal,
+                Duration.ofMillis(expiracaoLocal));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.cache", name = "type", havingValue = "redis", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidacaoListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           CacheDoisNiveisManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (mensagem, padrao) -> cacheManager.processarInvalidacao(
+                        new String(mensagem.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheDoisNiveisManager.CANAL_INVALIDACAO));
+        return container;
+    }
+
+    /**
+     * Remove do cache de segundo nível desta instância as entidades alteradas por outras instâncias
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cache.entidades", name = "invalidacao-redis", havingValue = "true",
+            matchIfMissing = true)
+    public RedisMessageListenerContainer cacheEntidadesListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                         CacheEntidadesInvalidacao invalidacao) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (mensagem, padrao) -> invalidacao.processarInvalidacao(
+                        new String(mensagem.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheEntidadesInvalidacao.CANAL));
+        return container;
+    }
+
+    /**
+     * Entrega aos assinantes desta instância os eventos de agenda publicados por qualquer instância
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "agenda.eventos", name = "redis", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer agendaEventosListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       AgendaEventosService agendaEventosService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (mensagem, padrao) -> agendaEventosService.receber(
+                        new String(mensagem.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(AgendaEventosService.CANAL));
+        return container;
+    }
+
+    /**
+     * Métricas cache.* (hit/miss) dos caches em dois níveis no Actuator
+     */
+    @Bean
+    public CacheMeterBinderProvider<CacheDoisNiveis> cacheDoisNiveisMeterBinderProvider() {
+        return CacheDoisNiveis.Metricas::new;
+    }
+
+    private static RedisCacheConfiguration configuracaoCache(ObjectMapper redisObjectMapper,
+                                                            FormatoSerializacao formato) {
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new RedisValorSerializer(redisObjectMapper, formato)))
+                .disableCachingNullValues();
     }
 }
 
@@ -0,0 +1,105 @@
+package br.com.agendainteligente.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * Serializer dos valores no Redis com informação de tipo (os valores voltam como os DTOs gravados).
+ *
+ * Grava no formato configurado e lê os dois: valores Smile começam com o cabeçalho ":)\n", o que permite
+ * trocar o formato de um cache sem invalidar o que já está gravado.
+ *
+ * O tipo gravado em @class só é aceito na leitura para as classes da aplicação, coleções e tipos de valor do
+ * JDK: quem consegue escrever no Redis não consegue instanciar uma classe arbitrária do classpath. Nos campos,
+ * tipos finais (String, Long, enums) vão sem @class e voltam pelo tipo declarado.
+ */
+public class RedisValorSerializer implements RedisSerializer<Object> {
+
+    private static final byte[] CABECALHO_SMILE = {':', ')', '\n'};
+
+    private static final PolymorphicTypeValidator TIPOS_PERMITIDOS = BasicPolymorphicTypeValidator.builder()
+            .allowIfSubType("br.com.agendainteligente.")
+            .allowIfSubType("java.util.")
+            .allowIfSubType("java.time.")
+            .allowIfSubType("java.math.")
+            .allowIfSubType(Number.class)
+            .allowIfSubType(String.class)
+            .allowIfSubType(Boolean.class)
+            .allowIfSubType(NullValue.class)
+            .allowIfSubTypeIsArray()
+            .build();
+
+    private final FormatoSerializacao formato;
+    private final ObjectMapper json;
+    private final ObjectMapper smile;
+    private final ObjectWriter jsonWriter;
+    private final ObjectWriter smileWriter;
+
+    public RedisValorSerializer(ObjectMapper redisObjectMapper, FormatoSerializacao formato) {
+        this.formato = formato;
+        this.json = comTipo(redisObjectMapper.copy());
+
+        SmileFactory smileFactory = SmileFactory.builder()
+                // O nome da classe (@class) se repete em cada item das listas
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        this.smile = comTipo(redisObjectMapper.copyWith(smileFactory));
+
+        // Gravado como Object: a raiz leva @class mesmo quando a classe é final (ex.: List.of, toList())
+        this.jsonWriter = json.writerFor(Object.class);
+        this.smileWriter = smile.writerFor(Object.class);
+    }
+
+    public FormatoSerializacao getFormato() {
+        return formato;
+    }
+
+    @Override
+    public byte[] serialize(Object valor) throws SerializationException {
+        if (valor == null) {
+            return new byte[0];
+        }
+        try {
+            return (formato == FormatoSerializacao.SMILE ? smileWriter : jsonWriter).writeValueAsBytes(valor);
+        } catch (IOException e) {
+            throw new SerializationException("Não foi possível serializar valor para o Redis", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return (isSmile(bytes) ? smile : json).readValue(bytes, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Não foi possível ler valor do Redis", e);
+        }
+    }
+
+    private static boolean isSmile(byte[] bytes) {
+        return bytes.length >= CABECALHO_SMILE.length
+                && bytes[0] == CABECALHO_SMILE[0]
+                && bytes[1] == CABECALHO_SMILE[1]
+                && bytes[2] == CABECALHO_SMILE[2];
+    }
+
+    private static ObjectMapper comTipo(ObjectMapper mapper) {
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(mapper, null);
+        mapper.activateDefaultTyping(TIPOS_PERMITIDOS, ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+        return mapper;
+    }
+}
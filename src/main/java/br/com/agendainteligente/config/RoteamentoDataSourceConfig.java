@@ -0,0 +1,140 @@
+package br.com.agendainteligente.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réplicas de leitura: transações @Transactional(readOnly = true) usam as réplicas em
+ * datasource.replicas.urls e as demais, o primário. Sem réplicas configuradas esta configuração não é
+ * carregada e o Spring Boot cria o pool do primário normalmente.
+ *
+ * A conexão só é obtida no primeiro comando da transação ({@link LazyConnectionDataSourceProxy}), quando
+ * já se sabe se ela é somente leitura. Cada destino tem o próprio pool Hikari: o primário usa
+ * spring.datasource.hikari e as réplicas, datasource.replicas.hikari. Réplicas com atraso acima de
+ * datasource.replicas.atraso-maximo saem da rotação; leituras logo após uma escrita podem não enxergá-la
+ * enquanto o atraso estiver abaixo do limite.
+ *
+ * O atraso é medido a cada datasource.replicas.intervalo-verificacao em uma thread própria, para que jobs
+ * @Scheduled demorados não deixem uma réplica atrasada na rotação.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replicas.urls:}'.isBlank()")
+public class RoteamentoDataSourceConfig {
+
+    @Value("${datasource.replicas.urls}")
+    private List<String> urlsReplicas;
+
+    @Value("${datasource.replicas.username:${spring.datasource.username:}}")
+    private String usuarioReplicas;
+
+    @Value("${datasource.replicas.password:${spring.datasource.password:}}")
+    private String senhaReplicas;
+
+    @Value("${datasource.replicas.atraso-maximo:5000}")
+    private long atrasoMaximo;
+
+    @Value("${datasource.replicas.intervalo-verificacao:5000}")
+    private long intervaloVerificacao;
+
+    @Value("${datasource.replicas.consulta-atraso}")
+    private String consultaAtraso;
+
+    @Value("${datasource.replicas.hikari.maximum-pool-size:10}")
+    private int tamanhoPoolReplica;
+
+    @Value("${datasource.replicas.hikari.minimum-idle:2}")
+    private int minimoOciosoReplica;
+
+    @Value("${datasource.replicas.hikari.connection-timeout:5000}")
+    private long esperaConexaoReplica;
+
+    private ThreadPoolTaskScheduler verificacao;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    public RoteamentoReplicasDataSource replicasDataSource(HikariDataSource primarioDataSource,
+                                                           MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urlsReplicas.size(); i++) {
+            String nome = "replica-" + (i + 1);
+            replicas.put(nome, criarPoolReplica(nome, urlsReplicas.get(i).trim()));
+        }
+        RoteamentoReplicasDataSource roteamento = new RoteamentoReplicasDataSource(primarioDataSource, replicas, consultaAtraso,
+                Duration.ofMillis(atrasoMaximo));
+
+        replicas.keySet().forEach(nome -> Gauge.builder("datasource.replica.atraso", roteamento,
+                        r -> r.getAtraso(nome))
+                .tag("replica", nome)
+                .baseUnit("seconds")
+                .description("Atraso de replicação medido (-1 quando a réplica não responde)")
+                .register(meterRegistry));
+
+        // A primeira medição acontece em afterPropertiesSet; as seguintes, aqui
+        verificacao = new ThreadPoolTaskScheduler();
+        verificacao.setPoolSize(1);
+        verificacao.setThreadNamePrefix("replicas-");
+        verificacao.initialize();
+        Duration intervalo = Duration.ofMillis(intervaloVerificacao);
+        verificacao.scheduleWithFixedDelay(roteamento::verificarAtraso, Instant.now().plus(intervalo), intervalo);
+        return roteamento;
+    }
+
+    /**
+     * DataSource usado pela aplicação (JPA, Flyway): escrita no primário, leitura nas réplicas
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primarioDataSource, RoteamentoReplicasDataSource replicasDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primarioDataSource);
+        dataSource.setReadOnlyDataSource(replicasDataSource);
+        return dataSource;
+    }
+
+    @PreDestroy
+    public void pararVerificacao() {
+        if (verificacao != null) {
+            verificacao.shutdown();
+        }
+    }
+
+    private HikariDataSource criarPoolReplica(String nome, String url) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(nome);
+        config.setJdbcUrl(url);
+        config.setUsername(usuarioReplicas);
+        config.setPassword(senhaReplicas);
+        config.setMaximumPoolSize(tamanhoPoolReplica);
+        config.setMinimumIdle(minimoOciosoReplica);
+        config.setConnectionTimeout(esperaConexaoReplica);
+        config.setReadOnly(true);
+        // A aplicação sobe mesmo com a réplica fora; a verificação de atraso a mantém fora da rotação
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+}
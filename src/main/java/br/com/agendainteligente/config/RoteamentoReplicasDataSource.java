@@ -0,0 +1,135 @@
+package br.com.agendainteligente.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexões das transações somente leitura: alterna entre as réplicas cujo atraso de replicação está dentro
+ * do limite e volta para o primário quando nenhuma está.
+ *
+ * O atraso é medido por {@link #verificarAtraso()} (agendado em {@link RoteamentoDataSourceConfig}) com a
+ * consulta configurada, que deve devolver o atraso em segundos, ou NULL quando a réplica não está recebendo
+ * o WAL do primário. Réplica que não responde ou devolve NULL sai da rotação até a próxima verificação
+ * bem-sucedida.
+ */
+@Slf4j
+public class RoteamentoReplicasDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARIO = "primario";
+
+    private final Map<String, DataSource> replicas;
+    private final String consultaAtraso;
+    private final double atrasoMaximoSegundos;
+
+    private final Map<String, Double> atrasos = new ConcurrentHashMap<>();
+    private final AtomicInteger proxima = new AtomicInteger();
+    private volatile List<String> disponiveis = List.of();
+
+    public RoteamentoReplicasDataSource(DataSource primario, Map<String, DataSource> replicas,
+                                        String consultaAtraso, Duration atrasoMaximo) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.consultaAtraso = consultaAtraso;
+        this.atrasoMaximoSegundos = atrasoMaximo.toMillis() / 1000.0;
+
+        Map<Object, Object> destinos = new HashMap<>(replicas);
+        destinos.put(PRIMARIO, primario);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        verificarAtraso();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        List<String> atuais = disponiveis;
+        if (atuais.isEmpty()) {
+            return PRIMARIO;
+        }
+        return atuais.get(Math.floorMod(proxima.getAndIncrement(), atuais.size()));
+    }
+
+    /**
+     * Mede o atraso de cada réplica e atualiza as que podem receber leituras
+     */
+    public void verificarAtraso() {
+        List<String> novas = new ArrayList<>();
+        replicas.forEach((nome, replica) -> {
+            Double atraso = medirAtraso(nome, replica);
+            if (atraso == null) {
+                atrasos.remove(nome);
+                return;
+            }
+            atrasos.put(nome, atraso);
+            if (atraso <= atrasoMaximoSegundos) {
+                novas.add(nome);
+            }
+        });
+
+        if (!novas.equals(disponiveis)) {
+            if (novas.size() < replicas.size()) {
+                log.warn("Réplicas fora da rotação de leitura: {} disponíveis de {} (atrasos: {})",
+                        novas.size(), replicas.size(), atrasos);
+            } else {
+                log.info("Todas as réplicas na rotação de leitura: {}", novas);
+            }
+        }
+        disponiveis = List.copyOf(novas);
+    }
+
+    /**
+     * Último atraso medido em segundos; -1 se a réplica não respondeu
+     */
+    public double getAtraso(String replica) {
+        return atrasos.getOrDefault(replica, -1.0);
+    }
+
+    public List<String> getDisponiveis() {
+        return disponiveis;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable fechavel) {
+                fechavel.close();
+            }
+        }
+    }
+
+    private Double medirAtraso(String nome, DataSource replica) {
+        try (Connection conexao = replica.getConnection();
+             Statement comando = conexao.createStatement();
+             ResultSet resultado = comando.executeQuery(consultaAtraso)) {
+            if (!resultado.next()) {
+                return null;
+            }
+            double atraso = resultado.getDouble(1);
+            if (resultado.wasNull()) {
+                log.warn("Réplica {} sem replicação ativa a partir do primário", nome);
+                return null;
+            }
+            return atraso;
+        } catch (SQLException e) {
+            log.warn("Não foi possível medir o atraso da réplica {}: {}", nome, e.getMessage());
+            return null;
+        }
+    }
+}
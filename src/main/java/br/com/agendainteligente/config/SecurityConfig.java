@@ -36,6 +36,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/publico/**").permitAll() // Endpoints públicos para clientes
                         .requestMatchers("/api/nfse/test/**").permitAll() // Endpoint de teste NFS-e
+                        .requestMatchers("/api/webhooks/**").permitAll() // Webhooks autenticados por assinatura
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
                         .anyRequest().authenticated()
@@ -0,0 +1,67 @@
+package br.com.agendainteligente.controller;
+
+import br.com.agendainteligente.domain.entity.Arquivo;
+import br.com.agendainteligente.service.ArquivoService;
+import br.com.agendainteligente.service.MiniaturaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/publico/arquivos")
+@RequiredArgsConstructor
+@Tag(name = "Arquivos", description = "Download de arquivos públicos (logos)")
+public class ArquivoController {
+
+    private final ArquivoService arquivoService;
+    private final MiniaturaService miniaturaService;
+
+    /**
+     * O hash é o próprio conteúdo: a resposta pode ficar em cache indefinidamente.
+     * Com largura, devolve a miniatura correspondente; enquanto ela não foi gerada, devolve o original
+     * sem cache, para que o navegador busque a miniatura na próxima vez.
+     * O arquivo é servido pela origem da API: nosniff impede que o navegador trate o conteúdo como outro tipo,
+     * e a CSP isola o documento caso ele seja aberto diretamente.
+     */
+    @GetMapping("/{hash:[0-9a-f]{64}}")
+    @Operation(summary = "Baixar arquivo pelo hash do conteúdo")
+    public ResponseEntity<byte[]> baixar(@PathVariable String hash,
+                                         @RequestParam(required = false) Integer largura,
+                                         @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String hashConteudo = hash;
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+        if (largura != null) {
+            Optional<String> miniatura = miniaturaService.buscarHashMiniatura(hash, largura);
+            if (miniatura.isPresent()) {
+                hashConteudo = miniatura.get();
+            } else {
+                cacheControl = CacheControl.noCache();
+            }
+        }
+
+        String etag = "\"" + hashConteudo + "\"";
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        Arquivo arquivo = arquivoService.buscar(hashConteudo);
+        return ResponseEntity.ok()
+                .header("X-Content-Type-Options", "nosniff")
+                .header("Content-Security-Policy", "default-src 'none'; sandbox")
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(arquivo.getContentType()))
+                .contentLength(arquivo.getTamanho())
+                .body(arquivo.getConteudo());
+    }
+}
@@ -7,6 +7,7 @@ import br.com.agendainteligente.dto.ClienteDTO;
 import br.com.agendainteligente.dto.ClienteLoginDTO;
 import br.com.agendainteligente.dto.ClienteTokenDTO;
 import br.com.agendainteligente.dto.HorarioDisponivelDTO;
+import br.com.agendainteligente.dto.PaginaDTO;
 import br.com.agendainteligente.exception.BusinessException;
 import br.com.agendainteligente.repository.AgendamentoRepository;
 import br.com.agendainteligente.repository.ClienteRepository;
@@ -28,7 +29,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/publico/clientes")
@@ -108,8 +108,10 @@ public class ClientePublicoController {
     }
 
     @GetMapping("/meus-agendamentos")
-    @Operation(summary = "Listar agendamentos do cliente autenticado")
-    public ResponseEntity<List<AgendamentoDTO>> meusAgendamentos() {
+    @Operation(summary = "Listar agendamentos do cliente autenticado (próximos primeiro, paginado)")
+    public ResponseEntity<PaginaDTO<AgendamentoDTO>> meusAgendamentos(
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(required = false) Integer tamanho) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String clienteEmailOuCpf = auth.getName();
         
@@ -118,13 +120,7 @@ public class ClientePublicoController {
                 .orElseGet(() -> clienteRepository.findByCpfCnpj(clienteEmailOuCpf)
                         .orElseThrow(() -> new BusinessException("Cliente não encontrado")));
         
-        // Buscar agendamentos do cliente
-        List<Agendamento> agendamentos = agendamentoRepository.findByClienteId(cliente.getId());
-        List<AgendamentoDTO> agendamentosDTO = agendamentos.stream()
-                .map(a -> agendamentoService.buscarPorId(a.getId()))
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(agendamentosDTO);
+        return ResponseEntity.ok(agendamentoService.listarDoCliente(cliente.getId(), pagina, tamanho));
     }
 
     @PostMapping("/agendamentos/{id}/cancelar")
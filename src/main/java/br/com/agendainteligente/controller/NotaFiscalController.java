@@ -5,6 +5,8 @@ import br.com.agendainteligente.service.NotaFiscalService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,6 +24,14 @@ public class NotaFiscalController {
         return ResponseEntity.ok(notaFiscalService.buscarPorAgendamentoId(agendamentoId));
     }
 
+    @GetMapping(value = "/agendamento/{agendamentoId}/xml", produces = MediaType.APPLICATION_XML_VALUE)
+    @Operation(summary = "Baixar XML da nota fiscal do agendamento")
+    public ResponseEntity<String> baixarXml(@PathVariable Long agendamentoId) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"nfse-" + agendamentoId + ".xml\"")
+                .body(notaFiscalService.buscarXmlPorAgendamentoId(agendamentoId));
+    }
+
     @PostMapping("/agendamento/{agendamentoId}/emitir")
     @Operation(summary = "Emitir nota fiscal para um agendamento")
     public ResponseEntity<Void> emitirNotaFiscal(@PathVariable Long agendamentoId) {
@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -32,8 +33,12 @@ public class PagamentoController {
                 .body(pagamentoService.processarPagamento(agendamentoId, tipoPagamento));
     }
 
+    /**
+     * Confirmação manual (suporte). O gateway confirma pelo webhook assinado em /api/webhooks/pagamentos
+     */
     @PostMapping("/confirmar/{idTransacao}")
-    @Operation(summary = "Confirmar pagamento via webhook")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Confirmar pagamento manualmente (ADMIN)")
     public ResponseEntity<Void> confirmarPagamento(@PathVariable String idTransacao) {
         pagamentoService.confirmarPagamento(idTransacao);
         return ResponseEntity.noContent().build();
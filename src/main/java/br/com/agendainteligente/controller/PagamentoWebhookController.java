@@ -0,0 +1,36 @@
+package br.com.agendainteligente.controller;
+
+import br.com.agendainteligente.service.PagamentoWebhookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/webhooks/pagamentos")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Webhooks", description = "Recepção de eventos do gateway de pagamento")
+public class PagamentoWebhookController {
+
+    public static final String HEADER_ASSINATURA = "X-Webhook-Signature";
+
+    private final PagamentoWebhookService pagamentoWebhookService;
+
+    @PostMapping
+    @Operation(summary = "Receber evento do gateway de pagamento (processado de forma assíncrona)")
+    public ResponseEntity<Void> receber(@RequestBody byte[] corpo,
+                                        @RequestHeader(value = HEADER_ASSINATURA, required = false) String assinatura) {
+        if (!pagamentoWebhookService.assinaturaValida(corpo, assinatura)) {
+            log.warn("Webhook de pagamento com assinatura inválida recusado");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        pagamentoWebhookService.registrar(new String(corpo, StandardCharsets.UTF_8));
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.agendainteligente.controller;
+
+import br.com.agendainteligente.dto.RelatorioComissoesDTO;
+import br.com.agendainteligente.service.ResumoFaturamentoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/relatorios")
+@RequiredArgsConstructor
+@Tag(name = "Relatórios", description = "API de relatórios de faturamento")
+public class RelatorioController {
+
+    private final ResumoFaturamentoService resumoFaturamentoService;
+
+    @GetMapping("/comissoes")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('GERENTE')")
+    @Operation(summary = "Faturamento e comissões por atendente da unidade no mês (ou no ano, sem o mês)")
+    public ResponseEntity<RelatorioComissoesDTO> comissoes(@RequestParam Long unidadeId,
+                                                           @RequestParam int ano,
+                                                           @RequestParam(required = false) Integer mes) {
+        return ResponseEntity.ok(resumoFaturamentoService.relatorioComissoes(unidadeId, ano, mes));
+    }
+
+    @PostMapping("/comissoes/reconstruir")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recalcular os resumos de faturamento a partir da data com base nos agendamentos")
+    public ResponseEntity<Integer> reconstruir(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio) {
+        return ResponseEntity.ok(resumoFaturamentoService.reconstruir(inicio));
+    }
+}
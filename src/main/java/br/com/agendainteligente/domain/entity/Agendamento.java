@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.PartitionKey;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,14 +14,32 @@ import java.util.List;
 
 @Entity
 @Table(name = "agendamentos")
+@NamedEntityGraph(name = Agendamento.GRAFO_DETALHES,
+        attributeNodes = {
+                @NamedAttributeNode("cliente"),
+                @NamedAttributeNode("unidade"),
+                @NamedAttributeNode("atendente"),
+                @NamedAttributeNode(value = "servicos", subgraph = "servicos"),
+                @NamedAttributeNode("pagamento"),
+                @NamedAttributeNode("notaFiscal")
+        },
+        subgraphs = @NamedSubgraph(name = "servicos", attributeNodes = @NamedAttributeNode("servico")))
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Agendamento {
 
+    /**
+     * Grafo usado no detalhe: o que o AgendamentoMapper lê, em uma única consulta
+     * (as unidades adicionais do cliente, outra lista, são carregadas à parte). Pagamento e nota fiscal,
+     * lados inversos de um-para-um, entram no grafo: fora dele o Hibernate os busca linha a linha do resultado
+     */
+    public static final String GRAFO_DETALHES = "Agendamento.detalhes";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agendamentos_id_seq")
+    @SequenceGenerator(name = "agendamentos_id_seq", sequenceName = "agendamentos_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,6 +57,8 @@ public class Agendamento {
     @OneToMany(mappedBy = "agendamento", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<AgendamentoServico> servicos;
 
+    // Chave de partição de agendamentos (V37): entra no WHERE de UPDATE e DELETE
+    @PartitionKey
     @Column(nullable = false)
     private LocalDateTime dataHoraInicio;
 
@@ -53,6 +74,9 @@ public class Agendamento {
     @Column(precision = 10, scale = 2)
     private BigDecimal valorFinal; // Valor informado ao finalizar o agendamento (pode ser diferente)
 
+    @Column(precision = 10, scale = 2)
+    private BigDecimal valorComissao; // Comissão do atendente calculada na conclusão
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     @Builder.Default
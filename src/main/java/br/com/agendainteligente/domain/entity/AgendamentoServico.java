@@ -17,7 +17,8 @@ import java.math.BigDecimal;
 public class AgendamentoServico {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agendamento_servicos_id_seq")
+    @SequenceGenerator(name = "agendamento_servicos_id_seq", sequenceName = "agendamento_servicos_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
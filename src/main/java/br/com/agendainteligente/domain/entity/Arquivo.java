@@ -0,0 +1,48 @@
+package br.com.agendainteligente.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Arquivo binário (ex.: logo da empresa) identificado pelo SHA-256 do conteúdo.
+ * O conteúdo de um hash nunca muda; uma imagem nova gera um novo registro.
+ */
+@Entity
+@Table(name = "arquivos")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Arquivo {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Integer tamanho;
+
+    @Column(nullable = false, length = 16 * 1024 * 1024)
+    private byte[] conteudo;
+
+    // Geração de miniaturas já falhou para este conteúdo (não é imagem ou não decodifica)
+    @Column(name = "miniaturas_indisponiveis", nullable = false)
+    @Builder.Default
+    private Boolean miniaturasIndisponiveis = false;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataCriacao;
+
+    @PrePersist
+    protected void onCreate() {
+        dataCriacao = LocalDateTime.now();
+    }
+}
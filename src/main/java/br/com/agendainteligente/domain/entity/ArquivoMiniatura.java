@@ -0,0 +1,50 @@
+package br.com.agendainteligente.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Miniatura de um arquivo de imagem em uma das larguras padrão. O conteúdo fica na tabela arquivos.
+ */
+@Entity
+@Table(name = "arquivos_miniaturas")
+@IdClass(ArquivoMiniatura.Chave.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArquivoMiniatura {
+
+    @Id
+    @Column(name = "arquivo_hash", length = 64)
+    private String arquivoHash;
+
+    @Id
+    @Column(nullable = false)
+    private Integer largura;
+
+    @Column(name = "miniatura_hash", nullable = false, length = 64)
+    private String miniaturaHash;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataCriacao;
+
+    @PrePersist
+    protected void onCreate() {
+        dataCriacao = LocalDateTime.now();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private String arquivoHash;
+        private Integer largura;
+    }
+}
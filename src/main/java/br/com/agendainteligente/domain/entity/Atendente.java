@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -38,6 +40,7 @@ public class Atendente {
         joinColumns = @JoinColumn(name = "atendente_id"),
         inverseJoinColumns = @JoinColumn(name = "servico_id")
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "atendente.servicos")
     private List<Servico> servicos;
 
     @Column(length = 20)
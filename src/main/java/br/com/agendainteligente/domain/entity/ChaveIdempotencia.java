@@ -0,0 +1,47 @@
+package br.com.agendainteligente.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resposta registrada para um Idempotency-Key quando o Redis não está disponível
+ */
+@Entity
+@Table(name = "chaves_idempotencia")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChaveIdempotencia {
+
+    @Id
+    @Column(length = 200)
+    private String chave;
+
+    @Column(name = "impressao_digital", nullable = false, length = 64)
+    private String impressaoDigital;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean concluida = false;
+
+    @Column(name = "status_http")
+    private Integer statusHttp;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(columnDefinition = "TEXT")
+    private String corpo;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataCriacao;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+}
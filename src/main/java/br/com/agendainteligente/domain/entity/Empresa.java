@@ -5,11 +5,15 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "empresa")
 @Table(name = "empresas")
 @Data
 @Builder
@@ -54,8 +58,11 @@ public class Empresa {
     @Column(length = 2)
     private String uf;
 
-    @Column(name = "logo", columnDefinition = "TEXT")
-    private String logo;
+    /**
+     * SHA-256 da logo na tabela arquivos
+     */
+    @Column(name = "logo_hash", length = 64)
+    private String logoHash;
 
     @Column(name = "cor_app", length = 7)
     private String corApp;
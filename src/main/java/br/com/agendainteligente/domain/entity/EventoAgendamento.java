@@ -0,0 +1,63 @@
+package br.com.agendainteligente.domain.entity;
+
+import br.com.agendainteligente.domain.enums.StatusEventoAgendamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de agendamento gravado no outbox, aguardando o repasse aos ouvintes
+ */
+@Entity
+@Table(name = "eventos_agendamento")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoAgendamento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TipoEventoAgendamento tipo;
+
+    @Column(name = "agendamento_id", nullable = false)
+    private Long agendamentoId;
+
+    @Column(name = "unidade_id", nullable = false)
+    private Long unidadeId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private StatusEventoAgendamento status = StatusEventoAgendamento.PENDENTE;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer tentativas = 0;
+
+    @Column(length = 1000)
+    private String mensagemErro;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataCriacao;
+
+    @Column
+    private LocalDateTime dataProcessamento;
+
+    @PrePersist
+    protected void onCreate() {
+        dataCriacao = LocalDateTime.now();
+    }
+}
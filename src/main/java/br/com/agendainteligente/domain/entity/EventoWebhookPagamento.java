@@ -0,0 +1,59 @@
+package br.com.agendainteligente.domain.entity;
+
+import br.com.agendainteligente.domain.enums.StatusEventoWebhook;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento recebido do gateway de pagamento, aguardando processamento em lote
+ */
+@Entity
+@Table(name = "eventos_webhook_pagamento")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoWebhookPagamento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private StatusEventoWebhook status = StatusEventoWebhook.PENDENTE;
+
+    @Column(name = "id_transacao_gateway", length = 100)
+    private String idTransacaoGateway;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer tentativas = 0;
+
+    @Column(length = 1000)
+    private String mensagemErro;
+
+    // Pagamento ainda não encontrado: o evento só volta a ser lido a partir deste horário
+    @Column
+    private LocalDateTime proximaTentativa;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataRecebimento;
+
+    @Column
+    private LocalDateTime dataProcessamento;
+
+    @PrePersist
+    protected void onCreate() {
+        dataRecebimento = LocalDateTime.now();
+    }
+}
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class HorarioDisponivel {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "horarios_disponiveis_id_seq")
+    @SequenceGenerator(name = "horarios_disponiveis_id_seq", sequenceName = "horarios_disponiveis_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
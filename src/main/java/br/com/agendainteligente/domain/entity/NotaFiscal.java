@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class NotaFiscal {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notas_fiscais_id_seq")
+    @SequenceGenerator(name = "notas_fiscais_id_seq", sequenceName = "notas_fiscais_id_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -34,9 +35,6 @@ public class NotaFiscal {
     @Column(length = 500)
     private String urlNfse;
 
-    @Column(columnDefinition = "TEXT")
-    private String xmlNfse;
-
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     @Builder.Default
@@ -0,0 +1,46 @@
+package br.com.agendainteligente.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * XML da NFS-e guardado fora da tabela notas_fiscais, compactado.
+ * Só é carregado no download do XML.
+ */
+@Entity
+@Table(name = "notas_fiscais_xml")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotaFiscalXml {
+
+    public static final String COMPRESSAO_DEFLATE = "DEFLATE";
+    public static final String COMPRESSAO_NENHUMA = "NENHUMA";
+
+    @Id
+    @Column(name = "nota_fiscal_id")
+    private Long notaFiscalId;
+
+    @Column(nullable = false, length = 10)
+    private String compressao;
+
+    @Column(name = "tamanho_original", nullable = false)
+    private Integer tamanhoOriginal;
+
+    @Column(nullable = false, length = 16 * 1024 * 1024)
+    private byte[] conteudo;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataCriacao;
+
+    @PrePersist
+    protected void onCreate() {
+        dataCriacao = LocalDateTime.now();
+    }
+}
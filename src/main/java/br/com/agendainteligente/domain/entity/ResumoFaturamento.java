@@ -0,0 +1,61 @@
+package br.com.agendainteligente.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Totais de um dia de atendimentos de um atendente em uma unidade, mantidos por ResumoFaturamentoService
+ */
+@Entity
+@Table(name = "resumos_faturamento",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resumos_faturamento",
+                columnNames = {"unidade_id", "data", "atendente_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoFaturamento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "unidade_id", nullable = false)
+    private Long unidadeId;
+
+    @Column(name = "atendente_id", nullable = false)
+    private Long atendenteId;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer quantidadeConcluidos = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer quantidadeCancelados = 0;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal valorTotal = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal valorFinal = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal valorComissao = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private LocalDateTime dataAtualizacao;
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -128,6 +130,7 @@ public class Usuario implements UserDetails {
         joinColumns = @JoinColumn(name = "usuario_id"),
         inverseJoinColumns = @JoinColumn(name = "unidade_id")
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuario.unidades")
     private List<Unidade> unidades;
 
     // Relação com serviços (para atendentes/profissionais)
@@ -0,0 +1,7 @@
+package br.com.agendainteligente.domain.enums;
+
+public enum StatusEventoAgendamento {
+    PENDENTE,
+    PROCESSADO,
+    ERRO
+}
@@ -0,0 +1,8 @@
+package br.com.agendainteligente.domain.enums;
+
+public enum StatusEventoWebhook {
+    PENDENTE,
+    PROCESSADO,
+    IGNORADO,
+    ERRO
+}
@@ -0,0 +1,9 @@
+package br.com.agendainteligente.domain.enums;
+
+public enum TipoEventoAgendamento {
+    CRIADO,
+    STATUS_ALTERADO,
+    PAGAMENTO_CONFIRMADO,
+    CANCELADO,
+    CONCLUIDO
+}
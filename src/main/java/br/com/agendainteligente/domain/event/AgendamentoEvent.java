@@ -0,0 +1,39 @@
+package br.com.agendainteligente.domain.event;
+
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mudança no ciclo de vida de um agendamento (criação, troca de status, cancelamento, conclusão).
+ * Leva só identificadores, status e horário; os detalhes são buscados por quem precisar deles.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgendamentoEvent {
+
+    private TipoEventoAgendamento tipo;
+
+    private Long agendamentoId;
+
+    private Long unidadeId;
+
+    private Long atendenteId;
+
+    private Long clienteId;
+
+    private StatusAgendamento status;
+
+    private LocalDateTime dataHoraInicio;
+
+    private LocalDateTime dataHoraFim;
+
+    private LocalDateTime ocorridoEm;
+}
@@ -1,6 +1,8 @@
 package br.com.agendainteligente.dto;
 
 import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.StatusNotaFiscal;
+import br.com.agendainteligente.domain.enums.StatusPagamento;
 import br.com.agendainteligente.validation.FutureOrPresent;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.validation.constraints.NotNull;
@@ -53,5 +55,9 @@ public class AgendamentoDTO {
     private Boolean agendamentoRecorrente;
     private Long agendamentoOriginalId;
     private String serieRecorrenciaId;
+    
+    // Situação do pagamento e da nota fiscal (linha do tempo do cliente)
+    private StatusPagamento statusPagamento;
+    private StatusNotaFiscal statusNotaFiscal;
 }
 
@@ -0,0 +1,32 @@
+package br.com.agendainteligente.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Totais de um atendente no relatório de comissões
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComissaoAtendenteDTO {
+
+    private Long atendenteId;
+
+    private String nomeAtendente;
+
+    private long quantidadeConcluidos;
+
+    private long quantidadeCancelados;
+
+    private BigDecimal valorTotal;
+
+    private BigDecimal valorFinal;
+
+    private BigDecimal valorComissao;
+}
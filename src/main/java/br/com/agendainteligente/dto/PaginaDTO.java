@@ -0,0 +1,33 @@
+package br.com.agendainteligente.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados de uma listagem paginada
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+
+    private List<T> conteudo;
+
+    private int pagina;
+
+    private int tamanho;
+
+    private long totalElementos;
+
+    private int totalPaginas;
+
+    /**
+     * Indica se há páginas seguintes
+     */
+    private boolean temProxima;
+}
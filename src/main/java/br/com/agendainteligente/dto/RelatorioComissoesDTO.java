@@ -0,0 +1,35 @@
+package br.com.agendainteligente.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Faturamento e comissões de uma unidade em um mês (ou no ano, quando mes é nulo)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatorioComissoesDTO {
+
+    private Long unidadeId;
+
+    private int ano;
+
+    private Integer mes;
+
+    private List<ComissaoAtendenteDTO> atendentes;
+
+    private long quantidadeConcluidos;
+
+    private long quantidadeCancelados;
+
+    private BigDecimal valorFinal;
+
+    private BigDecimal valorComissao;
+}
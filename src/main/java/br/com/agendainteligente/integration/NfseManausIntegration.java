@@ -1,6 +1,8 @@
 package br.com.agendainteligente.integration;
 
 import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.integration.nfse.NfseWebServiceClient;
+import br.com.agendainteligente.integration.nfse.NfseWebServiceClient.Servico;
 import br.com.agendainteligente.integration.nfse.xml.NfseXmlBuilder;
 import br.com.agendainteligente.integration.nfse.xml.NfseXmlParser;
 import br.com.agendainteligente.integration.nfse.xml.XmlSigner;
@@ -8,16 +10,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.util.retry.Retry;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.util.List;
 
 /**
@@ -38,7 +35,7 @@ public class NfseManausIntegration {
     private final NfseXmlBuilder xmlBuilder;
     private final NfseXmlParser xmlParser;
     private final XmlSigner xmlSigner;
-    private final WebClient webClient;
+    private final NfseWebServiceClient webServiceClient;
 
     @Value("${nfse.manaus.ambiente:homologacao}")
     private String ambiente;
@@ -55,17 +52,15 @@ public class NfseManausIntegration {
     @Value("${nfse.manaus.url-consulta-lote-rps}")
     private String urlConsultaLoteRps;
 
-    @Value("${nfse.manaus.timeout:30000}")
-    private int timeout;
+    @Value("${nfse.manaus.espera-processamento-lote:2000}")
+    private long esperaProcessamentoLote;
 
-    public NfseManausIntegration(NfseXmlBuilder xmlBuilder, NfseXmlParser xmlParser, XmlSigner xmlSigner) {
+    public NfseManausIntegration(NfseXmlBuilder xmlBuilder, NfseXmlParser xmlParser, XmlSigner xmlSigner,
+                                 NfseWebServiceClient webServiceClient) {
         this.xmlBuilder = xmlBuilder;
         this.xmlParser = xmlParser;
         this.xmlSigner = xmlSigner;
-        this.webClient = WebClient.builder()
-                .defaultHeader("Content-Type", MediaType.TEXT_XML_VALUE + "; charset=UTF-8")
-                .defaultHeader("SOAPAction", "")
-                .build();
+        this.webServiceClient = webServiceClient;
     }
 
     /**
@@ -96,11 +91,12 @@ public class NfseManausIntegration {
             String respostaRecepcao = enviarLoteRps(mensagemSoap);
             log.info("Resposta da recepção de lote recebida");
 
-            // 6. Extrai protocolo da resposta
-            String protocolo = xmlParser.extrairProtocolo(respostaRecepcao);
+            // 6. Extrai protocolo e mensagens da resposta (uma única leitura)
+            NfseXmlParser.RespostaNfse recepcao = xmlParser.extrair(respostaRecepcao);
+            String protocolo = recepcao.getProtocolo();
             if (protocolo == null || protocolo.isEmpty()) {
                 // Verifica se há erros
-                List<NfseXmlParser.MensagemRetorno> mensagens = xmlParser.extrairMensagensRetorno(respostaRecepcao);
+                List<NfseXmlParser.MensagemRetorno> mensagens = recepcao.getMensagens();
                 if (!mensagens.isEmpty()) {
                     String erro = mensagens.stream()
                             .map(m -> m.getCodigo() + ": " + m.getMensagem())
@@ -140,14 +136,7 @@ public class NfseManausIntegration {
         }
 
         try {
-            String resposta = webClient.post()
-                    .uri(urlRecepcaoLoteRps)
-                    .bodyValue(mensagemSoap)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofMillis(timeout))
-                    .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
-                    .block();
+            String resposta = webServiceClient.enviar(Servico.RECEPCAO_LOTE, urlRecepcaoLoteRps, mensagemSoap);
 
             log.info("=== RESPOSTA RECEBIDA ===");
             log.info("Tamanho da resposta: {} bytes", resposta != null ? resposta.length() : 0);
@@ -173,48 +162,14 @@ public class NfseManausIntegration {
         log.info("Consultando situação do lote. Protocolo: {}", protocolo);
 
         try {
-            var unidade = agendamento.getUnidade();
-            String cnpj = limparCnpj(unidade.getCnpj());
-            String inscricaoMunicipal = unidade.getInscricaoMunicipal() != null
-                    && !unidade.getInscricaoMunicipal().isEmpty()
-                            ? unidade.getInscricaoMunicipal()
-                            : "00000000";
-
-            // Monta XML de consulta
-            String xmlConsulta = String.format("""
-                    <?xml version="1.0" encoding="UTF-8"?>
-                    <Nfsecabecmsg>
-                        <cabecalho versao="201001">
-                            <versaoDados>V2010</versaoDados>
-                        </cabecalho>
-                    </Nfsecabecmsg>
-                    <Nfsedadosmsg>
-                        <ConsultarSituacaoLoteRpsEnvio>
-                            <Prestador>
-                                <Cnpj>%s</Cnpj>
-                                <InscricaoMunicipal>%s</InscricaoMunicipal>
-                            </Prestador>
-                            <Protocolo>%s</Protocolo>
-                        </ConsultarSituacaoLoteRpsEnvio>
-                    </Nfsedadosmsg>
-                    """,
-                    cnpj,
-                    inscricaoMunicipal,
-                    protocolo);
-
-            String mensagemSoap = montarSoapConsulta(xmlConsulta, "ConsultarSituacaoLoteRps");
-
-            String resposta = webClient.post()
-                    .uri(urlConsultaSituacaoLote)
-                    .bodyValue(mensagemSoap)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofMillis(timeout))
-                    .block();
+            String mensagemSoap = xmlBuilder.montarMensagemSoapConsultaSituacaoLote(agendamento.getUnidade(), protocolo);
+
+            String resposta = webServiceClient.enviar(Servico.CONSULTA_SITUACAO_LOTE, urlConsultaSituacaoLote,
+                    mensagemSoap);
 
             // Aguarda um pouco antes de consultar a NFSe
             try {
-                Thread.sleep(2000);
+                Thread.sleep(esperaProcessamentoLote);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
@@ -235,44 +190,9 @@ public class NfseManausIntegration {
         log.info("Consultando NFSe gerada. Protocolo: {}", protocolo);
 
         try {
-            var unidade = agendamento.getUnidade();
-            String cnpj = limparCnpj(unidade.getCnpj());
-            String inscricaoMunicipal = unidade.getInscricaoMunicipal() != null
-                    && !unidade.getInscricaoMunicipal().isEmpty()
-                            ? unidade.getInscricaoMunicipal()
-                            : "00000000";
-
-            // Monta XML de consulta do lote
-            String xmlConsulta = String.format("""
-                    <?xml version="1.0" encoding="UTF-8"?>
-                    <Nfsecabecmsg>
-                        <cabecalho versao="201001">
-                            <versaoDados>V2010</versaoDados>
-                        </cabecalho>
-                    </Nfsecabecmsg>
-                    <Nfsedadosmsg>
-                        <ConsultarLoteRpsEnvio>
-                            <Prestador>
-                                <Cnpj>%s</Cnpj>
-                                <InscricaoMunicipal>%s</InscricaoMunicipal>
-                            </Prestador>
-                            <Protocolo>%s</Protocolo>
-                        </ConsultarLoteRpsEnvio>
-                    </Nfsedadosmsg>
-                    """,
-                    cnpj,
-                    inscricaoMunicipal,
-                    protocolo);
-
-            String mensagemSoap = montarSoapConsulta(xmlConsulta, "ConsultarLoteRps");
-
-            String resposta = webClient.post()
-                    .uri(urlConsultaLoteRps)
-                    .bodyValue(mensagemSoap)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofMillis(timeout))
-                    .block();
+            String mensagemSoap = xmlBuilder.montarMensagemSoapConsultaLote(agendamento.getUnidade(), protocolo);
+
+            String resposta = webServiceClient.enviar(Servico.CONSULTA_LOTE, urlConsultaLoteRps, mensagemSoap);
 
             // Extrai dados da NFSe
             NfseXmlParser.DadosNfse dadosNfse = xmlParser.extrairDadosNfse(resposta);
@@ -301,33 +221,6 @@ public class NfseManausIntegration {
         }
     }
 
-    /**
-     * Monta mensagem SOAP para consultas
-     */
-    private String montarSoapConsulta(String xmlConsulta, String nomeServico) {
-        String xmlSemDeclaracao = xmlConsulta.replaceFirst("<\\?xml[^>]*\\?>", "").trim();
-        String[] partes = xmlSemDeclaracao.split("</Nfsecabecmsg>");
-        String cabecalho = partes[0] + "</Nfsecabecmsg>";
-        String dados = partes.length > 1 ? partes[1].trim() : "";
-
-        return String.format(
-                """
-                        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:e="http://www.e-nfs.com.br">
-                            <soapenv:Header/>
-                            <soapenv:Body>
-                                <e:%s.Execute>
-                                    %s
-                                    %s
-                                </e:%s.Execute>
-                            </soapenv:Body>
-                        </soapenv:Envelope>
-                        """,
-                nomeServico,
-                cabecalho,
-                dados,
-                nomeServico);
-    }
-
     /**
      * Gera número de lote único
      */
@@ -377,12 +270,6 @@ public class NfseManausIntegration {
         return "CODE-" + Math.abs(base.hashCode());
     }
 
-    private String limparCnpj(String cnpj) {
-        if (cnpj == null)
-            return "";
-        return cnpj.replaceAll("[^0-9]", "");
-    }
-
     @Data
     @Builder
     @NoArgsConstructor
@@ -0,0 +1,11 @@
+package br.com.agendainteligente.integration.nfse;
+
+/**
+ * Lançada quando o circuito de um web service da NFS-e está aberto e a chamada é recusada sem ir à rede
+ */
+public class NfseIndisponivelException extends RuntimeException {
+
+    public NfseIndisponivelException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
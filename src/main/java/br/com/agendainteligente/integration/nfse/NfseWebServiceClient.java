@@ -0,0 +1,223 @@
+package br.com.agendainteligente.integration.nfse;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chamadas SOAP aos web services da NFS-e com a mesma política para os três serviços:
+ * timeout por tentativa, circuit breaker por serviço, retentativas limitadas por orçamento e
+ * timer Micrometer (nfse.ws.requisicoes) por serviço e resultado.
+ *
+ * A recepção de lote só é repetida quando a requisição comprovadamente não chegou à prefeitura
+ * (falha de conexão ou 503), para não gerar lotes duplicados. As consultas são idempotentes e
+ * também são repetidas em timeout e erros 5xx.
+ */
+@Component
+@Slf4j
+public class NfseWebServiceClient {
+
+    /**
+     * Web services ABRASF utilizados na emissão
+     */
+    public enum Servico {
+        RECEPCAO_LOTE("recepcionar-lote-rps", false),
+        CONSULTA_SITUACAO_LOTE("consultar-situacao-lote-rps", true),
+        CONSULTA_LOTE("consultar-lote-rps", true);
+
+        private final String nome;
+        private final boolean idempotente;
+
+        Servico(String nome, boolean idempotente) {
+            this.nome = nome;
+            this.idempotente = idempotente;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+    }
+
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+    private final Map<Servico, CircuitBreaker> circuitBreakers = new EnumMap<>(Servico.class);
+    private final Map<Servico, Counter> retentativasNegadas = new EnumMap<>(Servico.class);
+
+    @Value("${nfse.manaus.timeout:30000}")
+    private long timeout;
+
+    @Value("${nfse.manaus.retry.max-attempts:3}")
+    private int maxTentativas;
+
+    @Value("${nfse.manaus.retry.delay:1000}")
+    private long intervaloRetentativa;
+
+    @Value("${nfse.manaus.retry.orcamento-proporcao:0.2}")
+    private double proporcaoOrcamento;
+
+    @Value("${nfse.manaus.retry.orcamento-minimo:10}")
+    private int orcamentoMinimo;
+
+    private volatile OrcamentoRetentativas orcamento;
+
+    public NfseWebServiceClient(@Qualifier("nfseWebClient") WebClient webClient,
+                                CircuitBreakerRegistry nfseCircuitBreakerRegistry,
+                                MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.meterRegistry = meterRegistry;
+        for (Servico servico : Servico.values()) {
+            circuitBreakers.put(servico, nfseCircuitBreakerRegistry.circuitBreaker("nfse-" + servico.nome));
+            retentativasNegadas.put(servico, Counter.builder("nfse.ws.retentativas.negadas")
+                    .description("Retentativas não realizadas por falta de orçamento")
+                    .tag("servico", servico.nome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Envia a mensagem SOAP ao serviço e devolve o corpo da resposta.
+     * Falha imediatamente com {@link NfseIndisponivelException} se o circuito do serviço estiver aberto.
+     */
+    public String enviar(Servico servico, String url, String mensagemSoap) {
+        OrcamentoRetentativas orcamentoAtual = obterOrcamento();
+        orcamentoAtual.registrarRequisicao();
+
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        String resultado = "erro";
+        try {
+            String resposta = webClient.post()
+                    .uri(url)
+                    .bodyValue(mensagemSoap)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .timeout(Duration.ofMillis(timeout))
+                    .transformDeferred(CircuitBreakerOperator.of(circuitBreakers.get(servico)))
+                    .retryWhen(Retry.backoff(Math.max(0, maxTentativas - 1), Duration.ofMillis(intervaloRetentativa))
+                            .jitter(0.5)
+                            .filter(e -> retentavel(servico, e) && permitirRetentativa(servico, orcamentoAtual))
+                            .doBeforeRetry(sinal -> log.warn("Repetindo chamada {} (tentativa {}): {}",
+                                    servico.nome, sinal.totalRetries() + 2, sinal.failure().toString()))
+                            .onRetryExhaustedThrow((spec, sinal) -> sinal.failure()))
+                    .block();
+            resultado = "sucesso";
+            return resposta;
+        } catch (CallNotPermittedException e) {
+            resultado = "circuito-aberto";
+            throw new NfseIndisponivelException("Web service " + servico.nome
+                    + " da prefeitura temporariamente indisponível. Tente novamente mais tarde", e);
+        } catch (RuntimeException e) {
+            resultado = classificar(e);
+            throw e;
+        } finally {
+            amostra.stop(Timer.builder("nfse.ws.requisicoes")
+                    .description("Chamadas aos web services da NFS-e, incluindo retentativas")
+                    .tag("servico", servico.nome)
+                    .tag("resultado", resultado)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private boolean retentavel(Servico servico, Throwable erro) {
+        if (erro instanceof CallNotPermittedException) {
+            return false;
+        }
+        if (erro instanceof WebClientRequestException && erro.getCause() instanceof ConnectException) {
+            return true;
+        }
+        if (erro instanceof WebClientResponseException resposta) {
+            int status = resposta.getStatusCode().value();
+            return status == 503 || (servico.idempotente && resposta.getStatusCode().is5xxServerError());
+        }
+        return servico.idempotente && (erro instanceof TimeoutException || erro instanceof WebClientRequestException);
+    }
+
+    private boolean permitirRetentativa(Servico servico, OrcamentoRetentativas orcamentoAtual) {
+        if (orcamentoAtual.consumir()) {
+            return true;
+        }
+        retentativasNegadas.get(servico).increment();
+        log.warn("Orçamento de retentativas esgotado. Chamada {} não será repetida", servico.nome);
+        return false;
+    }
+
+    private static String classificar(Throwable erro) {
+        Throwable causa = erro;
+        while (causa != null) {
+            if (causa instanceof TimeoutException) {
+                return "timeout";
+            }
+            if (causa instanceof WebClientResponseException) {
+                return "http-" + ((WebClientResponseException) causa).getStatusCode().value();
+            }
+            causa = causa.getCause();
+        }
+        return "erro";
+    }
+
+    private OrcamentoRetentativas obterOrcamento() {
+        OrcamentoRetentativas atual = orcamento;
+        if (atual == null) {
+            synchronized (this) {
+                if (orcamento == null) {
+                    orcamento = new OrcamentoRetentativas(proporcaoOrcamento, orcamentoMinimo);
+                }
+                atual = orcamento;
+            }
+        }
+        return atual;
+    }
+
+    /**
+     * Orçamento de retentativas compartilhado pelos serviços: cada requisição deposita uma fração de ficha
+     * e cada retentativa consome uma ficha inteira. Com a prefeitura fora do ar, as retentativas ficam
+     * limitadas a essa fração do tráfego em vez de multiplicar a carga.
+     */
+    private static class OrcamentoRetentativas {
+        private static final long ESCALA = 1000;
+
+        private final long deposito;
+        private final long maximo;
+        private final AtomicLong saldo;
+
+        OrcamentoRetentativas(double proporcao, int minimo) {
+            this.deposito = Math.round(proporcao * ESCALA);
+            this.maximo = Math.max(1, minimo) * ESCALA;
+            this.saldo = new AtomicLong(maximo);
+        }
+
+        void registrarRequisicao() {
+            saldo.getAndUpdate(atual -> Math.min(maximo, atual + deposito));
+        }
+
+        boolean consumir() {
+            long atual;
+            do {
+                atual = saldo.get();
+                if (atual < ESCALA) {
+                    return false;
+                }
+            } while (!saldo.compareAndSet(atual, atual - ESCALA));
+            return true;
+        }
+    }
+}
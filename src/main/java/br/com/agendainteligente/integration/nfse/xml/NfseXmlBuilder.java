@@ -1,24 +1,51 @@
 package br.com.agendainteligente.integration.nfse.xml;
 
 import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.Unidade;
+import com.ctc.wstx.api.InvalidCharHandler;
+import com.ctc.wstx.api.WstxOutputProperties;
+import com.ctc.wstx.stax.WstxOutputFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.codehaus.stax2.XMLOutputFactory2;
+import org.codehaus.stax2.XMLStreamWriter2;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Construtor de XML para NFS-e conforme padrão ABRASF
  * Baseado na documentação DOC_102 da Prefeitura de Manaus
+ *
+ * O XML é escrito via StAX (Woodstox) diretamente em um buffer reutilizado por thread,
+ * sem montar o documento em etapas com String.format/regex. O escape de texto e atributos
+ * fica a cargo do writer, e caracteres inválidos em XML são substituídos por espaço.
  */
 @Component
 @Slf4j
 public class NfseXmlBuilder {
 
+    private static final String NS_SOAP = "http://schemas.xmlsoap.org/soap/envelope/";
+    private static final String NS_ENFS = "http://www.e-nfs.com.br";
+    private static final String CODIGO_MUNICIPIO_MANAUS = "1302603";
+    private static final String INSCRICAO_MUNICIPAL_PADRAO = "00000000";
+    private static final String ZERO = "0.00";
+
+    private static final DateTimeFormatter FORMATO_DATA_EMISSAO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    // Um lote com um RPS tem ~3 KB; buffers que crescerem além do limite não são retidos na thread
+    private static final int CAPACIDADE_INICIAL_BUFFER = 8 * 1024;
+    private static final int CAPACIDADE_MAXIMA_RETIDA = 256 * 1024;
+
+    private final XMLOutputFactory2 outputFactory = criarOutputFactory();
+    private final ThreadLocal<StringWriter> buffers =
+            ThreadLocal.withInitial(() -> new StringWriter(CAPACIDADE_INICIAL_BUFFER));
+
     @Value("${nfse.manaus.versao-dados:V2010}")
     private String versaoDados;
 
@@ -26,207 +53,273 @@ public class NfseXmlBuilder {
     private String versaoCabecalho;
 
     /**
-     * Monta o XML completo para envio de lote de RPS
-     * Estrutura: Cabeçalho (Nfsecabecmsg) + Dados (Nfsedadosmsg)
+     * Monta o XML do lote de RPS (EnviarLoteRpsEnvio), que é o trecho assinado
+     * e enviado dentro de Nfsedadosmsg. Não inclui declaração XML nem cabeçalho.
      */
     public String montarXmlLoteRps(Agendamento agendamento, BigDecimal valor, String numeroLote) {
-        var cliente = agendamento.getCliente();
-        var servicosList = agendamento.getServicos();
         var unidade = agendamento.getUnidade();
+        String cnpjPrestador = limparCnpj(unidade.getCnpj());
+        String inscricaoMunicipal = inscricaoMunicipal(unidade);
 
-        // Monta discriminação dos serviços
-        StringBuilder discriminacao = new StringBuilder();
-        if (servicosList != null && !servicosList.isEmpty()) {
-            for (var agendamentoServico : servicosList) {
-                var servico = agendamentoServico.getServico();
-                String descricao = agendamentoServico.getDescricao() != null
-                        && !agendamentoServico.getDescricao().isEmpty()
-                                ? agendamentoServico.getDescricao()
-                                : servico.getDescricao() != null ? servico.getDescricao() : servico.getNome();
-
-                discriminacao.append(String.format("%s - Qtd: %d - Valor Unit: R$ %.2f - Total: R$ %.2f; ",
-                        descricao,
-                        agendamentoServico.getQuantidade(),
-                        agendamentoServico.getValor(),
-                        agendamentoServico.getValorTotal()));
-            }
-        } else {
-            discriminacao.append("Serviços prestados");
-        }
+        return escrever(w -> {
+            w.writeStartElement("EnviarLoteRpsEnvio");
+            w.writeStartElement("LoteRps");
+            w.writeAttribute("Id", "LOTE" + agendamento.getId());
+            elemento(w, "Numero", numeroLote);
+            elemento(w, "Cnpj", cnpjPrestador);
+            elemento(w, "InscricaoMunicipal", inscricaoMunicipal);
+            elemento(w, "QuantidadeRps", "1");
+            w.writeStartElement("ListaRps");
+            escreverRps(w, agendamento, valor, cnpjPrestador, inscricaoMunicipal);
+            w.writeEndElement(); // ListaRps
+            w.writeEndElement(); // LoteRps
+            w.writeEndElement(); // EnviarLoteRpsEnvio
+        });
+    }
 
-        // Formata CNPJ (remove formatação)
-        String cnpjPrestador = limparCnpj(unidade.getCnpj());
-        String cpfCnpjTomador = limparCnpj(cliente.getCpfCnpj());
-        String inscricaoMunicipal = unidade.getInscricaoMunicipal() != null
-                && !unidade.getInscricaoMunicipal().isEmpty()
-                        ? unidade.getInscricaoMunicipal()
-                        : "00000000";
-
-        // Data de emissão no formato ISO
-        String dataEmissao = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
-
-        // Monta o XML do RPS
-        String xmlRps = String.format("""
-                <Rps>
-                    <IdentificacaoRps>
-                        <Numero>%d</Numero>
-                        <Serie>1</Serie>
-                        <Tipo>1</Tipo>
-                    </IdentificacaoRps>
-                    <DataEmissao>%s</DataEmissao>
-                    <NaturezaOperacao>1</NaturezaOperacao>
-                    <OptanteSimplesNacional>2</OptanteSimplesNacional>
-                    <IncentivadorCultural>2</IncentivadorCultural>
-                    <Status>1</Status>
-                    <Servico>
-                        <Valores>
-                            <ValorServicos>%.2f</ValorServicos>
-                            <ValorDeducoes>0.00</ValorDeducoes>
-                            <ValorPis>0.00</ValorPis>
-                            <ValorCofins>0.00</ValorCofins>
-                            <ValorInss>0.00</ValorInss>
-                            <ValorIr>0.00</ValorIr>
-                            <ValorCsll>0.00</ValorCsll>
-                            <OutrasRetencoes>0.00</OutrasRetencoes>
-                            <ValorIss>0.00</ValorIss>
-                            <Aliquota>0.00</Aliquota>
-                            <DescontoIncondicionado>0.00</DescontoIncondicionado>
-                            <DescontoCondicionado>0.00</DescontoCondicionado>
-                        </Valores>
-                        <ItemListaServico>1401</ItemListaServico>
-                        <CodigoTributacaoMunicipio>140101</CodigoTributacaoMunicipio>
-                        <Discriminacao>%s</Discriminacao>
-                        <CodigoMunicipio>1302603</CodigoMunicipio>
-                        <ExigibilidadeISS>1</ExigibilidadeISS>
-                        <MunicipioIncidencia>1302603</MunicipioIncidencia>
-                    </Servico>
-                    <Prestador>
-                        <CpfCnpj>%s</CpfCnpj>
-                        <InscricaoMunicipal>%s</InscricaoMunicipal>
-                    </Prestador>
-                    <Tomador>
-                        <IdentificacaoTomador>
-                            <CpfCnpj>%s</CpfCnpj>
-                        </IdentificacaoTomador>
-                        <RazaoSocial>%s</RazaoSocial>
-                        <Endereco>
-                            <Endereco>%s</Endereco>
-                            <Numero>%s</Numero>
-                            <Complemento>%s</Complemento>
-                            <Bairro>%s</Bairro>
-                            <CodigoMunicipio>1302603</CodigoMunicipio>
-                            <Uf>AM</Uf>
-                            <Cep>%s</Cep>
-                        </Endereco>
-                        <Contato>
-                            <Telefone>%s</Telefone>
-                            <Email>%s</Email>
-                        </Contato>
-                    </Tomador>
-                </Rps>
-                """,
-                agendamento.getId(),
-                dataEmissao,
-                valor,
-                escapeXml(discriminacao.toString().trim()),
-                cnpjPrestador,
-                inscricaoMunicipal,
-                cpfCnpjTomador,
-                escapeXml(cliente.getNome()),
-                escapeXml(cliente.getEndereco() != null ? cliente.getEndereco() : ""),
-                escapeXml(cliente.getNumero() != null ? cliente.getNumero() : ""),
-                escapeXml(cliente.getComplemento() != null ? cliente.getComplemento() : ""),
-                escapeXml(cliente.getBairro() != null ? cliente.getBairro() : ""),
-                cliente.getCep() != null ? cliente.getCep() : "",
-                cliente.getTelefone() != null ? cliente.getTelefone() : "",
-                cliente.getEmail() != null ? cliente.getEmail() : "");
-
-        // Monta o Lote de RPS
-        String xmlLoteRps = String.format("""
-                <EnviarLoteRpsEnvio>
-                    <LoteRps Id="LOTE%d">
-                        <Numero>%s</Numero>
-                        <Cnpj>%s</Cnpj>
-                        <InscricaoMunicipal>%s</InscricaoMunicipal>
-                        <QuantidadeRps>1</QuantidadeRps>
-                        <ListaRps>
-                            %s
-                        </ListaRps>
-                    </LoteRps>
-                </EnviarLoteRpsEnvio>
-                """,
-                agendamento.getId(),
-                numeroLote,
-                cnpjPrestador,
-                inscricaoMunicipal,
-                xmlRps);
-
-        // Monta o XML completo com cabeçalho e dados
-        return montarXmlCompleto(xmlLoteRps);
+    /**
+     * Monta a mensagem SOAP completa para recepção de lote.
+     * O lote (já assinado, quando aplicável) é copiado sem reprocessamento para dentro de Nfsedadosmsg.
+     */
+    public String montarMensagemSoapRecepcao(String xmlLoteRps) {
+        String dados = removerDeclaracaoXml(xmlLoteRps);
+        return escrever(w -> escreverEnvelope(w, "RecepcionarLoteRps", lote -> lote.writeRaw(dados)));
     }
 
     /**
-     * Monta o XML completo com cabeçalho (Nfsecabecmsg) e dados (Nfsedadosmsg)
+     * Monta a mensagem SOAP de consulta da situação do lote (ConsultarSituacaoLoteRps)
      */
-    private String montarXmlCompleto(String xmlDados) {
-        return String.format("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <Nfsecabecmsg>
-                    <cabecalho versao="%s">
-                        <versaoDados>%s</versaoDados>
-                    </cabecalho>
-                </Nfsecabecmsg>
-                <Nfsedadosmsg>
-                    %s
-                </Nfsedadosmsg>
-                """,
-                versaoCabecalho,
-                versaoDados,
-                xmlDados);
+    public String montarMensagemSoapConsultaSituacaoLote(Unidade unidade, String protocolo) {
+        return montarMensagemSoapConsultaProtocolo("ConsultarSituacaoLoteRps", "ConsultarSituacaoLoteRpsEnvio",
+                unidade, protocolo);
     }
 
     /**
-     * Monta a mensagem SOAP completa para recepção de lote
+     * Monta a mensagem SOAP de consulta do lote processado (ConsultarLoteRps)
      */
-    public String montarMensagemSoapRecepcao(String xmlCompleto) {
-        // Remove a declaração XML do início se existir
-        String xmlSemDeclaracao = xmlCompleto.replaceFirst("<\\?xml[^>]*\\?>", "").trim();
-
-        // Divide em cabeçalho e dados
-        String[] partes = xmlSemDeclaracao.split("</Nfsecabecmsg>");
-        String cabecalho = partes[0] + "</Nfsecabecmsg>";
-        String dados = partes.length > 1 ? partes[1].trim() : "";
-
-        return String.format(
-                """
-                        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:e="http://www.e-nfs.com.br">
-                            <soapenv:Header/>
-                            <soapenv:Body>
-                                <e:RecepcionarLoteRps.Execute>
-                                    %s
-                                    %s
-                                </e:RecepcionarLoteRps.Execute>
-                            </soapenv:Body>
-                        </soapenv:Envelope>
-                        """,
-                cabecalho,
-                dados);
-    }
-
-    private String limparCnpj(String cnpj) {
-        if (cnpj == null)
+    public String montarMensagemSoapConsultaLote(Unidade unidade, String protocolo) {
+        return montarMensagemSoapConsultaProtocolo("ConsultarLoteRps", "ConsultarLoteRpsEnvio",
+                unidade, protocolo);
+    }
+
+    private String montarMensagemSoapConsultaProtocolo(String nomeServico, String elementoEnvio,
+                                                       Unidade unidade, String protocolo) {
+        String cnpj = limparCnpj(unidade.getCnpj());
+        String inscricaoMunicipal = inscricaoMunicipal(unidade);
+
+        return escrever(w -> escreverEnvelope(w, nomeServico, dados -> {
+            dados.writeStartElement(elementoEnvio);
+            dados.writeStartElement("Prestador");
+            elemento(dados, "Cnpj", cnpj);
+            elemento(dados, "InscricaoMunicipal", inscricaoMunicipal);
+            dados.writeEndElement(); // Prestador
+            elemento(dados, "Protocolo", protocolo);
+            dados.writeEndElement();
+        }));
+    }
+
+    /**
+     * Envelope SOAP com cabeçalho (Nfsecabecmsg) e dados (Nfsedadosmsg)
+     */
+    private void escreverEnvelope(XMLStreamWriter2 w, String nomeServico, Escrita dados) throws XMLStreamException {
+        w.writeStartElement("soapenv", "Envelope", NS_SOAP);
+        w.writeNamespace("soapenv", NS_SOAP);
+        w.writeNamespace("e", NS_ENFS);
+        w.writeEmptyElement("soapenv", "Header", NS_SOAP);
+        w.writeStartElement("soapenv", "Body", NS_SOAP);
+        w.writeStartElement("e", nomeServico + ".Execute", NS_ENFS);
+
+        w.writeStartElement("Nfsecabecmsg");
+        w.writeStartElement("cabecalho");
+        w.writeAttribute("versao", versaoCabecalho);
+        elemento(w, "versaoDados", versaoDados);
+        w.writeEndElement(); // cabecalho
+        w.writeEndElement(); // Nfsecabecmsg
+
+        w.writeStartElement("Nfsedadosmsg");
+        dados.escrever(w);
+        w.writeEndElement(); // Nfsedadosmsg
+
+        w.writeEndElement(); // e:<servico>.Execute
+        w.writeEndElement(); // soapenv:Body
+        w.writeEndElement(); // soapenv:Envelope
+    }
+
+    private void escreverRps(XMLStreamWriter2 w, Agendamento agendamento, BigDecimal valor,
+                             String cnpjPrestador, String inscricaoMunicipal) throws XMLStreamException {
+        var cliente = agendamento.getCliente();
+
+        w.writeStartElement("Rps");
+
+        w.writeStartElement("IdentificacaoRps");
+        elemento(w, "Numero", String.valueOf(agendamento.getId()));
+        elemento(w, "Serie", "1");
+        elemento(w, "Tipo", "1");
+        w.writeEndElement(); // IdentificacaoRps
+
+        elemento(w, "DataEmissao", LocalDateTime.now().format(FORMATO_DATA_EMISSAO));
+        elemento(w, "NaturezaOperacao", "1");
+        elemento(w, "OptanteSimplesNacional", "2");
+        elemento(w, "IncentivadorCultural", "2");
+        elemento(w, "Status", "1");
+
+        w.writeStartElement("Servico");
+        w.writeStartElement("Valores");
+        elemento(w, "ValorServicos", formatarValor(valor));
+        elemento(w, "ValorDeducoes", ZERO);
+        elemento(w, "ValorPis", ZERO);
+        elemento(w, "ValorCofins", ZERO);
+        elemento(w, "ValorInss", ZERO);
+        elemento(w, "ValorIr", ZERO);
+        elemento(w, "ValorCsll", ZERO);
+        elemento(w, "OutrasRetencoes", ZERO);
+        elemento(w, "ValorIss", ZERO);
+        elemento(w, "Aliquota", ZERO);
+        elemento(w, "DescontoIncondicionado", ZERO);
+        elemento(w, "DescontoCondicionado", ZERO);
+        w.writeEndElement(); // Valores
+        elemento(w, "ItemListaServico", "1401");
+        elemento(w, "CodigoTributacaoMunicipio", "140101");
+        elemento(w, "Discriminacao", montarDiscriminacao(agendamento));
+        elemento(w, "CodigoMunicipio", CODIGO_MUNICIPIO_MANAUS);
+        elemento(w, "ExigibilidadeISS", "1");
+        elemento(w, "MunicipioIncidencia", CODIGO_MUNICIPIO_MANAUS);
+        w.writeEndElement(); // Servico
+
+        w.writeStartElement("Prestador");
+        elemento(w, "CpfCnpj", cnpjPrestador);
+        elemento(w, "InscricaoMunicipal", inscricaoMunicipal);
+        w.writeEndElement(); // Prestador
+
+        w.writeStartElement("Tomador");
+        w.writeStartElement("IdentificacaoTomador");
+        elemento(w, "CpfCnpj", limparCnpj(cliente.getCpfCnpj()));
+        w.writeEndElement(); // IdentificacaoTomador
+        elemento(w, "RazaoSocial", cliente.getNome());
+        w.writeStartElement("Endereco");
+        elemento(w, "Endereco", cliente.getEndereco());
+        elemento(w, "Numero", cliente.getNumero());
+        elemento(w, "Complemento", cliente.getComplemento());
+        elemento(w, "Bairro", cliente.getBairro());
+        elemento(w, "CodigoMunicipio", CODIGO_MUNICIPIO_MANAUS);
+        elemento(w, "Uf", "AM");
+        elemento(w, "Cep", cliente.getCep());
+        w.writeEndElement(); // Endereco
+        w.writeStartElement("Contato");
+        elemento(w, "Telefone", cliente.getTelefone());
+        elemento(w, "Email", cliente.getEmail());
+        w.writeEndElement(); // Contato
+        w.writeEndElement(); // Tomador
+
+        w.writeEndElement(); // Rps
+    }
+
+    /**
+     * Monta discriminação dos serviços
+     */
+    private String montarDiscriminacao(Agendamento agendamento) {
+        var servicosList = agendamento.getServicos();
+        if (servicosList == null || servicosList.isEmpty()) {
+            return "Serviços prestados";
+        }
+
+        StringBuilder discriminacao = new StringBuilder(servicosList.size() * 96);
+        for (var agendamentoServico : servicosList) {
+            var servico = agendamentoServico.getServico();
+            String descricao = agendamentoServico.getDescricao() != null
+                    && !agendamentoServico.getDescricao().isEmpty()
+                            ? agendamentoServico.getDescricao()
+                            : servico.getDescricao() != null ? servico.getDescricao() : servico.getNome();
+
+            if (!discriminacao.isEmpty()) {
+                discriminacao.append("; ");
+            }
+            discriminacao.append(descricao)
+                    .append(" - Qtd: ").append(agendamentoServico.getQuantidade())
+                    .append(" - Valor Unit: R$ ").append(formatarValor(agendamentoServico.getValor()))
+                    .append(" - Total: R$ ").append(formatarValor(agendamentoServico.getValorTotal()));
+        }
+        return discriminacao.append(';').toString();
+    }
+
+    /**
+     * Executa a escrita no buffer da thread atual e devolve o XML gerado
+     */
+    private String escrever(Escrita escrita) {
+        StringWriter buffer = buffers.get();
+        buffer.getBuffer().setLength(0);
+        try {
+            XMLStreamWriter2 writer = (XMLStreamWriter2) outputFactory.createXMLStreamWriter(buffer);
+            escrita.escrever(writer);
+            writer.close();
+            return buffer.toString();
+        } catch (XMLStreamException e) {
+            log.error("Erro ao gerar XML da NFS-e", e);
+            throw new IllegalStateException("Erro ao gerar XML da NFS-e: " + e.getMessage(), e);
+        } finally {
+            if (buffer.getBuffer().capacity() > CAPACIDADE_MAXIMA_RETIDA) {
+                buffers.remove();
+            }
+        }
+    }
+
+    private static void elemento(XMLStreamWriter2 w, String nome, String valor) throws XMLStreamException {
+        w.writeStartElement(nome);
+        if (valor != null && !valor.isEmpty()) {
+            w.writeCharacters(valor);
+        }
+        w.writeEndElement();
+    }
+
+    private static XMLOutputFactory2 criarOutputFactory() {
+        XMLOutputFactory2 factory = new WstxOutputFactory();
+        factory.setProperty(WstxOutputProperties.P_OUTPUT_INVALID_CHAR_HANDLER,
+                new InvalidCharHandler.ReplacingHandler(' '));
+        // Mantém <Tag></Tag> para campos vazios, como no leiaute publicado pela prefeitura
+        factory.setProperty(XMLOutputFactory2.P_AUTOMATIC_EMPTY_ELEMENTS, false);
+        return factory;
+    }
+
+    private static String removerDeclaracaoXml(String xml) {
+        if (xml == null) {
             return "";
-        return cnpj.replaceAll("[^0-9]", "");
+        }
+        String conteudo = xml.stripLeading();
+        if (conteudo.startsWith("<?xml")) {
+            int fim = conteudo.indexOf("?>");
+            return fim >= 0 ? conteudo.substring(fim + 2).stripLeading() : conteudo;
+        }
+        return conteudo;
     }
 
-    private String escapeXml(String texto) {
-        if (texto == null)
+    private static String formatarValor(BigDecimal valor) {
+        if (valor == null) {
+            return ZERO;
+        }
+        return valor.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String inscricaoMunicipal(Unidade unidade) {
+        return unidade.getInscricaoMunicipal() != null && !unidade.getInscricaoMunicipal().isEmpty()
+                ? unidade.getInscricaoMunicipal()
+                : INSCRICAO_MUNICIPAL_PADRAO;
+    }
+
+    private static String limparCnpj(String cnpj) {
+        if (cnpj == null)
             return "";
-        return texto
-                .replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&apos;");
+        StringBuilder digitos = new StringBuilder(cnpj.length());
+        for (int i = 0; i < cnpj.length(); i++) {
+            char c = cnpj.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+
+    @FunctionalInterface
+    private interface Escrita {
+        void escrever(XMLStreamWriter2 writer) throws XMLStreamException;
     }
 }
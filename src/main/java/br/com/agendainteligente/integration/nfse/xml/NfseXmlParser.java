@@ -1,110 +1,242 @@
 package br.com.agendainteligente.integration.nfse.xml;
 
+import com.ctc.wstx.stax.WstxInputFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.ByteArrayInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Parser para respostas XML dos web services NFS-e
+ *
+ * Lê a resposta em uma única passada com StAX, extraindo protocolo, mensagens de retorno
+ * e dados da NFSe gerada sem montar DOM. O XMLInputFactory é criado uma vez, com DTD e
+ * entidades externas desabilitadas, e compartilhado entre threads.
  */
 @Component
 @Slf4j
 public class NfseXmlParser {
 
+    // Alguns web services devolvem o XML de resposta escapado dentro de um elemento do envelope SOAP
+    private static final int PROFUNDIDADE_MAXIMA_XML_ANINHADO = 2;
+
+    private final XMLInputFactory inputFactory = criarInputFactory();
+
     /**
-     * Extrai o protocolo da resposta de recepção de lote
+     * Extrai protocolo, mensagens de retorno e dados da NFSe em uma única leitura da resposta
      */
-    public String extrairProtocolo(String xmlResposta) {
+    public RespostaNfse extrair(String xmlResposta) {
+        RespostaNfse resposta = new RespostaNfse();
+        if (xmlResposta == null || xmlResposta.isBlank()) {
+            return resposta;
+        }
         try {
-            Document doc = parseXml(xmlResposta);
-            NodeList protocoloNodes = doc.getElementsByTagName("Protocolo");
-            if (protocoloNodes.getLength() > 0) {
-                return protocoloNodes.item(0).getTextContent().trim();
-            }
-        } catch (Exception e) {
-            log.error("Erro ao extrair protocolo do XML", e);
+            ler(xmlResposta, resposta, 0);
+        } catch (XMLStreamException | RuntimeException e) {
+            log.error("Erro ao ler XML de resposta da NFS-e", e);
         }
-        return null;
+        return resposta;
+    }
+
+    /**
+     * Extrai o protocolo da resposta de recepção de lote
+     */
+    public String extrairProtocolo(String xmlResposta) {
+        return extrair(xmlResposta).getProtocolo();
     }
 
     /**
      * Extrai mensagens de retorno/erro
      */
     public List<MensagemRetorno> extrairMensagensRetorno(String xmlResposta) {
-        List<MensagemRetorno> mensagens = new ArrayList<>();
-        try {
-            Document doc = parseXml(xmlResposta);
-            NodeList mensagemNodes = doc.getElementsByTagName("MensagemRetorno");
-            
-            for (int i = 0; i < mensagemNodes.getLength(); i++) {
-                Element mensagem = (Element) mensagemNodes.item(i);
-                String codigo = getTextContent(mensagem, "Codigo");
-                String mensagemTexto = getTextContent(mensagem, "Mensagem");
-                String correcao = getTextContent(mensagem, "Correcao");
-                
-                mensagens.add(new MensagemRetorno(codigo, mensagemTexto, correcao));
-            }
-        } catch (Exception e) {
-            log.error("Erro ao extrair mensagens de retorno", e);
-        }
-        return mensagens;
+        return extrair(xmlResposta).getMensagens();
     }
 
     /**
      * Extrai dados da NFSe gerada
      */
     public DadosNfse extrairDadosNfse(String xmlResposta) {
-        try {
-            Document doc = parseXml(xmlResposta);
-            NodeList compNfseNodes = doc.getElementsByTagName("CompNfse");
-            if (compNfseNodes.getLength() > 0) {
-                Element compNfse = (Element) compNfseNodes.item(0);
-                Element nfse = (Element) compNfse.getElementsByTagName("Nfse").item(0);
-                Element infNfse = (Element) nfse.getElementsByTagName("InfNfse").item(0);
-                
-                String numero = getTextContent(infNfse, "Numero");
-                String codigoVerificacao = getTextContent(infNfse, "CodigoVerificacao");
-                String dataEmissao = getTextContent(infNfse, "DataEmissao");
-                
-                return new DadosNfse(numero, codigoVerificacao, dataEmissao);
-            }
-        } catch (Exception e) {
-            log.error("Erro ao extrair dados da NFSe", e);
-        }
-        return null;
+        return extrair(xmlResposta).getDadosNfse();
     }
 
     /**
      * Verifica se a resposta contém erros
      */
     public boolean temErros(String xmlResposta) {
-        List<MensagemRetorno> mensagens = extrairMensagensRetorno(xmlResposta);
-        return mensagens.stream().anyMatch(m -> !m.getCodigo().equals("CM00"));
+        return extrair(xmlResposta).temErros();
     }
 
-    private Document parseXml(String xml) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        return builder.parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    private void ler(String xml, RespostaNfse resposta, int profundidade) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+        try {
+            Leitura leitura = new Leitura(resposta);
+            StringBuilder texto = new StringBuilder(64);
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        leitura.abrir(reader.getLocalName());
+                        texto.setLength(0);
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA ->
+                            texto.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        boolean consumido = leitura.fechar(reader.getLocalName(), texto);
+                        if (!consumido && profundidade < PROFUNDIDADE_MAXIMA_XML_ANINHADO && pareceXml(texto)) {
+                            ler(texto.toString().strip(), resposta, profundidade + 1);
+                        }
+                        texto.setLength(0);
+                    }
+                    default -> {
+                        // comentários, instruções de processamento e espaços são ignorados
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
     }
 
-    private String getTextContent(Element element, String tagName) {
-        NodeList nodes = element.getElementsByTagName(tagName);
-        if (nodes.getLength() > 0) {
-            Node node = nodes.item(0);
-            return node.getTextContent() != null ? node.getTextContent().trim() : "";
+    private static boolean pareceXml(CharSequence texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '<';
+            }
+        }
+        return false;
+    }
+
+    private static XMLInputFactory criarInputFactory() {
+        XMLInputFactory factory = new WstxInputFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Estado da leitura de um documento: em qual MensagemRetorno ou InfNfse o cursor está
+     */
+    private static class Leitura {
+        private final RespostaNfse resposta;
+
+        private int nivelCompNfse;
+        private boolean dentroInfNfse;
+        private String numeroNfse;
+        private String codigoVerificacao;
+        private String dataEmissao;
+
+        private boolean dentroMensagem;
+        private String codigo;
+        private String mensagem;
+        private String correcao;
+
+        Leitura(RespostaNfse resposta) {
+            this.resposta = resposta;
+        }
+
+        void abrir(String nome) {
+            switch (nome) {
+                case "CompNfse" -> nivelCompNfse++;
+                case "InfNfse" -> dentroInfNfse = nivelCompNfse > 0 && resposta.dadosNfse == null;
+                case "MensagemRetorno" -> {
+                    dentroMensagem = true;
+                    codigo = null;
+                    mensagem = null;
+                    correcao = null;
+                }
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * Trata o fechamento de um elemento. Retorna true se o texto foi usado como campo da resposta.
+         */
+        boolean fechar(String nome, StringBuilder texto) {
+            if (dentroMensagem) {
+                switch (nome) {
+                    case "Codigo" -> codigo = primeiro(codigo, texto);
+                    case "Mensagem" -> mensagem = primeiro(mensagem, texto);
+                    case "Correcao" -> correcao = primeiro(correcao, texto);
+                    case "MensagemRetorno" -> {
+                        resposta.mensagens.add(new MensagemRetorno(vazioSeNulo(codigo), vazioSeNulo(mensagem),
+                                vazioSeNulo(correcao)));
+                        dentroMensagem = false;
+                    }
+                    default -> {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            if (dentroInfNfse) {
+                switch (nome) {
+                    case "Numero" -> numeroNfse = primeiro(numeroNfse, texto);
+                    case "CodigoVerificacao" -> codigoVerificacao = primeiro(codigoVerificacao, texto);
+                    case "DataEmissao" -> dataEmissao = primeiro(dataEmissao, texto);
+                    case "InfNfse" -> {
+                        resposta.dadosNfse = new DadosNfse(vazioSeNulo(numeroNfse), vazioSeNulo(codigoVerificacao),
+                                vazioSeNulo(dataEmissao));
+                        dentroInfNfse = false;
+                    }
+                    default -> {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            switch (nome) {
+                case "Protocolo" -> {
+                    if (resposta.protocolo == null) {
+                        resposta.protocolo = texto.toString().strip();
+                    }
+                    return true;
+                }
+                case "CompNfse" -> {
+                    nivelCompNfse--;
+                    return true;
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+
+        private static String primeiro(String atual, StringBuilder texto) {
+            return atual != null ? atual : texto.toString().strip();
+        }
+
+        private static String vazioSeNulo(String valor) {
+            return valor != null ? valor : "";
+        }
+    }
+
+    /**
+     * Resultado da leitura de uma resposta do web service
+     */
+    public static class RespostaNfse {
+        private String protocolo;
+        private final List<MensagemRetorno> mensagens = new ArrayList<>();
+        private DadosNfse dadosNfse;
+
+        public String getProtocolo() { return protocolo; }
+        public List<MensagemRetorno> getMensagens() { return mensagens; }
+        public DadosNfse getDadosNfse() { return dadosNfse; }
+
+        public boolean temErros() {
+            return mensagens.stream().anyMatch(m -> !m.getCodigo().equals("CM00"));
         }
-        return "";
     }
 
     public static class MensagemRetorno {
@@ -139,4 +271,3 @@ public class NfseXmlParser {
         public String getDataEmissao() { return dataEmissao; }
     }
 }
-
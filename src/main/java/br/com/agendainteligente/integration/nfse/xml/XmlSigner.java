@@ -1,23 +1,65 @@
 package br.com.agendainteligente.integration.nfse.xml;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.xml.security.Init;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.transforms.Transforms;
+import org.apache.xml.security.utils.Constants;
+import org.apache.xml.security.utils.ElementProxy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.util.Enumeration;
 
 /**
- * Componente para assinatura digital de XML
+ * Componente para assinatura digital de XML (XMLDSig enveloped, padrão ABRASF) com Apache Santuario
  * Em modo de teste, retorna o XML sem assinatura
+ *
+ * O certificado A1 (PKCS12) é carregado uma única vez e recarregado apenas quando o arquivo muda.
+ * DocumentBuilder e Transformer não são thread-safe, então cada thread do executor de NFS-e
+ * mantém o seu próprio contexto de assinatura.
  */
 @Component
 @Slf4j
 public class XmlSigner {
 
+    private static final String ELEMENTO_ASSINADO = "LoteRps";
+    private static final String ATRIBUTO_ID = "Id";
+
+    static {
+        Init.init();
+        try {
+            // ABRASF espera <Signature xmlns="http://www.w3.org/2000/09/xmldsig#"> sem prefixo "ds:"
+            ElementProxy.setDefaultPrefix(Constants.SignatureSpecNS, "");
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     @Value("${nfse.manaus.certificado.usar-assinatura:false}")
     private boolean usarAssinatura;
 
@@ -27,6 +69,24 @@ public class XmlSigner {
     @Value("${nfse.manaus.certificado.senha:}")
     private String senhaCertificado;
 
+    private final Object lockCarga = new Object();
+    private volatile MaterialAssinatura material;
+
+    private final ThreadLocal<ContextoAssinatura> contextos = ThreadLocal.withInitial(ContextoAssinatura::new);
+
+    @PostConstruct
+    void inicializar() {
+        if (!usarAssinatura) {
+            return;
+        }
+        try {
+            obterMaterial();
+        } catch (Exception e) {
+            // Não impede a subida da aplicação; a emissão falhará com a mensagem do certificado
+            log.error("Não foi possível carregar o certificado digital da NFS-e", e);
+        }
+    }
+
     /**
      * Assina o XML conforme padrão XMLDSig
      * Em modo de teste, retorna o XML sem assinatura
@@ -38,27 +98,161 @@ public class XmlSigner {
         }
 
         try {
-            // TODO: Implementar assinatura digital real usando Apache Santuario
-            // Por enquanto, retorna sem assinatura para testes
-            log.warn("Assinatura digital não implementada. Retornando XML sem assinatura");
-            return xml;
+            MaterialAssinatura chave = obterMaterial();
+            ContextoAssinatura contexto = contextos.get();
+
+            Document doc = contexto.parse(xml);
+            Element alvo = (Element) doc.getElementsByTagName(ELEMENTO_ASSINADO).item(0);
+            if (alvo == null) {
+                throw new IllegalArgumentException("Elemento " + ELEMENTO_ASSINADO + " não encontrado no XML");
+            }
+            String id = alvo.getAttribute(ATRIBUTO_ID);
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Elemento " + ELEMENTO_ASSINADO + " sem atributo " + ATRIBUTO_ID);
+            }
+            alvo.setIdAttribute(ATRIBUTO_ID, true);
+
+            XMLSignature assinatura = new XMLSignature(doc, "", XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA1,
+                    Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS);
+            alvo.getParentNode().appendChild(assinatura.getElement());
+
+            Transforms transforms = new Transforms(doc);
+            transforms.addTransform(Transforms.TRANSFORM_ENVELOPED_SIGNATURE);
+            transforms.addTransform(Transforms.TRANSFORM_C14N_OMIT_COMMENTS);
+            assinatura.addDocument("#" + id, transforms, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA1);
+            // Só o certificado do titular no X509Data, como nos exemplos ABRASF; a cadeia não é enviada
+            assinatura.addKeyInfo(chave.certificado);
+            assinatura.sign(chave.chavePrivada);
+
+            return contexto.serializar(doc);
         } catch (Exception e) {
             log.error("Erro ao assinar XML", e);
             throw new RuntimeException("Erro ao assinar XML: " + e.getMessage(), e);
         }
     }
 
-    private KeyStore carregarCertificado() throws Exception {
+    /**
+     * Verifica periodicamente se o arquivo do certificado mudou (renovação do A1) e recarrega sem reiniciar
+     */
+    @Scheduled(fixedDelayString = "${nfse.manaus.certificado.intervalo-verificacao:60000}")
+    public void verificarAtualizacaoCertificado() {
+        if (!usarAssinatura || material == null) {
+            return;
+        }
+        try {
+            Path caminho = caminhoConfigurado();
+            if (!Files.getLastModifiedTime(caminho).equals(material.modificacao)) {
+                synchronized (lockCarga) {
+                    material = carregarCertificado(caminho);
+                }
+                log.info("Certificado digital da NFS-e recarregado: {}", caminho);
+            }
+        } catch (Exception e) {
+            // Mantém o material já carregado até que o novo arquivo seja válido
+            log.error("Erro ao recarregar certificado digital da NFS-e. Mantendo o certificado atual", e);
+        }
+    }
+
+    private MaterialAssinatura obterMaterial() throws Exception {
+        MaterialAssinatura atual = material;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (lockCarga) {
+            if (material == null) {
+                material = carregarCertificado(caminhoConfigurado());
+            }
+            return material;
+        }
+    }
+
+    private Path caminhoConfigurado() {
         if (caminhoCertificado == null || caminhoCertificado.isEmpty()) {
             throw new IllegalStateException("Caminho do certificado não configurado");
         }
+        return Path.of(caminhoCertificado);
+    }
+
+    private MaterialAssinatura carregarCertificado(Path caminho) throws Exception {
+        FileTime modificacao = Files.getLastModifiedTime(caminho);
+        char[] senha = senhaCertificado != null ? senhaCertificado.toCharArray() : new char[0];
 
         KeyStore keyStore = KeyStore.getInstance("PKCS12");
-        keyStore.load(
-            new java.io.FileInputStream(caminhoCertificado),
-            senhaCertificado.toCharArray()
-        );
-        return keyStore;
+        try (InputStream in = Files.newInputStream(caminho)) {
+            keyStore.load(in, senha);
+        }
+
+        Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            if (!keyStore.isKeyEntry(alias)) {
+                continue;
+            }
+            PrivateKey chavePrivada = (PrivateKey) keyStore.getKey(alias, senha);
+            X509Certificate certificado = (X509Certificate) keyStore.getCertificate(alias);
+
+            try {
+                certificado.checkValidity();
+            } catch (Exception e) {
+                log.warn("Certificado digital da NFS-e fora da validade ({}): {}", certificado.getNotAfter(),
+                        certificado.getSubjectX500Principal().getName());
+            }
+            log.info("Certificado digital da NFS-e carregado. Titular: {}, válido até: {}",
+                    certificado.getSubjectX500Principal().getName(), certificado.getNotAfter());
+            return new MaterialAssinatura(chavePrivada, certificado, modificacao);
+        }
+        throw new IllegalStateException("Nenhuma chave privada encontrada no certificado: " + caminho);
     }
-}
 
+    /**
+     * Chave privada e certificado carregados do PKCS12, com a data de modificação do arquivo de origem
+     */
+    private static class MaterialAssinatura {
+        private final PrivateKey chavePrivada;
+        private final X509Certificate certificado;
+        private final FileTime modificacao;
+
+        MaterialAssinatura(PrivateKey chavePrivada, X509Certificate certificado, FileTime modificacao) {
+            this.chavePrivada = chavePrivada;
+            this.certificado = certificado;
+            this.modificacao = modificacao;
+        }
+    }
+
+    /**
+     * Parser e serializador DOM de uso exclusivo de uma thread
+     */
+    private static class ContextoAssinatura {
+        private final DocumentBuilder documentBuilder;
+        private final Transformer transformer;
+
+        ContextoAssinatura() {
+            try {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+                factory.setExpandEntityReferences(false);
+                documentBuilder = factory.newDocumentBuilder();
+
+                transformer = TransformerFactory.newInstance().newTransformer();
+                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+                transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+                transformer.setOutputProperty(OutputKeys.INDENT, "no");
+            } catch (Exception e) {
+                throw new IllegalStateException("Erro ao criar contexto de assinatura XML", e);
+            }
+        }
+
+        Document parse(String xml) throws Exception {
+            documentBuilder.reset();
+            return documentBuilder.parse(new InputSource(new StringReader(xml)));
+        }
+
+        String serializar(Document doc) throws Exception {
+            StringWriter saida = new StringWriter(4096);
+            transformer.transform(new DOMSource(doc), new StreamResult(saida));
+            return saida.toString();
+        }
+    }
+}
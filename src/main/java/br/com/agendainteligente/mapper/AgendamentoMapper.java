@@ -2,6 +2,7 @@ package br.com.agendainteligente.mapper;
 
 import br.com.agendainteligente.domain.entity.Agendamento;
 import br.com.agendainteligente.dto.AgendamentoDTO;
+import br.com.agendainteligente.repository.AgendamentoRepository;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
@@ -17,6 +18,20 @@ public interface AgendamentoMapper {
     @Mapping(target = "servicos", source = "servicos")
     AgendamentoDTO toDTO(Agendamento agendamento);
     
+    /**
+     * Listagem: cliente, unidade e atendente só com id e nome; serviços preenchidos pelo service
+     */
+    @Mapping(target = "cliente.id", source = "clienteId")
+    @Mapping(target = "cliente.nome", source = "clienteNome")
+    @Mapping(target = "cliente.telefone", source = "clienteTelefone")
+    @Mapping(target = "unidade.id", source = "unidadeId")
+    @Mapping(target = "unidade.nome", source = "unidadeNome")
+    @Mapping(target = "atendente.id", source = "atendenteId")
+    @Mapping(target = "atendente.unidadeId", source = "unidadeId")
+    @Mapping(target = "atendente.nomeUsuario", source = "atendenteNome")
+    @Mapping(target = "servicos", ignore = true)
+    AgendamentoDTO toDTO(AgendamentoRepository.Listagem agendamento);
+    
     @Mapping(target = "cliente", ignore = true)
     @Mapping(target = "unidade", ignore = true)
     @Mapping(target = "atendente", ignore = true)
@@ -2,6 +2,7 @@ package br.com.agendainteligente.mapper;
 
 import br.com.agendainteligente.domain.entity.AgendamentoServico;
 import br.com.agendainteligente.dto.AgendamentoServicoDTO;
+import br.com.agendainteligente.repository.AgendamentoServicoRepository;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
@@ -15,6 +16,8 @@ public interface AgendamentoServicoMapper {
     @Mapping(target = "nomeServico", source = "servico.nome")
     AgendamentoServicoDTO toDTO(AgendamentoServico agendamentoServico);
     
+    AgendamentoServicoDTO toDTO(AgendamentoServicoRepository.Listagem agendamentoServico);
+    
     @Mapping(target = "agendamento", ignore = true)
     @Mapping(target = "servico", ignore = true)
     AgendamentoServico toEntity(AgendamentoServicoDTO dto);
@@ -2,6 +2,7 @@ package br.com.agendainteligente.mapper;
 
 import br.com.agendainteligente.domain.entity.Atendente;
 import br.com.agendainteligente.dto.AtendenteDTO;
+import br.com.agendainteligente.repository.AtendenteRepository;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
@@ -15,6 +16,8 @@ public interface AtendenteMapper {
     @Mapping(target = "nomeUnidade", ignore = true)
     AtendenteDTO toDTO(Atendente atendente);
     
+    AtendenteDTO toDTO(AtendenteRepository.Listagem atendente);
+    
     @Mapping(target = "unidade", ignore = true)
     @Mapping(target = "usuario", ignore = true)
     Atendente toEntity(AtendenteDTO atendenteDTO);
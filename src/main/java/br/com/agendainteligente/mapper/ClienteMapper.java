@@ -2,6 +2,7 @@ package br.com.agendainteligente.mapper;
 
 import br.com.agendainteligente.domain.entity.Cliente;
 import br.com.agendainteligente.dto.ClienteDTO;
+import br.com.agendainteligente.repository.ClienteRepository;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -13,6 +14,8 @@ public interface ClienteMapper {
     @Mapping(target = "unidadeId", source = "unidade.id")
     ClienteDTO toDTO(Cliente cliente);
     
+    ClienteDTO toDTO(ClienteRepository.Listagem cliente);
+    
     @Mapping(target = "unidade", ignore = true) // Será setado manualmente no service
     Cliente toEntity(ClienteDTO clienteDTO);
     
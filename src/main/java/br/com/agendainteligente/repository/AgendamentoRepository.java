@@ -2,12 +2,20 @@ package br.com.agendainteligente.repository;
 
 import br.com.agendainteligente.domain.entity.Agendamento;
 import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.StatusNotaFiscal;
+import br.com.agendainteligente.domain.enums.StatusPagamento;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,19 +30,121 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
     List<Agendamento> findByPeriodo(@Param("inicio") LocalDateTime inicio, 
                                      @Param("fim") LocalDateTime fim);
     
-    @Query("SELECT a FROM Agendamento a WHERE " +
-           "a.atendente.id = :atendenteId AND " +
-           "((:dataHora BETWEEN a.dataHoraInicio AND a.dataHoraFim OR " +
-           "a.dataHoraInicio BETWEEN :dataHora AND :dataHoraFim) OR " +
-           "(:dataHoraFim BETWEEN a.dataHoraInicio AND a.dataHoraFim OR " +
-           "a.dataHoraFim BETWEEN :dataHora AND :dataHoraFim)) AND " +
+    /**
+     * Maior duração considerada para um agendamento. Limita por baixo o data_hora_inicio das buscas de
+     * sobreposição, para o Postgres ler só as partições mensais do período (V37). Garantido por
+     * AgendamentoService.criar e pela constraint ck_agendamentos_duracao_maxima (V42)
+     */
+    Duration DURACAO_MAXIMA = Duration.ofDays(1);
+
+    default Optional<Agendamento> findConflitoHorario(Long atendenteId, LocalDateTime dataHora,
+                                                      LocalDateTime dataHoraFim) {
+        return listarConflitos(atendenteId, dataHora, dataHoraFim, dataHora.minus(DURACAO_MAXIMA))
+                .stream()
+                .findFirst();
+    }
+
+    @Query("SELECT a FROM Agendamento a WHERE a.atendente.id = :atendenteId AND " +
+           "a.dataHoraInicio >= :inicioMinimo AND a.dataHoraInicio <= :dataHoraFim AND a.dataHoraFim >= :dataHora AND " +
+           "a.status != 'CANCELADO' AND a.status != 'CONCLUIDO'")
+    List<Agendamento> listarConflitos(@Param("atendenteId") Long atendenteId,
+                                      @Param("dataHora") LocalDateTime dataHora,
+                                      @Param("dataHoraFim") LocalDateTime dataHoraFim,
+                                      @Param("inicioMinimo") LocalDateTime inicioMinimo);
+
+    /**
+     * Horários ocupados do atendente que encostam no período (mesma regra de findConflitoHorario), para
+     * verificar vários horários com uma consulta
+     */
+    default List<Intervalo> listarOcupados(Long atendenteId, LocalDateTime inicio, LocalDateTime fim) {
+        return listarOcupados(atendenteId, inicio, fim, inicio.minus(DURACAO_MAXIMA));
+    }
+
+    @Query("SELECT a.dataHoraInicio AS dataHoraInicio, a.dataHoraFim AS dataHoraFim FROM Agendamento a " +
+           "WHERE a.atendente.id = :atendenteId AND a.dataHoraInicio >= :inicioMinimo AND " +
+           "a.dataHoraInicio <= :fim AND a.dataHoraFim >= :inicio AND " +
            "a.status != 'CANCELADO' AND a.status != 'CONCLUIDO'")
-    Optional<Agendamento> findConflitoHorario(@Param("atendenteId") Long atendenteId,
-                                               @Param("dataHora") LocalDateTime dataHora, 
-                                               @Param("dataHoraFim") LocalDateTime dataHoraFim);
+    List<Intervalo> listarOcupados(@Param("atendenteId") Long atendenteId,
+                                   @Param("inicio") LocalDateTime inicio,
+                                   @Param("fim") LocalDateTime fim,
+                                   @Param("inicioMinimo") LocalDateTime inicioMinimo);
     
     List<Agendamento> findByUnidadeId(Long unidadeId);
     
     List<Agendamento> findByAtendenteId(Long atendenteId);
-}
 
+    /**
+     * Detalhe com cliente, unidade, atendente e serviços já carregados (ver Agendamento.GRAFO_DETALHES)
+     */
+    @EntityGraph(Agendamento.GRAFO_DETALHES)
+    Optional<Agendamento> findComDetalhesById(Long id);
+
+    // Listagem: colunas do agendamento e nomes de cliente, unidade e atendente, sem entidades gerenciadas.
+    // Os serviços vêm de AgendamentoServicoRepository.listarPorAgendamentos.
+
+    String CAMPOS_LISTAGEM = "a.id AS id, a.dataHoraInicio AS dataHoraInicio, a.dataHoraFim AS dataHoraFim, " +
+            "a.observacoes AS observacoes, a.valorTotal AS valorTotal, a.valorFinal AS valorFinal, a.status AS status, " +
+            "a.agendamentoRecorrente AS agendamentoRecorrente, a.agendamentoOriginalId AS agendamentoOriginalId, " +
+            "a.serieRecorrenciaId AS serieRecorrenciaId, " +
+            "c.id AS clienteId, c.nome AS clienteNome, c.telefone AS clienteTelefone, " +
+            "un.id AS unidadeId, un.nome AS unidadeNome, ate.id AS atendenteId, us.nome AS atendenteNome ";
+
+    String FROM_LISTAGEM = "FROM Agendamento a JOIN a.cliente c JOIN a.unidade un JOIN a.atendente ate JOIN ate.usuario us ";
+
+    String SELECT_LISTAGEM = "SELECT " + CAMPOS_LISTAGEM + FROM_LISTAGEM;
+
+    @Query(SELECT_LISTAGEM)
+    List<Listagem> listarTodos();
+
+    @Query(SELECT_LISTAGEM + "WHERE un.id IN :unidadesIds")
+    List<Listagem> listarPorUnidades(@Param("unidadesIds") Collection<Long> unidadesIds);
+
+    @Query(SELECT_LISTAGEM + "WHERE ate.id = :atendenteId")
+    List<Listagem> listarPorAtendente(@Param("atendenteId") Long atendenteId);
+
+    /**
+     * Linha do tempo do cliente: próximos agendamentos (do mais próximo ao mais distante) seguidos dos
+     * anteriores (do mais recente ao mais antigo), com a situação do pagamento e da nota fiscal. O id desempata
+     * agendamentos no mesmo horário, para que as páginas não repitam nem pulem linhas.
+     */
+    @Query(value = "SELECT " + CAMPOS_LISTAGEM + ", p.status AS statusPagamento, nf.status AS statusNotaFiscal " +
+            FROM_LISTAGEM + "LEFT JOIN a.pagamento p LEFT JOIN a.notaFiscal nf " +
+            "WHERE c.id = :clienteId " +
+            "ORDER BY CASE WHEN a.dataHoraInicio >= :agora THEN 0 ELSE 1 END, " +
+            "CASE WHEN a.dataHoraInicio >= :agora THEN a.dataHoraInicio END ASC, " +
+            "a.dataHoraInicio DESC, a.id",
+            countQuery = "SELECT COUNT(a) FROM Agendamento a WHERE a.cliente.id = :clienteId")
+    Page<ListagemCliente> listarDoCliente(@Param("clienteId") Long clienteId,
+                                          @Param("agora") LocalDateTime agora,
+                                          Pageable pageable);
+
+    interface Listagem {
+        Long getId();
+        LocalDateTime getDataHoraInicio();
+        LocalDateTime getDataHoraFim();
+        String getObservacoes();
+        BigDecimal getValorTotal();
+        BigDecimal getValorFinal();
+        StatusAgendamento getStatus();
+        Boolean getAgendamentoRecorrente();
+        Long getAgendamentoOriginalId();
+        String getSerieRecorrenciaId();
+        Long getClienteId();
+        String getClienteNome();
+        String getClienteTelefone();
+        Long getUnidadeId();
+        String getUnidadeNome();
+        Long getAtendenteId();
+        String getAtendenteNome();
+    }
+
+    interface Intervalo {
+        LocalDateTime getDataHoraInicio();
+        LocalDateTime getDataHoraFim();
+    }
+
+    interface ListagemCliente extends Listagem {
+        StatusPagamento getStatusPagamento();
+        StatusNotaFiscal getStatusNotaFiscal();
+    }
+}
@@ -2,12 +2,34 @@ package br.com.agendainteligente.repository;
 
 import br.com.agendainteligente.domain.entity.AgendamentoServico;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AgendamentoServicoRepository extends JpaRepository<AgendamentoServico, Long> {
     List<AgendamentoServico> findByAgendamentoId(Long agendamentoId);
+
+    /**
+     * Serviços de vários agendamentos de uma vez, só com as colunas do AgendamentoServicoDTO (listagens)
+     */
+    @Query("SELECT s.agendamento.id AS agendamentoId, sv.id AS servicoId, sv.nome AS nomeServico, " +
+           "s.valor AS valor, s.descricao AS descricao, s.quantidade AS quantidade, s.valorTotal AS valorTotal " +
+           "FROM AgendamentoServico s JOIN s.servico sv WHERE s.agendamento.id IN :agendamentosIds")
+    List<Listagem> listarPorAgendamentos(@Param("agendamentosIds") Collection<Long> agendamentosIds);
+
+    interface Listagem {
+        Long getAgendamentoId();
+        Long getServicoId();
+        String getNomeServico();
+        BigDecimal getValor();
+        String getDescricao();
+        Integer getQuantidade();
+        BigDecimal getValorTotal();
+    }
 }
 
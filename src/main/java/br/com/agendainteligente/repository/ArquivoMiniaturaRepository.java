@@ -0,0 +1,13 @@
+package br.com.agendainteligente.repository;
+
+import br.com.agendainteligente.domain.entity.ArquivoMiniatura;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArquivoMiniaturaRepository extends JpaRepository<ArquivoMiniatura, ArquivoMiniatura.Chave> {
+
+    List<ArquivoMiniatura> findByArquivoHashOrderByLarguraAsc(String arquivoHash);
+}
@@ -0,0 +1,26 @@
+package br.com.agendainteligente.repository;
+
+import br.com.agendainteligente.domain.entity.Arquivo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ArquivoRepository extends JpaRepository<Arquivo, String> {
+
+    /**
+     * Content type do arquivo, se ainda é possível gerar miniaturas dele (sem carregar o conteúdo)
+     */
+    @Query("SELECT a.contentType FROM Arquivo a WHERE a.hash = :hash AND a.miniaturasIndisponiveis = false")
+    Optional<String> findContentTypeParaMiniaturas(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Arquivo a SET a.miniaturasIndisponiveis = true WHERE a.hash = :hash")
+    int marcarMiniaturasIndisponiveis(@Param("hash") String hash);
+}
@@ -2,8 +2,12 @@ package br.com.agendainteligente.repository;
 
 import br.com.agendainteligente.domain.entity.Atendente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,5 +16,49 @@ public interface AtendenteRepository extends JpaRepository<Atendente, Long> {
     List<Atendente> findByUnidadeIdAndAtivoTrue(Long unidadeId);
     List<Atendente> findByAtivoTrue();
     Optional<Atendente> findByUsuarioId(Long usuarioId);
+
+    // Listagem: só as colunas do AtendenteDTO, com os nomes de usuário e unidade na mesma consulta
+
+    String SELECT_LISTAGEM = "SELECT a.id AS id, un.id AS unidadeId, us.id AS usuarioId, a.cpf AS cpf, " +
+            "a.telefone AS telefone, a.percentualComissao AS percentualComissao, a.ativo AS ativo, " +
+            "us.nome AS nomeUsuario, un.nome AS nomeUnidade FROM Atendente a JOIN a.unidade un JOIN a.usuario us ";
+
+    @Query(SELECT_LISTAGEM)
+    List<Listagem> listarTodos();
+
+    @Query(SELECT_LISTAGEM + "WHERE un.id IN :unidadesIds")
+    List<Listagem> listarPorUnidades(@Param("unidadesIds") Collection<Long> unidadesIds);
+
+    @Query(SELECT_LISTAGEM + "WHERE un.id = :unidadeId AND a.ativo = true")
+    List<Listagem> listarAtivosPorUnidade(@Param("unidadeId") Long unidadeId);
+
+    /**
+     * Ids de todos os atendentes da unidade, ativos ou não (ex.: remoção do cache por id)
+     */
+    @Query("SELECT a.id FROM Atendente a WHERE a.unidade.id = :unidadeId")
+    List<Long> listarIdsPorUnidade(@Param("unidadeId") Long unidadeId);
+
+    /**
+     * Pares (atendente, serviço) dos atendentes informados
+     */
+    @Query("SELECT a.id AS id, s.id AS vinculadoId FROM Atendente a JOIN a.servicos s WHERE a.id IN :ids")
+    List<Vinculo> listarServicosIds(@Param("ids") Collection<Long> ids);
+
+    interface Listagem {
+        Long getId();
+        Long getUnidadeId();
+        Long getUsuarioId();
+        String getCpf();
+        String getTelefone();
+        BigDecimal getPercentualComissao();
+        Boolean getAtivo();
+        String getNomeUsuario();
+        String getNomeUnidade();
+    }
+
+    interface Vinculo {
+        Long getId();
+        Long getVinculadoId();
+    }
 }
 
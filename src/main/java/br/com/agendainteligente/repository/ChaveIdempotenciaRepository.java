@@ -0,0 +1,44 @@
+package br.com.agendainteligente.repository;
+
+import br.com.agendainteligente.domain.entity.ChaveIdempotencia;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, String> {
+
+    @Query("SELECT c FROM ChaveIdempotencia c WHERE c.chave = :chave AND c.expiraEm > :agora")
+    Optional<ChaveIdempotencia> findValida(@Param("chave") String chave, @Param("agora") LocalDateTime agora);
+
+    /**
+     * Reserva a chave (ou reaproveita um registro expirado); retorna 0 se ela já está em uso.
+     * A tabela afetada é declarada para o Hibernate: sem isso, todo SQL nativo de escrita limpa o cache de
+     * segundo nível inteiro.
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "chaves_idempotencia"))
+    @Query(value = "INSERT INTO chaves_idempotencia (chave, impressao_digital, concluida, data_criacao, expira_em) "
+            + "VALUES (:chave, :impressaoDigital, FALSE, :agora, :expiraEm) "
+            + "ON CONFLICT (chave) DO UPDATE SET impressao_digital = EXCLUDED.impressao_digital, concluida = FALSE, "
+            + "status_http = NULL, content_type = NULL, corpo = NULL, data_criacao = EXCLUDED.data_criacao, "
+            + "expira_em = EXCLUDED.expira_em WHERE chaves_idempotencia.expira_em <= :agora",
+            nativeQuery = true)
+    int reservar(@Param("chave") String chave, @Param("impressaoDigital") String impressaoDigital,
+                 @Param("agora") LocalDateTime agora, @Param("expiraEm") LocalDateTime expiraEm);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.expiraEm <= :agora")
+    int deleteExpiradas(@Param("agora") LocalDateTime agora);
+}
@@ -2,8 +2,13 @@ package br.com.agendainteligente.repository;
 
 import br.com.agendainteligente.domain.entity.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,5 +18,54 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     Optional<Cliente> findByTokenRecuperacaoSenha(String token);
     boolean existsByCpfCnpj(String cpfCnpj);
     boolean existsByEmail(String email);
+
+    /**
+     * Inicializa as unidades adicionais dos clientes já presentes no contexto de persistência, em uma consulta.
+     * Separada da consulta de agendamentos porque duas listas não podem ser buscadas no mesmo JOIN FETCH.
+     */
+    @Query("SELECT DISTINCT c FROM Cliente c LEFT JOIN FETCH c.unidades WHERE c.id IN :ids")
+    List<Cliente> carregarUnidades(@Param("ids") Collection<Long> ids);
+
+    // Listagem: só as colunas do ClienteDTO, sem entidades gerenciadas (a senha não sai do banco)
+
+    String SELECT_LISTAGEM = "SELECT c.id AS id, c.nome AS nome, c.cpfCnpj AS cpfCnpj, c.email AS email, " +
+            "c.telefone AS telefone, c.endereco AS endereco, c.numero AS numero, c.complemento AS complemento, " +
+            "c.bairro AS bairro, c.cep AS cep, c.cidade AS cidade, c.uf AS uf, " +
+            "c.dataNascimento AS dataNascimento, c.rg AS rg, c.unidade.id AS unidadeId FROM Cliente c ";
+
+    @Query(SELECT_LISTAGEM)
+    List<Listagem> listarTodos();
+
+    @Query(SELECT_LISTAGEM + "WHERE c.unidade.id IN :unidadesIds")
+    List<Listagem> listarPorUnidades(@Param("unidadesIds") Collection<Long> unidadesIds);
+
+    /**
+     * Pares (cliente, unidade adicional) dos clientes informados
+     */
+    @Query("SELECT c.id AS id, u.id AS vinculadoId FROM Cliente c JOIN c.unidades u WHERE c.id IN :ids")
+    List<Vinculo> listarUnidadesAdicionais(@Param("ids") Collection<Long> ids);
+
+    interface Listagem {
+        Long getId();
+        String getNome();
+        String getCpfCnpj();
+        String getEmail();
+        String getTelefone();
+        String getEndereco();
+        String getNumero();
+        String getComplemento();
+        String getBairro();
+        String getCep();
+        String getCidade();
+        String getUf();
+        LocalDate getDataNascimento();
+        String getRg();
+        Long getUnidadeId();
+    }
+
+    interface Vinculo {
+        Long getId();
+        Long getVinculadoId();
+    }
 }
 
@@ -0,0 +1,27 @@
+package br.com.agendainteligente.repository;
+
+import br.com.agendainteligente.domain.entity.EventoAgendamento;
+import br.com.agendainteligente.domain.enums.StatusEventoAgendamento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoAgendamentoRepository extends JpaRepository<EventoAgendamento, Long> {
+
+    /**
+     * Próximo lote de eventos pendentes. SKIP LOCKED permite mais de uma instância repassando o outbox.
+     */
+    @Query(value = "SELECT * FROM eventos_agendamento WHERE status = 'PENDENTE' ORDER BY id "
+            + "LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EventoAgendamento> findPendentesParaProcessar(@Param("limite") int limite);
+
+    @Modifying
+    @Query("DELETE FROM EventoAgendamento e WHERE e.status = :status AND e.dataProcessamento < :limite")
+    int removerAntes(@Param("status") StatusEventoAgendamento status, @Param("limite") LocalDateTime limite);
+}
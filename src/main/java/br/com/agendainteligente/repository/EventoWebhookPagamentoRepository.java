@@ -0,0 +1,24 @@
+package br.com.agendainteligente.repository;
+
+import br.com.agendainteligente.domain.entity.EventoWebhookPagamento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoWebhookPagamentoRepository extends JpaRepository<EventoWebhookPagamento, Long> {
+
+    /**
+     * Próximo lote de eventos pendentes, sem os que aguardam nova tentativa. SKIP LOCKED permite mais de uma
+     * instância consumindo a fila.
+     */
+    @Query(value = "SELECT * FROM eventos_webhook_pagamento WHERE status = 'PENDENTE' "
+            + "AND (proxima_tentativa IS NULL OR proxima_tentativa <= :agora) ORDER BY id "
+            + "LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EventoWebhookPagamento> findPendentesParaProcessar(@Param("agora") LocalDateTime agora,
+                                                            @Param("limite") int limite);
+}
@@ -1,14 +1,40 @@
 package br.com.agendainteligente.repository;
 
 import br.com.agendainteligente.domain.entity.NotaFiscal;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface NotaFiscalRepository extends JpaRepository<NotaFiscal, Long> {
     Optional<NotaFiscal> findByAgendamentoId(Long agendamentoId);
     Optional<NotaFiscal> findByNumeroNfse(String numeroNfse);
-}
 
+    @Query("SELECT n.agendamento.id FROM NotaFiscal n WHERE n.agendamento.id IN :agendamentoIds")
+    Set<Long> findAgendamentoIdsComNota(@Param("agendamentoIds") Collection<Long> agendamentoIds);
+
+    /**
+     * Reserva a emissão da nota do agendamento gravando-a em PROCESSANDO; retorna 0 se o agendamento já tem nota.
+     * Roda e confirma em transação própria, antes da chamada à prefeitura: uma segunda emissão concorrente
+     * encontra a nota já gravada em vez de esperar o fim da primeira. O id vem da mesma sequência do Hibernate
+     * (cada chamada consome um bloco do pooled-lo, sem colidir com os ids alocados pela aplicação).
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notas_fiscais"))
+    @Query(value = "INSERT INTO notas_fiscais (id, agendamento_id, status, data_criacao, data_atualizacao) "
+            + "VALUES (nextval('notas_fiscais_id_seq'), :agendamentoId, 'PROCESSANDO', now(), now()) "
+            + "ON CONFLICT (agendamento_id) DO NOTHING", nativeQuery = true)
+    int reservarEmissao(@Param("agendamentoId") Long agendamentoId);
+}
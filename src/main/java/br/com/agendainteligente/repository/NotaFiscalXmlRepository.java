@@ -0,0 +1,21 @@
+package br.com.agendainteligente.repository;
+
+import br.com.agendainteligente.domain.entity.NotaFiscalXml;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotaFiscalXmlRepository extends JpaRepository<NotaFiscalXml, Long> {
+
+    /**
+     * Próximo lote de XMLs ainda sem compactação (copiados pela V31). SKIP LOCKED permite mais de uma
+     * instância recompactando ao mesmo tempo.
+     */
+    @Query(value = "SELECT * FROM notas_fiscais_xml WHERE compressao = 'NENHUMA' ORDER BY nota_fiscal_id "
+            + "LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotaFiscalXml> findNaoCompactadosParaRecompactar(@Param("limite") int limite);
+}
@@ -2,13 +2,20 @@ package br.com.agendainteligente.repository;
 
 import br.com.agendainteligente.domain.entity.Pagamento;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PagamentoRepository extends JpaRepository<Pagamento, Long> {
     Optional<Pagamento> findByAgendamentoId(Long agendamentoId);
     Optional<Pagamento> findByIdTransacaoGateway(String idTransacaoGateway);
+
+    @Query("SELECT p FROM Pagamento p JOIN FETCH p.agendamento WHERE p.idTransacaoGateway IN :ids")
+    List<Pagamento> findByIdTransacaoGatewayIn(@Param("ids") Collection<String> ids);
 }
 
@@ -21,4 +21,13 @@ public interface ReclamacaoRepository extends JpaRepository<Reclamacao, Long> {
 
     @Query("SELECT COUNT(r) FROM Reclamacao r WHERE r.unidadeId = :unidadeId AND r.lida = false")
     Long countByUnidadeIdAndLidaFalse(Long unidadeId);
+
+    @Query("SELECT r.unidadeId AS unidadeId, COUNT(r) AS quantidade FROM Reclamacao r " +
+           "WHERE r.lida = false AND r.unidadeId IS NOT NULL GROUP BY r.unidadeId")
+    List<ContagemUnidade> contarNaoLidasPorUnidade();
+
+    interface ContagemUnidade {
+        Long getUnidadeId();
+        Long getQuantidade();
+    }
 }
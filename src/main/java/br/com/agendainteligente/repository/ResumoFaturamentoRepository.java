@@ -0,0 +1,96 @@
+package br.com.agendainteligente.repository;
+
+import br.com.agendainteligente.domain.entity.ResumoFaturamento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ResumoFaturamentoRepository extends JpaRepository<ResumoFaturamento, Long> {
+
+    /**
+     * Soma as variações ao resumo do dia no próprio banco (sem ler e regravar), para que finalizações
+     * simultâneas do mesmo atendente não se sobrescrevam. Retorna 0 se o resumo do dia ainda não existe.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ResumoFaturamento r SET " +
+           "r.quantidadeConcluidos = r.quantidadeConcluidos + :concluidos, " +
+           "r.quantidadeCancelados = r.quantidadeCancelados + :cancelados, " +
+           "r.valorTotal = r.valorTotal + :valorTotal, " +
+           "r.valorFinal = r.valorFinal + :valorFinal, " +
+           "r.valorComissao = r.valorComissao + :valorComissao, " +
+           "r.dataAtualizacao = :agora " +
+           "WHERE r.unidadeId = :unidadeId AND r.data = :data AND r.atendenteId = :atendenteId")
+    int acumular(@Param("unidadeId") Long unidadeId,
+                 @Param("atendenteId") Long atendenteId,
+                 @Param("data") LocalDate data,
+                 @Param("concluidos") int concluidos,
+                 @Param("cancelados") int cancelados,
+                 @Param("valorTotal") BigDecimal valorTotal,
+                 @Param("valorFinal") BigDecimal valorFinal,
+                 @Param("valorComissao") BigDecimal valorComissao,
+                 @Param("agora") LocalDateTime agora);
+
+    /**
+     * Impede reconstruções simultâneas (várias instâncias); liberado no fim da transação
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('resumos_faturamento'))", nativeQuery = true)
+    boolean bloquearReconstrucao();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumos_faturamento"))
+    @Query(value = "DELETE FROM resumos_faturamento WHERE data >= :inicio", nativeQuery = true)
+    int removerAPartirDe(@Param("inicio") LocalDate inicio);
+
+    /**
+     * Recalcula os resumos a partir da data com base nos agendamentos, como na carga inicial (V39)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumos_faturamento"))
+    @Query(value = "INSERT INTO resumos_faturamento (unidade_id, atendente_id, data, quantidade_concluidos, " +
+           "quantidade_cancelados, valor_total, valor_final, valor_comissao, data_atualizacao) " +
+           "SELECT unidade_id, atendente_id, CAST(data_hora_inicio AS DATE), " +
+           "COUNT(*) FILTER (WHERE status = 'CONCLUIDO'), " +
+           "COUNT(*) FILTER (WHERE status = 'CANCELADO'), " +
+           "COALESCE(SUM(valor_total) FILTER (WHERE status = 'CONCLUIDO'), 0), " +
+           "COALESCE(SUM(COALESCE(valor_final, valor_total)) FILTER (WHERE status = 'CONCLUIDO'), 0), " +
+           "COALESCE(SUM(valor_comissao) FILTER (WHERE status = 'CONCLUIDO'), 0), " +
+           ":agora " +
+           "FROM agendamentos " +
+           "WHERE status IN ('CONCLUIDO', 'CANCELADO') AND data_hora_inicio >= :inicio " +
+           "GROUP BY unidade_id, atendente_id, CAST(data_hora_inicio AS DATE)", nativeQuery = true)
+    int recalcularAPartirDe(@Param("inicio") LocalDateTime inicio, @Param("agora") LocalDateTime agora);
+
+    /**
+     * Totais por atendente da unidade no período [inicio, fim)
+     */
+    @Query("SELECT r.atendenteId AS atendenteId, us.nome AS nomeAtendente, " +
+           "SUM(r.quantidadeConcluidos) AS quantidadeConcluidos, SUM(r.quantidadeCancelados) AS quantidadeCancelados, " +
+           "SUM(r.valorTotal) AS valorTotal, SUM(r.valorFinal) AS valorFinal, SUM(r.valorComissao) AS valorComissao " +
+           "FROM ResumoFaturamento r JOIN Atendente a ON a.id = r.atendenteId JOIN a.usuario us " +
+           "WHERE r.unidadeId = :unidadeId AND r.data >= :inicio AND r.data < :fim " +
+           "GROUP BY r.atendenteId, us.nome ORDER BY us.nome")
+    List<TotalAtendente> totalizarPorAtendente(@Param("unidadeId") Long unidadeId,
+                                               @Param("inicio") LocalDate inicio,
+                                               @Param("fim") LocalDate fim);
+
+    interface TotalAtendente {
+        Long getAtendenteId();
+        String getNomeAtendente();
+        Long getQuantidadeConcluidos();
+        Long getQuantidadeCancelados();
+        BigDecimal getValorTotal();
+        BigDecimal getValorFinal();
+        BigDecimal getValorComissao();
+    }
+}
@@ -1,9 +1,13 @@
 package br.com.agendainteligente.repository;
 
 import br.com.agendainteligente.domain.entity.Servico;
+import br.com.agendainteligente.dto.ServicoDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,5 +15,24 @@ public interface ServicoRepository extends JpaRepository<Servico, Long> {
     List<Servico> findByAtivoTrue();
     List<Servico> findByUnidadeId(Long unidadeId);
     List<Servico> findByUnidadeIdAndAtivoTrue(Long unidadeId);
-}
 
+    // Listagens: o DTO é montado na consulta, sem carregar entidades no contexto de persistência
+
+    String SELECT_DTO = "SELECT new br.com.agendainteligente.dto.ServicoDTO(s.id, s.nome, s.descricao, s.valor, " +
+            "s.duracaoMinutos, s.unidade.id, s.ativo) FROM Servico s ";
+
+    @Query(SELECT_DTO)
+    List<ServicoDTO> listarDTOs();
+
+    @Query(SELECT_DTO + "WHERE s.unidade.empresa.id IN :empresaIds")
+    List<ServicoDTO> listarDTOsPorEmpresas(@Param("empresaIds") Collection<Long> empresaIds);
+
+    @Query(SELECT_DTO + "WHERE s.unidade.id IN :unidadesIds")
+    List<ServicoDTO> listarDTOsPorUnidades(@Param("unidadesIds") Collection<Long> unidadesIds);
+
+    @Query(SELECT_DTO + "WHERE s.unidade.id = :unidadeId")
+    List<ServicoDTO> listarDTOsPorUnidade(@Param("unidadeId") Long unidadeId);
+
+    @Query(SELECT_DTO + "WHERE s.unidade.id = :unidadeId AND s.ativo = true")
+    List<ServicoDTO> listarDTOsAtivosPorUnidade(@Param("unidadeId") Long unidadeId);
+}
@@ -0,0 +1,206 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stream (SSE) das alterações de agendamentos por unidade, para as telas de agenda não precisarem
+ * consultar /api/agendamentos periodicamente.
+ *
+ * Os {@link AgendamentoEvent} repassados pelo outbox são publicados no canal Redis {@value #CANAL}, e todas
+ * as instâncias entregam aos assinantes conectados nelas. Com agenda.eventos.redis=false (ou o Redis fora)
+ * a entrega é só local. Cada assinante tem uma fila própria, esvaziada por uma virtual thread: um
+ * cliente lento não atrasa os demais e quem acumula mais de agenda.eventos.fila-maxima eventos é
+ * desconectado (ao reconectar, recarrega a agenda).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AgendaEventosService implements OuvinteEventosAgendamento {
+
+    public static final String CANAL = "agenda:eventos";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Set<Assinatura>> assinantesPorUnidade = new ConcurrentHashMap<>();
+    private final Set<Assinatura> assinaturas = ConcurrentHashMap.newKeySet();
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${agenda.eventos.redis:true}")
+    private boolean distribuirViaRedis;
+
+    @Value("${agenda.eventos.timeout:1800000}")
+    private long timeout;
+
+    @Value("${agenda.eventos.fila-maxima:256}")
+    private int filaMaxima;
+
+    /**
+     * Registra um assinante das unidades; com atendenteId recebe só os eventos desse atendente
+     */
+    public SseEmitter assinar(Collection<Long> unidadesIds, Long atendenteId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Assinatura assinatura = new Assinatura(emitter, Set.copyOf(unidadesIds), atendenteId,
+                new LinkedBlockingQueue<>(filaMaxima));
+        Runnable remover = () -> remover(assinatura);
+        emitter.onCompletion(remover);
+        emitter.onTimeout(remover);
+        emitter.onError(e -> remover.run());
+
+        assinaturas.add(assinatura);
+        assinatura.unidadesIds().forEach(id -> assinantesPorUnidade.compute(id, (k, assinantes) -> {
+            Set<Assinatura> conjunto = assinantes != null ? assinantes : ConcurrentHashMap.newKeySet();
+            conjunto.add(assinatura);
+            return conjunto;
+        }));
+        enfileirar(assinatura, SseEmitter.event().name("conectado").data(assinatura.unidadesIds()));
+        log.debug("Assinatura de eventos da agenda aberta. Unidades: {}", assinatura.unidadesIds());
+        return emitter;
+    }
+
+    /**
+     * Melhor esforço: uma falha aqui não faz o outbox repetir o lote; quem perde eventos recarrega a agenda
+     */
+    @Override
+    public void processar(List<AgendamentoEvent> eventos) {
+        for (AgendamentoEvent evento : eventos) {
+            if (!distribuirViaRedis) {
+                entregar(evento);
+                continue;
+            }
+            try {
+                stringRedisTemplate.convertAndSend(CANAL, objectMapper.writeValueAsString(evento));
+            } catch (DataAccessException | JsonProcessingException e) {
+                log.warn("Não foi possível publicar o evento do agendamento {} no Redis. Entregando localmente: {}",
+                        evento.getAgendamentoId(), e.getMessage());
+                entregar(evento);
+            }
+        }
+    }
+
+    /**
+     * Mensagem recebida do canal Redis
+     */
+    public void receber(String mensagem) {
+        try {
+            entregar(objectMapper.readValue(mensagem, AgendamentoEvent.class));
+        } catch (JsonProcessingException e) {
+            log.error("Evento de agenda inválido recebido do Redis: {}", mensagem, e);
+        }
+    }
+
+    public void entregar(AgendamentoEvent evento) {
+        Set<Assinatura> assinantes = assinantesPorUnidade.get(evento.getUnidadeId());
+        if (assinantes == null) {
+            return;
+        }
+        for (Assinatura assinatura : assinantes) {
+            if (assinatura.atendenteId() == null || assinatura.atendenteId().equals(evento.getAtendenteId())) {
+                enfileirar(assinatura, SseEmitter.event()
+                        .name(evento.getTipo().name())
+                        .id(String.valueOf(evento.getAgendamentoId()))
+                        .data(evento));
+            }
+        }
+    }
+
+    /**
+     * Comentário periódico para proxies e balanceadores não encerrarem conexões ociosas
+     */
+    @Scheduled(fixedDelayString = "${agenda.eventos.intervalo-heartbeat:25000}")
+    public void enviarHeartbeat() {
+        assinaturas.forEach(assinatura -> enfileirar(assinatura, SseEmitter.event().comment("ping")));
+    }
+
+    public int quantidadeAssinantes() {
+        return assinaturas.size();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        assinaturas.forEach(assinatura -> assinatura.emitter().complete());
+        envios.shutdown();
+    }
+
+    private void enfileirar(Assinatura assinatura, SseEmitter.SseEventBuilder evento) {
+        if (!assinatura.pendentes().offer(evento)) {
+            log.warn("Assinante de eventos da agenda não acompanha o ritmo dos eventos. Desconectando");
+            remover(assinatura);
+            assinatura.emitter().complete();
+            return;
+        }
+        if (assinatura.enviando().compareAndSet(false, true)) {
+            envios.execute(() -> drenar(assinatura));
+        }
+    }
+
+    private void drenar(Assinatura assinatura) {
+        try {
+            do {
+                SseEmitter.SseEventBuilder evento;
+                while ((evento = assinatura.pendentes().poll()) != null) {
+                    assinatura.emitter().send(evento);
+                }
+                assinatura.enviando().set(false);
+                // Um evento pode ter entrado entre o último poll e a liberação
+            } while (!assinatura.pendentes().isEmpty() && assinatura.enviando().compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Assinante de eventos da agenda desconectado: {}", e.getMessage());
+            remover(assinatura);
+        }
+    }
+
+    private void remover(Assinatura assinatura) {
+        if (!assinaturas.remove(assinatura)) {
+            return;
+        }
+        assinatura.unidadesIds().forEach(id -> assinantesPorUnidade.computeIfPresent(id, (k, assinantes) -> {
+            assinantes.remove(assinatura);
+            return assinantes.isEmpty() ? null : assinantes;
+        }));
+        assinatura.pendentes().clear();
+    }
+
+    private record Assinatura(SseEmitter emitter, Set<Long> unidadesIds, Long atendenteId,
+                              BlockingQueue<SseEmitter.SseEventBuilder> pendentes, AtomicBoolean enviando) {
+
+        Assinatura(SseEmitter emitter, Set<Long> unidadesIds, Long atendenteId,
+                   BlockingQueue<SseEmitter.SseEventBuilder> pendentes) {
+            this(emitter, unidadesIds, atendenteId, pendentes, new AtomicBoolean());
+        }
+
+        // Identidade por instância: duas conexões com as mesmas unidades são assinaturas diferentes
+        @Override
+        public boolean equals(Object outro) {
+            return this == outro;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -74,22 +75,28 @@ public class AgendamentoRecorrenteService {
 
         log.info("Criando {} agendamentos recorrentes para série {}", datas.size(), serieId);
 
+        // Conflitos de todo o período em uma consulta: consultas dentro do loop forçariam o flush de cada
+        // INSERT pendente e desfariam o envio em lote
+        List<AgendamentoRepository.Intervalo> ocupados = agendamentoRepository.listarOcupados(
+                atendente.getId(),
+                LocalDateTime.of(Collections.min(datas), horario),
+                LocalDateTime.of(Collections.max(datas), horario).plusMinutes(duracaoTotal));
+
         List<Agendamento> agendamentosCriados = new ArrayList<>();
+        List<AgendamentoServico> servicosCriados = new ArrayList<>();
         Agendamento agendamentoOriginal = null;
 
-        for (int i = 0; i < datas.size(); i++) {
-            LocalDate data = datas.get(i);
+        for (LocalDate data : datas) {
             LocalDateTime dataHoraInicioAtual = LocalDateTime.of(data, horario);
             LocalDateTime dataHoraFimAtual = dataHoraInicioAtual.plusMinutes(duracaoTotal);
 
             // Verifica conflito de horário
-            if (agendamentoRepository.findConflitoHorario(
-                    atendente.getId(), dataHoraInicioAtual, dataHoraFimAtual).isPresent()) {
+            if (temConflito(ocupados, dataHoraInicioAtual, dataHoraFimAtual)) {
                 log.warn("Conflito de horário detectado para data {} - pulando", data);
                 continue; // Pula este agendamento se houver conflito
             }
 
-            // Cria agendamento
+            // Cria agendamento; o primeiro criado é o original da série e os demais apontam para ele
             Agendamento agendamento = Agendamento.builder()
                     .cliente(cliente)
                     .unidade(unidade)
@@ -101,36 +108,35 @@ public class AgendamentoRecorrenteService {
                     .status(StatusAgendamento.AGENDADO)
                     .agendamentoRecorrente(true)
                     .serieRecorrenciaId(serieId)
-                    .agendamentoOriginalId(i == 0 ? null : (agendamentoOriginal != null ? agendamentoOriginal.getId() : null))
+                    .agendamentoOriginalId(agendamentoOriginal != null ? agendamentoOriginal.getId() : null)
                     .build();
 
+            // O id vem do bloco reservado na sequence; o INSERT fica para o flush, junto com os demais
             agendamento = agendamentoRepository.save(agendamento);
-
-            // Se for o primeiro, salva como original
-            if (i == 0) {
+            if (agendamentoOriginal == null) {
                 agendamentoOriginal = agendamento;
-                // Atualiza o original para ter referência a si mesmo
-                agendamento.setAgendamentoOriginalId(null);
-                agendamento = agendamentoRepository.save(agendamento);
-            } else {
-                // Atualiza para referenciar o original
-                agendamento.setAgendamentoOriginalId(agendamentoOriginal.getId());
-                agendamento = agendamentoRepository.save(agendamento);
             }
 
             // Cria serviços do agendamento
             List<AgendamentoServico> agendamentoServicos = criarAgendamentoServicos(
                     agendamento, servicos, servicosDTO);
-            agendamentoServicoRepository.saveAll(agendamentoServicos);
             agendamento.setServicos(agendamentoServicos);
+            servicosCriados.addAll(agendamentoServicos);
 
             agendamentosCriados.add(agendamento);
         }
+        agendamentoServicoRepository.saveAll(servicosCriados);
 
         log.info("Criados {} agendamentos recorrentes da série {}", agendamentosCriados.size(), serieId);
         return agendamentosCriados;
     }
 
+    private static boolean temConflito(List<AgendamentoRepository.Intervalo> ocupados,
+                                       LocalDateTime inicio, LocalDateTime fim) {
+        return ocupados.stream().anyMatch(ocupado -> !ocupado.getDataHoraInicio().isAfter(fim)
+                && !inicio.isAfter(ocupado.getDataHoraFim()));
+    }
+
     /**
      * Calcula todas as datas baseado na configuração de recorrência
      */
@@ -8,9 +8,11 @@ import br.com.agendainteligente.domain.entity.Servico;
 import br.com.agendainteligente.domain.entity.Unidade;
 import br.com.agendainteligente.domain.entity.Usuario;
 import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
 import br.com.agendainteligente.dto.AgendamentoDTO;
 import br.com.agendainteligente.dto.AgendamentoServicoDTO;
 import br.com.agendainteligente.dto.FinalizarAgendamentoDTO;
+import br.com.agendainteligente.dto.PaginaDTO;
 import br.com.agendainteligente.dto.RecorrenciaDTO;
 import br.com.agendainteligente.exception.BusinessException;
 import br.com.agendainteligente.exception.ResourceNotFoundException;
@@ -24,17 +26,25 @@ import br.com.agendainteligente.repository.GerenteRepository;
 import br.com.agendainteligente.repository.ServicoRepository;
 import br.com.agendainteligente.repository.UnidadeRepository;
 import br.com.agendainteligente.repository.UsuarioRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -54,32 +64,122 @@ public class AgendamentoService {
     private final UsuarioRepository usuarioRepository;
     private final AgendamentoMapper agendamentoMapper;
     private final AgendamentoServicoMapper agendamentoServicoMapper;
-    private final NotaFiscalService notaFiscalService;
+    private final CatalogoCache catalogoCache;
+    private final ResumoFaturamentoService resumoFaturamentoService;
+    private final PublicadorEventosAgendamento publicadorEventosAgendamento;
+    private final AgendaEventosService agendaEventosService;
+    private final CacheEntidades cacheEntidades;
+
+    private static final int TAMANHO_PAGINA_CLIENTE = 20;
+    private static final int TAMANHO_MAXIMO_PAGINA_CLIENTE = 50;
 
     @Transactional(readOnly = true)
     public List<AgendamentoDTO> listarTodos() {
         log.debug("Listando agendamentos com filtro de permissão");
         
-        List<Agendamento> agendamentos = filtrarPorPermissao();
-        
+        List<AgendamentoRepository.Listagem> agendamentos = filtrarPorPermissao();
+        if (agendamentos.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, List<AgendamentoServicoDTO>> servicos = servicosPorAgendamento(agendamentos);
         return agendamentos.stream()
                 .map(agendamento -> {
-                    // Força carregamento dos serviços
-                    if (agendamento.getServicos() != null) {
-                        agendamento.getServicos().size();
-                    }
                     AgendamentoDTO dto = agendamentoMapper.toDTO(agendamento);
-                    if (agendamento.getServicos() != null && !agendamento.getServicos().isEmpty()) {
-                        dto.setServicos(agendamento.getServicos().stream()
-                                .map(agendamentoServicoMapper::toDTO)
-                                .collect(Collectors.toList()));
-                    }
+                    dto.setServicos(servicos.getOrDefault(agendamento.getId(), new ArrayList<>()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Linha do tempo da área do cliente: próximos agendamentos e depois os anteriores, com serviços e situação
+     * de pagamento e nota fiscal. A primeira página no tamanho padrão fica em cache por cliente e é removida
+     * sempre que um agendamento, pagamento ou nota fiscal do cliente muda. Como a divisão entre próximos e
+     * anteriores depende do horário atual, a página em cache só vale até o início do primeiro agendamento
+     * próximo; depois disso é recarregada.
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<AgendamentoDTO> listarDoCliente(Long clienteId, int pagina, Integer tamanho) {
+        int numeroPagina = Math.max(pagina, 0);
+        int tamanhoPagina = tamanho != null
+                ? Math.min(Math.max(tamanho, 1), TAMANHO_MAXIMO_PAGINA_CLIENTE)
+                : TAMANHO_PAGINA_CLIENTE;
+        LocalDateTime agora = LocalDateTime.now();
+
+        if (numeroPagina == 0 && tamanhoPagina == TAMANHO_PAGINA_CLIENTE) {
+            String chave = CatalogoCache.chaveCliente(clienteId);
+            Object emCache = catalogoCache.<Object>obter(CatalogoCache.AGENDAMENTOS_CLIENTE, chave,
+                    () -> carregarLinhaDoTempo(clienteId, agora));
+            if (emCache instanceof LinhaDoTempoCliente linhaDoTempo && linhaDoTempo.valeEm(agora)) {
+                return linhaDoTempo.getPagina();
+            }
+            LinhaDoTempoCliente atualizada = carregarLinhaDoTempo(clienteId, agora);
+            catalogoCache.gravar(CatalogoCache.AGENDAMENTOS_CLIENTE, chave, atualizada);
+            return atualizada.getPagina();
+        }
+        return buscarLinhaDoTempo(clienteId, agora, numeroPagina, tamanhoPagina);
+    }
+
+    private LinhaDoTempoCliente carregarLinhaDoTempo(Long clienteId, LocalDateTime agora) {
+        PaginaDTO<AgendamentoDTO> pagina = buscarLinhaDoTempo(clienteId, agora, 0, TAMANHO_PAGINA_CLIENTE);
+        // Os próximos vêm primeiro, do mais cedo ao mais tarde: o primeiro é o próximo a virar anterior
+        LocalDateTime validaAte = pagina.getConteudo().stream()
+                .findFirst()
+                .map(AgendamentoDTO::getDataHoraInicio)
+                .filter(inicio -> !inicio.isBefore(agora))
+                .orElse(null);
+        return new LinhaDoTempoCliente(pagina, validaAte);
+    }
+
+    private PaginaDTO<AgendamentoDTO> buscarLinhaDoTempo(Long clienteId, LocalDateTime agora, int pagina, int tamanho) {
+        Page<AgendamentoRepository.ListagemCliente> resultado = agendamentoRepository.listarDoCliente(
+                clienteId, agora, PageRequest.of(pagina, tamanho));
+
+        Map<Long, List<AgendamentoServicoDTO>> servicos = servicosPorAgendamento(resultado.getContent());
+        List<AgendamentoDTO> conteudo = resultado.getContent().stream()
+                .map(agendamento -> {
+                    AgendamentoDTO dto = agendamentoMapper.toDTO(agendamento);
+                    dto.setServicos(servicos.getOrDefault(agendamento.getId(), new ArrayList<>()));
+                    dto.setStatusPagamento(agendamento.getStatusPagamento());
+                    dto.setStatusNotaFiscal(agendamento.getStatusNotaFiscal());
                     return dto;
                 })
                 .collect(Collectors.toList());
+
+        return PaginaDTO.<AgendamentoDTO>builder()
+                .conteudo(conteudo)
+                .pagina(resultado.getNumber())
+                .tamanho(resultado.getSize())
+                .totalElementos(resultado.getTotalElements())
+                .totalPaginas(resultado.getTotalPages())
+                .temProxima(resultado.hasNext())
+                .build();
+    }
+
+    /**
+     * Serviços de todos os agendamentos da listagem em uma consulta
+     */
+    private Map<Long, List<AgendamentoServicoDTO>> servicosPorAgendamento(
+            List<? extends AgendamentoRepository.Listagem> agendamentos) {
+        if (agendamentos.isEmpty()) {
+            return Map.of();
+        }
+        return agendamentoServicoRepository.listarPorAgendamentos(
+                        agendamentos.stream().map(AgendamentoRepository.Listagem::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(AgendamentoServicoRepository.Listagem::getAgendamentoId,
+                        Collectors.mapping(agendamentoServicoMapper::toDTO, Collectors.toList())));
+    }
+
+    /**
+     * Remove do cache a linha do tempo do cliente do agendamento (após o commit)
+     */
+    private void removerLinhaDoTempo(Long clienteId) {
+        catalogoCache.remover(CatalogoCache.AGENDAMENTOS_CLIENTE, CatalogoCache.chaveCliente(clienteId));
     }
     
-    private List<Agendamento> filtrarPorPermissao() {
+    private List<AgendamentoRepository.Listagem> filtrarPorPermissao() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated()) {
             return new ArrayList<>();
@@ -94,7 +194,7 @@ public class AgendamentoService {
         switch (perfil) {
             case ADMIN:
                 log.debug("ADMIN: listando todos os agendamentos");
-                return agendamentoRepository.findAll();
+                return agendamentoRepository.listarTodos();
                 
             case GERENTE:
                 log.debug("GERENTE: listando agendamentos das unidades do gerente");
@@ -137,15 +237,16 @@ public class AgendamentoService {
                         .collect(Collectors.toList());
                 
                 // Retornar agendamentos de todas as unidades da mesma empresa
-                return agendamentoRepository.findAll().stream()
-                        .filter(a -> unidadesIds.contains(a.getUnidade().getId()))
-                        .collect(Collectors.toList());
+                if (unidadesIds.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                return agendamentoRepository.listarPorUnidades(unidadesIds);
                 
             case PROFISSIONAL:
                 log.debug("PROFISSIONAL: listando apenas agendamentos do próprio atendente");
                 Atendente atendente = atendenteRepository.findByUsuarioId(usuario.getId())
                         .orElseThrow(() -> new BusinessException("Usuário não está vinculado a um atendente"));
-                return agendamentoRepository.findByAtendenteId(atendente.getId());
+                return agendamentoRepository.listarPorAtendente(atendente.getId());
                 
             case CLIENTE:
             default:
@@ -157,28 +258,15 @@ public class AgendamentoService {
     @Transactional(readOnly = true)
     public AgendamentoDTO buscarPorId(Long id) {
         log.debug("Buscando agendamento com id: {}", id);
-        Agendamento agendamento = agendamentoRepository.findById(id)
+        Agendamento agendamento = agendamentoRepository.findComDetalhesById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Agendamento não encontrado com id: " + id));
         
         // Validar permissão para visualizar agendamento
         validarPermissaoVisualizarAgendamento(agendamento);
         
-        // Força carregamento dos serviços
-        if (agendamento.getServicos() != null) {
-            agendamento.getServicos().size();
-        }
-        
-        AgendamentoDTO dto = agendamentoMapper.toDTO(agendamento);
-        
-        // Mapeia serviços manualmente para garantir que estão no DTO
-        if (agendamento.getServicos() != null && !agendamento.getServicos().isEmpty()) {
-            List<AgendamentoServicoDTO> servicosDTO = agendamento.getServicos().stream()
-                    .map(agendamentoServicoMapper::toDTO)
-                    .collect(Collectors.toList());
-            dto.setServicos(servicosDTO);
-        }
-        
-        return dto;
+        // Unidades adicionais do cliente: segunda lista, fora do grafo de busca
+        clienteRepository.carregarUnidades(List.of(agendamento.getCliente().getId()));
+        return agendamentoMapper.toDTO(agendamento);
     }
     
     private void validarPermissaoCriarAgendamento(Long unidadeId, Long atendenteId) {
@@ -367,6 +455,7 @@ public class AgendamentoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Atendente não encontrado"));
         
         validarPermissaoCriarAgendamento(unidade.getId(), atendente.getId());
+        removerLinhaDoTempo(cliente.getId());
         Set<Long> unidadesPermitidas = obterUnidadesIdsPermitidas();
         if (cliente.getUnidade() == null || !unidadesPermitidas.contains(cliente.getUnidade().getId())) {
             throw new BusinessException("Cliente não pertence a uma unidade que você pode acessar");
@@ -385,7 +474,8 @@ public class AgendamentoService {
                 .map(AgendamentoServicoDTO::getServicoId)
                 .collect(Collectors.toList());
         
-        List<Servico> servicos = servicoRepository.findAllById(servicosIds);
+        // Serviços do cache de segundo nível sem SQL; os que faltam em uma única consulta
+        List<Servico> servicos = cacheEntidades.buscarPorIds(Servico.class, servicosIds, servicoRepository);
         if (servicos.size() != servicosIds.size()) {
             throw new ResourceNotFoundException("Um ou mais serviços não foram encontrados");
         }
@@ -412,6 +502,12 @@ public class AgendamentoService {
                 .max()
                 .orElse(30); // Default 30 minutos se não houver
         
+        // Busca de conflitos só olha agendamentos iniciados até DURACAO_MAXIMA antes (ver AgendamentoRepository)
+        if (Duration.ofMinutes(duracaoTotal).compareTo(AgendamentoRepository.DURACAO_MAXIMA) > 0) {
+            throw new BusinessException("Duração do agendamento excede o máximo de "
+                    + AgendamentoRepository.DURACAO_MAXIMA.toHours() + " horas");
+        }
+        
         BigDecimal valorTotal = BigDecimal.ZERO;
         for (AgendamentoServicoDTO servicoDTO : agendamentoDTO.getServicos()) {
             Servico servico = servicos.stream()
@@ -456,6 +552,7 @@ public class AgendamentoService {
                 throw new BusinessException("Não foi possível criar nenhum agendamento recorrente. Verifique conflitos de horário.");
             }
             
+            agendamentosRecorrentes.forEach(a -> publicadorEventosAgendamento.publicar(TipoEventoAgendamento.CRIADO, a));
             log.info("Criados {} agendamentos recorrentes", agendamentosRecorrentes.size());
             return agendamentoMapper.toDTO(agendamentosRecorrentes.get(0)); // Retorna o primeiro
         }
@@ -501,6 +598,7 @@ public class AgendamentoService {
         
         agendamentoServicoRepository.saveAll(agendamentoServicos);
         agendamento.setServicos(agendamentoServicos);
+        publicadorEventosAgendamento.publicar(TipoEventoAgendamento.CRIADO, agendamento);
         
         log.info("Agendamento criado com sucesso. ID: {}, Serviços: {}, Valor Total: {}", 
                 agendamento.getId(), agendamentoServicos.size(), valorTotal);
@@ -518,8 +616,16 @@ public class AgendamentoService {
         // Validar permissão para atualizar agendamento
         validarPermissaoVisualizarAgendamento(agendamento);
         
+        StatusAgendamento statusAnterior = agendamento.getStatus();
         agendamento.setStatus(novoStatus);
+        if (novoStatus == StatusAgendamento.CONCLUIDO && statusAnterior != StatusAgendamento.CONCLUIDO) {
+            BigDecimal valor = agendamento.getValorFinal() != null ? agendamento.getValorFinal() : agendamento.getValorTotal();
+            agendamento.setValorComissao(resumoFaturamentoService.calcularComissao(agendamento.getAtendente(), valor));
+        }
         agendamento = agendamentoRepository.save(agendamento);
+        resumoFaturamentoService.registrarMudancaStatus(agendamento, statusAnterior);
+        publicadorEventosAgendamento.publicar(TipoEventoAgendamento.STATUS_ALTERADO, agendamento);
+        removerLinhaDoTempo(agendamento.getCliente().getId());
         log.info("Status do agendamento atualizado. ID: {}, Status: {}", id, novoStatus);
         return agendamentoMapper.toDTO(agendamento);
     }
@@ -542,8 +648,12 @@ public class AgendamentoService {
             throw new BusinessException("Não é possível cancelar um agendamento concluído");
         }
         
+        StatusAgendamento statusAnterior = agendamento.getStatus();
         agendamento.setStatus(StatusAgendamento.CANCELADO);
         agendamentoRepository.save(agendamento);
+        resumoFaturamentoService.registrarMudancaStatus(agendamento, statusAnterior);
+        publicadorEventosAgendamento.publicar(TipoEventoAgendamento.CANCELADO, agendamento);
+        removerLinhaDoTempo(agendamento.getCliente().getId());
         log.info("Agendamento cancelado com sucesso. ID: {}", id);
     }
 
@@ -570,16 +680,62 @@ public class AgendamentoService {
             throw new BusinessException("Valor final deve ser maior que zero");
         }
         
+        StatusAgendamento statusAnterior = agendamento.getStatus();
         agendamento.setStatus(StatusAgendamento.CONCLUIDO);
         agendamento.setValorFinal(valorFinal);
+        agendamento.setValorComissao(resumoFaturamentoService.calcularComissao(agendamento.getAtendente(), valorFinal));
         agendamento = agendamentoRepository.save(agendamento);
+        resumoFaturamentoService.registrarMudancaStatus(agendamento, statusAnterior);
+        publicadorEventosAgendamento.publicar(TipoEventoAgendamento.CONCLUIDO, agendamento);
+        removerLinhaDoTempo(agendamento.getCliente().getId());
         
         log.info("Agendamento finalizado com sucesso. ID: {}, Valor: {}", id, valorFinal);
         
-        // Emite nota fiscal automaticamente
-        notaFiscalService.emitirNotaFiscal(agendamento.getId());
-        
         return agendamentoMapper.toDTO(agendamento);
     }
-}
 
+    /**
+     * Abre o stream de alterações da agenda das unidades que o usuário pode ver (ou só da unidade
+     * informada). PROFISSIONAL recebe apenas os eventos do próprio atendente.
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter assinarEventos(Long unidadeId) {
+        Set<Long> unidadesIds = obterUnidadesIdsPermitidas();
+        if (unidadeId != null) {
+            if (!unidadesIds.contains(unidadeId)) {
+                throw new BusinessException("Você não tem permissão para acessar esta unidade");
+            }
+            unidadesIds = Set.of(unidadeId);
+        }
+        if (unidadesIds.isEmpty()) {
+            throw new BusinessException("Nenhuma unidade disponível para acompanhar");
+        }
+
+        Long atendenteId = null;
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Usuario usuario = usuarioRepository.findByEmail(auth.getName())
+                .orElseThrow(() -> new BusinessException("Usuário não encontrado"));
+        if (usuario.getPerfil() == Usuario.PerfilUsuario.PROFISSIONAL) {
+            atendenteId = atendenteRepository.findByUsuarioId(usuario.getId())
+                    .map(Atendente::getId)
+                    .orElseThrow(() -> new BusinessException("Usuário não está vinculado a um atendente"));
+        }
+        return agendaEventosService.assinar(unidadesIds, atendenteId);
+    }
+
+    /**
+     * Primeira página da linha do tempo em cache. Sem agendamentos próximos (validaAte nulo) a ordem não muda
+     * com o passar do tempo.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LinhaDoTempoCliente {
+        private PaginaDTO<AgendamentoDTO> pagina;
+        private LocalDateTime validaAte;
+
+        boolean valeEm(LocalDateTime agora) {
+            return validaAte == null || agora.isBefore(validaAte);
+        }
+    }
+}
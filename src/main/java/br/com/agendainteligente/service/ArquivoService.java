@@ -0,0 +1,167 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Arquivo;
+import br.com.agendainteligente.exception.BusinessException;
+import br.com.agendainteligente.exception.ResourceNotFoundException;
+import br.com.agendainteligente.repository.ArquivoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Armazena arquivos binários endereçados pelo SHA-256 do conteúdo e monta a URL pública de download.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArquivoService {
+
+    private static final String CAMINHO_DOWNLOAD = "/api/publico/arquivos/";
+
+    private static final String PREFIXO_DATA_URI = "data:";
+    private static final String MARCADOR_BASE64 = ";base64,";
+
+    /**
+     * Formatos aceitos no upload (nome do formato no ImageIO -> content type servido). Só imagens raster:
+     * SVG e outros formatos com script não são aceitos, já que os arquivos são servidos pela origem da API.
+     * WebP depende de um plugin do ImageIO no classpath; sem ele, não há leitor e o upload é recusado.
+     */
+    public static final Map<String, String> FORMATOS_IMAGEM = Map.of(
+            "png", "image/png",
+            "jpeg", "image/jpeg",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    private final ArquivoRepository arquivoRepository;
+
+    @Value("${arquivos.tamanho-maximo:5242880}")
+    private int tamanhoMaximo;
+
+    /**
+     * Grava o conteúdo (se ainda não existir) e devolve o hash que o identifica
+     */
+    @Transactional
+    public String salvar(byte[] conteudo, String contentType) {
+        String hash = calcularHash(conteudo);
+        if (!arquivoRepository.existsById(hash)) {
+            arquivoRepository.save(Arquivo.builder()
+                    .hash(hash)
+                    .contentType(contentType)
+                    .tamanho(conteudo.length)
+                    .conteudo(conteudo)
+                    .build());
+            log.debug("Arquivo armazenado. Hash: {}, {} bytes", hash, conteudo.length);
+        }
+        return hash;
+    }
+
+    /**
+     * Grava uma imagem enviada como data URI (data:image/png;base64,...). O content type gravado é o do formato
+     * detectado na decodificação, não o declarado no data URI.
+     */
+    @Transactional
+    public String salvarDataUri(String dataUri) {
+        if (!isDataUri(dataUri)) {
+            throw new BusinessException("Imagem deve ser enviada como data URI em base64");
+        }
+        int marcador = dataUri.indexOf(MARCADOR_BASE64);
+        byte[] conteudo;
+        try {
+            conteudo = Base64.getMimeDecoder().decode(dataUri.substring(marcador + MARCADOR_BASE64.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Imagem em base64 inválida");
+        }
+        if (conteudo.length > tamanhoMaximo) {
+            throw new BusinessException("Arquivo excede o tamanho máximo de " + tamanhoMaximo / 1024 + " KB");
+        }
+        String contentType = detectarImagem(conteudo)
+                .orElseThrow(() -> new BusinessException("Imagem deve estar em PNG, JPEG, GIF ou WebP"));
+        return salvar(conteudo, contentType);
+    }
+
+    @Transactional(readOnly = true)
+    public Arquivo buscar(String hash) {
+        return arquivoRepository.findById(hash)
+                .orElseThrow(() -> new ResourceNotFoundException("Arquivo não encontrado"));
+    }
+
+    /**
+     * URL absoluta de download quando chamada dentro de uma requisição (front-end e app rodam em outra origem)
+     */
+    public String url(String hash) {
+        return url(hash, null);
+    }
+
+    /**
+     * URL da miniatura com a largura informada (ver {@link ImageCompressionService#LARGURAS})
+     */
+    public String url(String hash, Integer largura) {
+        if (hash == null) {
+            return null;
+        }
+        String caminho = CAMINHO_DOWNLOAD + hash + (largura != null ? "?largura=" + largura : "");
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return caminho;
+        }
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path(caminho)
+                .toUriString();
+    }
+
+    public static boolean isDataUri(String valor) {
+        return valor != null && valor.startsWith(PREFIXO_DATA_URI) && valor.contains(MARCADOR_BASE64);
+    }
+
+    /**
+     * Content type da imagem, se o conteúdo for de um dos {@link #FORMATOS_IMAGEM} e decodificar por completo
+     */
+    static Optional<String> detectarImagem(byte[] conteudo) {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(new ByteArrayInputStream(conteudo))) {
+            Iterator<ImageReader> leitores = ImageIO.getImageReaders(entrada);
+            if (!leitores.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader leitor = leitores.next();
+            try {
+                String contentType = FORMATOS_IMAGEM.get(leitor.getFormatName().toLowerCase(Locale.ROOT));
+                if (contentType == null) {
+                    return Optional.empty();
+                }
+                leitor.setInput(entrada, true, true);
+                leitor.read(0);
+                return Optional.of(contentType);
+            } finally {
+                leitor.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Conteúdo enviado não é uma imagem válida: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static String calcularHash(byte[] conteudo) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
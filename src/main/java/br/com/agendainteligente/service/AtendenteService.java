@@ -20,7 +20,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -35,15 +37,13 @@ public class AtendenteService {
     private final UsuarioRepository usuarioRepository;
     private final ServicoRepository servicoRepository;
     private final AtendenteMapper atendenteMapper;
+    private final CatalogoCache catalogoCache;
     
     private static final Pattern ONLY_DIGITS = Pattern.compile("\\D");
 
     @Transactional(readOnly = true)
     public List<AtendenteDTO> listarTodos() {
-        List<Atendente> atendentes = filtrarPorPermissao();
-        return atendentes.stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return toDTOs(filtrarPorPermissao());
     }
 
     /**
@@ -53,11 +53,11 @@ public class AtendenteService {
      * - PROFISSIONAL: vê apenas atendentes da mesma unidade
      * - CLIENTE: não deve acessar esta funcionalidade
      */
-    private List<Atendente> filtrarPorPermissao() {
+    private List<AtendenteRepository.Listagem> filtrarPorPermissao() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated()) {
             log.warn("Tentativa de listar atendentes sem autenticação");
-            return atendenteRepository.findAll();
+            return atendenteRepository.listarTodos();
         }
 
         String email = auth.getName();
@@ -69,7 +69,7 @@ public class AtendenteService {
         switch (perfil) {
             case ADMIN:
                 log.debug("ADMIN: listando todos os atendentes");
-                return atendenteRepository.findAll();
+                return atendenteRepository.listarTodos();
 
             case GERENTE:
                 log.debug("GERENTE: listando atendentes das unidades da mesma empresa");
@@ -115,12 +115,12 @@ public class AtendenteService {
                         .collect(Collectors.toList());
                 
                 // Retornar atendentes das unidades da mesma empresa
-                List<Atendente> todosAtendentes = atendenteRepository.findAll();
-                List<Atendente> atendentesFiltrados = todosAtendentes.stream()
-                        .filter(a -> unidadesIds.contains(a.getUnidade().getId()))
-                        .collect(Collectors.toList());
+                if (unidadesIds.isEmpty()) {
+                    return List.of();
+                }
+                List<AtendenteRepository.Listagem> atendentesFiltrados = atendenteRepository.listarPorUnidades(unidadesIds);
                 
-                log.debug("Gerente {} pode ver {} atendentes de {} total", email, atendentesFiltrados.size(), todosAtendentes.size());
+                log.debug("Gerente {} pode ver {} atendentes", email, atendentesFiltrados.size());
                 return atendentesFiltrados;
 
             case PROFISSIONAL:
@@ -136,9 +136,7 @@ public class AtendenteService {
                         .collect(Collectors.toList());
                 
                 // Retornar atendentes das mesmas unidades
-                return atendenteRepository.findAll().stream()
-                        .filter(a -> unidadesProfissionalIds.contains(a.getUnidade().getId()))
-                        .collect(Collectors.toList());
+                return atendenteRepository.listarPorUnidades(unidadesProfissionalIds);
 
             case CLIENTE:
             default:
@@ -199,10 +197,9 @@ public class AtendenteService {
 
     @Transactional(readOnly = true)
     public List<AtendenteDTO> listarAtivos() {
-        return filtrarPorPermissao().stream()
-                .filter(Atendente::getAtivo)
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return toDTOs(filtrarPorPermissao().stream()
+                .filter(a -> Boolean.TRUE.equals(a.getAtivo()))
+                .collect(Collectors.toList()));
     }
 
     @Transactional(readOnly = true)
@@ -210,9 +207,8 @@ public class AtendenteService {
         if (!obterUnidadesIdsPermitidas().contains(unidadeId)) {
             return List.of();
         }
-        return atendenteRepository.findByUnidadeIdAndAtivoTrue(unidadeId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return catalogoCache.obter(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(unidadeId), () ->
+                toDTOs(atendenteRepository.listarAtivosPorUnidade(unidadeId)));
     }
 
     @Transactional(readOnly = true)
@@ -251,9 +247,9 @@ public class AtendenteService {
 
     @Transactional(readOnly = true)
     public AtendenteDTO buscarPorId(Long id) {
-        Atendente atendente = atendenteRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Atendente não encontrado"));
-        return toDTO(atendente);
+        return catalogoCache.obter(CatalogoCache.ATENDENTES, id, () ->
+                toDTO(atendenteRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Atendente não encontrado"))));
     }
 
     @Transactional(readOnly = true)
@@ -301,6 +297,7 @@ public class AtendenteService {
         }
         
         atendente = atendenteRepository.save(atendente);
+        catalogoCache.remover(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(unidade.getId()));
         log.info("Atendente criado com sucesso. ID: {}", atendente.getId());
         return toDTO(atendente);
     }
@@ -318,6 +315,7 @@ public class AtendenteService {
         }
         Unidade unidade = unidadeRepository.findById(atendenteDTO.getUnidadeId())
                 .orElseThrow(() -> new ResourceNotFoundException("Unidade não encontrada"));
+        Long unidadeAnteriorId = atendente.getUnidade().getId();
         
         // Verifica se está mudando o usuário e se o novo usuário já está vinculado
         if (!atendente.getUsuario().getId().equals(atendenteDTO.getUsuarioId())) {
@@ -351,6 +349,8 @@ public class AtendenteService {
         }
         
         atendente = atendenteRepository.save(atendente);
+        catalogoCache.remover(CatalogoCache.ATENDENTES, id, CatalogoCache.chaveUnidade(unidadeAnteriorId),
+                CatalogoCache.chaveUnidade(unidade.getId()));
         log.info("Atendente atualizado com sucesso. ID: {}", atendente.getId());
         return toDTO(atendente);
     }
@@ -363,9 +363,33 @@ public class AtendenteService {
             throw new ResourceNotFoundException("Atendente não encontrado");
         }
         atendenteRepository.deleteById(id);
+        catalogoCache.remover(CatalogoCache.ATENDENTES, id, CatalogoCache.chaveUnidade(atendente.getUnidade().getId()));
         log.info("Atendente excluído com sucesso. ID: {}", id);
     }
 
+    /**
+     * Listagens: os serviços de todos os atendentes vêm em uma consulta
+     */
+    private List<AtendenteDTO> toDTOs(List<AtendenteRepository.Listagem> atendentes) {
+        if (atendentes.isEmpty()) {
+            // Pode ir para o cache: lista imutável não volta na desserialização com tipo
+            return new ArrayList<>();
+        }
+        Map<Long, List<Long>> servicosIds = atendenteRepository.listarServicosIds(
+                        atendentes.stream().map(AtendenteRepository.Listagem::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(AtendenteRepository.Vinculo::getId,
+                        Collectors.mapping(AtendenteRepository.Vinculo::getVinculadoId, Collectors.toList())));
+
+        return atendentes.stream()
+                .map(atendente -> {
+                    AtendenteDTO dto = atendenteMapper.toDTO(atendente);
+                    dto.setServicosIds(servicosIds.getOrDefault(atendente.getId(), new ArrayList<>()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
     private AtendenteDTO toDTO(Atendente atendente) {
         AtendenteDTO dto = atendenteMapper.toDTO(atendente);
         dto.setNomeUsuario(atendente.getUsuario().getNome());
@@ -0,0 +1,90 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Atendente;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Remoção de regiões do cache de segundo nível do Hibernate.
+ *
+ * Alterações feitas pelas entidades já atualizam o cache. Este componente cobre o que muda no banco sem
+ * passar por elas, como as linhas de atendente_servicos apagadas pelo ON DELETE CASCADE ao excluir um
+ * serviço. Dentro de uma transação a remoção acontece após o commit e é repassada às outras instâncias por
+ * {@link CacheEntidadesInvalidacao}. Também informa o que já está no cache, para que leituras em lote só
+ * consultem o banco pelo que falta.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheEntidades {
+
+    public static final String ATENDENTE_SERVICOS = Atendente.class.getName() + ".servicos";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Optional<CacheEntidadesInvalidacao> invalidacao;
+
+    /**
+     * Remove todas as entradas da coleção (papel no formato Entidade.atributo)
+     */
+    public void removerColecao(String papel) {
+        aposCommit(() -> cache().evictCollectionData(papel));
+        invalidacao.ifPresent(i -> i.publicarRemocaoColecao(papel));
+    }
+
+    /**
+     * Carrega as entidades pelos ids: as que estão no cache de segundo nível vêm por findById (sem SQL) e as
+     * demais em um único findAllById, que sempre consulta o banco. Ids inexistentes ficam de fora do resultado.
+     */
+    public <T, ID> List<T> buscarPorIds(Class<T> entidade, Collection<ID> ids, JpaRepository<T, ID> repositorio) {
+        List<T> encontradas = new ArrayList<>(ids.size());
+        List<ID> foraDoCache = new ArrayList<>();
+        for (ID id : new LinkedHashSet<>(ids)) {
+            if (cache().containsEntity(entidade, id)) {
+                repositorio.findById(id).ifPresent(encontradas::add);
+            } else {
+                foraDoCache.add(id);
+            }
+        }
+        if (!foraDoCache.isEmpty()) {
+            encontradas.addAll(repositorio.findAllById(foraDoCache));
+        }
+        return encontradas;
+    }
+
+    private org.hibernate.Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    private static void aposCommit(Runnable remocao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            executar(remocao);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                executar(remocao);
+            }
+        });
+    }
+
+    private static void executar(Runnable remocao) {
+        try {
+            remocao.run();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao remover região do cache de segundo nível: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package br.com.agendainteligente.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Invalidação do cache de segundo nível do Hibernate entre instâncias.
+ *
+ * O cache de entidades fica na memória de cada instância: a instância que altera uma entidade ou coleção
+ * em cache atualiza o próprio cache, mas as demais continuariam com o valor antigo até a expiração
+ * (cache.entidades.expiracao). Após o commit, cada alteração é publicada no canal {@link #CANAL} como
+ * "instância|E|Entidade|id" ou "instância|C|Entidade.colecao|idDono" ("*" no lugar do id remove a região
+ * toda) e as outras instâncias removem a entrada, como no CacheDoisNiveisManager. Como o pub/sub
+ * não é durável, a expiração continua limitando o tempo de uma mensagem perdida.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cache.entidades", name = "invalidacao-redis", havingValue = "true",
+        matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class CacheEntidadesInvalidacao implements PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    public static final String CANAL = "cache:invalidacao:entidades";
+
+    private static final String SEPARADOR = "|";
+    private static final String ENTIDADE = "E";
+    private static final String COLECAO = "C";
+    private static final String TODAS = "*";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String idInstancia = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void registrar() {
+        EventListenerRegistry registro = sessionFactory().getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_UPDATE, this);
+        registro.appendListeners(EventType.POST_DELETE, this);
+        registro.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registro.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registro.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entidadeAlterada(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        entidadeAlterada(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        colecaoAlterada(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        colecaoAlterada(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        colecaoAlterada(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Remove a coleção inteira nas outras instâncias (alterações feitas direto no banco, ver CacheEntidades)
+     */
+    public void publicarRemocaoColecao(String papel) {
+        aposCommit(COLECAO + SEPARADOR + papel + SEPARADOR + TODAS);
+    }
+
+    /**
+     * Mensagem recebida do canal de invalidação. Mensagens da própria instância são ignoradas.
+     */
+    public void processarInvalidacao(String mensagem) {
+        String[] partes = mensagem.split("\\|", 4);
+        if (partes.length != 4 || idInstancia.equals(partes[0])) {
+            return;
+        }
+        try {
+            org.hibernate.Cache cache = sessionFactory().getCache();
+            Long id = TODAS.equals(partes[3]) ? null : Long.valueOf(partes[3]);
+            if (ENTIDADE.equals(partes[1])) {
+                if (id == null) {
+                    cache.evictEntityData(partes[2]);
+                } else {
+                    cache.evictEntityData(partes[2], id);
+                }
+            } else if (COLECAO.equals(partes[1])) {
+                if (id == null) {
+                    cache.evictCollectionData(partes[2]);
+                } else {
+                    cache.evictCollectionData(partes[2], id);
+                }
+            }
+            log.trace("{} {} do cache de segundo nível invalidado por outra instância", partes[2], partes[3]);
+        } catch (RuntimeException e) {
+            log.warn("Invalidação do cache de segundo nível ignorada ({}): {}", mensagem, e.getMessage());
+        }
+    }
+
+    private void entidadeAlterada(EntityPersister persister, Object id) {
+        if (persister.canWriteToCache()) {
+            aposCommit(ENTIDADE + SEPARADOR + persister.getEntityName() + SEPARADOR + id);
+        }
+    }
+
+    private void colecaoAlterada(AbstractCollectionEvent event) {
+        String papel = event.getCollection().getRole();
+        Object idDono = event.getAffectedOwnerIdOrNull();
+        if (papel == null || !event.getSession().getFactory().getMappingMetamodel()
+                .getCollectionDescriptor(papel).hasCache()) {
+            return;
+        }
+        aposCommit(COLECAO + SEPARADOR + papel + SEPARADOR + (idDono != null ? idDono : TODAS));
+    }
+
+    private void aposCommit(String alteracao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publicar(alteracao);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publicar(alteracao);
+            }
+        });
+    }
+
+    private void publicar(String alteracao) {
+        try {
+            stringRedisTemplate.convertAndSend(CANAL, idInstancia + SEPARADOR + alteracao);
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível publicar invalidação do cache de segundo nível ({}): {}", alteracao,
+                    e.getMessage());
+        }
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+}
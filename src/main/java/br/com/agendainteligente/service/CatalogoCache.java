@@ -0,0 +1,91 @@
+package br.com.agendainteligente.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Acesso aos caches do catálogo (serviços, unidades e atendentes) e da linha do tempo dos clientes.
+ *
+ * As consultas passam primeiro pela validação de permissão do usuário e só então pelo cache, que guarda
+ * os dados sem filtro. Falhas do Redis não derrubam a consulta: o valor é carregado direto do banco.
+ * Os valores vindos da memória local são compartilhados entre requisições e não devem ser alterados.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogoCache {
+
+    public static final String SERVICOS = "servicos";
+    public static final String UNIDADES = "unidades";
+    public static final String ATENDENTES = "atendentes";
+    public static final String AGENDAMENTOS_CLIENTE = "agendamentosCliente";
+
+    private final CacheManager cacheManager;
+
+    @SuppressWarnings("unchecked")
+    public <T> T obter(String nomeCache, Object chave, Supplier<T> carregar) {
+        Cache cache = cacheManager.getCache(nomeCache);
+        if (cache != null) {
+            try {
+                Cache.ValueWrapper valor = cache.get(chave);
+                if (valor != null) {
+                    return (T) valor.get();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Falha ao ler cache {} (chave {}): {}", nomeCache, chave, e.getMessage());
+            }
+        }
+
+        T carregado = carregar.get();
+        gravar(nomeCache, chave, carregado);
+        return carregado;
+    }
+
+    /**
+     * Substitui o valor da chave (ex.: valor lido do cache que já não vale mais)
+     */
+    public void gravar(String nomeCache, Object chave, Object valor) {
+        Cache cache = cacheManager.getCache(nomeCache);
+        if (cache == null || valor == null) {
+            return;
+        }
+        try {
+            cache.put(chave, valor);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar cache {} (chave {}): {}", nomeCache, chave, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove as chaves informadas. Dentro de uma transação a remoção acontece após o commit.
+     */
+    public void remover(String nomeCache, Object... chaves) {
+        Cache cache = cacheManager.getCache(nomeCache);
+        if (cache == null) {
+            return;
+        }
+        for (Object chave : chaves) {
+            if (chave == null) {
+                continue;
+            }
+            try {
+                cache.evict(chave);
+            } catch (RuntimeException e) {
+                log.warn("Falha ao remover chave {} do cache {}: {}", chave, nomeCache, e.getMessage());
+            }
+        }
+    }
+
+    public static String chaveUnidade(Long unidadeId) {
+        return "unidade:" + unidadeId;
+    }
+
+    public static String chaveCliente(Long clienteId) {
+        return "cliente:" + clienteId;
+    }
+}
@@ -23,6 +23,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -44,9 +45,23 @@ public class ClienteService {
     @Transactional(readOnly = true)
     public List<ClienteDTO> listarTodos() {
         log.debug("Listando clientes com filtro de permissão");
-        List<Cliente> clientes = filtrarPorPermissao();
+        List<ClienteRepository.Listagem> clientes = filtrarPorPermissao();
+        if (clientes.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<Long>> unidadesAdicionais = clienteRepository.listarUnidadesAdicionais(
+                        clientes.stream().map(ClienteRepository.Listagem::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(ClienteRepository.Vinculo::getId,
+                        Collectors.mapping(ClienteRepository.Vinculo::getVinculadoId, Collectors.toList())));
+
         return clientes.stream()
-                .map(this::toDTO)
+                .map(cliente -> {
+                    ClienteDTO dto = clienteMapper.toDTO(cliente);
+                    dto.setUnidadesIds(unidadesAdicionais.get(cliente.getId()));
+                    return dto;
+                })
                 .collect(Collectors.toList());
     }
 
@@ -57,11 +72,11 @@ public class ClienteService {
      * - PROFISSIONAL: vê apenas clientes da mesma unidade
      * - CLIENTE: não deve acessar esta funcionalidade
      */
-    private List<Cliente> filtrarPorPermissao() {
+    private List<ClienteRepository.Listagem> filtrarPorPermissao() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated()) {
             log.warn("Tentativa de listar clientes sem autenticação");
-            return clienteRepository.findAll();
+            return clienteRepository.listarTodos();
         }
 
         String email = auth.getName();
@@ -73,7 +88,7 @@ public class ClienteService {
         switch (perfil) {
             case ADMIN:
                 log.debug("ADMIN: listando todos os clientes");
-                return clienteRepository.findAll();
+                return clienteRepository.listarTodos();
 
             case GERENTE:
                 log.debug("GERENTE: listando clientes das unidades da mesma empresa");
@@ -119,12 +134,12 @@ public class ClienteService {
                         .collect(Collectors.toList());
                 
                 // Retornar clientes das unidades da mesma empresa
-                List<Cliente> todosClientes = clienteRepository.findAll();
-                List<Cliente> clientesFiltrados = todosClientes.stream()
-                        .filter(c -> c.getUnidade() != null && unidadesIds.contains(c.getUnidade().getId()))
-                        .collect(Collectors.toList());
+                if (unidadesIds.isEmpty()) {
+                    return List.of();
+                }
+                List<ClienteRepository.Listagem> clientesFiltrados = clienteRepository.listarPorUnidades(unidadesIds);
                 
-                log.debug("Gerente {} pode ver {} clientes de {} total", email, clientesFiltrados.size(), todosClientes.size());
+                log.debug("Gerente {} pode ver {} clientes", email, clientesFiltrados.size());
                 return clientesFiltrados;
 
             case PROFISSIONAL:
@@ -140,9 +155,7 @@ public class ClienteService {
                         .collect(Collectors.toList());
                 
                 // Retornar clientes das mesmas unidades
-                return clienteRepository.findAll().stream()
-                        .filter(c -> c.getUnidade() != null && unidadesProfissionalIds.contains(c.getUnidade().getId()))
-                        .collect(Collectors.toList());
+                return clienteRepository.listarPorUnidades(unidadesProfissionalIds);
 
             case CLIENTE:
             default:
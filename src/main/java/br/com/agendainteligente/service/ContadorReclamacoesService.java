@@ -0,0 +1,156 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.repository.ReclamacaoRepository;
+import br.com.agendainteligente.repository.UnidadeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Contadores de reclamações não lidas por unidade no Redis (uma chave por unidade), para o contador do
+ * painel não contar a tabela a cada consulta.
+ *
+ * Criar e marcar como lida ajustam o contador com INCRBY após o commit. Um contador que ainda não existe
+ * é calculado no banco na primeira leitura; enquanto isso os ajustes são ignorados, para não criar a chave
+ * com um valor parcial. Ajustes perdidos (Redis fora, processo encerrado entre o commit e o INCRBY) são
+ * corrigidos por {@link #reconciliar()}; um ajuste feito durante a própria reconciliação pode ser
+ * sobrescrito e fica para a execução seguinte. Com o Redis indisponível a contagem vem do banco.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContadorReclamacoesService {
+
+    private static final String PREFIXO = "reclamacoes:nao-lidas:";
+
+    // Só soma em contadores já inicializados
+    private static final RedisScript<Long> SOMAR_SE_EXISTIR = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCRBY', KEYS[1], ARGV[1]) end return nil",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReclamacaoRepository reclamacaoRepository;
+    private final UnidadeRepository unidadeRepository;
+
+    public long obter(Long unidadeId) {
+        return obter(List.of(unidadeId));
+    }
+
+    /**
+     * Soma das não lidas das unidades, com uma leitura no Redis para todas
+     */
+    public long obter(Collection<Long> unidadesIds) {
+        if (unidadesIds.isEmpty()) {
+            return 0L;
+        }
+        List<Long> ids = new ArrayList<>(unidadesIds);
+        List<String> valores;
+        try {
+            valores = stringRedisTemplate.opsForValue().multiGet(ids.stream().map(ContadorReclamacoesService::chave).toList());
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao ler contadores de reclamações. Contando no banco: {}", e.getMessage());
+            return ids.stream().mapToLong(reclamacaoRepository::countByUnidadeIdAndLidaFalse).sum();
+        }
+
+        long total = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            String valor = valores != null ? valores.get(i) : null;
+            total += valor != null ? Long.parseLong(valor) : inicializar(ids.get(i));
+        }
+        return total;
+    }
+
+    public void incrementar(Long unidadeId) {
+        somarAposCommit(unidadeId, 1);
+    }
+
+    public void decrementar(Long unidadeId) {
+        somarAposCommit(unidadeId, -1);
+    }
+
+    /**
+     * Compara os contadores com o banco e corrige os divergentes
+     */
+    @Scheduled(fixedDelayString = "${reclamacoes.contador.intervalo-reconciliacao:600000}",
+            initialDelayString = "${reclamacoes.contador.intervalo-reconciliacao:600000}")
+    public void reconciliar() {
+        Map<Long, Long> naoLidas = reclamacaoRepository.contarNaoLidasPorUnidade().stream()
+                .collect(Collectors.toMap(ReclamacaoRepository.ContagemUnidade::getUnidadeId,
+                        ReclamacaoRepository.ContagemUnidade::getQuantidade));
+        List<Long> ids = unidadeRepository.findAll().stream().map(Unidade::getId).toList();
+        try {
+            List<String> valores = stringRedisTemplate.opsForValue()
+                    .multiGet(ids.stream().map(ContadorReclamacoesService::chave).toList());
+            int corrigidos = 0;
+            for (int i = 0; i < ids.size(); i++) {
+                String valor = valores != null ? valores.get(i) : null;
+                String esperado = String.valueOf(naoLidas.getOrDefault(ids.get(i), 0L));
+                if (!esperado.equals(valor)) {
+                    stringRedisTemplate.opsForValue().set(chave(ids.get(i)), esperado);
+                    if (valor != null) {
+                        log.warn("Contador de reclamações da unidade {} corrigido de {} para {}", ids.get(i), valor, esperado);
+                    }
+                    corrigidos++;
+                }
+            }
+            if (corrigidos > 0) {
+                log.info("{} contadores de reclamações atualizados", corrigidos);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao reconciliar contadores de reclamações: {}", e.getMessage());
+        }
+    }
+
+    private long inicializar(Long unidadeId) {
+        long quantidade = reclamacaoRepository.countByUnidadeIdAndLidaFalse(unidadeId);
+        try {
+            // Outra instância pode ter inicializado e ajustado o contador nesse meio tempo
+            stringRedisTemplate.opsForValue().setIfAbsent(chave(unidadeId), String.valueOf(quantidade));
+        } catch (DataAccessException e) {
+            log.warn("Não foi possível inicializar o contador de reclamações da unidade {}: {}", unidadeId, e.getMessage());
+        }
+        return quantidade;
+    }
+
+    private void somarAposCommit(Long unidadeId, long quantidade) {
+        if (unidadeId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            somar(unidadeId, quantidade);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                somar(unidadeId, quantidade);
+            }
+        });
+    }
+
+    private void somar(Long unidadeId, long quantidade) {
+        try {
+            stringRedisTemplate.execute(SOMAR_SE_EXISTIR, List.of(chave(unidadeId)), String.valueOf(quantidade));
+        } catch (DataAccessException e) {
+            log.warn("Não foi possível ajustar o contador de reclamações da unidade {}: {}", unidadeId, e.getMessage());
+        }
+    }
+
+    private static String chave(Long unidadeId) {
+        return PREFIXO + unidadeId;
+    }
+}
@@ -0,0 +1,67 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import br.com.agendainteligente.repository.NotaFiscalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dispara a emissão da NFS-e dos agendamentos finalizados ou com pagamento confirmado. A emissão roda no
+ * nfseExecutor e reserva a nota antes de chamar a prefeitura ({@link NotaFiscalService#emitirNotaFiscal}).
+ *
+ * Agendamentos que já têm nota (emitida, com erro ou em emissão) não são enviados de novo ao executor, então
+ * um lote repassado outra vez não volta a ocupar a fila. Se a fila estiver cheia, os agendamentos restantes são
+ * adiados ({@link EventosAdiadosException}) e o lote não conta como falha.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmissaoNotaFiscalOuvinte implements OuvinteEventosAgendamento {
+
+    private static final Set<TipoEventoAgendamento> TIPOS = EnumSet.of(
+            TipoEventoAgendamento.CONCLUIDO, TipoEventoAgendamento.PAGAMENTO_CONFIRMADO);
+
+    private final NotaFiscalService notaFiscalService;
+    private final NotaFiscalRepository notaFiscalRepository;
+
+    @Override
+    public void processar(List<AgendamentoEvent> eventos) {
+        List<Long> agendamentoIds = eventos.stream()
+                .filter(evento -> TIPOS.contains(evento.getTipo()))
+                .map(AgendamentoEvent::getAgendamentoId)
+                .distinct()
+                .toList();
+        if (agendamentoIds.isEmpty()) {
+            return;
+        }
+        Set<Long> comNota = notaFiscalRepository.findAgendamentoIdsComNota(agendamentoIds);
+
+        Set<Long> adiados = new LinkedHashSet<>();
+        for (Long agendamentoId : agendamentoIds) {
+            if (comNota.contains(agendamentoId)) {
+                continue;
+            }
+            if (!adiados.isEmpty()) {
+                adiados.add(agendamentoId);
+                continue;
+            }
+            try {
+                notaFiscalService.emitirNotaFiscal(agendamentoId);
+            } catch (TaskRejectedException e) {
+                adiados.add(agendamentoId);
+            }
+        }
+        if (!adiados.isEmpty()) {
+            log.info("Fila de emissão de NFS-e cheia; {} agendamentos ficam pendentes no outbox", adiados.size());
+            throw new EventosAdiadosException(adiados);
+        }
+    }
+}
@@ -26,23 +26,27 @@ import java.util.stream.Collectors;
 @Slf4j
 public class EmpresaService {
 
+    // Largura da miniatura usada na URL da logo (listagens e menu)
+    private static final int LARGURA_LOGO = 200;
+
     private final EmpresaRepository empresaRepository;
     private final EmpresaMapper empresaMapper;
-    private final ImageCompressionService imageCompressionService;
+    private final ArquivoService arquivoService;
+    private final MiniaturaService miniaturaService;
     private final UsuarioRepository usuarioRepository;
     private final UnidadeRepository unidadeRepository;
 
     @Transactional(readOnly = true)
     public List<EmpresaDTO> listarTodas() {
         return filtrarEmpresasPorPermissao(empresaRepository.findAll()).stream()
-                .map(empresaMapper::toDTO)
+                .map(this::toDTO)
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public List<EmpresaDTO> listarAtivas() {
         return filtrarEmpresasPorPermissao(empresaRepository.findByAtivoTrue()).stream()
-                .map(empresaMapper::toDTO)
+                .map(this::toDTO)
                 .collect(Collectors.toList());
     }
 
@@ -84,7 +88,7 @@ public class EmpresaService {
         if (permitidas.isEmpty()) {
             throw new ResourceNotFoundException("Empresa não encontrada");
         }
-        return empresaMapper.toDTO(empresa);
+        return toDTO(empresa);
     }
 
     @Transactional
@@ -112,21 +116,16 @@ public class EmpresaService {
             empresaDTO.setTelefone(telefoneSemMascara);
         }
 
-        // Comprimir a imagem se fornecida
-        if (empresaDTO.getLogo() != null && !empresaDTO.getLogo().trim().isEmpty()) {
-            String compressedLogo = imageCompressionService.compressImage(empresaDTO.getLogo());
-            empresaDTO.setLogo(compressedLogo);
-        }
-
         // Valida e normaliza a cor do app
         if (empresaDTO.getCorApp() != null && !empresaDTO.getCorApp().trim().isEmpty()) {
             empresaDTO.setCorApp(validateAndNormalizeColor(empresaDTO.getCorApp()));
         }
 
         Empresa empresa = empresaMapper.toEntity(empresaDTO);
+        empresa.setLogoHash(resolverLogo(empresaDTO.getLogo(), null));
         empresa = empresaRepository.save(empresa);
         log.info("Empresa criada. ID: {}, Nome: {}", empresa.getId(), empresa.getNome());
-        return empresaMapper.toDTO(empresa);
+        return toDTO(empresa);
     }
 
     @Transactional
@@ -160,11 +159,7 @@ public class EmpresaService {
             empresaDTO.setTelefone(telefoneSemMascara);
         }
 
-        // Comprimir a imagem se fornecida
-        if (empresaDTO.getLogo() != null && !empresaDTO.getLogo().trim().isEmpty()) {
-            String compressedLogo = imageCompressionService.compressImage(empresaDTO.getLogo());
-            empresaDTO.setLogo(compressedLogo);
-        }
+        String logoHash = resolverLogo(empresaDTO.getLogo(), empresa.getLogoHash());
 
         // Valida e normaliza a cor do app
         if (empresaDTO.getCorApp() != null && !empresaDTO.getCorApp().trim().isEmpty()) {
@@ -172,9 +167,10 @@ public class EmpresaService {
         }
 
         empresaMapper.updateEntityFromDTO(empresaDTO, empresa);
+        empresa.setLogoHash(logoHash);
         empresa = empresaRepository.save(empresa);
         log.info("Empresa atualizada. ID: {}", id);
-        return empresaMapper.toDTO(empresa);
+        return toDTO(empresa);
     }
 
     @Transactional
@@ -191,6 +187,31 @@ public class EmpresaService {
         log.info("Empresa excluída. ID: {}", id);
     }
 
+    /**
+     * Define a logo a partir do valor recebido: data URI é gravado como arquivo novo (as miniaturas são
+     * geradas em segundo plano), a URL devolvida anteriormente mantém a logo atual e vazio remove a logo.
+     */
+    private String resolverLogo(String logo, String logoHashAtual) {
+        if (logo == null || logo.trim().isEmpty()) {
+            return null;
+        }
+        if (ArquivoService.isDataUri(logo)) {
+            String hash = arquivoService.salvarDataUri(logo);
+            miniaturaService.agendarGeracaoAposCommit(hash);
+            return hash;
+        }
+        return logoHashAtual;
+    }
+
+    /**
+     * A logo sai apenas como URL do arquivo; o conteúdo é baixado (e cacheado) à parte
+     */
+    private EmpresaDTO toDTO(Empresa empresa) {
+        EmpresaDTO dto = empresaMapper.toDTO(empresa);
+        dto.setLogo(arquivoService.url(empresa.getLogoHash(), LARGURA_LOGO));
+        return dto;
+    }
+
     /**
      * Valida e normaliza a cor hexadecimal
      */
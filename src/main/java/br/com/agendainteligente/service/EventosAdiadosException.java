@@ -0,0 +1,21 @@
+package br.com.agendainteligente.service;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Lançada por um {@link OuvinteEventosAgendamento} que não tem capacidade para processar parte do lote agora
+ * (fila do executor cheia). Os eventos dos agendamentos informados continuam pendentes no outbox sem contar
+ * tentativa; os demais eventos do lote são concluídos normalmente.
+ */
+@Getter
+public class EventosAdiadosException extends RuntimeException {
+
+    private final Set<Long> agendamentoIds;
+
+    public EventosAdiadosException(Set<Long> agendamentoIds) {
+        super(agendamentoIds.size() + " agendamentos adiados");
+        this.agendamentoIds = agendamentoIds;
+    }
+}
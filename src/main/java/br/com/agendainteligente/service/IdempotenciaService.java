@@ -0,0 +1,135 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.ChaveIdempotencia;
+import br.com.agendainteligente.repository.ChaveIdempotenciaRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Armazena as respostas de requisições com Idempotency-Key.
+ *
+ * O Redis é o armazenamento principal (leitura de um replay em uma única operação GET); se estiver
+ * indisponível, a chave é reservada e gravada na tabela chaves_idempotencia. Enquanto a requisição original
+ * está em andamento a chave fica reservada por um TTL curto, para não travar retentativas se o processo cair.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotenciaService {
+
+    private static final String PREFIXO = "idempotencia:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    @Value("${idempotencia.ttl-horas:24}")
+    private long ttlHoras;
+
+    @Value("${idempotencia.ttl-em-andamento-segundos:60}")
+    private long ttlEmAndamentoSegundos;
+
+    public Optional<RespostaArmazenada> buscar(String chave) {
+        try {
+            Object valor = redisTemplate.opsForValue().get(PREFIXO + chave);
+            if (valor instanceof RespostaArmazenada resposta) {
+                return Optional.of(resposta);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao buscar chave de idempotência. Usando banco: {}", e.getMessage());
+        }
+        // Chaves gravadas no banco durante uma indisponibilidade do Redis continuam valendo
+        return chaveIdempotenciaRepository.findValida(chave, LocalDateTime.now()).map(IdempotenciaService::toResposta);
+    }
+
+    /**
+     * Reserva a chave para a requisição atual. Retorna false se outra requisição já a reservou.
+     */
+    public boolean reservar(String chave, String impressaoDigital) {
+        RespostaArmazenada emAndamento = new RespostaArmazenada(impressaoDigital, false, null, null, null);
+        try {
+            Boolean reservada = redisTemplate.opsForValue()
+                    .setIfAbsent(PREFIXO + chave, emAndamento, Duration.ofSeconds(ttlEmAndamentoSegundos));
+            return Boolean.TRUE.equals(reservada);
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao reservar chave de idempotência. Usando banco: {}", e.getMessage());
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        return chaveIdempotenciaRepository.reservar(chave, impressaoDigital, agora,
+                agora.plusSeconds(ttlEmAndamentoSegundos)) > 0;
+    }
+
+    /**
+     * Grava a resposta final da requisição original
+     */
+    public void concluir(String chave, RespostaArmazenada resposta) {
+        resposta.setConcluida(true);
+        try {
+            redisTemplate.opsForValue().set(PREFIXO + chave, resposta, Duration.ofHours(ttlHoras));
+            return;
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao gravar resposta idempotente. Usando banco: {}", e.getMessage());
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        chaveIdempotenciaRepository.save(ChaveIdempotencia.builder()
+                .chave(chave)
+                .impressaoDigital(resposta.getImpressaoDigital())
+                .concluida(true)
+                .statusHttp(resposta.getStatusHttp())
+                .contentType(resposta.getContentType())
+                .corpo(resposta.getCorpo())
+                .dataCriacao(agora)
+                .expiraEm(agora.plusHours(ttlHoras))
+                .build());
+    }
+
+    /**
+     * Libera a chave quando a requisição original falhou de forma não determinística (5xx), permitindo nova tentativa.
+     * O banco só é consultado se a chave não estava no Redis (reservada durante uma indisponibilidade dele)
+     */
+    public void liberar(String chave) {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.delete(PREFIXO + chave))) {
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao liberar chave de idempotência. Usando banco: {}", e.getMessage());
+        }
+        chaveIdempotenciaRepository.deleteById(chave);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotencia.intervalo-limpeza:3600000}")
+    public void limparExpiradas() {
+        int removidas = chaveIdempotenciaRepository.deleteExpiradas(LocalDateTime.now());
+        if (removidas > 0) {
+            log.info("{} chaves de idempotência expiradas removidas", removidas);
+        }
+    }
+
+    private static RespostaArmazenada toResposta(ChaveIdempotencia chave) {
+        return new RespostaArmazenada(chave.getImpressaoDigital(), Boolean.TRUE.equals(chave.getConcluida()),
+                chave.getStatusHttp(), chave.getContentType(), chave.getCorpo());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RespostaArmazenada {
+        private String impressaoDigital;
+        private boolean concluida;
+        private Integer statusHttp;
+        private String contentType;
+        private String corpo;
+    }
+}
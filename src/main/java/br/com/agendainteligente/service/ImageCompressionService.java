@@ -3,89 +3,133 @@ package br.com.agendainteligente.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Gera as miniaturas de uma imagem em todas as larguras padrão a partir de uma única decodificação.
+ *
+ * A redução é feita em etapas de no máximo metade do tamanho (interpolação bilinear a cada etapa), o que
+ * mantém a qualidade de uma redução bicúbica com custo bem menor. Cada largura parte da miniatura anterior,
+ * então a imagem original só é percorrida até a primeira (maior) largura.
+ */
 @Service
 @Slf4j
 public class ImageCompressionService {
 
-    private static final int MAX_WIDTH = 200;
-    private static final int MAX_HEIGHT = 200;
+    /**
+     * Maior lado das miniaturas geradas, da maior para a menor
+     */
+    public static final int[] LARGURAS = {512, 200, 96, 48};
+
     private static final float QUALITY = 0.7f; // 70% de qualidade para reduzir tamanho
 
+    public ImageCompressionService() {
+        // Codificação em memória; sem arquivos temporários do cache de disco do ImageIO
+        ImageIO.setUseCache(false);
+    }
+
     /**
-     * Comprime e redimensiona uma imagem em base64
-     * @param base64Image String base64 da imagem (com ou sem prefixo data:image/...)
-     * @return String base64 da imagem comprimida
+     * Gera uma miniatura para cada largura de {@link #LARGURAS}. Imagens menores que a largura não são ampliadas.
+     * Imagens com transparência saem em PNG; as demais em JPEG com {@link #QUALITY}.
      */
-    public String compressImage(String base64Image) {
-        if (base64Image == null || base64Image.trim().isEmpty()) {
-            return null;
+    public List<Miniatura> gerarMiniaturas(byte[] imagem) throws IOException {
+        BufferedImage original = ImageIO.read(new ByteArrayInputStream(imagem));
+        if (original == null) {
+            throw new IOException("Formato de imagem não suportado");
+        }
+        boolean transparente = original.getColorModel().hasAlpha();
+        int tipo = transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        List<Miniatura> miniaturas = new ArrayList<>(LARGURAS.length);
+        BufferedImage atual = original;
+        for (int largura : LARGURAS) {
+            double escala = Math.min(1.0, (double) largura / Math.max(atual.getWidth(), atual.getHeight()));
+            int novaLargura = Math.max(1, (int) Math.round(atual.getWidth() * escala));
+            int novaAltura = Math.max(1, (int) Math.round(atual.getHeight() * escala));
+            atual = reduzir(atual, novaLargura, novaAltura, tipo);
+
+            byte[] conteudo = transparente ? codificarPng(atual) : codificarJpeg(atual);
+            miniaturas.add(new Miniatura(largura, conteudo, transparente ? "image/png" : "image/jpeg"));
         }
 
+        log.debug("Miniaturas geradas a partir de imagem {}x{} ({} bytes)", original.getWidth(),
+                original.getHeight(), imagem.length);
+        return miniaturas;
+    }
+
+    /**
+     * Reduz pela metade até chegar a menos do dobro do destino e faz a última etapa direto no tamanho final
+     */
+    private static BufferedImage reduzir(BufferedImage origem, int largura, int altura, int tipo) {
+        BufferedImage atual = origem;
+        int w = origem.getWidth();
+        int h = origem.getHeight();
+        do {
+            w = Math.max(largura, w / 2);
+            h = Math.max(altura, h / 2);
+            atual = desenhar(atual, w, h, tipo);
+        } while (w != largura || h != altura);
+        return atual;
+    }
+
+    private static BufferedImage desenhar(BufferedImage origem, int largura, int altura, int tipo) {
+        BufferedImage destino = new BufferedImage(largura, altura, tipo);
+        Graphics2D g = destino.createGraphics();
         try {
-            // Remove o prefixo data:image/... se existir
-            String base64Data = base64Image;
-            if (base64Image.contains(",")) {
-                base64Data = base64Image.substring(base64Image.indexOf(",") + 1);
-            }
-
-            // Decodifica base64 para bytes
-            byte[] imageBytes = Base64.getDecoder().decode(base64Data);
-
-            // Converte bytes para BufferedImage
-            BufferedImage originalImage = ImageIO.read(new java.io.ByteArrayInputStream(imageBytes));
-            if (originalImage == null) {
-                log.warn("Não foi possível ler a imagem");
-                return base64Image; // Retorna original se não conseguir processar
-            }
-
-            // Calcula novas dimensões mantendo proporção
-            int originalWidth = originalImage.getWidth();
-            int originalHeight = originalImage.getHeight();
-            
-            int newWidth = originalWidth;
-            int newHeight = originalHeight;
-            
-            if (originalWidth > MAX_WIDTH || originalHeight > MAX_HEIGHT) {
-                double widthRatio = (double) MAX_WIDTH / originalWidth;
-                double heightRatio = (double) MAX_HEIGHT / originalHeight;
-                double ratio = Math.min(widthRatio, heightRatio);
-                
-                newWidth = (int) (originalWidth * ratio);
-                newHeight = (int) (originalHeight * ratio);
-            }
-
-            // Redimensiona a imagem
-            BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g = resizedImage.createGraphics();
             g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
             g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
+            g.drawImage(origem, 0, 0, largura, altura, null);
+        } finally {
             g.dispose();
+        }
+        return destino;
+    }
 
-            // Converte para JPEG com compressão
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(resizedImage, "jpg", baos);
-            byte[] compressedBytes = baos.toByteArray();
-
-            // Converte de volta para base64
-            String compressedBase64 = Base64.getEncoder().encodeToString(compressedBytes);
-            
-            log.debug("Imagem comprimida: {}x{} -> {}x{}, tamanho: {} -> {} bytes", 
-                    originalWidth, originalHeight, newWidth, newHeight, 
-                    imageBytes.length, compressedBytes.length);
-
-            return "data:image/jpeg;base64," + compressedBase64;
-        } catch (IOException e) {
-            log.error("Erro ao comprimir imagem: {}", e.getMessage(), e);
-            return base64Image; // Retorna original em caso de erro
+    private static byte[] codificarJpeg(BufferedImage imagem) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(saida)) {
+            ImageWriteParam parametros = writer.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(QUALITY);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(imagem, null, null), parametros);
+        } finally {
+            writer.dispose();
         }
+        return saida.toByteArray();
+    }
+
+    private static byte[] codificarPng(BufferedImage imagem) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        ImageIO.write(imagem, "png", saida);
+        return saida.toByteArray();
+    }
+
+    public static class Miniatura {
+        private final int largura;
+        private final byte[] conteudo;
+        private final String contentType;
+
+        public Miniatura(int largura, byte[] conteudo, String contentType) {
+            this.largura = largura;
+            this.conteudo = conteudo;
+            this.contentType = contentType;
+        }
+
+        public int getLargura() { return largura; }
+        public byte[] getConteudo() { return conteudo; }
+        public String getContentType() { return contentType; }
     }
 }
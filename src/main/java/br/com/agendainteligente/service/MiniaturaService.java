@@ -0,0 +1,158 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Arquivo;
+import br.com.agendainteligente.domain.entity.ArquivoMiniatura;
+import br.com.agendainteligente.repository.ArquivoMiniaturaRepository;
+import br.com.agendainteligente.repository.ArquivoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Miniaturas das imagens armazenadas em arquivos.
+ *
+ * A geração roda no imagemExecutor, fora da thread da requisição: o upload só grava o original, e as
+ * miniaturas ficam gravadas (também por hash) em arquivos_miniaturas. Imagens sem miniaturas, como as
+ * migradas antes deste recurso, são processadas na primeira vez que uma miniatura é pedida. Arquivos que não
+ * são imagem não são processados, e os que falham na decodificação ficam marcados em arquivos para que
+ * requisições seguintes (o endpoint é público) não agendem a mesma tentativa de novo.
+ */
+@Service
+@Slf4j
+public class MiniaturaService {
+
+    private final ArquivoMiniaturaRepository arquivoMiniaturaRepository;
+    private final ArquivoRepository arquivoRepository;
+    private final ArquivoService arquivoService;
+    private final ImageCompressionService imageCompressionService;
+    private final Executor imagemExecutor;
+
+    private static final Set<Integer> LARGURAS = Arrays.stream(ImageCompressionService.LARGURAS)
+            .boxed()
+            .collect(Collectors.toUnmodifiableSet());
+
+    // Evita processar a mesma imagem duas vezes em paralelo nesta instância
+    private final Map<String, CompletableFuture<Void>> emAndamento = new ConcurrentHashMap<>();
+
+    public MiniaturaService(ArquivoMiniaturaRepository arquivoMiniaturaRepository,
+                            ArquivoRepository arquivoRepository,
+                            ArquivoService arquivoService,
+                            ImageCompressionService imageCompressionService,
+                            @Qualifier("imagemExecutor") Executor imagemExecutor) {
+        this.arquivoMiniaturaRepository = arquivoMiniaturaRepository;
+        this.arquivoRepository = arquivoRepository;
+        this.arquivoService = arquivoService;
+        this.imageCompressionService = imageCompressionService;
+        this.imagemExecutor = imagemExecutor;
+    }
+
+    /**
+     * Hash da menor miniatura com pelo menos a largura pedida (ou da maior disponível).
+     * Vazio se as miniaturas ainda não existem. Se falta alguma largura (nenhuma gerada ainda, ou uma geração
+     * interrompida no meio) a geração é agendada, se o arquivo for uma imagem da qual ainda não se tentou
+     * gerar miniaturas sem sucesso.
+     */
+    public Optional<String> buscarHashMiniatura(String arquivoHash, int largura) {
+        List<ArquivoMiniatura> miniaturas = arquivoMiniaturaRepository.findByArquivoHashOrderByLarguraAsc(arquivoHash);
+        if (!larguras(miniaturas).containsAll(LARGURAS) && podeGerar(arquivoHash)) {
+            agendarGeracao(arquivoHash);
+        }
+        if (miniaturas.isEmpty()) {
+            return Optional.empty();
+        }
+        return miniaturas.stream()
+                .filter(m -> m.getLargura() >= largura)
+                .findFirst()
+                .or(() -> Optional.of(miniaturas.get(miniaturas.size() - 1)))
+                .map(ArquivoMiniatura::getMiniaturaHash);
+    }
+
+    /**
+     * Agenda a geração para depois do commit da transação atual (o original precisa estar visível
+     * para a thread de processamento)
+     */
+    public void agendarGeracaoAposCommit(String arquivoHash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            agendarGeracao(arquivoHash);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                agendarGeracao(arquivoHash);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> agendarGeracao(String arquivoHash) {
+        try {
+            CompletableFuture<Void> tarefa = emAndamento.computeIfAbsent(arquivoHash,
+                    hash -> CompletableFuture.runAsync(() -> gerar(hash), imagemExecutor));
+            tarefa.whenComplete((r, e) -> emAndamento.remove(arquivoHash, tarefa));
+            return tarefa;
+        } catch (TaskRejectedException e) {
+            log.warn("Fila de processamento de imagens cheia. Miniaturas de {} ficam para depois", arquivoHash);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private boolean podeGerar(String arquivoHash) {
+        return arquivoRepository.findContentTypeParaMiniaturas(arquivoHash)
+                .filter(contentType -> contentType.startsWith("image/"))
+                .isPresent();
+    }
+
+    private static Set<Integer> larguras(List<ArquivoMiniatura> miniaturas) {
+        return miniaturas.stream().map(ArquivoMiniatura::getLargura).collect(Collectors.toSet());
+    }
+
+    /**
+     * Gera todas as larguras a partir de uma decodificação (cada uma parte da anterior) e grava só as que
+     * faltam
+     */
+    private void gerar(String arquivoHash) {
+        Set<Integer> existentes = larguras(arquivoMiniaturaRepository.findByArquivoHashOrderByLarguraAsc(arquivoHash));
+        if (existentes.containsAll(LARGURAS)) {
+            return;
+        }
+        try {
+            Arquivo original = arquivoService.buscar(arquivoHash);
+            long inicio = System.nanoTime();
+            List<ImageCompressionService.Miniatura> miniaturas =
+                    imageCompressionService.gerarMiniaturas(original.getConteudo());
+            for (ImageCompressionService.Miniatura miniatura : miniaturas) {
+                if (existentes.contains(miniatura.getLargura())) {
+                    continue;
+                }
+                String miniaturaHash = arquivoService.salvar(miniatura.getConteudo(), miniatura.getContentType());
+                arquivoMiniaturaRepository.save(ArquivoMiniatura.builder()
+                        .arquivoHash(arquivoHash)
+                        .largura(miniatura.getLargura())
+                        .miniaturaHash(miniaturaHash)
+                        .build());
+            }
+            log.info("Miniaturas do arquivo {} geradas em {} ms", arquivoHash, (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException e) {
+            // O conteúdo não muda: a falha de decodificação se repetiria em toda nova tentativa
+            arquivoRepository.marcarMiniaturasIndisponiveis(arquivoHash);
+            log.warn("Arquivo {} não pôde ser decodificado; miniaturas marcadas como indisponíveis: {}",
+                    arquivoHash, e.getMessage());
+        } catch (Exception e) {
+            log.warn("Não foi possível gerar miniaturas do arquivo {}: {}", arquivoHash, e.getMessage());
+        }
+    }
+}
@@ -30,6 +30,8 @@ public class NotaFiscalService {
     private final AgendamentoRepository agendamentoRepository;
     private final NotaFiscalMapper notaFiscalMapper;
     private final NfseManausIntegration nfseManausIntegration;
+    private final NotaFiscalXmlService notaFiscalXmlService;
+    private final CatalogoCache catalogoCache;
 
     @Transactional(readOnly = true)
     public NotaFiscalDTO buscarPorAgendamentoId(Long agendamentoId) {
@@ -39,6 +41,17 @@ public class NotaFiscalService {
         return notaFiscalMapper.toDTO(notaFiscal);
     }
 
+    /**
+     * Carrega o XML da nota fiscal (armazenado à parte, compactado) para download
+     */
+    @Transactional(readOnly = true)
+    public String buscarXmlPorAgendamentoId(Long agendamentoId) {
+        NotaFiscal notaFiscal = notaFiscalRepository.findByAgendamentoId(agendamentoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Nota fiscal não encontrada para o agendamento: " + agendamentoId));
+        return notaFiscalXmlService.carregar(notaFiscal.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("XML não disponível para a nota fiscal: " + notaFiscal.getId()));
+    }
+
     @Async("nfseExecutor")
     @Transactional
     public CompletableFuture<Void> emitirNotaFiscal(Long agendamentoId) {
@@ -52,23 +65,17 @@ public class NotaFiscalService {
             agendamento.getServicos().size();
         }
         
-        // Verifica se já existe nota fiscal
-        if (notaFiscalRepository.findByAgendamentoId(agendamentoId).isPresent()) {
+        // Grava a nota (em PROCESSANDO) antes de chamar a prefeitura: outra emissão do mesmo agendamento,
+        // concorrente ou repetida, encontra a nota já gravada e não envia um segundo lote
+        if (notaFiscalRepository.reservarEmissao(agendamentoId) == 0) {
             log.warn("Nota fiscal já existe para o agendamento: {}", agendamentoId);
             return CompletableFuture.completedFuture(null);
         }
         
-        NotaFiscal notaFiscal = NotaFiscal.builder()
-                .agendamento(agendamento)
-                .status(StatusNotaFiscal.PENDENTE)
-                .build();
-        
-        notaFiscal = notaFiscalRepository.save(notaFiscal);
+        NotaFiscal notaFiscal = notaFiscalRepository.findByAgendamentoId(agendamentoId)
+                .orElseThrow(() -> new IllegalStateException("Nota fiscal reservada não encontrada: " + agendamentoId));
         
         try {
-            notaFiscal.setStatus(StatusNotaFiscal.PROCESSANDO);
-            notaFiscalRepository.save(notaFiscal);
-            
             // Usa valorFinal se disponível, senão usa valorTotal
             BigDecimal valorParaNfse = agendamento.getValorFinal() != null 
                     ? agendamento.getValorFinal() 
@@ -80,10 +87,16 @@ public class NotaFiscalService {
             notaFiscal.setNumeroNfse(resultadoNfse.getNumeroNfse());
             notaFiscal.setCodigoVerificacao(resultadoNfse.getCodigoVerificacao());
             notaFiscal.setUrlNfse(resultadoNfse.getUrlNfse());
-            notaFiscal.setXmlNfse(resultadoNfse.getXmlNfse());
             notaFiscal.setStatus(StatusNotaFiscal.EMITIDA);
             notaFiscal.setDataEmissao(LocalDateTime.now());
             
+            // A nota já foi emitida na prefeitura: sem o XML ela continua EMITIDA
+            try {
+                notaFiscalXmlService.salvar(notaFiscal.getId(), resultadoNfse.getXmlNfse());
+            } catch (RuntimeException e) {
+                log.error("XML da nota fiscal {} não armazenado", notaFiscal.getId(), e);
+            }
+
             log.info("Nota fiscal emitida com sucesso. Número: {}", resultadoNfse.getNumeroNfse());
             
         } catch (Exception e) {
@@ -93,6 +106,7 @@ public class NotaFiscalService {
         }
         
         notaFiscalRepository.save(notaFiscal);
+        catalogoCache.remover(CatalogoCache.AGENDAMENTOS_CLIENTE, CatalogoCache.chaveCliente(agendamento.getCliente().getId()));
         return CompletableFuture.completedFuture(null);
     }
 }
@@ -0,0 +1,121 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.NotaFiscalXml;
+import br.com.agendainteligente.repository.NotaFiscalXmlRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Armazena o XML das notas fiscais compactado (deflate) na tabela notas_fiscais_xml
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotaFiscalXmlService {
+
+    private final NotaFiscalXmlRepository notaFiscalXmlRepository;
+
+    /**
+     * Grava em transação própria: uma falha aqui não marca para rollback a transação de quem chamou (a
+     * emissão da nota), e erros de banco aparecem nesta chamada em vez de só no commit de fora
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void salvar(Long notaFiscalId, String xml) {
+        if (xml == null || xml.isEmpty()) {
+            return;
+        }
+        byte[] original = xml.getBytes(StandardCharsets.UTF_8);
+        byte[] compactado = compactar(original);
+
+        notaFiscalXmlRepository.save(NotaFiscalXml.builder()
+                .notaFiscalId(notaFiscalId)
+                .compressao(NotaFiscalXml.COMPRESSAO_DEFLATE)
+                .tamanhoOriginal(original.length)
+                .conteudo(compactado)
+                .build());
+        log.debug("XML da nota fiscal {} armazenado: {} bytes ({} compactado)", notaFiscalId, original.length,
+                compactado.length);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<String> carregar(Long notaFiscalId) {
+        return notaFiscalXmlRepository.findById(notaFiscalId).map(NotaFiscalXmlService::descompactar);
+    }
+
+    /**
+     * Compacta um lote de XMLs gravados sem compactação (migrados da coluna antiga pela V31). O conteúdo já
+     * está em UTF-8, então tamanho_original não muda. Retorna quantos registros foram lidos.
+     */
+    @Transactional
+    public int recompactarLote(int tamanhoLote) {
+        List<NotaFiscalXml> registros = notaFiscalXmlRepository.findNaoCompactadosParaRecompactar(tamanhoLote);
+        long antes = 0;
+        long depois = 0;
+        for (NotaFiscalXml registro : registros) {
+            byte[] compactado = compactar(registro.getConteudo());
+            antes += registro.getConteudo().length;
+            depois += compactado.length;
+            registro.setConteudo(compactado);
+            registro.setCompressao(NotaFiscalXml.COMPRESSAO_DEFLATE);
+        }
+        if (!registros.isEmpty()) {
+            log.info("{} XMLs de notas fiscais recompactados: {} bytes para {}", registros.size(), antes, depois);
+        }
+        return registros.size();
+    }
+
+    private static byte[] compactar(byte[] dados) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(dados);
+            deflater.finish();
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(64, dados.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                saida.write(buffer, 0, n);
+            }
+            return saida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String descompactar(NotaFiscalXml registro) {
+        if (NotaFiscalXml.COMPRESSAO_NENHUMA.equals(registro.getCompressao())) {
+            return new String(registro.getConteudo(), StandardCharsets.UTF_8);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(registro.getConteudo());
+            byte[] original = new byte[registro.getTamanhoOriginal()];
+            int lidos = 0;
+            while (lidos < original.length && !inflater.finished()) {
+                int n = inflater.inflate(original, lidos, original.length - lidos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                lidos += n;
+            }
+            if (lidos != original.length) {
+                throw new IllegalStateException("XML da nota fiscal " + registro.getNotaFiscalId() + " corrompido");
+            }
+            return new String(original, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("XML da nota fiscal " + registro.getNotaFiscalId() + " corrompido", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+
+import java.util.List;
+
+/**
+ * Ouvinte dos eventos de agendamento repassados pelo outbox ({@link RelayEventosAgendamento}).
+ *
+ * Recebe os eventos em lote, na ordem de gravação, depois do commit que os gerou. A entrega é "pelo menos
+ * uma vez" (se um ouvinte falha, o lote inteiro é repassado de novo a todos), então o processamento deve
+ * ser idempotente e rápido: trabalho demorado vai para um executor próprio. Um ouvinte cujo executor está cheio
+ * lança {@link EventosAdiadosException}: os eventos adiados são repassados de novo, a todos os ouvintes, mais tarde.
+ */
+public interface OuvinteEventosAgendamento {
+
+    void processar(List<AgendamentoEvent> eventos);
+}
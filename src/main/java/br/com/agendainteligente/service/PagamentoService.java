@@ -3,6 +3,7 @@ package br.com.agendainteligente.service;
 import br.com.agendainteligente.domain.entity.Agendamento;
 import br.com.agendainteligente.domain.entity.Pagamento;
 import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
 import br.com.agendainteligente.domain.enums.StatusPagamento;
 import br.com.agendainteligente.domain.enums.TipoPagamento;
 import br.com.agendainteligente.dto.PagamentoDTO;
@@ -28,7 +29,9 @@ public class PagamentoService {
     private final AgendamentoRepository agendamentoRepository;
     private final PagamentoMapper pagamentoMapper;
     private final PaymentGatewayIntegration paymentGatewayIntegration;
-    private final NotaFiscalService notaFiscalService;
+    private final CatalogoCache catalogoCache;
+    private final PublicadorEventosAgendamento publicadorEventosAgendamento;
+    private final ResumoFaturamentoService resumoFaturamentoService;
 
     @Transactional(readOnly = true)
     public PagamentoDTO buscarPorAgendamentoId(Long agendamentoId) {
@@ -81,6 +84,7 @@ public class PagamentoService {
         }
         
         pagamento = pagamentoRepository.save(pagamento);
+        catalogoCache.remover(CatalogoCache.AGENDAMENTOS_CLIENTE, CatalogoCache.chaveCliente(agendamento.getCliente().getId()));
         log.info("Pagamento criado com sucesso. ID: {}", pagamento.getId());
         return pagamentoMapper.toDTO(pagamento);
     }
@@ -103,13 +107,16 @@ public class PagamentoService {
         
         // Atualiza status do agendamento
         Agendamento agendamento = pagamento.getAgendamento();
-        agendamento.setStatus(StatusAgendamento.CONFIRMADO);
-        agendamentoRepository.save(agendamento);
+        // Só agendamentos ainda não atendidos passam a CONFIRMADO: um pagamento que chega depois da conclusão
+        // ou do cancelamento não tira o agendamento desses status
+        if (agendamento.getStatus() == StatusAgendamento.AGENDADO) {
+            resumoFaturamentoService.alterarStatus(agendamento, StatusAgendamento.CONFIRMADO);
+            agendamentoRepository.save(agendamento);
+        }
+        publicadorEventosAgendamento.publicar(TipoEventoAgendamento.PAGAMENTO_CONFIRMADO, agendamento);
+        catalogoCache.remover(CatalogoCache.AGENDAMENTOS_CLIENTE, CatalogoCache.chaveCliente(agendamento.getCliente().getId()));
         
         log.info("Pagamento confirmado com sucesso. ID: {}", pagamento.getId());
-        
-        // Dispara emissão de nota fiscal de forma assíncrona
-        notaFiscalService.emitirNotaFiscal(agendamento.getId());
     }
 }
 
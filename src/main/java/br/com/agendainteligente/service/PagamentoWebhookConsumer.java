@@ -0,0 +1,39 @@
+package br.com.agendainteligente.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consome a fila de webhooks de pagamento em lotes. Cada lote é aplicado em uma transação;
+ * a emissão de NFS-e dos pagamentos aprovados segue pelo outbox de eventos de agendamento.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PagamentoWebhookConsumer {
+
+    // Limita quantos lotes cheios são drenados por execução, para não monopolizar o agendador
+    private static final int MAX_LOTES_POR_EXECUCAO = 10;
+
+    private final PagamentoWebhookService pagamentoWebhookService;
+
+    @Value("${payment.gateway.webhook.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Scheduled(fixedDelayString = "${payment.gateway.webhook.intervalo-processamento:1000}")
+    public void consumir() {
+        try {
+            for (int i = 0; i < MAX_LOTES_POR_EXECUCAO; i++) {
+                PagamentoWebhookService.ResultadoLote resultado = pagamentoWebhookService.processarLote(tamanhoLote);
+                if (resultado.getEventosLidos() < tamanhoLote) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Erro ao processar lote de webhooks de pagamento", e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.EventoWebhookPagamento;
+import br.com.agendainteligente.domain.entity.Pagamento;
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import br.com.agendainteligente.domain.enums.StatusEventoWebhook;
+import br.com.agendainteligente.domain.enums.StatusPagamento;
+import br.com.agendainteligente.repository.EventoWebhookPagamentoRepository;
+import br.com.agendainteligente.repository.PagamentoRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Recepção e processamento dos webhooks do gateway de pagamento.
+ *
+ * A recepção apenas valida a assinatura (HMAC-SHA256 do corpo com payment.gateway.webhook-secret) e grava o
+ * evento cru na fila. O processamento lê os pendentes em lote e aplica os eventos de cada idTransacao na ordem
+ * de chegada, com uma única consulta de pagamentos. Um evento só avança o status do pagamento (ver
+ * {@link #nivel}), então um PENDENTE atrasado ou repetido não desfaz uma aprovação do mesmo lote ou de antes.
+ *
+ * Formato esperado: {"idTransacao": "TXN_123", "status": "APROVADO"}
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PagamentoWebhookService {
+
+    private static final String ALGORITMO_ASSINATURA = "HmacSHA256";
+    private static final String PREFIXO_ASSINATURA = "sha256=";
+
+    private final EventoWebhookPagamentoRepository eventoRepository;
+    private final PagamentoRepository pagamentoRepository;
+    private final ObjectMapper objectMapper;
+    private final CatalogoCache catalogoCache;
+    private final PublicadorEventosAgendamento publicadorEventosAgendamento;
+    private final ResumoFaturamentoService resumoFaturamentoService;
+
+    @Value("${payment.gateway.webhook-secret:}")
+    private String webhookSecret;
+
+    @Value("${payment.gateway.webhook.max-tentativas:10}")
+    private int maxTentativas;
+
+    // Espera antes de procurar de novo um pagamento não encontrado; dobra a cada tentativa até a máxima
+    @Value("${payment.gateway.webhook.espera-inicial:5000}")
+    private long esperaInicial;
+
+    @Value("${payment.gateway.webhook.espera-maxima:300000}")
+    private long esperaMaxima;
+
+    /**
+     * Verifica a assinatura enviada pelo gateway. Sem segredo configurado, nenhum webhook é aceito.
+     */
+    public boolean assinaturaValida(byte[] corpo, String assinatura) {
+        if (webhookSecret == null || webhookSecret.isEmpty()) {
+            log.error("payment.gateway.webhook-secret não configurado. Webhook recusado");
+            return false;
+        }
+        if (assinatura == null || assinatura.isBlank()) {
+            return false;
+        }
+        String recebida = assinatura.trim();
+        if (recebida.startsWith(PREFIXO_ASSINATURA)) {
+            recebida = recebida.substring(PREFIXO_ASSINATURA.length());
+        }
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO_ASSINATURA);
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), ALGORITMO_ASSINATURA));
+            byte[] esperada = mac.doFinal(corpo);
+            return MessageDigest.isEqual(esperada, HexFormat.of().parseHex(recebida.toLowerCase()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        } catch (Exception e) {
+            throw new IllegalStateException("Erro ao verificar assinatura do webhook", e);
+        }
+    }
+
+    @Transactional
+    public Long registrar(String payload) {
+        EventoWebhookPagamento evento = eventoRepository.save(EventoWebhookPagamento.builder()
+                .payload(payload)
+                .build());
+        log.debug("Evento de webhook de pagamento enfileirado. ID: {}", evento.getId());
+        return evento.getId();
+    }
+
+    /**
+     * Processa um lote de eventos pendentes. Cada aprovação grava um evento PAGAMENTO_CONFIRMADO no outbox
+     * de agendamentos, que dispara a emissão da NFS-e após o commit.
+     */
+    @Transactional
+    public ResultadoLote processarLote(int tamanhoLote) {
+        LocalDateTime agora = LocalDateTime.now();
+        List<EventoWebhookPagamento> eventos = eventoRepository.findPendentesParaProcessar(agora, tamanhoLote);
+        if (eventos.isEmpty()) {
+            return new ResultadoLote(0, List.of());
+        }
+
+        // Eventos de cada transação, na ordem de chegada (a fila vem ordenada por id)
+        Map<String, List<EventoWebhookPagamento>> porTransacao = new LinkedHashMap<>();
+        Map<Long, StatusPagamento> statusPorEvento = new HashMap<>();
+        for (EventoWebhookPagamento evento : eventos) {
+            EventoLido lido = ler(evento.getPayload());
+            if (lido == null) {
+                finalizar(evento, StatusEventoWebhook.ERRO, "Payload inválido", agora);
+                continue;
+            }
+            evento.setIdTransacaoGateway(lido.idTransacao);
+            statusPorEvento.put(evento.getId(), lido.status);
+            porTransacao.computeIfAbsent(lido.idTransacao, id -> new ArrayList<>()).add(evento);
+        }
+
+        Map<String, Pagamento> pagamentos = porTransacao.isEmpty() ? Map.of()
+                : pagamentoRepository.findByIdTransacaoGatewayIn(porTransacao.keySet()).stream()
+                        .collect(Collectors.toMap(Pagamento::getIdTransacaoGateway, Function.identity(), (a, b) -> a));
+
+        List<Long> agendamentosAprovados = new ArrayList<>();
+        for (Map.Entry<String, List<EventoWebhookPagamento>> transacao : porTransacao.entrySet()) {
+            Pagamento pagamento = pagamentos.get(transacao.getKey());
+            if (pagamento == null) {
+                // O webhook pode chegar antes do commit do pagamento; tenta de novo mais tarde
+                transacao.getValue().forEach(evento -> adiar(evento, agora));
+                continue;
+            }
+            for (EventoWebhookPagamento evento : transacao.getValue()) {
+                if (aplicar(pagamento, statusPorEvento.get(evento.getId()), agora)) {
+                    if (pagamento.getStatus() == StatusPagamento.APROVADO) {
+                        agendamentosAprovados.add(pagamento.getAgendamento().getId());
+                    }
+                    finalizar(evento, StatusEventoWebhook.PROCESSADO, null, agora);
+                } else {
+                    finalizar(evento, StatusEventoWebhook.IGNORADO, "Sem mudança de status", agora);
+                }
+            }
+        }
+
+        log.info("Lote de webhooks de pagamento processado: {} eventos, {} transações, {} aprovações",
+                eventos.size(), porTransacao.size(), agendamentosAprovados.size());
+        return new ResultadoLote(eventos.size(), agendamentosAprovados);
+    }
+
+    /**
+     * Aplica o status recebido ao pagamento. Retorna false se nada mudou (evento repetido, atrasado ou irrelevante).
+     */
+    private boolean aplicar(Pagamento pagamento, StatusPagamento novoStatus, LocalDateTime agora) {
+        if (novoStatus == null || nivel(novoStatus) <= nivel(pagamento.getStatus())) {
+            return false;
+        }
+        pagamento.setStatus(novoStatus);
+        if (novoStatus == StatusPagamento.APROVADO) {
+            pagamento.setDataPagamento(agora);
+            Agendamento agendamento = pagamento.getAgendamento();
+            // Agendamento concluído, cancelado ou já em atendimento mantém o status (ver PagamentoService)
+            if (agendamento.getStatus() == StatusAgendamento.AGENDADO) {
+                resumoFaturamentoService.alterarStatus(agendamento, StatusAgendamento.CONFIRMADO);
+            }
+            publicadorEventosAgendamento.publicar(TipoEventoAgendamento.PAGAMENTO_CONFIRMADO, agendamento);
+        }
+        catalogoCache.remover(CatalogoCache.AGENDAMENTOS_CLIENTE, CatalogoCache.chaveCliente(pagamento.getAgendamento().getCliente().getId()));
+        return true;
+    }
+
+    /**
+     * Precedência dos status: o pagamento só passa para um status de nível maior. Recusa e cancelamento podem ser
+     * seguidos de uma aprovação; uma aprovação só de um reembolso, que é final.
+     */
+    private static int nivel(StatusPagamento status) {
+        return switch (status) {
+            case PENDENTE -> 0;
+            case PROCESSANDO -> 1;
+            case RECUSADO, CANCELADO -> 2;
+            case APROVADO -> 3;
+            case REEMBOLSADO -> 4;
+        };
+    }
+
+    /**
+     * Agenda nova tentativa com espera crescente, até payment.gateway.webhook.max-tentativas
+     */
+    private void adiar(EventoWebhookPagamento evento, LocalDateTime agora) {
+        evento.setTentativas(evento.getTentativas() + 1);
+        if (evento.getTentativas() >= maxTentativas) {
+            finalizar(evento, StatusEventoWebhook.ERRO, "Pagamento não encontrado", agora);
+            return;
+        }
+        long espera = Math.min(esperaMaxima, esperaInicial << Math.min(evento.getTentativas() - 1, 20));
+        evento.setProximaTentativa(agora.plus(Duration.ofMillis(espera)));
+    }
+
+    private EventoLido ler(String payload) {
+        try {
+            JsonNode json = objectMapper.readTree(payload);
+            String idTransacao = json.path("idTransacao").asText(null);
+            String status = json.path("status").asText(null);
+            if (idTransacao == null || idTransacao.isBlank() || status == null) {
+                return null;
+            }
+            return new EventoLido(idTransacao, StatusPagamento.valueOf(status.trim().toUpperCase()));
+        } catch (Exception e) {
+            log.warn("Payload de webhook de pagamento inválido: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void finalizar(EventoWebhookPagamento evento, StatusEventoWebhook status, String mensagem,
+                                  LocalDateTime agora) {
+        evento.setStatus(status);
+        evento.setMensagemErro(mensagem);
+        evento.setDataProcessamento(agora);
+    }
+
+    public static class ResultadoLote {
+        private final int eventosLidos;
+        private final List<Long> agendamentosAprovados;
+
+        public ResultadoLote(int eventosLidos, List<Long> agendamentosAprovados) {
+            this.eventosLidos = eventosLidos;
+            this.agendamentosAprovados = agendamentosAprovados;
+        }
+
+        public int getEventosLidos() { return eventosLidos; }
+        public List<Long> getAgendamentosAprovados() { return agendamentosAprovados; }
+    }
+
+    private static class EventoLido {
+        private final String idTransacao;
+        private final StatusPagamento status;
+
+        EventoLido(String idTransacao, StatusPagamento status) {
+            this.idTransacao = idTransacao;
+            this.status = status;
+        }
+    }
+}
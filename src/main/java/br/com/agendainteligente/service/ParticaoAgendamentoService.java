@@ -0,0 +1,62 @@
+package br.com.agendainteligente.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Manutenção das partições mensais de agendamentos (V37): cria as dos próximos meses antes que recebam
+ * dados e arquiva as que passaram da retenção, movendo-as para o schema arquivo junto com os serviços,
+ * pagamentos e notas fiscais dos agendamentos (V42), que não têm mais FK para agendamentos.
+ *
+ * Com várias instâncias, só a que obtiver o advisory lock executa; as demais encontram as partições já
+ * criadas na próxima execução.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "particionamento.agendamentos.habilitado", havingValue = "true", matchIfMissing = true)
+public class ParticaoAgendamentoService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${particionamento.agendamentos.meses-a-frente:27}")
+    private int mesesAFrente;
+
+    // 0 desativa o arquivamento
+    @Value("${particionamento.agendamentos.retencao-meses:36}")
+    private int retencaoMeses;
+
+    @Scheduled(cron = "${particionamento.agendamentos.cron:0 30 3 * * *}")
+    @Transactional
+    public void manterParticoes() {
+        Boolean bloqueado = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('particoes_agendamentos'))", Boolean.class);
+        if (!Boolean.TRUE.equals(bloqueado)) {
+            log.debug("Manutenção de partições de agendamentos em execução em outra instância");
+            return;
+        }
+
+        LocalDate mesAtual = LocalDate.now().withDayOfMonth(1);
+        Integer criadas = jdbcTemplate.queryForObject("SELECT criar_particoes_agendamentos(?, ?)", Integer.class,
+                mesAtual, mesAtual.plusMonths(mesesAFrente));
+        if (criadas != null && criadas > 0) {
+            log.info("{} partições de agendamentos criadas", criadas);
+        }
+
+        if (retencaoMeses > 0) {
+            Integer arquivadas = jdbcTemplate.queryForObject("SELECT arquivar_particoes_agendamentos(?)",
+                    Integer.class, mesAtual.minusMonths(retencaoMeses));
+            if (arquivadas != null && arquivadas > 0) {
+                log.info("{} partições de agendamentos arquivadas no schema arquivo", arquivadas);
+            }
+        }
+    }
+}
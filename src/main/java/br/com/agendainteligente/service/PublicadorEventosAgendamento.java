@@ -0,0 +1,59 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.EventoAgendamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import br.com.agendainteligente.repository.EventoAgendamentoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Grava os {@link AgendamentoEvent} no outbox (tabela eventos_agendamento) na mesma transação que altera
+ * o agendamento: o evento só existe se a alteração for confirmada. O repasse aos ouvintes é feito por
+ * {@link RelayEventosAgendamento}, que é acordado logo após o commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class PublicadorEventosAgendamento {
+
+    private final EventoAgendamentoRepository eventoAgendamentoRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(TipoEventoAgendamento tipo, Agendamento agendamento) {
+        AgendamentoEvent evento = AgendamentoEvent.builder()
+                .tipo(tipo)
+                .agendamentoId(agendamento.getId())
+                .unidadeId(agendamento.getUnidade().getId())
+                .atendenteId(agendamento.getAtendente().getId())
+                .clienteId(agendamento.getCliente().getId())
+                .status(agendamento.getStatus())
+                .dataHoraInicio(agendamento.getDataHoraInicio())
+                .dataHoraFim(agendamento.getDataHoraFim())
+                .ocorridoEm(LocalDateTime.now())
+                .build();
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar evento do agendamento " + agendamento.getId(), e);
+        }
+        eventoAgendamentoRepository.save(EventoAgendamento.builder()
+                .tipo(tipo)
+                .agendamentoId(evento.getAgendamentoId())
+                .unidadeId(evento.getUnidadeId())
+                .payload(payload)
+                .build());
+        applicationEventPublisher.publishEvent(evento);
+    }
+}
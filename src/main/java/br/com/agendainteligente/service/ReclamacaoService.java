@@ -29,12 +29,14 @@ public class ReclamacaoService {
     private final ReclamacaoMapper reclamacaoMapper;
     private final UsuarioRepository usuarioRepository;
     private final UnidadeRepository unidadeRepository;
+    private final ContadorReclamacoesService contadorReclamacoesService;
 
     @Transactional
     public ReclamacaoDTO criar(ReclamacaoDTO reclamacaoDTO) {
         Reclamacao reclamacao = reclamacaoMapper.toEntity(reclamacaoDTO);
         reclamacao.setLida(false);
         reclamacao = reclamacaoRepository.save(reclamacao);
+        contadorReclamacoesService.incrementar(reclamacao.getUnidadeId());
         log.info("Reclamação anônima criada. ID: {}", reclamacao.getId());
         return reclamacaoMapper.toDTO(reclamacao);
     }
@@ -132,9 +134,7 @@ public class ReclamacaoService {
         if (unidadesIds.isEmpty()) {
             return 0L;
         }
-        return reclamacaoRepository.findAll().stream()
-                .filter(r -> !r.getLida() && r.getUnidadeId() != null && unidadesIds.contains(r.getUnidadeId()))
-                .count();
+        return contadorReclamacoesService.obter(unidadesIds);
     }
 
     @Transactional(readOnly = true)
@@ -142,7 +142,7 @@ public class ReclamacaoService {
         if (!obterUnidadesIdsPermitidas().contains(unidadeId)) {
             return 0L;
         }
-        return reclamacaoRepository.countByUnidadeIdAndLidaFalse(unidadeId);
+        return contadorReclamacoesService.obter(unidadeId);
     }
 
     @Transactional
@@ -152,8 +152,12 @@ public class ReclamacaoService {
         if (reclamacao.getUnidadeId() == null || !obterUnidadesIdsPermitidas().contains(reclamacao.getUnidadeId())) {
             throw new ResourceNotFoundException("Reclamação não encontrada");
         }
+        boolean naoLida = !reclamacao.getLida();
         reclamacao.setLida(true);
         reclamacao = reclamacaoRepository.save(reclamacao);
+        if (naoLida) {
+            contadorReclamacoesService.decrementar(reclamacao.getUnidadeId());
+        }
         log.info("Reclamação marcada como lida. ID: {}", id);
         return reclamacaoMapper.toDTO(reclamacao);
     }
@@ -0,0 +1,38 @@
+package br.com.agendainteligente.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compacta aos poucos os XMLs de notas fiscais copiados sem compactação pela V31. Cada lote é uma
+ * transação; quando não há mais registros NENHUMA, cada execução é só uma consulta no índice parcial (V43).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RecompactacaoXmlNotaFiscalConsumer {
+
+    // Limita quantos lotes cheios são processados por execução, para não monopolizar o agendador
+    private static final int MAX_LOTES_POR_EXECUCAO = 10;
+
+    private final NotaFiscalXmlService notaFiscalXmlService;
+
+    @Value("${nfse.xml.recompactacao.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Scheduled(fixedDelayString = "${nfse.xml.recompactacao.intervalo:60000}")
+    public void recompactar() {
+        try {
+            for (int i = 0; i < MAX_LOTES_POR_EXECUCAO; i++) {
+                if (notaFiscalXmlService.recompactarLote(tamanhoLote) < tamanhoLote) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Erro ao recompactar XMLs de notas fiscais", e);
+        }
+    }
+}
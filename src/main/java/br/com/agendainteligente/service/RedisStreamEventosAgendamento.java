@@ -0,0 +1,57 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia os eventos de agendamento para o Redis Stream {@value #STREAM}, para consumidores externos
+ * (consumer groups). O stream é aparado em agenda.eventos.redis-stream.tamanho-maximo entradas
+ * (aproximado). Se o Redis falhar, o lote é repetido pelo outbox: consumidores devem tolerar duplicados.
+ */
+@Component
+@ConditionalOnProperty(prefix = "agenda.eventos.redis-stream", name = "habilitado", havingValue = "true")
+@RequiredArgsConstructor
+public class RedisStreamEventosAgendamento implements OuvinteEventosAgendamento {
+
+    public static final String STREAM = "agendamentos:eventos";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${agenda.eventos.redis-stream.tamanho-maximo:100000}")
+    private long tamanhoMaximo;
+
+    @Override
+    public void processar(List<AgendamentoEvent> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        for (AgendamentoEvent evento : eventos) {
+            stringRedisTemplate.opsForStream().add(StreamRecords.string(Map.of(
+                            "tipo", evento.getTipo().name(),
+                            "agendamentoId", String.valueOf(evento.getAgendamentoId()),
+                            "unidadeId", String.valueOf(evento.getUnidadeId()),
+                            "payload", json(evento)))
+                    .withStreamKey(STREAM));
+        }
+        stringRedisTemplate.opsForStream().trim(STREAM, tamanhoMaximo, true);
+    }
+
+    private String json(AgendamentoEvent evento) {
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar evento do agendamento " + evento.getAgendamentoId(), e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drena o outbox de eventos de agendamento em lotes. Roda logo após o commit que grava eventos (fora da
+ * thread da requisição) e, como garantia, a cada agenda.eventos.outbox.intervalo-processamento,
+ * o que cobre eventos gravados por outras instâncias ou perdidos em uma reinicialização.
+ */
+@Component
+@Slf4j
+public class RelayEventosAgendamento {
+
+    // Limita quantos lotes cheios são drenados por execução, para não monopolizar o agendador
+    private static final int MAX_LOTES_POR_EXECUCAO = 10;
+
+    private final RelayEventosAgendamentoService relayEventosAgendamentoService;
+    private final Executor taskExecutor;
+
+    // Uma drenagem por vez nesta instância; eventos gravados durante ela fazem a drenagem repetir
+    private final AtomicBoolean executando = new AtomicBoolean();
+    private final AtomicBoolean novosEventos = new AtomicBoolean();
+
+    @Value("${agenda.eventos.outbox.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Value("${agenda.eventos.outbox.retencao-dias:7}")
+    private int retencaoDias;
+
+    public RelayEventosAgendamento(RelayEventosAgendamentoService relayEventosAgendamentoService,
+                                   @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.relayEventosAgendamentoService = relayEventosAgendamentoService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoGravarEvento(AgendamentoEvent evento) {
+        novosEventos.set(true);
+        if (executando.get()) {
+            return;
+        }
+        try {
+            taskExecutor.execute(this::repassar);
+        } catch (RejectedExecutionException e) {
+            log.debug("Executor ocupado; eventos de agendamento ficam para o próximo ciclo do relay");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${agenda.eventos.outbox.intervalo-processamento:1000}")
+    public void repassar() {
+        if (!executando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            do {
+                novosEventos.set(false);
+                for (int i = 0; i < MAX_LOTES_POR_EXECUCAO; i++) {
+                    if (relayEventosAgendamentoService.processarLote(tamanhoLote) < tamanhoLote) {
+                        break;
+                    }
+                }
+            } while (novosEventos.get());
+        } catch (Exception e) {
+            log.error("Erro ao repassar eventos de agendamento", e);
+        } finally {
+            executando.set(false);
+        }
+    }
+
+    @Scheduled(cron = "${agenda.eventos.outbox.cron-limpeza:0 30 3 * * *}")
+    public void limpar() {
+        int removidos = relayEventosAgendamentoService.removerProcessados(LocalDateTime.now().minusDays(retencaoDias));
+        if (removidos > 0) {
+            log.info("{} eventos de agendamento processados removidos do outbox", removidos);
+        }
+    }
+}
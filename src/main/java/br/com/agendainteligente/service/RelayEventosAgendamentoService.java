@@ -0,0 +1,120 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.EventoAgendamento;
+import br.com.agendainteligente.domain.enums.StatusEventoAgendamento;
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import br.com.agendainteligente.repository.EventoAgendamentoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repasse em lote dos eventos do outbox de agendamentos aos {@link OuvinteEventosAgendamento}.
+ *
+ * O lote é lido com SKIP LOCKED e marcado como processado na mesma transação em que os ouvintes rodam.
+ * Se um ouvinte falha, todos os eventos do lote continuam pendentes com mais uma tentativa e, ao atingir
+ * agenda.eventos.outbox.max-tentativas, vão para ERRO. Eventos adiados por um ouvinte sem capacidade
+ * ({@link EventosAdiadosException}) continuam pendentes sem contar tentativa, e o restante do lote é concluído.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RelayEventosAgendamentoService {
+
+    private static final int TAMANHO_MAXIMO_MENSAGEM = 1000;
+
+    private final EventoAgendamentoRepository eventoAgendamentoRepository;
+    private final ObjectMapper objectMapper;
+    private final List<OuvinteEventosAgendamento> ouvintes;
+
+    @Value("${agenda.eventos.outbox.max-tentativas:5}")
+    private int maxTentativas;
+
+    /**
+     * Repassa um lote de eventos pendentes. Retorna quantos eventos foram concluídos (0 se o lote falhou);
+     * os adiados não entram na contagem.
+     */
+    @Transactional
+    public int processarLote(int tamanhoLote) {
+        List<EventoAgendamento> registros = eventoAgendamentoRepository.findPendentesParaProcessar(tamanhoLote);
+        if (registros.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime agora = LocalDateTime.now();
+
+        List<EventoAgendamento> lidos = new ArrayList<>();
+        List<AgendamentoEvent> eventos = new ArrayList<>();
+        for (EventoAgendamento registro : registros) {
+            try {
+                eventos.add(objectMapper.readValue(registro.getPayload(), AgendamentoEvent.class));
+                lidos.add(registro);
+            } catch (JsonProcessingException e) {
+                finalizar(registro, StatusEventoAgendamento.ERRO, "Payload inválido: " + e.getOriginalMessage(), agora);
+            }
+        }
+
+        Set<Long> adiados = new HashSet<>();
+        try {
+            for (OuvinteEventosAgendamento ouvinte : ouvintes) {
+                try {
+                    ouvinte.processar(eventos);
+                } catch (EventosAdiadosException e) {
+                    adiados.addAll(e.getAgendamentoIds());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Erro ao repassar lote de {} eventos de agendamento (a partir do evento {})",
+                    lidos.size(), registros.get(0).getId(), e);
+            for (EventoAgendamento registro : lidos) {
+                registro.setTentativas(registro.getTentativas() + 1);
+                registro.setMensagemErro(limitar(e.toString()));
+                if (registro.getTentativas() >= maxTentativas) {
+                    finalizar(registro, StatusEventoAgendamento.ERRO, registro.getMensagemErro(), agora);
+                }
+            }
+            return 0;
+        }
+
+        int mantidos = 0;
+        for (int i = 0; i < lidos.size(); i++) {
+            if (adiados.contains(eventos.get(i).getAgendamentoId())) {
+                mantidos++;
+            } else {
+                finalizar(lidos.get(i), StatusEventoAgendamento.PROCESSADO, null, agora);
+            }
+        }
+        if (mantidos > 0) {
+            log.info("{} eventos de agendamento adiados continuam pendentes no outbox", mantidos);
+        }
+        log.debug("Lote de eventos de agendamento repassado: {} eventos, {} ouvintes", lidos.size() - mantidos,
+                ouvintes.size());
+        return registros.size() - mantidos;
+    }
+
+    @Transactional
+    public int removerProcessados(LocalDateTime antesDe) {
+        return eventoAgendamentoRepository.removerAntes(StatusEventoAgendamento.PROCESSADO, antesDe);
+    }
+
+    private static void finalizar(EventoAgendamento registro, StatusEventoAgendamento status, String mensagem,
+                                  LocalDateTime agora) {
+        registro.setStatus(status);
+        registro.setMensagemErro(limitar(mensagem));
+        registro.setDataProcessamento(agora);
+    }
+
+    private static String limitar(String mensagem) {
+        return mensagem != null && mensagem.length() > TAMANHO_MAXIMO_MENSAGEM
+                ? mensagem.substring(0, TAMANHO_MAXIMO_MENSAGEM) : mensagem;
+    }
+}
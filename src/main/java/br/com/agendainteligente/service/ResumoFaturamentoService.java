@@ -0,0 +1,286 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.Atendente;
+import br.com.agendainteligente.domain.entity.ResumoFaturamento;
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.domain.entity.Usuario;
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.dto.ComissaoAtendenteDTO;
+import br.com.agendainteligente.dto.RelatorioComissoesDTO;
+import br.com.agendainteligente.exception.BusinessException;
+import br.com.agendainteligente.repository.ResumoFaturamentoRepository;
+import br.com.agendainteligente.repository.UnidadeRepository;
+import br.com.agendainteligente.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Faturamento e comissões por unidade, atendente e dia (tabela resumos_faturamento).
+ *
+ * O resumo é atualizado na mesma transação que muda o status do agendamento, somando ou subtraindo a
+ * contribuição dele quando entra ou sai de CONCLUIDO/CANCELADO. Os relatórios leem só o resumo, sem
+ * percorrer agendamentos e serviços. Toda mudança de status deve passar por {@link #alterarStatus} ou
+ * {@link #registrarMudancaStatus}; como proteção contra alterações feitas por fora, os dias recentes são
+ * recalculados a partir de agendamentos diariamente ({@link #reconciliar}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumoFaturamentoService {
+
+    private static final BigDecimal CEM = BigDecimal.valueOf(100);
+
+    private final ResumoFaturamentoRepository resumoFaturamentoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final UnidadeRepository unidadeRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${faturamento.resumo.dias-reconciliacao:45}")
+    private int diasReconciliacao;
+
+    /**
+     * Comissão do atendente sobre o valor; usa o percentual do usuário quando o do atendente não está definido
+     */
+    public BigDecimal calcularComissao(Atendente atendente, BigDecimal valor) {
+        BigDecimal percentual = atendente.getPercentualComissao();
+        if ((percentual == null || percentual.signum() == 0) && atendente.getUsuario() != null) {
+            percentual = atendente.getUsuario().getPercentualComissao();
+        }
+        if (percentual == null || valor == null) {
+            return BigDecimal.ZERO;
+        }
+        return valor.multiply(percentual).divide(CEM, 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Altera o status do agendamento e atualiza o resumo do dia na mesma transação
+     */
+    @Transactional
+    public void alterarStatus(Agendamento agendamento, StatusAgendamento novoStatus) {
+        StatusAgendamento statusAnterior = agendamento.getStatus();
+        agendamento.setStatus(novoStatus);
+        registrarMudancaStatus(agendamento, statusAnterior);
+    }
+
+    /**
+     * Atualiza o resumo do dia do agendamento após a mudança de status. Deve ser chamado antes de alterar
+     * valorFinal ou valorComissao de um agendamento que sai de CONCLUIDO.
+     */
+    @Transactional
+    public void registrarMudancaStatus(Agendamento agendamento, StatusAgendamento statusAnterior) {
+        StatusAgendamento novoStatus = agendamento.getStatus();
+        if (novoStatus == statusAnterior) {
+            return;
+        }
+
+        Variacao variacao = new Variacao();
+        if (statusAnterior == StatusAgendamento.CONCLUIDO) {
+            variacao.somarConclusao(agendamento, -1);
+        } else if (statusAnterior == StatusAgendamento.CANCELADO) {
+            variacao.cancelados--;
+        }
+        if (novoStatus == StatusAgendamento.CONCLUIDO) {
+            variacao.somarConclusao(agendamento, 1);
+        } else if (novoStatus == StatusAgendamento.CANCELADO) {
+            variacao.cancelados++;
+        }
+        if (variacao.vazia()) {
+            return;
+        }
+
+        Long unidadeId = agendamento.getUnidade().getId();
+        Long atendenteId = agendamento.getAtendente().getId();
+        LocalDate data = agendamento.getDataHoraInicio().toLocalDate();
+        if (acumular(unidadeId, atendenteId, data, variacao) == 0) {
+            criarResumo(unidadeId, atendenteId, data);
+            acumular(unidadeId, atendenteId, data, variacao);
+        }
+    }
+
+    /**
+     * Recalcula os resumos a partir da data informada (inclusive, até o último agendamento futuro) com base nos
+     * agendamentos. Agendamentos já arquivados (particionamento.agendamentos.retencao-meses) não estão mais em
+     * agendamentos, então a data deve ser posterior ao último mês arquivado. Retorna quantos resumos foram gravados.
+     */
+    @Transactional
+    public int reconstruir(LocalDate inicio) {
+        if (!resumoFaturamentoRepository.bloquearReconstrucao()) {
+            throw new BusinessException("Reconstrução dos resumos de faturamento já em andamento");
+        }
+        return recalcular(inicio);
+    }
+
+    /**
+     * Recalcula os últimos faturamento.resumo.dias-reconciliacao dias (e os agendamentos futuros cancelados)
+     */
+    @Scheduled(cron = "${faturamento.resumo.cron-reconciliacao:0 0 4 * * *}")
+    @Transactional
+    public void reconciliar() {
+        if (!resumoFaturamentoRepository.bloquearReconstrucao()) {
+            log.debug("Reconstrução dos resumos de faturamento em execução em outra instância");
+            return;
+        }
+        recalcular(LocalDate.now().minusDays(diasReconciliacao));
+    }
+
+    @Transactional(readOnly = true)
+    public RelatorioComissoesDTO relatorioComissoes(Long unidadeId, int ano, Integer mes) {
+        if (mes != null && (mes < 1 || mes > 12)) {
+            throw new BusinessException("Mês deve estar entre 1 e 12");
+        }
+        if (!obterUnidadesIdsPermitidas().contains(unidadeId)) {
+            throw new BusinessException("Você não tem permissão para acessar esta unidade");
+        }
+
+        LocalDate inicio = mes != null ? LocalDate.of(ano, mes, 1) : LocalDate.of(ano, 1, 1);
+        LocalDate fim = mes != null ? inicio.plusMonths(1) : inicio.plusYears(1);
+        List<ComissaoAtendenteDTO> atendentes = resumoFaturamentoRepository
+                .totalizarPorAtendente(unidadeId, inicio, fim).stream()
+                .map(total -> ComissaoAtendenteDTO.builder()
+                        .atendenteId(total.getAtendenteId())
+                        .nomeAtendente(total.getNomeAtendente())
+                        .quantidadeConcluidos(total.getQuantidadeConcluidos())
+                        .quantidadeCancelados(total.getQuantidadeCancelados())
+                        .valorTotal(total.getValorTotal())
+                        .valorFinal(total.getValorFinal())
+                        .valorComissao(total.getValorComissao())
+                        .build())
+                .collect(Collectors.toList());
+
+        return RelatorioComissoesDTO.builder()
+                .unidadeId(unidadeId)
+                .ano(ano)
+                .mes(mes)
+                .atendentes(atendentes)
+                .quantidadeConcluidos(atendentes.stream().mapToLong(ComissaoAtendenteDTO::getQuantidadeConcluidos).sum())
+                .quantidadeCancelados(atendentes.stream().mapToLong(ComissaoAtendenteDTO::getQuantidadeCancelados).sum())
+                .valorFinal(atendentes.stream().map(ComissaoAtendenteDTO::getValorFinal)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .valorComissao(atendentes.stream().map(ComissaoAtendenteDTO::getValorComissao)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .build();
+    }
+
+    /**
+     * Troca os resumos a partir da data pelos totais calculados dos agendamentos. Uma finalização concorrente
+     * espera o DELETE (bloqueio da linha) e soma a sua variação ao resumo recalculado, que ainda não a inclui.
+     */
+    private int recalcular(LocalDate inicio) {
+        int removidos = resumoFaturamentoRepository.removerAPartirDe(inicio);
+        int gravados = resumoFaturamentoRepository.recalcularAPartirDe(inicio.atStartOfDay(), LocalDateTime.now());
+        log.info("Resumos de faturamento a partir de {} recalculados: {} removidos, {} gravados", inicio, removidos, gravados);
+        return gravados;
+    }
+
+    private int acumular(Long unidadeId, Long atendenteId, LocalDate data, Variacao variacao) {
+        return resumoFaturamentoRepository.acumular(unidadeId, atendenteId, data, variacao.concluidos,
+                variacao.cancelados, variacao.valorTotal, variacao.valorFinal, variacao.valorComissao,
+                LocalDateTime.now());
+    }
+
+    /**
+     * Cria o resumo zerado do dia em transação própria: se outra transação criar o mesmo resumo ao mesmo
+     * tempo, só a inserção falha e a transação do agendamento segue para a soma.
+     */
+    private void criarResumo(Long unidadeId, Long atendenteId, LocalDate data) {
+        TransactionTemplate novaTransacao = new TransactionTemplate(transactionManager);
+        novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            novaTransacao.executeWithoutResult(status -> resumoFaturamentoRepository.saveAndFlush(
+                    ResumoFaturamento.builder()
+                            .unidadeId(unidadeId)
+                            .atendenteId(atendenteId)
+                            .data(data)
+                            .dataAtualizacao(LocalDateTime.now())
+                            .build()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Resumo de faturamento {}/{}/{} criado por outra transação", unidadeId, atendenteId, data);
+        }
+    }
+
+    private Set<Long> obterUnidadesIdsPermitidas() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) {
+            return Set.of();
+        }
+        Usuario usuario = usuarioRepository.findByEmail(auth.getName()).orElse(null);
+        if (usuario == null) {
+            return Set.of();
+        }
+        switch (usuario.getPerfil()) {
+            case ADMIN:
+                return unidadeRepository.findAll().stream().map(Unidade::getId).collect(Collectors.toSet());
+            case GERENTE:
+                if (usuario.getUnidades() == null || usuario.getUnidades().isEmpty()) {
+                    return Set.of();
+                }
+                Set<Long> empresaIds = usuario.getUnidades().stream()
+                        .map(u -> {
+                            if (u.getEmpresa() == null) {
+                                Unidade uc = unidadeRepository.findById(u.getId()).orElse(null);
+                                return uc != null && uc.getEmpresa() != null ? uc.getEmpresa().getId() : null;
+                            }
+                            return u.getEmpresa().getId();
+                        })
+                        .filter(id -> id != null)
+                        .collect(Collectors.toSet());
+                if (empresaIds.isEmpty()) {
+                    return Set.of();
+                }
+                return unidadeRepository.findAll().stream()
+                        .filter(u -> u.getEmpresa() != null && empresaIds.contains(u.getEmpresa().getId()))
+                        .map(Unidade::getId)
+                        .collect(Collectors.toSet());
+            default:
+                return Set.of();
+        }
+    }
+
+    /**
+     * Contribuição de uma mudança de status ao resumo do dia
+     */
+    private static class Variacao {
+        private int concluidos;
+        private int cancelados;
+        private BigDecimal valorTotal = BigDecimal.ZERO;
+        private BigDecimal valorFinal = BigDecimal.ZERO;
+        private BigDecimal valorComissao = BigDecimal.ZERO;
+
+        void somarConclusao(Agendamento agendamento, int sinal) {
+            BigDecimal fator = BigDecimal.valueOf(sinal);
+            BigDecimal total = valorOuZero(agendamento.getValorTotal());
+            concluidos += sinal;
+            valorTotal = valorTotal.add(total.multiply(fator));
+            valorFinal = valorFinal.add((agendamento.getValorFinal() != null ? agendamento.getValorFinal() : total)
+                    .multiply(fator));
+            valorComissao = valorComissao.add(valorOuZero(agendamento.getValorComissao()).multiply(fator));
+        }
+
+        boolean vazia() {
+            return concluidos == 0 && cancelados == 0;
+        }
+
+        private static BigDecimal valorOuZero(BigDecimal valor) {
+            return valor != null ? valor : BigDecimal.ZERO;
+        }
+    }
+}
@@ -30,23 +30,20 @@ public class ServicoService {
     private final ServicoMapper servicoMapper;
     private final UnidadeRepository unidadeRepository;
     private final UsuarioRepository usuarioRepository;
+    private final CatalogoCache catalogoCache;
+    private final CacheEntidades cacheEntidades;
 
     @Transactional(readOnly = true)
     public List<ServicoDTO> listarTodos() {
         log.debug("Listando todos os serviços");
-        List<Servico> servicos = filtrarPorPermissao();
-        return servicos.stream()
-                .map(servicoMapper::toDTO)
-                .collect(Collectors.toList());
+        return filtrarPorPermissao();
     }
 
     @Transactional(readOnly = true)
     public List<ServicoDTO> listarAtivos() {
         log.debug("Listando serviços ativos");
-        List<Servico> servicos = filtrarPorPermissao();
-        return servicos.stream()
-                .filter(Servico::getAtivo)
-                .map(servicoMapper::toDTO)
+        return filtrarPorPermissao().stream()
+                .filter(s -> Boolean.TRUE.equals(s.getAtivo()))
                 .collect(Collectors.toList());
     }
 
@@ -54,24 +51,21 @@ public class ServicoService {
     public List<ServicoDTO> listarPorUnidade(Long unidadeId) {
         log.debug("Listando serviços da unidade: {}", unidadeId);
         validarAcessoUnidade(unidadeId);
-        return servicoRepository.findByUnidadeId(unidadeId).stream()
-                .map(servicoMapper::toDTO)
-                .collect(Collectors.toList());
+        return servicoRepository.listarDTOsPorUnidade(unidadeId);
     }
 
     @Transactional(readOnly = true)
     public List<ServicoDTO> listarAtivosPorUnidade(Long unidadeId) {
         log.debug("Listando serviços ativos da unidade: {}", unidadeId);
         validarAcessoUnidade(unidadeId);
-        return servicoRepository.findByUnidadeIdAndAtivoTrue(unidadeId).stream()
-                .map(servicoMapper::toDTO)
-                .collect(Collectors.toList());
+        return catalogoCache.obter(CatalogoCache.SERVICOS, CatalogoCache.chaveUnidade(unidadeId), () ->
+                servicoRepository.listarDTOsAtivosPorUnidade(unidadeId));
     }
 
-    private List<Servico> filtrarPorPermissao() {
+    private List<ServicoDTO> filtrarPorPermissao() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated()) {
-            return servicoRepository.findAll();
+            return servicoRepository.listarDTOs();
         }
 
         String email = auth.getName();
@@ -83,7 +77,7 @@ public class ServicoService {
         switch (perfil) {
             case ADMIN:
                 log.debug("ADMIN: listando todos os serviços");
-                return servicoRepository.findAll();
+                return servicoRepository.listarDTOs();
 
             case GERENTE:
                 log.debug("GERENTE: listando serviços das unidades da empresa");
@@ -104,10 +98,7 @@ public class ServicoService {
                 if (empresaIds.isEmpty()) {
                     return List.of();
                 }
-                return servicoRepository.findAll().stream()
-                        .filter(s -> s.getUnidade() != null && s.getUnidade().getEmpresa() != null
-                                && empresaIds.contains(s.getUnidade().getEmpresa().getId()))
-                        .collect(Collectors.toList());
+                return servicoRepository.listarDTOsPorEmpresas(empresaIds);
 
             case PROFISSIONAL:
                 log.debug("PROFISSIONAL: listando serviços das unidades do usuário");
@@ -118,9 +109,7 @@ public class ServicoService {
                 List<Long> unidadesIds = usuario.getUnidades().stream()
                         .map(Unidade::getId)
                         .collect(Collectors.toList());
-                return servicoRepository.findAll().stream()
-                        .filter(s -> s.getUnidade() != null && unidadesIds.contains(s.getUnidade().getId()))
-                        .collect(Collectors.toList());
+                return servicoRepository.listarDTOsPorUnidades(unidadesIds);
 
             case CLIENTE:
             default:
@@ -181,12 +170,13 @@ public class ServicoService {
     @Transactional(readOnly = true)
     public ServicoDTO buscarPorId(Long id) {
         log.debug("Buscando serviço com id: {}", id);
-        Servico servico = servicoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Serviço não encontrado com id: " + id));
-        if (servico.getUnidade() == null || !obterUnidadesIdsPermitidas().contains(servico.getUnidade().getId())) {
+        ServicoDTO servico = catalogoCache.obter(CatalogoCache.SERVICOS, id, () ->
+                servicoMapper.toDTO(servicoRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Serviço não encontrado com id: " + id))));
+        if (servico.getUnidadeId() == null || !obterUnidadesIdsPermitidas().contains(servico.getUnidadeId())) {
             throw new ResourceNotFoundException("Serviço não encontrado com id: " + id);
         }
-        return servicoMapper.toDTO(servico);
+        return servico;
     }
 
     @Transactional
@@ -211,6 +201,7 @@ public class ServicoService {
         Servico servico = servicoMapper.toEntity(servicoDTO);
         servico.setUnidade(unidade);
         servico = servicoRepository.save(servico);
+        catalogoCache.remover(CatalogoCache.SERVICOS, CatalogoCache.chaveUnidade(unidade.getId()));
         log.info("Serviço criado com sucesso. ID: {}, Unidade: {}", servico.getId(), unidade.getId());
         return servicoMapper.toDTO(servico);
     }
@@ -222,8 +213,9 @@ public class ServicoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Serviço não encontrado com id: " + id));
 
         // Validar acesso à unidade do serviço atual
-        if (servico.getUnidade() != null) {
-            validarAcessoUnidade(servico.getUnidade().getId());
+        Long unidadeAnteriorId = servico.getUnidade() != null ? servico.getUnidade().getId() : null;
+        if (unidadeAnteriorId != null) {
+            validarAcessoUnidade(unidadeAnteriorId);
         }
 
         // Se estiver mudando de unidade, validar acesso à nova unidade
@@ -243,6 +235,8 @@ public class ServicoService {
 
         servicoMapper.updateEntityFromDTO(servicoDTO, servico);
         servico = servicoRepository.save(servico);
+        catalogoCache.remover(CatalogoCache.SERVICOS, id, CatalogoCache.chaveUnidade(unidadeAnteriorId),
+                CatalogoCache.chaveUnidade(servico.getUnidade().getId()));
         log.info("Serviço atualizado com sucesso. ID: {}", servico.getId());
         return servicoMapper.toDTO(servico);
     }
@@ -256,6 +250,9 @@ public class ServicoService {
             throw new ResourceNotFoundException("Serviço não encontrado com id: " + id);
         }
         servicoRepository.deleteById(id);
+        catalogoCache.remover(CatalogoCache.SERVICOS, id, CatalogoCache.chaveUnidade(servico.getUnidade().getId()));
+        // O banco remove o serviço dos atendentes (ON DELETE CASCADE) sem o Hibernate saber
+        cacheEntidades.removerColecao(CacheEntidades.ATENDENTE_SERVICOS);
         log.info("Serviço excluído com sucesso. ID: {}", id);
     }
 }
@@ -7,6 +7,7 @@ import br.com.agendainteligente.dto.UnidadeDTO;
 import br.com.agendainteligente.exception.BusinessException;
 import br.com.agendainteligente.exception.ResourceNotFoundException;
 import br.com.agendainteligente.mapper.UnidadeMapper;
+import br.com.agendainteligente.repository.AtendenteRepository;
 import br.com.agendainteligente.repository.EmpresaRepository;
 import br.com.agendainteligente.repository.UnidadeRepository;
 import br.com.agendainteligente.repository.UsuarioRepository;
@@ -19,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -31,8 +33,11 @@ public class UnidadeService {
     private final UnidadeMapper unidadeMapper;
     private final EmpresaRepository empresaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final AtendenteRepository atendenteRepository;
+    private final CatalogoCache catalogoCache;
 
     private static final Pattern ONLY_DIGITS = Pattern.compile("\\D");
+    private static final String CHAVE_ATIVAS = "ativas";
 
     @Transactional(readOnly = true)
     public List<UnidadeDTO> listarTodos() {
@@ -75,21 +80,7 @@ public class UnidadeService {
                 }
                 
                 // Obter IDs das empresas das unidades do gerente
-                Set<Long> empresaIds = usuarioLogado.getUnidades().stream()
-                        .map(u -> {
-                            // Forçar carregamento da empresa
-                            if (u.getEmpresa() == null) {
-                                Unidade unidadeCompleta = unidadeRepository.findById(u.getId())
-                                        .orElse(null);
-                                if (unidadeCompleta != null && unidadeCompleta.getEmpresa() != null) {
-                                    return unidadeCompleta.getEmpresa().getId();
-                                }
-                                return null;
-                            }
-                            return u.getEmpresa().getId();
-                        })
-                        .filter(id -> id != null)
-                        .collect(Collectors.toSet());
+                Set<Long> empresaIds = obterEmpresaIds(usuarioLogado);
                 
                 if (empresaIds.isEmpty()) {
                     log.warn("Gerente {} não tem empresas vinculadas", email);
@@ -133,24 +124,83 @@ public class UnidadeService {
         }
     }
 
+    private Set<Long> obterEmpresaIds(Usuario usuario) {
+        return usuario.getUnidades().stream()
+                .map(u -> {
+                    // Forçar carregamento da empresa
+                    if (u.getEmpresa() == null) {
+                        Unidade unidadeCompleta = unidadeRepository.findById(u.getId())
+                                .orElse(null);
+                        if (unidadeCompleta != null && unidadeCompleta.getEmpresa() != null) {
+                            return unidadeCompleta.getEmpresa().getId();
+                        }
+                        return null;
+                    }
+                    return u.getEmpresa().getId();
+                })
+                .filter(id -> id != null)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * As unidades ativas vêm do cache (lista única para todos os usuários) e são filtradas
+     * pelas mesmas regras de {@link #filtrarPorPermissao()}
+     */
     @Transactional(readOnly = true)
     public List<UnidadeDTO> listarAtivas() {
-        return filtrarPorPermissao().stream()
-                .filter(Unidade::getAtivo)
-                .map(unidadeMapper::toDTO)
+        Predicate<UnidadeDTO> permitida = filtroPermissao();
+        List<UnidadeDTO> ativas = catalogoCache.obter(CatalogoCache.UNIDADES, CHAVE_ATIVAS, () ->
+                unidadeRepository.findByAtivoTrue().stream()
+                        .map(unidadeMapper::toDTO)
+                        .collect(Collectors.toList()));
+        return ativas.stream()
+                .filter(permitida)
                 .collect(Collectors.toList());
     }
 
+    private Predicate<UnidadeDTO> filtroPermissao() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) {
+            log.warn("Tentativa de listar unidades sem autenticação");
+            return u -> true;
+        }
+        Usuario usuarioLogado = usuarioRepository.findByEmail(auth.getName())
+                .orElseThrow(() -> new BusinessException("Usuário não encontrado"));
+        switch (usuarioLogado.getPerfil()) {
+            case ADMIN:
+                return u -> true;
+            case GERENTE:
+                if (usuarioLogado.getUnidades() == null || usuarioLogado.getUnidades().isEmpty()) {
+                    return u -> false;
+                }
+                Set<Long> empresaIds = obterEmpresaIds(usuarioLogado);
+                return u -> u.getEmpresaId() != null && empresaIds.contains(u.getEmpresaId());
+            case PROFISSIONAL:
+            case CLIENTE:
+                if (usuarioLogado.getUnidades() == null || usuarioLogado.getUnidades().isEmpty()) {
+                    return u -> false;
+                }
+                Set<Long> unidadesIds = usuarioLogado.getUnidades().stream()
+                        .map(Unidade::getId)
+                        .collect(Collectors.toSet());
+                return u -> unidadesIds.contains(u.getId());
+            default:
+                return u -> false;
+        }
+    }
+
+    /**
+     * A unidade vem do cache e a permissão é verificada sobre ela, com as regras de {@link #filtroPermissao()}
+     */
     @Transactional(readOnly = true)
     public UnidadeDTO buscarPorId(Long id) {
-        Unidade unidade = unidadeRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Unidade não encontrada"));
-        List<Unidade> permitidas = filtrarPorPermissao();
-        boolean podeAcessar = permitidas.stream().anyMatch(u -> u.getId().equals(id));
-        if (!podeAcessar) {
+        UnidadeDTO unidade = catalogoCache.obter(CatalogoCache.UNIDADES, id, () ->
+                unidadeMapper.toDTO(unidadeRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Unidade não encontrada"))));
+        if (!filtroPermissao().test(unidade)) {
             throw new ResourceNotFoundException("Unidade não encontrada");
         }
-        return unidadeMapper.toDTO(unidade);
+        return unidade;
     }
 
     @Transactional
@@ -169,6 +219,7 @@ public class UnidadeService {
         Unidade unidade = unidadeMapper.toEntity(unidadeDTO);
         unidade.setEmpresa(empresa);
         unidade = unidadeRepository.save(unidade);
+        catalogoCache.remover(CatalogoCache.UNIDADES, CHAVE_ATIVAS);
         log.info("Unidade criada. ID: {}, Nome: {}, Empresa: {}", unidade.getId(), unidade.getNome(), empresa.getNome());
         return unidadeMapper.toDTO(unidade);
     }
@@ -190,6 +241,10 @@ public class UnidadeService {
         
         unidadeMapper.updateEntityFromDTO(unidadeDTO, unidade);
         unidade = unidadeRepository.save(unidade);
+        catalogoCache.remover(CatalogoCache.UNIDADES, CHAVE_ATIVAS, id);
+        // Atendentes em cache (lista da unidade e cada um por id) exibem o nome da unidade
+        catalogoCache.remover(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(id));
+        catalogoCache.remover(CatalogoCache.ATENDENTES, atendenteRepository.listarIdsPorUnidade(id).toArray());
         log.info("Unidade atualizada. ID: {}", id);
         return unidadeMapper.toDTO(unidade);
     }
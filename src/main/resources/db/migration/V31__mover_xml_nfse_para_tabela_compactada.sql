@@ -0,0 +1,25 @@
+-- XML da NFS-e sai da linha de notas_fiscais para uma tabela própria, compactado (deflate) pela aplicação.
+-- Consultas de status deixam de trazer o XML; ele só é lido no download.
+CREATE TABLE IF NOT EXISTS notas_fiscais_xml (
+    nota_fiscal_id BIGINT PRIMARY KEY,
+    compressao VARCHAR(10) NOT NULL,
+    tamanho_original INTEGER NOT NULL,
+    conteudo BYTEA NOT NULL,
+    data_criacao TIMESTAMP NOT NULL,
+    CONSTRAINT fk_notas_fiscais_xml_nota FOREIGN KEY (nota_fiscal_id) REFERENCES notas_fiscais(id) ON DELETE CASCADE
+);
+
+-- O conteúdo já vem compactado; evita que o Postgres tente comprimir de novo no TOAST
+ALTER TABLE notas_fiscais_xml ALTER COLUMN conteudo SET STORAGE EXTERNAL;
+
+COMMENT ON COLUMN notas_fiscais_xml.compressao IS 'DEFLATE para registros gravados pela aplicação; NENHUMA para XMLs migrados da coluna antiga';
+COMMENT ON COLUMN notas_fiscais_xml.tamanho_original IS 'Tamanho do XML em bytes (UTF-8) antes da compactação';
+
+-- Registros existentes são copiados sem compactação (não há deflate no SQL); a aplicação lê ambos os formatos
+INSERT INTO notas_fiscais_xml (nota_fiscal_id, compressao, tamanho_original, conteudo, data_criacao)
+SELECT id, 'NENHUMA', octet_length(convert_to(xml_nfse, 'UTF8')), convert_to(xml_nfse, 'UTF8'), COALESCE(data_emissao, data_criacao)
+FROM notas_fiscais
+WHERE xml_nfse IS NOT NULL
+ON CONFLICT (nota_fiscal_id) DO NOTHING;
+
+ALTER TABLE notas_fiscais DROP COLUMN IF EXISTS xml_nfse;
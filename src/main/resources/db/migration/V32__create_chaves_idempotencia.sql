@@ -0,0 +1,16 @@
+-- Respostas armazenadas por Idempotency-Key (fallback do Redis)
+CREATE TABLE IF NOT EXISTS chaves_idempotencia (
+    chave VARCHAR(200) PRIMARY KEY,
+    impressao_digital VARCHAR(64) NOT NULL,
+    concluida BOOLEAN NOT NULL DEFAULT FALSE,
+    status_http INTEGER,
+    content_type VARCHAR(100),
+    corpo TEXT,
+    data_criacao TIMESTAMP NOT NULL,
+    expira_em TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_chaves_idempotencia_expira_em ON chaves_idempotencia(expira_em);
+
+COMMENT ON COLUMN chaves_idempotencia.chave IS 'Método, rota, usuário e valor do header Idempotency-Key';
+COMMENT ON COLUMN chaves_idempotencia.impressao_digital IS 'SHA-256 do corpo da requisição original';
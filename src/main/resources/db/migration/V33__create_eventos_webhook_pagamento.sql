@@ -0,0 +1,15 @@
+-- Fila de eventos de webhook do gateway de pagamento: gravados crus na recepção e aplicados em lote
+CREATE TABLE IF NOT EXISTS eventos_webhook_pagamento (
+    id BIGSERIAL PRIMARY KEY,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE',
+    id_transacao_gateway VARCHAR(100),
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    mensagem_erro VARCHAR(1000),
+    data_recebimento TIMESTAMP NOT NULL,
+    data_processamento TIMESTAMP
+);
+
+-- O consumidor lê apenas pendentes, em ordem de chegada
+CREATE INDEX IF NOT EXISTS idx_eventos_webhook_pagamento_pendentes
+    ON eventos_webhook_pagamento(id) WHERE status = 'PENDENTE';
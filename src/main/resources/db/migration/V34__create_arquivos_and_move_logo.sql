@@ -0,0 +1,54 @@
+-- Arquivos binários (logos) endereçados pelo SHA-256 do conteúdo. O mesmo conteúdo é gravado uma única vez
+-- e, como nunca muda, pode ser servido com cache imutável.
+CREATE TABLE IF NOT EXISTS arquivos (
+    hash VARCHAR(64) PRIMARY KEY,
+    content_type VARCHAR(100) NOT NULL,
+    tamanho INTEGER NOT NULL,
+    conteudo BYTEA NOT NULL,
+    data_criacao TIMESTAMP NOT NULL
+);
+
+-- Imagens já vêm compactadas (JPEG/PNG); evita nova compressão no TOAST
+ALTER TABLE arquivos ALTER COLUMN conteudo SET STORAGE EXTERNAL;
+
+COMMENT ON COLUMN arquivos.hash IS 'SHA-256 do conteúdo em hexadecimal; usado também como ETag';
+
+ALTER TABLE empresas ADD COLUMN IF NOT EXISTS logo_hash VARCHAR(64);
+
+-- Converte as logos gravadas como data URI (data:<content-type>;base64,<dados>). Os arquivos são servidos pela
+-- origem da API, então só entram imagens raster: o tipo vem da assinatura do conteúdo, não do declarado no data
+-- URI. Logos em outro formato (SVG, por exemplo) não são migradas e a empresa fica sem logo.
+WITH logos AS (
+    SELECT id,
+           decode(substring(logo FROM position(',' IN logo) + 1), 'base64') AS conteudo
+    FROM empresas
+    WHERE logo LIKE 'data:%;base64,%'
+), tipadas AS (
+    SELECT id, conteudo,
+           CASE
+               WHEN substring(conteudo FROM 1 FOR 8) = '\x89504e470d0a1a0a'::bytea THEN 'image/png'
+               WHEN substring(conteudo FROM 1 FOR 3) = '\xffd8ff'::bytea THEN 'image/jpeg'
+               WHEN substring(conteudo FROM 1 FOR 4) = '\x47494638'::bytea THEN 'image/gif'
+               WHEN substring(conteudo FROM 1 FOR 4) = '\x52494646'::bytea
+                   AND substring(conteudo FROM 9 FOR 4) = '\x57454250'::bytea THEN 'image/webp'
+           END AS content_type
+    FROM logos
+), convertidas AS (
+    SELECT id, content_type, conteudo, encode(sha256(conteudo), 'hex') AS hash
+    FROM tipadas
+    WHERE content_type IS NOT NULL
+), inseridas AS (
+    INSERT INTO arquivos (hash, content_type, tamanho, conteudo, data_criacao)
+    SELECT DISTINCT ON (hash) hash, content_type, octet_length(conteudo), conteudo, CURRENT_TIMESTAMP
+    FROM convertidas
+    ON CONFLICT (hash) DO NOTHING
+)
+UPDATE empresas e
+SET logo_hash = c.hash
+FROM convertidas c
+WHERE e.id = c.id;
+
+ALTER TABLE empresas
+    ADD CONSTRAINT fk_empresas_logo FOREIGN KEY (logo_hash) REFERENCES arquivos(hash);
+
+ALTER TABLE empresas DROP COLUMN IF EXISTS logo;
@@ -0,0 +1,13 @@
+-- Miniaturas geradas a partir de um arquivo de imagem: uma linha por largura máxima,
+-- apontando para o arquivo (também endereçado por hash) com a versão reduzida.
+CREATE TABLE IF NOT EXISTS arquivos_miniaturas (
+    arquivo_hash VARCHAR(64) NOT NULL,
+    largura INTEGER NOT NULL,
+    miniatura_hash VARCHAR(64) NOT NULL,
+    data_criacao TIMESTAMP NOT NULL,
+    CONSTRAINT pk_arquivos_miniaturas PRIMARY KEY (arquivo_hash, largura),
+    CONSTRAINT fk_arquivos_miniaturas_arquivo FOREIGN KEY (arquivo_hash) REFERENCES arquivos(hash),
+    CONSTRAINT fk_arquivos_miniaturas_miniatura FOREIGN KEY (miniatura_hash) REFERENCES arquivos(hash)
+);
+
+COMMENT ON COLUMN arquivos_miniaturas.largura IS 'Maior lado da miniatura em pixels (48, 96, 200, 512)';
@@ -0,0 +1,20 @@
+-- Ids por sequence com alocação em blocos de 50 (otimizador pooled-lo do Hibernate) nas tabelas com
+-- inserts em lote. Com IDENTITY o Hibernate precisa do id de cada linha logo após o INSERT e desativa o
+-- batch; com a sequence cada nextval reserva os ids [valor, valor + 49] e os INSERTs vão juntos no flush.
+-- O DEFAULT nextval das colunas continua valendo para inserts feitos direto no banco (usa um bloco inteiro).
+-- O incremento precisa ser igual ao allocationSize das entidades (o Hibernate valida na subida).
+
+ALTER SEQUENCE agendamentos_id_seq INCREMENT BY 50;
+SELECT setval('agendamentos_id_seq', COALESCE((SELECT MAX(id) FROM agendamentos), 0) + 1, false);
+
+ALTER SEQUENCE agendamento_servicos_id_seq INCREMENT BY 50;
+SELECT setval('agendamento_servicos_id_seq', COALESCE((SELECT MAX(id) FROM agendamento_servicos), 0) + 1, false);
+
+ALTER SEQUENCE horarios_disponiveis_id_seq INCREMENT BY 50;
+SELECT setval('horarios_disponiveis_id_seq', COALESCE((SELECT MAX(id) FROM horarios_disponiveis), 0) + 1, false);
+
+ALTER SEQUENCE notas_fiscais_id_seq INCREMENT BY 50;
+SELECT setval('notas_fiscais_id_seq', COALESCE((SELECT MAX(id) FROM notas_fiscais), 0) + 1, false);
+
+ALTER SEQUENCE pagamentos_id_seq INCREMENT BY 50;
+SELECT setval('pagamentos_id_seq', COALESCE((SELECT MAX(id) FROM pagamentos), 0) + 1, false);
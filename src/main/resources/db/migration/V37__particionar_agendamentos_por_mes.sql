@@ -0,0 +1,125 @@
+-- Particionamento de agendamentos por mês de data_hora_inicio (RANGE).
+--
+-- Consultas com data_hora_inicio limitado (períodos, conflitos de horário) leem só as partições dos
+-- meses envolvidos. As partições futuras são criadas por criar_particoes_agendamentos (chamada aqui e
+-- diariamente pela aplicação) e as antigas saem da tabela com arquivar_particoes_agendamentos, que as
+-- move para o schema arquivo.
+--
+-- Em tabela particionada a chave primária precisa conter a chave de partição, então ela passa a ser
+-- (id, data_hora_inicio) e nenhuma outra tabela pode ter FK para agendamentos(id): as FKs de
+-- pagamentos, notas_fiscais, agendamento_servicos e a autorreferência da recorrência são removidas.
+-- A exclusão em cascata desses registros já é feita pelo JPA (cascade das associações de Agendamento).
+
+-- A sequence dos ids continua a mesma
+ALTER SEQUENCE agendamentos_id_seq OWNED BY NONE;
+
+ALTER TABLE agendamentos RENAME TO agendamentos_antigo;
+
+CREATE TABLE agendamentos (LIKE agendamentos_antigo INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (data_hora_inicio);
+
+ALTER TABLE agendamentos ADD CONSTRAINT pk_agendamentos PRIMARY KEY (id, data_hora_inicio);
+ALTER SEQUENCE agendamentos_id_seq OWNED BY agendamentos.id;
+
+-- Recebe o que não tem partição do mês (ex.: datas além do horizonte criado)
+CREATE TABLE agendamentos_default PARTITION OF agendamentos DEFAULT;
+
+DO $$
+DECLARE
+    r RECORD;
+BEGIN
+    -- FKs que apontam para agendamentos
+    FOR r IN SELECT conrelid::regclass AS tabela, conname
+             FROM pg_constraint
+             WHERE confrelid = 'agendamentos_antigo'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', r.tabela, r.conname);
+    END LOOP;
+
+    -- FKs de agendamentos para cliente, unidade, atendente etc. passam para a nova tabela
+    FOR r IN SELECT conname, pg_get_constraintdef(oid) AS definicao
+             FROM pg_constraint
+             WHERE conrelid = 'agendamentos_antigo'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE agendamentos_antigo DROP CONSTRAINT %I', r.conname);
+        EXECUTE format('ALTER TABLE agendamentos ADD CONSTRAINT %I %s', r.conname, r.definicao);
+    END LOOP;
+
+    -- Índices (exceto a chave primária) são recriados na tabela particionada, que os propaga para cada
+    -- partição. Índices únicos precisariam conter data_hora_inicio e não são recriados: a unicidade que
+    -- garantiam deixa de existir, então cada um é reportado com NOTICE para revisão
+    FOR r IN SELECT i.relname AS nome, pg_get_indexdef(x.indexrelid) AS definicao, x.indisunique AS unico
+             FROM pg_index x
+             JOIN pg_class i ON i.oid = x.indexrelid
+             WHERE x.indrelid = 'agendamentos_antigo'::regclass AND NOT x.indisprimary
+    LOOP
+        IF r.unico THEN
+            RAISE NOTICE 'Índice único % não recriado em agendamentos particionada: %', r.nome, r.definicao;
+            CONTINUE;
+        END IF;
+        EXECUTE format('DROP INDEX %I', r.nome);
+        EXECUTE regexp_replace(r.definicao, ' ON (\S+\.)?agendamentos_antigo ', ' ON agendamentos ');
+    END LOOP;
+END $$;
+
+-- Cria as partições mensais que faltam em [inicio, fim). Linhas do mês que estavam na partição padrão
+-- são movidas para a nova partição antes de anexá-la.
+CREATE OR REPLACE FUNCTION criar_particoes_agendamentos(inicio DATE, fim DATE) RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    mes DATE := date_trunc('month', inicio)::date;
+    proximo DATE;
+    nome TEXT;
+    criadas INTEGER := 0;
+BEGIN
+    WHILE mes < fim LOOP
+        proximo := (mes + INTERVAL '1 month')::date;
+        nome := 'agendamentos_' || to_char(mes, 'YYYY_MM');
+        IF to_regclass(nome) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE agendamentos INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nome);
+            EXECUTE format('WITH movidos AS (DELETE FROM agendamentos_default WHERE data_hora_inicio >= %L '
+                           'AND data_hora_inicio < %L RETURNING *) INSERT INTO %I SELECT * FROM movidos',
+                           mes, proximo, nome);
+            EXECUTE format('ALTER TABLE agendamentos ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           nome, mes, proximo);
+            criadas := criadas + 1;
+        END IF;
+        mes := proximo;
+    END LOOP;
+    RETURN criadas;
+END $$;
+
+-- Desanexa as partições mensais que terminam até antes_de e as move para o schema arquivo (continuam
+-- consultáveis, mas fora de agendamentos)
+CREATE SCHEMA IF NOT EXISTS arquivo;
+
+CREATE OR REPLACE FUNCTION arquivar_particoes_agendamentos(antes_de DATE) RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    r RECORD;
+    arquivadas INTEGER := 0;
+BEGIN
+    FOR r IN SELECT c.relname AS nome
+             FROM pg_inherits h
+             JOIN pg_class c ON c.oid = h.inhrelid
+             WHERE h.inhparent = 'agendamentos'::regclass
+               AND c.relname ~ '^agendamentos_\d{4}_\d{2}$'
+               AND to_date(substr(c.relname, 14), 'YYYY_MM') + INTERVAL '1 month' <= antes_de
+    LOOP
+        EXECUTE format('ALTER TABLE agendamentos DETACH PARTITION %I', r.nome);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA arquivo', r.nome);
+        arquivadas := arquivadas + 1;
+    END LOOP;
+    RETURN arquivadas;
+END $$;
+
+-- Partições do primeiro mês com dados até 27 meses à frente (recorrências vão até 2 anos)
+SELECT criar_particoes_agendamentos(
+    COALESCE((SELECT MIN(data_hora_inicio)::date FROM agendamentos_antigo), CURRENT_DATE),
+    (date_trunc('month', CURRENT_DATE) + INTERVAL '27 months')::date);
+
+INSERT INTO agendamentos SELECT * FROM agendamentos_antigo;
+
+DROP TABLE agendamentos_antigo;
+
+ANALYZE agendamentos;
@@ -0,0 +1,15 @@
+-- Índices compostos para as consultas mais frequentes de agendamentos (ver PlanoConsultasAgendamentoTest)
+--
+-- Conflito de horário e horários ocupados filtram atendente e faixa de data_hora_inicio; a linha do tempo
+-- do cliente filtra o cliente e ordena por data_hora_inicio. Os índices de coluna única de atendente e
+-- cliente passam a ser prefixo dos compostos e são removidos, assim como idx_agendamentos_unidade,
+-- idêntico a idx_agendamentos_unidade_id.
+
+CREATE INDEX IF NOT EXISTS idx_agendamentos_atendente_inicio ON agendamentos(atendente_id, data_hora_inicio);
+CREATE INDEX IF NOT EXISTS idx_agendamentos_cliente_inicio ON agendamentos(cliente_id, data_hora_inicio);
+
+DROP INDEX IF EXISTS idx_agendamentos_atendente;
+DROP INDEX IF EXISTS idx_agendamentos_cliente;
+DROP INDEX IF EXISTS idx_agendamentos_unidade;
+
+ANALYZE agendamentos;
@@ -0,0 +1,46 @@
+-- Resumo diário de faturamento e comissão por unidade e atendente (ver ResumoFaturamentoService)
+--
+-- Mantido incrementalmente quando um agendamento entra ou sai de CONCLUIDO/CANCELADO. Não tem FKs: é
+-- derivado de agendamentos e pode ser reconstruído a partir deles.
+
+-- Comissão fixada na conclusão, para que alterações no percentual do atendente não mudem o passado
+ALTER TABLE agendamentos ADD COLUMN IF NOT EXISTS valor_comissao NUMERIC(10, 2);
+
+CREATE TABLE IF NOT EXISTS resumos_faturamento (
+    id BIGSERIAL PRIMARY KEY,
+    unidade_id BIGINT NOT NULL,
+    atendente_id BIGINT NOT NULL,
+    data DATE NOT NULL,
+    quantidade_concluidos INTEGER NOT NULL DEFAULT 0,
+    quantidade_cancelados INTEGER NOT NULL DEFAULT 0,
+    valor_total NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    valor_final NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    valor_comissao NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    data_atualizacao TIMESTAMP NOT NULL,
+    -- Também atende os relatórios (unidade + período)
+    CONSTRAINT uk_resumos_faturamento UNIQUE (unidade_id, data, atendente_id)
+);
+
+UPDATE agendamentos a
+SET valor_comissao = ROUND(COALESCE(a.valor_final, a.valor_total)
+        * COALESCE(NULLIF(at.percentual_comissao, 0), u.percentual_comissao, 0) / 100, 2)
+FROM atendentes at
+LEFT JOIN usuarios u ON u.id = at.usuario_id
+WHERE at.id = a.atendente_id AND a.status = 'CONCLUIDO';
+
+INSERT INTO resumos_faturamento (unidade_id, atendente_id, data, quantidade_concluidos, quantidade_cancelados,
+                                 valor_total, valor_final, valor_comissao, data_atualizacao)
+SELECT unidade_id,
+       atendente_id,
+       data_hora_inicio::date,
+       COUNT(*) FILTER (WHERE status = 'CONCLUIDO'),
+       COUNT(*) FILTER (WHERE status = 'CANCELADO'),
+       COALESCE(SUM(valor_total) FILTER (WHERE status = 'CONCLUIDO'), 0),
+       COALESCE(SUM(COALESCE(valor_final, valor_total)) FILTER (WHERE status = 'CONCLUIDO'), 0),
+       COALESCE(SUM(valor_comissao) FILTER (WHERE status = 'CONCLUIDO'), 0),
+       NOW()
+FROM agendamentos
+WHERE status IN ('CONCLUIDO', 'CANCELADO')
+GROUP BY unidade_id, atendente_id, data_hora_inicio::date;
+
+COMMENT ON TABLE resumos_faturamento IS 'Totais diários de agendamentos concluídos/cancelados, faturamento e comissão por unidade e atendente';
@@ -0,0 +1,3 @@
+-- Contagem de não lidas por unidade (inicialização e reconciliação dos contadores no Redis, e contagem
+-- direta quando o Redis está fora) sem ler as reclamações já lidas
+CREATE INDEX IF NOT EXISTS idx_reclamacoes_unidade_nao_lidas ON reclamacoes(unidade_id) WHERE lida = FALSE;
@@ -0,0 +1,22 @@
+-- Outbox dos eventos de agendamento: gravados na mesma transação que altera o agendamento e repassados
+-- em lote aos ouvintes (NFS-e, stream da agenda, Redis Stream) pelo relay agendado
+CREATE TABLE IF NOT EXISTS eventos_agendamento (
+    id BIGSERIAL PRIMARY KEY,
+    tipo VARCHAR(30) NOT NULL,
+    agendamento_id BIGINT NOT NULL,
+    unidade_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE',
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    mensagem_erro VARCHAR(1000),
+    data_criacao TIMESTAMP NOT NULL,
+    data_processamento TIMESTAMP
+);
+
+-- O relay lê apenas pendentes, em ordem de gravação
+CREATE INDEX IF NOT EXISTS idx_eventos_agendamento_pendentes
+    ON eventos_agendamento(id) WHERE status = 'PENDENTE';
+
+-- Limpeza dos já processados
+CREATE INDEX IF NOT EXISTS idx_eventos_agendamento_processados
+    ON eventos_agendamento(data_processamento) WHERE status = 'PROCESSADO';
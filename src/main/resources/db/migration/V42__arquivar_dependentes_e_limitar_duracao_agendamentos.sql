@@ -0,0 +1,57 @@
+-- Complementos do particionamento de agendamentos (V37).
+--
+-- 1. arquivar_particoes_agendamentos passa a levar junto os registros dependentes (serviços, pagamento,
+--    nota fiscal e XML da nota) para tabelas de mesmo nome no schema arquivo. Sem as FKs para
+--    agendamentos, que a V37 removeu, eles ficariam órfãos nas tabelas principais.
+-- 2. A duração de um agendamento fica limitada a AgendamentoRepository.DURACAO_MAXIMA (1 dia): as buscas
+--    de conflito só olham agendamentos iniciados até esse intervalo antes do horário pedido.
+
+ALTER TABLE agendamentos ADD CONSTRAINT ck_agendamentos_duracao_maxima
+    CHECK (data_hora_fim <= data_hora_inicio + INTERVAL '1 day');
+
+-- Mesmas colunas das tabelas principais, sem constraints: as linhas chegam já consistentes entre si.
+-- Uma coluna nova nessas tabelas precisa ser adicionada também aqui
+CREATE TABLE IF NOT EXISTS arquivo.agendamento_servicos (LIKE agendamento_servicos INCLUDING DEFAULTS);
+CREATE TABLE IF NOT EXISTS arquivo.pagamentos (LIKE pagamentos INCLUDING DEFAULTS);
+CREATE TABLE IF NOT EXISTS arquivo.notas_fiscais (LIKE notas_fiscais INCLUDING DEFAULTS);
+CREATE TABLE IF NOT EXISTS arquivo.notas_fiscais_xml (LIKE notas_fiscais_xml INCLUDING DEFAULTS);
+
+CREATE INDEX IF NOT EXISTS idx_arquivo_agendamento_servicos_agendamento ON arquivo.agendamento_servicos(agendamento_id);
+CREATE INDEX IF NOT EXISTS idx_arquivo_pagamentos_agendamento ON arquivo.pagamentos(agendamento_id);
+CREATE INDEX IF NOT EXISTS idx_arquivo_notas_fiscais_agendamento ON arquivo.notas_fiscais(agendamento_id);
+
+-- Desanexa as partições mensais que terminam até antes_de e as move, com os dependentes, para o schema
+-- arquivo (continuam consultáveis, mas fora das tabelas principais). Tudo na transação de quem chama
+CREATE OR REPLACE FUNCTION arquivar_particoes_agendamentos(antes_de DATE) RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    r RECORD;
+    arquivadas INTEGER := 0;
+BEGIN
+    FOR r IN SELECT c.relname AS nome
+             FROM pg_inherits h
+             JOIN pg_class c ON c.oid = h.inhrelid
+             WHERE h.inhparent = 'agendamentos'::regclass
+               AND c.relname ~ '^agendamentos_\d{4}_\d{2}$'
+               AND to_date(substr(c.relname, 14), 'YYYY_MM') + INTERVAL '1 month' <= antes_de
+    LOOP
+        -- O XML antes da nota: a FK de notas_fiscais_xml removeria o XML em cascata
+        EXECUTE format('WITH movidos AS (DELETE FROM notas_fiscais_xml x USING notas_fiscais nf, %I a '
+                       'WHERE x.nota_fiscal_id = nf.id AND nf.agendamento_id = a.id RETURNING x.*) '
+                       'INSERT INTO arquivo.notas_fiscais_xml SELECT * FROM movidos', r.nome);
+        EXECUTE format('WITH movidos AS (DELETE FROM notas_fiscais nf USING %I a '
+                       'WHERE nf.agendamento_id = a.id RETURNING nf.*) '
+                       'INSERT INTO arquivo.notas_fiscais SELECT * FROM movidos', r.nome);
+        EXECUTE format('WITH movidos AS (DELETE FROM pagamentos p USING %I a '
+                       'WHERE p.agendamento_id = a.id RETURNING p.*) '
+                       'INSERT INTO arquivo.pagamentos SELECT * FROM movidos', r.nome);
+        EXECUTE format('WITH movidos AS (DELETE FROM agendamento_servicos s USING %I a '
+                       'WHERE s.agendamento_id = a.id RETURNING s.*) '
+                       'INSERT INTO arquivo.agendamento_servicos SELECT * FROM movidos', r.nome);
+
+        EXECUTE format('ALTER TABLE agendamentos DETACH PARTITION %I', r.nome);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA arquivo', r.nome);
+        arquivadas := arquivadas + 1;
+    END LOOP;
+    RETURN arquivadas;
+END $$;
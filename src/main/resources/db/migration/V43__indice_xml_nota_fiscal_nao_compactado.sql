@@ -0,0 +1,5 @@
+-- XMLs copiados pela V31 ficaram com compressao = 'NENHUMA' e, com STORAGE EXTERNAL, sem a compactação do
+-- TOAST. RecompactacaoXmlNotaFiscalConsumer os compacta (deflate) em lotes; o índice parcial mantém a busca
+-- dos pendentes barata, e fica vazio quando todos tiverem sido convertidos.
+CREATE INDEX IF NOT EXISTS idx_notas_fiscais_xml_nao_compactado
+    ON notas_fiscais_xml(nota_fiscal_id) WHERE compressao = 'NENHUMA';
@@ -0,0 +1,4 @@
+-- Arquivos dos quais não é possível gerar miniaturas (conteúdo que não é imagem ou que não decodifica).
+-- Como o conteúdo de um hash nunca muda, a falha é definitiva: o download com largura passa a servir o
+-- original sem agendar uma nova tentativa a cada requisição.
+ALTER TABLE arquivos ADD COLUMN IF NOT EXISTS miniaturas_indisponiveis BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,2 @@
+-- Espera crescente entre as tentativas de um evento cujo pagamento ainda não foi encontrado
+ALTER TABLE eventos_webhook_pagamento ADD COLUMN IF NOT EXISTS proxima_tentativa TIMESTAMP;
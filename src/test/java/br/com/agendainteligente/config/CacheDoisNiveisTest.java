@@ -0,0 +1,61 @@
+package br.com.agendainteligente.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheDoisNiveisTest {
+
+    private ConcurrentMapCache remoto;
+    private List<String> invalidacoes;
+    private CacheDoisNiveis cache;
+
+    @BeforeEach
+    void setUp() {
+        remoto = new ConcurrentMapCache("servicos");
+        invalidacoes = new ArrayList<>();
+        cache = new CacheDoisNiveis("servicos", Caffeine.newBuilder().maximumSize(100).build(), remoto,
+                (nome, chave) -> invalidacoes.add(nome + ":" + chave));
+    }
+
+    @Test
+    void testGet_FaltaLocalBuscaNoRemotoECopiaParaMemoriaLocal() {
+        remoto.put(1L, "Corte");
+
+        assertEquals("Corte", cache.get(1L).get());
+        remoto.evict(1L);
+
+        // Segunda leitura vem da memória local, sem ir ao remoto
+        assertEquals("Corte", cache.get(1L).get());
+    }
+
+    @Test
+    void testEvict_RemoveDosDoisNiveisENotifica() {
+        cache.put(1L, "Corte");
+
+        cache.evict(1L);
+
+        assertNull(cache.get(1L));
+        assertNull(remoto.get(1L));
+        assertEquals(List.of("servicos:1", "servicos:1"), invalidacoes);
+    }
+
+    @Test
+    void testInvalidarLocal_MantemRemoto() {
+        cache.put("unidade:1", "lista");
+        remoto.put("unidade:1", "lista atualizada");
+
+        cache.invalidarLocal("unidade:1");
+
+        Cache.ValueWrapper valor = cache.get("unidade:1");
+        assertNotNull(valor);
+        assertEquals("lista atualizada", valor.get());
+    }
+}
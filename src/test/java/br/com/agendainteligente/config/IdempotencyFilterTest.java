@@ -0,0 +1,174 @@
+package br.com.agendainteligente.config;
+
+import br.com.agendainteligente.service.IdempotenciaService;
+import br.com.agendainteligente.service.IdempotenciaService.RespostaArmazenada;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+
+    private static final String ROTA = "/api/publico/clientes/agendamentos";
+    private static final String CORPO = "{\"servicoId\":1}";
+
+    @Mock
+    private IdempotenciaService idempotenciaService;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private IdempotencyFilter idempotencyFilter;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyFilter = new IdempotencyFilter(idempotenciaService);
+        ReflectionTestUtils.setField(idempotencyFilter, "rotas", List.of(ROTA));
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("chave",
+                "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRepeticao_DevolveRespostaArmazenadaSemChamarOController() throws Exception {
+        when(idempotenciaService.reservar(anyString(), anyString())).thenReturn(true);
+        doAnswer(invocacao -> {
+            HttpServletResponse resposta = invocacao.getArgument(1);
+            resposta.setStatus(201);
+            resposta.setContentType("application/json");
+            resposta.getOutputStream().write("{\"id\":7}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        MockHttpServletResponse original = executar(requisicao("chave-1", CORPO, "10.0.0.1"));
+        assertEquals(201, original.getStatus());
+        ArgumentCaptor<String> chave = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<RespostaArmazenada> armazenada = ArgumentCaptor.forClass(RespostaArmazenada.class);
+        verify(idempotenciaService).concluir(chave.capture(), armazenada.capture());
+
+        when(idempotenciaService.reservar(anyString(), anyString())).thenReturn(false);
+        when(idempotenciaService.buscar(chave.getValue())).thenReturn(Optional.of(armazenada.getValue()));
+        MockHttpServletResponse repeticao = executar(requisicao("chave-1", CORPO, "10.0.0.1"));
+
+        assertEquals(201, repeticao.getStatus());
+        assertEquals("{\"id\":7}", repeticao.getContentAsString());
+        assertEquals("true", repeticao.getHeader(IdempotencyFilter.HEADER_REPLAY));
+        verify(filterChain, times(1)).doFilter(any(), any());
+    }
+
+    @Test
+    void testRepeticao_OriginalEmAndamentoRetorna409() throws Exception {
+        when(idempotenciaService.reservar(anyString(), anyString())).thenReturn(false);
+        when(idempotenciaService.buscar(anyString()))
+                .thenReturn(Optional.of(new RespostaArmazenada("qualquer", false, null, null, null)));
+
+        MockHttpServletResponse resposta = executar(requisicao("chave-1", CORPO, "10.0.0.1"));
+
+        assertEquals(409, resposta.getStatus());
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void testRepeticao_CorpoDiferenteRetorna422() throws Exception {
+        autenticar("cliente@test.com");
+        when(idempotenciaService.reservar(anyString(), anyString())).thenReturn(false);
+        when(idempotenciaService.buscar(anyString()))
+                .thenReturn(Optional.of(new RespostaArmazenada("outra-impressao", true, 201, "application/json", "{}")));
+
+        MockHttpServletResponse resposta = executar(requisicao("chave-1", "{\"servicoId\":2}", "10.0.0.1"));
+
+        assertEquals(422, resposta.getStatus());
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void testErroDoServidor_LiberaAChave() throws Exception {
+        when(idempotenciaService.reservar(anyString(), anyString())).thenReturn(true);
+        doAnswer(invocacao -> {
+            ((HttpServletResponse) invocacao.getArgument(1)).setStatus(503);
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        executar(requisicao("chave-1", CORPO, "10.0.0.1"));
+
+        verify(idempotenciaService).liberar(anyString());
+        verify(idempotenciaService, never()).concluir(anyString(), any());
+    }
+
+    @Test
+    void testChaveAnonima_SeparadaPeloConteudoENaoPeloIp() throws Exception {
+        when(idempotenciaService.reservar(anyString(), anyString())).thenReturn(true);
+
+        // Atrás do proxy todos chegam com o mesmo IP; só o conteúdo separa os clientes
+        executar(requisicao("chave-1", CORPO, "10.0.0.1"));
+        executar(requisicao("chave-1", CORPO, "10.0.0.2"));
+        executar(requisicao("chave-1", "{\"servicoId\":2}", "10.0.0.1"));
+
+        ArgumentCaptor<String> chaves = ArgumentCaptor.forClass(String.class);
+        verify(idempotenciaService, times(3)).reservar(chaves.capture(), anyString());
+        assertEquals(chaves.getAllValues().get(0), chaves.getAllValues().get(1));
+        assertNotEquals(chaves.getAllValues().get(0), chaves.getAllValues().get(2));
+    }
+
+    @Test
+    void testChaveAutenticada_SeparadaPorUsuario() throws Exception {
+        when(idempotenciaService.reservar(anyString(), anyString())).thenReturn(true);
+
+        autenticar("ana@test.com");
+        executar(requisicao("chave-1", CORPO, "10.0.0.1"));
+        executar(requisicao("chave-1", "{\"servicoId\":2}", "10.0.0.1"));
+        autenticar("bruno@test.com");
+        executar(requisicao("chave-1", CORPO, "10.0.0.1"));
+
+        ArgumentCaptor<String> chaves = ArgumentCaptor.forClass(String.class);
+        verify(idempotenciaService, times(3)).reservar(chaves.capture(), anyString());
+        assertEquals(chaves.getAllValues().get(0), chaves.getAllValues().get(1));
+        assertNotEquals(chaves.getAllValues().get(0), chaves.getAllValues().get(2));
+    }
+
+    private static void autenticar(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null,
+                AuthorityUtils.createAuthorityList("ROLE_CLIENTE")));
+    }
+
+    private MockHttpServletResponse executar(MockHttpServletRequest requisicao) throws Exception {
+        MockHttpServletResponse resposta = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(requisicao, resposta, filterChain);
+        return resposta;
+    }
+
+    private static MockHttpServletRequest requisicao(String chave, String corpo, String ip) {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest("POST", ROTA);
+        requisicao.addHeader(IdempotencyFilter.HEADER_IDEMPOTENCY_KEY, chave);
+        requisicao.setContentType("application/json");
+        requisicao.setContent(corpo.getBytes(StandardCharsets.UTF_8));
+        requisicao.setRemoteAddr(ip);
+        return requisicao;
+    }
+}
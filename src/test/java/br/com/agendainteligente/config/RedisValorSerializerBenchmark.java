@@ -0,0 +1,169 @@
+package br.com.agendainteligente.config;
+
+import br.com.agendainteligente.dto.AtendenteDTO;
+import br.com.agendainteligente.dto.ServicoDTO;
+import br.com.agendainteligente.dto.UnidadeDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH dos formatos de serialização dos caches do catálogo (JSON x Smile).
+ *
+ * Mede o tempo de gravação e leitura das listas de serviços, unidades e atendentes por unidade, no mesmo
+ * formato em que ficam no Redis (com informação de tipo). O tamanho em bytes de cada lista é impresso no
+ * setup de cada formato.
+ *
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=br.com.agendainteligente.config.RedisValorSerializerBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisValorSerializerBenchmark {
+
+    private static final int ITENS = 50;
+
+    @Param({"JSON", "SMILE"})
+    private FormatoSerializacao formato;
+
+    private RedisValorSerializer serializer;
+    private List<ServicoDTO> servicos;
+    private List<UnidadeDTO> unidades;
+    private List<AtendenteDTO> atendentes;
+    private byte[] servicosGravados;
+    private byte[] unidadesGravadas;
+    private byte[] atendentesGravados;
+
+    @Setup
+    public void setUp() {
+        serializer = new RedisValorSerializer(new RedisConfig().redisObjectMapper(), formato);
+        servicos = criarServicos();
+        unidades = criarUnidades();
+        atendentes = criarAtendentes();
+        servicosGravados = serializer.serialize(servicos);
+        unidadesGravadas = serializer.serialize(unidades);
+        atendentesGravados = serializer.serialize(atendentes);
+
+        System.out.printf("%n[%s] bytes: servicos=%d unidades=%d atendentes=%d%n", formato,
+                servicosGravados.length, unidadesGravadas.length, atendentesGravados.length);
+    }
+
+    @Benchmark
+    public byte[] gravarServicos() {
+        return serializer.serialize(servicos);
+    }
+
+    @Benchmark
+    public Object lerServicos() {
+        return serializer.deserialize(servicosGravados);
+    }
+
+    @Benchmark
+    public byte[] gravarUnidades() {
+        return serializer.serialize(unidades);
+    }
+
+    @Benchmark
+    public Object lerUnidades() {
+        return serializer.deserialize(unidadesGravadas);
+    }
+
+    @Benchmark
+    public byte[] gravarAtendentes() {
+        return serializer.serialize(atendentes);
+    }
+
+    @Benchmark
+    public Object lerAtendentes() {
+        return serializer.deserialize(atendentesGravados);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedisValorSerializerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    private static List<ServicoDTO> criarServicos() {
+        List<ServicoDTO> lista = new ArrayList<>(ITENS);
+        for (long i = 1; i <= ITENS; i++) {
+            lista.add(ServicoDTO.builder()
+                    .id(i)
+                    .nome("Serviço " + i)
+                    .descricao("Descrição do serviço " + i + " com detalhes do procedimento")
+                    .valor(new BigDecimal("49.90").add(BigDecimal.valueOf(i)))
+                    .duracaoMinutos(30 + (int) (i % 4) * 15)
+                    .unidadeId(1L)
+                    .ativo(true)
+                    .build());
+        }
+        return lista;
+    }
+
+    private static List<UnidadeDTO> criarUnidades() {
+        List<UnidadeDTO> lista = new ArrayList<>(ITENS);
+        for (long i = 1; i <= ITENS; i++) {
+            lista.add(UnidadeDTO.builder()
+                    .id(i)
+                    .nome("Unidade " + i)
+                    .descricao("Unidade de atendimento " + i)
+                    .endereco("Avenida Paulista")
+                    .numero(String.valueOf(1000 + i))
+                    .bairro("Bela Vista")
+                    .cep("01310-100")
+                    .cidade("São Paulo")
+                    .uf("SP")
+                    .telefone("(11) 3333-4444")
+                    .email("unidade" + i + "@exemplo.com.br")
+                    .ativo(true)
+                    .razaoSocial("Empresa Exemplo Ltda")
+                    .cnpj("12.345.678/0001-90")
+                    .horarioAbertura(LocalTime.of(8, 0))
+                    .horarioFechamento(LocalTime.of(18, 0))
+                    .empresaId(1L)
+                    .build());
+        }
+        return lista;
+    }
+
+    private static List<AtendenteDTO> criarAtendentes() {
+        List<AtendenteDTO> lista = new ArrayList<>(ITENS);
+        for (long i = 1; i <= ITENS; i++) {
+            lista.add(AtendenteDTO.builder()
+                    .id(i)
+                    .unidadeId(1L)
+                    .usuarioId(100 + i)
+                    .cpf(String.format("%011d", i))
+                    .telefone("(11) 98888-7777")
+                    .percentualComissao(new BigDecimal("30.00"))
+                    .ativo(true)
+                    .nomeUsuario("Atendente " + i)
+                    .nomeUnidade("Unidade 1")
+                    .servicosIds(new ArrayList<>(List.of(1L, 2L, 3L, i)))
+                    .build());
+        }
+        return lista;
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.agendainteligente.config;
+
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.dto.AgendamentoDTO;
+import br.com.agendainteligente.dto.PaginaDTO;
+import br.com.agendainteligente.dto.ServicoDTO;
+import br.com.agendainteligente.service.AgendamentoService.LinhaDoTempoCliente;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisValorSerializerTest {
+
+    @ParameterizedTest
+    @EnumSource(FormatoSerializacao.class)
+    void testListaDeDtos_VoltaComOsTiposGravados(FormatoSerializacao formato) {
+        RedisValorSerializer serializer = new RedisValorSerializer(new RedisConfig().redisObjectMapper(), formato);
+        List<ServicoDTO> servicos = List.of(ServicoDTO.builder()
+                .id(1L)
+                .nome("Corte")
+                .valor(new BigDecimal("49.90"))
+                .duracaoMinutos(30)
+                .unidadeId(2L)
+                .ativo(true)
+                .build());
+
+        Object lido = serializer.deserialize(serializer.serialize(servicos));
+
+        assertEquals(servicos, lido);
+        assertInstanceOf(ServicoDTO.class, ((List<?>) lido).get(0));
+    }
+
+    @ParameterizedTest
+    @EnumSource(FormatoSerializacao.class)
+    void testLinhaDoTempoDoCliente_VoltaComOsTiposGravados(FormatoSerializacao formato) {
+        RedisValorSerializer serializer = new RedisValorSerializer(new RedisConfig().redisObjectMapper(), formato);
+        AgendamentoDTO agendamento = new AgendamentoDTO();
+        agendamento.setId(10L);
+        agendamento.setClienteId(3L);
+        agendamento.setDataHoraInicio(LocalDateTime.of(2026, 10, 20, 14, 30));
+        agendamento.setValorTotal(new BigDecimal("120.00"));
+        agendamento.setStatus(StatusAgendamento.AGENDADO);
+        PaginaDTO<AgendamentoDTO> pagina = PaginaDTO.<AgendamentoDTO>builder()
+                .conteudo(List.of(agendamento))
+                .pagina(0)
+                .tamanho(20)
+                .totalElementos(1)
+                .totalPaginas(1)
+                .build();
+
+        LinhaDoTempoCliente linhaDoTempo = new LinhaDoTempoCliente(pagina, agendamento.getDataHoraInicio());
+
+        Object lido = serializer.deserialize(serializer.serialize(linhaDoTempo));
+
+        assertEquals(linhaDoTempo, lido);
+    }
+
+    @ParameterizedTest
+    @EnumSource(FormatoSerializacao.class)
+    void testTipoForaDaAplicacao_NaoEInstanciado(FormatoSerializacao formato) {
+        RedisValorSerializer serializer = new RedisValorSerializer(new RedisConfig().redisObjectMapper(), formato);
+        byte[] gravado = ("{\"@class\":\"org.springframework.context.support.ClassPathXmlApplicationContext\","
+                + "\"configLocation\":\"http://exemplo.invalid/contexto.xml\"}").getBytes(StandardCharsets.UTF_8);
+
+        // O valor gravado é JSON; a leitura detecta o formato pelo conteúdo, independentemente do configurado
+        SerializationException erro = assertThrows(SerializationException.class, () -> serializer.deserialize(gravado));
+        assertTrue(erro.getCause().getMessage().contains("denied resolution"), erro.getCause().getMessage());
+    }
+}
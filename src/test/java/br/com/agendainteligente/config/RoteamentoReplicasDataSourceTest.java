@@ -0,0 +1,105 @@
+package br.com.agendainteligente.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roteamento de leitura com dois bancos H2 no lugar do primário e da réplica
+ */
+class RoteamentoReplicasDataSourceTest {
+
+    private JdbcTemplate primario;
+    private JdbcTemplate replica;
+    private RoteamentoReplicasDataSource roteamento;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate escrita;
+    private TransactionTemplate leitura;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource primarioDataSource = new DriverManagerDataSource("jdbc:h2:mem:primario;DB_CLOSE_DELAY=-1");
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1");
+        primario = new JdbcTemplate(primarioDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        primario.execute("CREATE TABLE origem (nome VARCHAR(20))");
+        primario.execute("INSERT INTO origem VALUES ('primario')");
+        replica.execute("CREATE TABLE origem (nome VARCHAR(20))");
+        replica.execute("INSERT INTO origem VALUES ('replica')");
+        replica.execute("CREATE TABLE atraso (segundos DOUBLE)");
+        replica.execute("INSERT INTO atraso VALUES (0)");
+
+        roteamento = new RoteamentoReplicasDataSource(primarioDataSource, Map.of("replica-1", replicaDataSource),
+                "SELECT segundos FROM atraso", Duration.ofSeconds(5));
+        roteamento.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primarioDataSource);
+        dataSource.setReadOnlyDataSource(roteamento);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        escrita = new TransactionTemplate(transactionManager);
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primario.execute("DROP ALL OBJECTS");
+        replica.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void testTransacaoSomenteLeitura_UsaReplica() {
+        assertEquals("replica", leitura.execute(status -> origem()));
+        assertEquals("primario", escrita.execute(status -> origem()));
+    }
+
+    @Test
+    void testAtrasoAcimaDoLimite_LeituraVoltaParaPrimario() {
+        replica.update("UPDATE atraso SET segundos = 30");
+        roteamento.verificarAtraso();
+
+        assertEquals(List.of(), roteamento.getDisponiveis());
+        assertEquals(30.0, roteamento.getAtraso("replica-1"));
+        assertEquals("primario", leitura.execute(status -> origem()));
+
+        replica.update("UPDATE atraso SET segundos = 1");
+        roteamento.verificarAtraso();
+
+        assertEquals("replica", leitura.execute(status -> origem()));
+    }
+
+    @Test
+    void testReplicaSemResposta_SaiDaRotacao() {
+        replica.execute("DROP TABLE atraso");
+        roteamento.verificarAtraso();
+
+        assertEquals(-1.0, roteamento.getAtraso("replica-1"));
+        assertEquals("primario", leitura.execute(status -> origem()));
+    }
+
+    @Test
+    void testReplicaSemReplicacaoAtiva_SaiDaRotacao() {
+        replica.update("UPDATE atraso SET segundos = NULL");
+        roteamento.verificarAtraso();
+
+        assertEquals(List.of(), roteamento.getDisponiveis());
+        assertEquals(-1.0, roteamento.getAtraso("replica-1"));
+        assertEquals("primario", leitura.execute(status -> origem()));
+    }
+
+    private String origem() {
+        return jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class);
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.agendainteligente.controller;
+
+import br.com.agendainteligente.domain.enums.StatusEventoWebhook;
+import br.com.agendainteligente.repository.EventoWebhookPagamentoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "payment.gateway.webhook-secret=" + PagamentoWebhookControllerIntegrationTest.SEGREDO)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class PagamentoWebhookControllerIntegrationTest {
+
+    static final String SEGREDO = "segredo-teste";
+    private static final String CORPO = "{\"idTransacao\":\"TXN_1\",\"status\":\"APROVADO\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EventoWebhookPagamentoRepository eventoRepository;
+
+    // A fila deve ficar como a recepção gravou: sem o consumidor agendado
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Test
+    void deveEnfileirarWebhookComAssinaturaValida() throws Exception {
+        long antes = eventoRepository.count();
+
+        mockMvc.perform(post("/api/webhooks/pagamentos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(PagamentoWebhookController.HEADER_ASSINATURA, "sha256=" + hmac(CORPO))
+                        .content(CORPO))
+                .andExpect(status().isAccepted());
+
+        assertEquals(antes + 1, eventoRepository.count());
+        assertTrue(eventoRepository.findAll().stream().anyMatch(evento -> CORPO.equals(evento.getPayload())
+                && evento.getStatus() == StatusEventoWebhook.PENDENTE));
+    }
+
+    @Test
+    void deveRecusarWebhookComCorpoAdulterado() throws Exception {
+        long antes = eventoRepository.count();
+
+        mockMvc.perform(post("/api/webhooks/pagamentos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(PagamentoWebhookController.HEADER_ASSINATURA, hmac(CORPO))
+                        .content(CORPO.replace("APROVADO", "REEMBOLSADO")))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(antes, eventoRepository.count());
+    }
+
+    @Test
+    void deveRecusarWebhookSemAssinatura() throws Exception {
+        long antes = eventoRepository.count();
+
+        mockMvc.perform(post("/api/webhooks/pagamentos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CORPO))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(antes, eventoRepository.count());
+    }
+
+    @Test
+    @WithMockUser(roles = "PROFISSIONAL")
+    void deveRecusarConfirmacaoManualSemPerfilAdmin() throws Exception {
+        mockMvc.perform(post("/api/pagamentos/confirmar/TXN_1"))
+                .andExpect(status().isForbidden());
+    }
+
+    private static String hmac(String corpo) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SEGREDO.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(corpo.getBytes(StandardCharsets.UTF_8)));
+    }
+}
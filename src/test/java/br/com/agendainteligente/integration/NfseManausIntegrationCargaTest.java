@@ -0,0 +1,248 @@
+package br.com.agendainteligente.integration;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.AgendamentoServico;
+import br.com.agendainteligente.domain.entity.Cliente;
+import br.com.agendainteligente.domain.entity.Servico;
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.integration.nfse.NfseWebServiceClient;
+import br.com.agendainteligente.integration.nfse.stub.NfseAbrasfStubServer;
+import br.com.agendainteligente.integration.nfse.xml.NfseXmlBuilder;
+import br.com.agendainteligente.integration.nfse.xml.NfseXmlParser;
+import br.com.agendainteligente.integration.nfse.xml.XmlSigner;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Teste de carga da emissão de NFS-e contra o stub ABRASF local (sem rede externa).
+ * Mede vazão e latência de cauda do fluxo completo: montagem, envio, consulta de situação e consulta do lote.
+ *
+ * O volume pode ser ajustado com -Dnfse.carga.emissoes e -Dnfse.carga.concorrencia.
+ */
+@Slf4j
+class NfseManausIntegrationCargaTest {
+
+    private static final int EMISSOES = Integer.getInteger("nfse.carga.emissoes", 200);
+    private static final int CONCORRENCIA = Integer.getInteger("nfse.carga.concorrencia", 32);
+
+    private NfseAbrasfStubServer stub;
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void deveEmitirSobCargaComLatenciaDeRede() throws Exception {
+        // Arrange
+        stub = NfseAbrasfStubServer.iniciar(new NfseAbrasfStubServer.Configuracao()
+                .latencia(5, 25)
+                .tempoProcessamento(10));
+        NfseManausIntegration integracao = criarIntegracao(stub, 20);
+
+        // Act
+        ResultadoCarga resultado = executar(integracao);
+
+        // Assert
+        assertEquals(EMISSOES, resultado.sucessos);
+        assertEquals(0, resultado.simuladas, "Nenhuma emissão deveria cair nos dados simulados");
+        assertEquals(EMISSOES, stub.getLotesRecebidos());
+        assertEquals(EMISSOES, stub.getRequisicoes(NfseAbrasfStubServer.RECEPCIONAR_LOTE_RPS));
+        assertEquals(EMISSOES, stub.getRequisicoes(NfseAbrasfStubServer.CONSULTAR_LOTE_RPS));
+    }
+
+    @Test
+    void deveContabilizarLotesRejeitadosSobCarga() throws Exception {
+        // Arrange
+        stub = NfseAbrasfStubServer.iniciar(new NfseAbrasfStubServer.Configuracao()
+                .latencia(1, 10)
+                .taxaErroNegocio(0.2)
+                .tempoProcessamento(10));
+        NfseManausIntegration integracao = criarIntegracao(stub, 20);
+
+        // Act
+        ResultadoCarga resultado = executar(integracao);
+
+        // Assert
+        assertEquals(EMISSOES, resultado.sucessos + resultado.falhas);
+        assertEquals(stub.getFalhasInjetadas(), resultado.falhas);
+        assertEquals(resultado.sucessos, stub.getLotesRecebidos());
+    }
+
+    @Test
+    void deveFalharRapidoComCircuitoAbertoQuandoPrefeituraFicaIndisponivel() throws Exception {
+        // Arrange
+        stub = NfseAbrasfStubServer.iniciar(new NfseAbrasfStubServer.Configuracao()
+                .latencia(1, 5)
+                .taxaFalhaHttp(1.0));
+        NfseManausIntegration integracao = criarIntegracao(stub, 20);
+
+        // Act
+        ResultadoCarga resultado = executar(integracao);
+
+        // Assert
+        assertEquals(EMISSOES, resultado.falhas);
+        assertTrue(stub.getRequisicoes(NfseAbrasfStubServer.RECEPCIONAR_LOTE_RPS) < EMISSOES,
+                "Com o circuito aberto as emissões não deveriam chegar à prefeitura");
+        assertTrue(meterRegistry.get("nfse.ws.requisicoes")
+                .tag("servico", NfseWebServiceClient.Servico.RECEPCAO_LOTE.getNome())
+                .tag("resultado", "circuito-aberto")
+                .timer().count() > 0);
+    }
+
+    private ResultadoCarga executar(NfseManausIntegration integracao) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCORRENCIA);
+        try {
+            List<Future<NfseManausIntegration.ResultadoNfse>> emissoes = new ArrayList<>(EMISSOES);
+            long[] latencias = new long[EMISSOES];
+
+            long inicio = System.nanoTime();
+            for (int i = 0; i < EMISSOES; i++) {
+                int indice = i;
+                emissoes.add(executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        return integracao.emitirNotaFiscal(criarAgendamento(indice + 1L), new BigDecimal("150.00"));
+                    } finally {
+                        latencias[indice] = System.nanoTime() - t0;
+                    }
+                }));
+            }
+
+            ResultadoCarga resultado = new ResultadoCarga();
+            for (Future<NfseManausIntegration.ResultadoNfse> emissao : emissoes) {
+                try {
+                    NfseManausIntegration.ResultadoNfse nfse = emissao.get(60, TimeUnit.SECONDS);
+                    resultado.sucessos++;
+                    if (nfse.getNumeroNfse().startsWith("NFSE-")) {
+                        resultado.simuladas++;
+                    }
+                } catch (ExecutionException e) {
+                    resultado.falhas++;
+                }
+            }
+            long duracao = System.nanoTime() - inicio;
+
+            Arrays.sort(latencias);
+            log.info("Carga NFS-e: {} emissões, concorrência {}, {} ok, {} falhas, {} simuladas",
+                    EMISSOES, CONCORRENCIA, resultado.sucessos, resultado.falhas, resultado.simuladas);
+            log.info("Vazão: {} emissões/s | latência ms p50={} p95={} p99={} máx={}",
+                    String.format("%.1f", EMISSOES / (duracao / 1_000_000_000.0)),
+                    percentil(latencias, 50), percentil(latencias, 95), percentil(latencias, 99),
+                    TimeUnit.NANOSECONDS.toMillis(latencias[latencias.length - 1]));
+            return resultado;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long percentil(long[] ordenadas, int percentil) {
+        int indice = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(ordenadas[Math.max(0, indice)]);
+    }
+
+    private NfseManausIntegration criarIntegracao(NfseAbrasfStubServer stub, long esperaProcessamentoLote) {
+        NfseXmlBuilder xmlBuilder = new NfseXmlBuilder();
+        ReflectionTestUtils.setField(xmlBuilder, "versaoDados", "V2010");
+        ReflectionTestUtils.setField(xmlBuilder, "versaoCabecalho", "201001");
+
+        XmlSigner xmlSigner = mock(XmlSigner.class);
+        when(xmlSigner.assinarXml(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        meterRegistry = new SimpleMeterRegistry();
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(20)
+                .minimumNumberOfCalls(10)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        NfseWebServiceClient webServiceClient = new NfseWebServiceClient(WebClient.create(), circuitBreakers,
+                meterRegistry);
+        ReflectionTestUtils.setField(webServiceClient, "timeout", 10000L);
+        ReflectionTestUtils.setField(webServiceClient, "maxTentativas", 3);
+        ReflectionTestUtils.setField(webServiceClient, "intervaloRetentativa", 50L);
+        ReflectionTestUtils.setField(webServiceClient, "proporcaoOrcamento", 0.2);
+        ReflectionTestUtils.setField(webServiceClient, "orcamentoMinimo", 10);
+
+        NfseManausIntegration integracao = new NfseManausIntegration(xmlBuilder, new NfseXmlParser(), xmlSigner,
+                webServiceClient);
+        ReflectionTestUtils.setField(integracao, "ambiente", "homologacao");
+        ReflectionTestUtils.setField(integracao, "urlRecepcaoLoteRps",
+                stub.getUrl(NfseAbrasfStubServer.RECEPCIONAR_LOTE_RPS));
+        ReflectionTestUtils.setField(integracao, "urlConsultaSituacaoLote",
+                stub.getUrl(NfseAbrasfStubServer.CONSULTAR_SITUACAO_LOTE_RPS));
+        ReflectionTestUtils.setField(integracao, "urlConsultaLoteRps",
+                stub.getUrl(NfseAbrasfStubServer.CONSULTAR_LOTE_RPS));
+        ReflectionTestUtils.setField(integracao, "urlConsultaNfsePorRps",
+                stub.getUrl(NfseAbrasfStubServer.CONSULTAR_LOTE_RPS));
+        ReflectionTestUtils.setField(integracao, "esperaProcessamentoLote", esperaProcessamentoLote);
+        return integracao;
+    }
+
+    private static Agendamento criarAgendamento(long id) {
+        Unidade unidade = Unidade.builder()
+                .id(1L)
+                .nome("Unidade Centro")
+                .cnpj("12.345.678/0001-90")
+                .inscricaoMunicipal("1234567")
+                .build();
+
+        Cliente cliente = Cliente.builder()
+                .id(id)
+                .nome("Cliente " + id)
+                .cpfCnpj("123.456.789-00")
+                .email("cliente" + id + "@teste.com")
+                .build();
+
+        Servico servico = Servico.builder()
+                .id(1L)
+                .nome("Limpeza")
+                .valor(new BigDecimal("150.00"))
+                .duracaoMinutos(30)
+                .build();
+
+        Agendamento agendamento = Agendamento.builder()
+                .id(id)
+                .cliente(cliente)
+                .unidade(unidade)
+                .build();
+        agendamento.setServicos(List.of(AgendamentoServico.builder()
+                .agendamento(agendamento)
+                .servico(servico)
+                .valor(servico.getValor())
+                .quantidade(1)
+                .valorTotal(servico.getValor())
+                .build()));
+        return agendamento;
+    }
+
+    private static class ResultadoCarga {
+        private int sucessos;
+        private int falhas;
+        private int simuladas;
+    }
+}
@@ -0,0 +1,293 @@
+package br.com.agendainteligente.integration.nfse.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor local que imita os web services ABRASF da Prefeitura de Manaus
+ * (RecepcionarLoteRps, ConsultarSituacaoLoteRps e ConsultarLoteRps) para testes de carga e latência
+ * sem acesso à rede.
+ *
+ * Sobe em localhost numa porta livre usando o HttpServer do JDK. Latência, taxa de falhas HTTP,
+ * taxa de erros de negócio (MensagemRetorno) e tempo de processamento do lote são configuráveis.
+ */
+@Slf4j
+public class NfseAbrasfStubServer implements AutoCloseable {
+
+    public static final String RECEPCIONAR_LOTE_RPS = "/RecepcionarLoteRps";
+    public static final String CONSULTAR_SITUACAO_LOTE_RPS = "/ConsultarSituacaoLoteRps";
+    public static final String CONSULTAR_LOTE_RPS = "/ConsultarLoteRps";
+
+    private static final Pattern NUMERO_LOTE = Pattern.compile("<LoteRps\\b[^>]*>\\s*<Numero>([^<]*)</Numero>");
+    private static final Pattern NUMERO_RPS = Pattern.compile("<IdentificacaoRps>\\s*<Numero>([^<]*)</Numero>");
+    private static final Pattern PROTOCOLO = Pattern.compile("<Protocolo>([^<]*)</Protocolo>");
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final Configuracao configuracao;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Map<String, LoteRecebido> lotes = new ConcurrentHashMap<>();
+    private final AtomicLong sequenciaProtocolo = new AtomicLong(100000);
+    private final AtomicLong sequenciaNfse = new AtomicLong(2024000000000L);
+    private final Map<String, AtomicLong> requisicoes = new ConcurrentHashMap<>();
+    private final AtomicLong falhasInjetadas = new AtomicLong();
+
+    private NfseAbrasfStubServer(Configuracao configuracao) throws IOException {
+        this.configuracao = configuracao;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.executor = Executors.newFixedThreadPool(configuracao.threads);
+        server.setExecutor(executor);
+        server.createContext(RECEPCIONAR_LOTE_RPS, exchange -> atender(exchange, RECEPCIONAR_LOTE_RPS));
+        server.createContext(CONSULTAR_SITUACAO_LOTE_RPS, exchange -> atender(exchange, CONSULTAR_SITUACAO_LOTE_RPS));
+        server.createContext(CONSULTAR_LOTE_RPS, exchange -> atender(exchange, CONSULTAR_LOTE_RPS));
+    }
+
+    /**
+     * Cria e inicia o servidor com a configuração informada
+     */
+    public static NfseAbrasfStubServer iniciar(Configuracao configuracao) throws IOException {
+        NfseAbrasfStubServer stub = new NfseAbrasfStubServer(configuracao);
+        stub.server.start();
+        log.info("Stub ABRASF iniciado em {}", stub.getUrlBase());
+        return stub;
+    }
+
+    public String getUrlBase() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public String getUrl(String servico) {
+        return getUrlBase() + servico;
+    }
+
+    public long getRequisicoes(String servico) {
+        AtomicLong contador = requisicoes.get(servico);
+        return contador != null ? contador.get() : 0;
+    }
+
+    public long getFalhasInjetadas() {
+        return falhasInjetadas.get();
+    }
+
+    public int getLotesRecebidos() {
+        return lotes.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void atender(HttpExchange exchange, String servico) throws IOException {
+        try (exchange) {
+            requisicoes.computeIfAbsent(servico, s -> new AtomicLong()).incrementAndGet();
+            String corpo = ler(exchange.getRequestBody());
+            simularLatencia();
+
+            if (sortear(configuracao.taxaFalhaHttp)) {
+                falhasInjetadas.incrementAndGet();
+                responder(exchange, 500, soapFault("Falha simulada pelo stub ABRASF"));
+                return;
+            }
+
+            String resposta = switch (servico) {
+                case RECEPCIONAR_LOTE_RPS -> recepcionarLote(corpo);
+                case CONSULTAR_SITUACAO_LOTE_RPS -> consultarSituacaoLote(corpo);
+                default -> consultarLote(corpo);
+            };
+            responder(exchange, 200, resposta);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String recepcionarLote(String corpo) {
+        if (sortear(configuracao.taxaErroNegocio)) {
+            falhasInjetadas.incrementAndGet();
+            return envelope("RecepcionarLoteRps", "EnviarLoteRpsResposta",
+                    mensagemRetorno("E160", "Lote rejeitado pelo stub ABRASF", "Reenvie o lote"));
+        }
+
+        String numeroLote = extrair(NUMERO_LOTE, corpo);
+        String protocolo = String.format("%015d", sequenciaProtocolo.incrementAndGet());
+        lotes.put(protocolo, new LoteRecebido(numeroLote, extrair(NUMERO_RPS, corpo), System.nanoTime()));
+
+        return envelope("RecepcionarLoteRps", "EnviarLoteRpsResposta",
+                "<NumeroLote>" + numeroLote + "</NumeroLote>"
+                        + "<DataRecebimento>" + LocalDateTime.now().format(FORMATO_DATA) + "</DataRecebimento>"
+                        + "<Protocolo>" + protocolo + "</Protocolo>");
+    }
+
+    private String consultarSituacaoLote(String corpo) {
+        LoteRecebido lote = lotes.get(extrair(PROTOCOLO, corpo));
+        if (lote == null) {
+            return envelope("ConsultarSituacaoLoteRps", "ConsultarSituacaoLoteRpsResposta",
+                    mensagemRetorno("E86", "Número do protocolo de recebimento do lote inexistente", ""));
+        }
+        // 2 = não processado, 4 = processado com sucesso
+        String situacao = lote.processado(configuracao.tempoProcessamentoMs) ? "4" : "2";
+        return envelope("ConsultarSituacaoLoteRps", "ConsultarSituacaoLoteRpsResposta",
+                "<NumeroLote>" + lote.numeroLote + "</NumeroLote><Situacao>" + situacao + "</Situacao>");
+    }
+
+    private String consultarLote(String corpo) {
+        LoteRecebido lote = lotes.get(extrair(PROTOCOLO, corpo));
+        if (lote == null) {
+            return envelope("ConsultarLoteRps", "ConsultarLoteRpsResposta",
+                    mensagemRetorno("E86", "Número do protocolo de recebimento do lote inexistente", ""));
+        }
+        if (!lote.processado(configuracao.tempoProcessamentoMs)) {
+            return envelope("ConsultarLoteRps", "ConsultarLoteRpsResposta",
+                    mensagemRetorno("E4", "Esse RPS ainda não se encontra processado", "Aguarde o processamento"));
+        }
+
+        String numeroNfse = lote.obterNumeroNfse(sequenciaNfse);
+        return envelope("ConsultarLoteRps", "ConsultarLoteRpsResposta",
+                "<ListaNfse><CompNfse><Nfse><InfNfse>"
+                        + "<Numero>" + numeroNfse + "</Numero>"
+                        + "<CodigoVerificacao>STUB-" + lote.numeroRps + "</CodigoVerificacao>"
+                        + "<DataEmissao>" + LocalDateTime.now().format(FORMATO_DATA) + "</DataEmissao>"
+                        + "<IdentificacaoRps><Numero>" + lote.numeroRps + "</Numero><Serie>1</Serie><Tipo>1</Tipo>"
+                        + "</IdentificacaoRps>"
+                        + "</InfNfse></Nfse></CompNfse></ListaNfse>");
+    }
+
+    private void simularLatencia() throws InterruptedException {
+        long minimo = configuracao.latenciaMinimaMs;
+        long maximo = Math.max(minimo, configuracao.latenciaMaximaMs);
+        long latencia = minimo == maximo ? minimo : ThreadLocalRandom.current().nextLong(minimo, maximo + 1);
+        if (latencia > 0) {
+            TimeUnit.MILLISECONDS.sleep(latencia);
+        }
+    }
+
+    private static boolean sortear(double taxa) {
+        return taxa > 0 && ThreadLocalRandom.current().nextDouble() < taxa;
+    }
+
+    private static String envelope(String servico, String elementoResposta, String conteudo) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                + "<SOAP-ENV:Body><" + servico + ".ExecuteResponse xmlns=\"http://www.e-nfs.com.br\">"
+                + "<Nfsedadosmsg><" + elementoResposta + ">" + conteudo + "</" + elementoResposta + "></Nfsedadosmsg>"
+                + "</" + servico + ".ExecuteResponse></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+    }
+
+    private static String mensagemRetorno(String codigo, String mensagem, String correcao) {
+        return "<ListaMensagemRetorno><MensagemRetorno>"
+                + "<Codigo>" + codigo + "</Codigo><Mensagem>" + mensagem + "</Mensagem>"
+                + "<Correcao>" + correcao + "</Correcao>"
+                + "</MensagemRetorno></ListaMensagemRetorno>";
+    }
+
+    private static String soapFault(String mensagem) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Body>"
+                + "<SOAP-ENV:Fault><faultcode>SOAP-ENV:Server</faultcode><faultstring>" + mensagem + "</faultstring>"
+                + "</SOAP-ENV:Fault></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+    }
+
+    private static String extrair(Pattern padrao, String xml) {
+        Matcher matcher = padrao.matcher(xml);
+        return matcher.find() ? matcher.group(1).trim() : "";
+    }
+
+    private static String ler(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void responder(HttpExchange exchange, int status, String corpo) throws IOException {
+        byte[] bytes = corpo.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Lote aceito pelo stub; a NFS-e é numerada na primeira consulta após o processamento
+     */
+    private static class LoteRecebido {
+        private final String numeroLote;
+        private final String numeroRps;
+        private final long recebidoEmNanos;
+        private volatile String numeroNfse;
+
+        LoteRecebido(String numeroLote, String numeroRps, long recebidoEmNanos) {
+            this.numeroLote = numeroLote;
+            this.numeroRps = numeroRps;
+            this.recebidoEmNanos = recebidoEmNanos;
+        }
+
+        boolean processado(long tempoProcessamentoMs) {
+            return System.nanoTime() - recebidoEmNanos >= TimeUnit.MILLISECONDS.toNanos(tempoProcessamentoMs);
+        }
+
+        synchronized String obterNumeroNfse(AtomicLong sequencia) {
+            if (numeroNfse == null) {
+                numeroNfse = String.valueOf(sequencia.incrementAndGet());
+            }
+            return numeroNfse;
+        }
+    }
+
+    /**
+     * Parâmetros do stub. Taxas entre 0 e 1; tempos em milissegundos.
+     */
+    public static class Configuracao {
+        private long latenciaMinimaMs;
+        private long latenciaMaximaMs;
+        private double taxaFalhaHttp;
+        private double taxaErroNegocio;
+        private long tempoProcessamentoMs;
+        private int threads = 32;
+
+        public Configuracao latencia(long minimaMs, long maximaMs) {
+            this.latenciaMinimaMs = minimaMs;
+            this.latenciaMaximaMs = maximaMs;
+            return this;
+        }
+
+        public Configuracao taxaFalhaHttp(double taxa) {
+            this.taxaFalhaHttp = taxa;
+            return this;
+        }
+
+        public Configuracao taxaErroNegocio(double taxa) {
+            this.taxaErroNegocio = taxa;
+            return this;
+        }
+
+        public Configuracao tempoProcessamento(long ms) {
+            this.tempoProcessamentoMs = ms;
+            return this;
+        }
+
+        public Configuracao threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+    }
+}
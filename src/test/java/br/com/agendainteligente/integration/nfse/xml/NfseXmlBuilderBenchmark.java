@@ -0,0 +1,304 @@
+package br.com.agendainteligente.integration.nfse.xml;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.AgendamentoServico;
+import br.com.agendainteligente.domain.entity.Cliente;
+import br.com.agendainteligente.domain.entity.Servico;
+import br.com.agendainteligente.domain.entity.Unidade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH da montagem do XML de envio de lote (RPS + lote + envelope SOAP).
+ *
+ * Compara o NfseXmlBuilder (StAX em buffer reutilizado) com a montagem anterior baseada em
+ * String.format/replaceFirst/split, mantida aqui apenas como referência. A métrica relevante
+ * é gc.alloc.rate.norm (bytes alocados por nota), reportada pelo profiler de GC.
+ *
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=br.com.agendainteligente.integration.nfse.xml.NfseXmlBuilderBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NfseXmlBuilderBenchmark {
+
+    private NfseXmlBuilder builder;
+    private MontagemLegada legado;
+    private Agendamento agendamento;
+    private BigDecimal valor;
+
+    @Setup
+    public void setUp() {
+        builder = new NfseXmlBuilder();
+        ReflectionTestUtils.setField(builder, "versaoDados", "V2010");
+        ReflectionTestUtils.setField(builder, "versaoCabecalho", "201001");
+        legado = new MontagemLegada();
+        agendamento = criarAgendamento(3);
+        valor = new BigDecimal("350.00");
+    }
+
+    @Benchmark
+    public String streamingStax() {
+        String lote = builder.montarXmlLoteRps(agendamento, valor, "123456789000042");
+        return builder.montarMensagemSoapRecepcao(lote);
+    }
+
+    @Benchmark
+    public String stringFormatLegado() {
+        String xmlCompleto = legado.montarXmlLoteRps(agendamento, valor, "123456789000042");
+        return legado.montarMensagemSoapRecepcao(xmlCompleto);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NfseXmlBuilderBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    static Agendamento criarAgendamento(int quantidadeServicos) {
+        Unidade unidade = Unidade.builder()
+                .id(1L)
+                .nome("Unidade Centro")
+                .cnpj("12.345.678/0001-90")
+                .inscricaoMunicipal("1234567")
+                .build();
+
+        Cliente cliente = Cliente.builder()
+                .id(7L)
+                .nome("Maria & Filhos Comércio <ME>")
+                .cpfCnpj("123.456.789-00")
+                .email("maria@teste.com")
+                .telefone("92999999999")
+                .endereco("Av. Djalma Batista")
+                .numero("1000")
+                .bairro("Chapada")
+                .cep("69050010")
+                .build();
+
+        Agendamento agendamento = Agendamento.builder()
+                .id(42L)
+                .cliente(cliente)
+                .unidade(unidade)
+                .build();
+
+        List<AgendamentoServico> servicos = new ArrayList<>();
+        for (int i = 0; i < quantidadeServicos; i++) {
+            Servico servico = Servico.builder()
+                    .id((long) i)
+                    .nome("Serviço " + i)
+                    .descricao("Procedimento estético " + i)
+                    .valor(new BigDecimal("100.00"))
+                    .duracaoMinutos(30)
+                    .build();
+            servicos.add(AgendamentoServico.builder()
+                    .agendamento(agendamento)
+                    .servico(servico)
+                    .valor(servico.getValor())
+                    .quantidade(1)
+                    .valorTotal(servico.getValor())
+                    .build());
+        }
+        agendamento.setServicos(servicos);
+        return agendamento;
+    }
+
+    /**
+     * Montagem anterior do NfseXmlBuilder (text blocks + String.format + regex), usada como linha de base
+     */
+    static class MontagemLegada {
+
+        String montarXmlLoteRps(Agendamento agendamento, BigDecimal valor, String numeroLote) {
+            var cliente = agendamento.getCliente();
+            var unidade = agendamento.getUnidade();
+
+            StringBuilder discriminacao = new StringBuilder();
+            for (var agendamentoServico : agendamento.getServicos()) {
+                var servico = agendamentoServico.getServico();
+                String descricao = agendamentoServico.getDescricao() != null
+                        && !agendamentoServico.getDescricao().isEmpty()
+                                ? agendamentoServico.getDescricao()
+                                : servico.getDescricao() != null ? servico.getDescricao() : servico.getNome();
+                discriminacao.append(String.format("%s - Qtd: %d - Valor Unit: R$ %.2f - Total: R$ %.2f; ",
+                        descricao,
+                        agendamentoServico.getQuantidade(),
+                        agendamentoServico.getValor(),
+                        agendamentoServico.getValorTotal()));
+            }
+
+            String cnpjPrestador = limparCnpj(unidade.getCnpj());
+            String cpfCnpjTomador = limparCnpj(cliente.getCpfCnpj());
+            String inscricaoMunicipal = unidade.getInscricaoMunicipal();
+            String dataEmissao = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
+
+            String xmlRps = String.format("""
+                    <Rps>
+                        <IdentificacaoRps>
+                            <Numero>%d</Numero>
+                            <Serie>1</Serie>
+                            <Tipo>1</Tipo>
+                        </IdentificacaoRps>
+                        <DataEmissao>%s</DataEmissao>
+                        <NaturezaOperacao>1</NaturezaOperacao>
+                        <OptanteSimplesNacional>2</OptanteSimplesNacional>
+                        <IncentivadorCultural>2</IncentivadorCultural>
+                        <Status>1</Status>
+                        <Servico>
+                            <Valores>
+                                <ValorServicos>%.2f</ValorServicos>
+                                <ValorDeducoes>0.00</ValorDeducoes>
+                                <ValorPis>0.00</ValorPis>
+                                <ValorCofins>0.00</ValorCofins>
+                                <ValorInss>0.00</ValorInss>
+                                <ValorIr>0.00</ValorIr>
+                                <ValorCsll>0.00</ValorCsll>
+                                <OutrasRetencoes>0.00</OutrasRetencoes>
+                                <ValorIss>0.00</ValorIss>
+                                <Aliquota>0.00</Aliquota>
+                                <DescontoIncondicionado>0.00</DescontoIncondicionado>
+                                <DescontoCondicionado>0.00</DescontoCondicionado>
+                            </Valores>
+                            <ItemListaServico>1401</ItemListaServico>
+                            <CodigoTributacaoMunicipio>140101</CodigoTributacaoMunicipio>
+                            <Discriminacao>%s</Discriminacao>
+                            <CodigoMunicipio>1302603</CodigoMunicipio>
+                            <ExigibilidadeISS>1</ExigibilidadeISS>
+                            <MunicipioIncidencia>1302603</MunicipioIncidencia>
+                        </Servico>
+                        <Prestador>
+                            <CpfCnpj>%s</CpfCnpj>
+                            <InscricaoMunicipal>%s</InscricaoMunicipal>
+                        </Prestador>
+                        <Tomador>
+                            <IdentificacaoTomador>
+                                <CpfCnpj>%s</CpfCnpj>
+                            </IdentificacaoTomador>
+                            <RazaoSocial>%s</RazaoSocial>
+                            <Endereco>
+                                <Endereco>%s</Endereco>
+                                <Numero>%s</Numero>
+                                <Complemento>%s</Complemento>
+                                <Bairro>%s</Bairro>
+                                <CodigoMunicipio>1302603</CodigoMunicipio>
+                                <Uf>AM</Uf>
+                                <Cep>%s</Cep>
+                            </Endereco>
+                            <Contato>
+                                <Telefone>%s</Telefone>
+                                <Email>%s</Email>
+                            </Contato>
+                        </Tomador>
+                    </Rps>
+                    """,
+                    agendamento.getId(),
+                    dataEmissao,
+                    valor,
+                    escapeXml(discriminacao.toString().trim()),
+                    cnpjPrestador,
+                    inscricaoMunicipal,
+                    cpfCnpjTomador,
+                    escapeXml(cliente.getNome()),
+                    escapeXml(cliente.getEndereco() != null ? cliente.getEndereco() : ""),
+                    escapeXml(cliente.getNumero() != null ? cliente.getNumero() : ""),
+                    escapeXml(cliente.getComplemento() != null ? cliente.getComplemento() : ""),
+                    escapeXml(cliente.getBairro() != null ? cliente.getBairro() : ""),
+                    cliente.getCep() != null ? cliente.getCep() : "",
+                    cliente.getTelefone() != null ? cliente.getTelefone() : "",
+                    cliente.getEmail() != null ? cliente.getEmail() : "");
+
+            String xmlLoteRps = String.format("""
+                    <EnviarLoteRpsEnvio>
+                        <LoteRps Id="LOTE%d">
+                            <Numero>%s</Numero>
+                            <Cnpj>%s</Cnpj>
+                            <InscricaoMunicipal>%s</InscricaoMunicipal>
+                            <QuantidadeRps>1</QuantidadeRps>
+                            <ListaRps>
+                                %s
+                            </ListaRps>
+                        </LoteRps>
+                    </EnviarLoteRpsEnvio>
+                    """,
+                    agendamento.getId(),
+                    numeroLote,
+                    cnpjPrestador,
+                    inscricaoMunicipal,
+                    xmlRps);
+
+            return String.format("""
+                    <?xml version="1.0" encoding="UTF-8"?>
+                    <Nfsecabecmsg>
+                        <cabecalho versao="%s">
+                            <versaoDados>%s</versaoDados>
+                        </cabecalho>
+                    </Nfsecabecmsg>
+                    <Nfsedadosmsg>
+                        %s
+                    </Nfsedadosmsg>
+                    """,
+                    "201001",
+                    "V2010",
+                    xmlLoteRps);
+        }
+
+        String montarMensagemSoapRecepcao(String xmlCompleto) {
+            String xmlSemDeclaracao = xmlCompleto.replaceFirst("<\\?xml[^>]*\\?>", "").trim();
+            String[] partes = xmlSemDeclaracao.split("</Nfsecabecmsg>");
+            String cabecalho = partes[0] + "</Nfsecabecmsg>";
+            String dados = partes.length > 1 ? partes[1].trim() : "";
+
+            return String.format(
+                    """
+                            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:e="http://www.e-nfs.com.br">
+                                <soapenv:Header/>
+                                <soapenv:Body>
+                                    <e:RecepcionarLoteRps.Execute>
+                                        %s
+                                        %s
+                                    </e:RecepcionarLoteRps.Execute>
+                                </soapenv:Body>
+                            </soapenv:Envelope>
+                            """,
+                    cabecalho,
+                    dados);
+        }
+
+        private String limparCnpj(String cnpj) {
+            return cnpj == null ? "" : cnpj.replaceAll("[^0-9]", "");
+        }
+
+        private String escapeXml(String texto) {
+            if (texto == null)
+                return "";
+            return texto
+                    .replace("&", "&amp;")
+                    .replace("<", "&lt;")
+                    .replace(">", "&gt;")
+                    .replace("\"", "&quot;")
+                    .replace("'", "&apos;");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package br.com.agendainteligente.integration.nfse.xml;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.AgendamentoServico;
+import br.com.agendainteligente.domain.entity.Cliente;
+import br.com.agendainteligente.domain.entity.Servico;
+import br.com.agendainteligente.domain.entity.Unidade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NfseXmlBuilderTest {
+
+    private NfseXmlBuilder xmlBuilder;
+    private Agendamento agendamento;
+
+    @BeforeEach
+    void setUp() {
+        xmlBuilder = new NfseXmlBuilder();
+        ReflectionTestUtils.setField(xmlBuilder, "versaoDados", "V2010");
+        ReflectionTestUtils.setField(xmlBuilder, "versaoCabecalho", "201001");
+        agendamento = criarAgendamento();
+    }
+
+    @Test
+    void deveMontarLoteRpsComValoresEscapados() throws Exception {
+        // Act
+        String xml = xmlBuilder.montarXmlLoteRps(agendamento, new BigDecimal("150"), "123456");
+
+        // Assert
+        Document doc = parse(xml);
+        assertEquals("EnviarLoteRpsEnvio", doc.getDocumentElement().getTagName());
+        assertEquals("LOTE42", ((Element) doc.getElementsByTagName("LoteRps").item(0)).getAttribute("Id"));
+        assertEquals("Ana & Filhos <Ltda> \"ME\"", texto(doc, "RazaoSocial"));
+        assertEquals("150.00", texto(doc, "ValorServicos"));
+        assertEquals("12345678000190", texto(doc, "Cnpj"));
+        assertEquals("00000000", texto(doc, "InscricaoMunicipal"));
+        assertEquals("Limpeza - Qtd: 2 - Valor Unit: R$ 75.00 - Total: R$ 150.00;", texto(doc, "Discriminacao"));
+        assertFalse(xml.startsWith("<?xml"));
+    }
+
+    @Test
+    void deveSubstituirCaracteresInvalidosEmXml() throws Exception {
+        // Arrange
+        agendamento.getCliente().setNome("Cliente\u0001Teste");
+
+        // Act
+        String xml = xmlBuilder.montarXmlLoteRps(agendamento, BigDecimal.TEN, "1");
+
+        // Assert
+        assertEquals("Cliente Teste", texto(parse(xml), "RazaoSocial"));
+    }
+
+    @Test
+    void deveEnveloparLoteNaMensagemSoapDeRecepcao() throws Exception {
+        // Arrange
+        String lote = xmlBuilder.montarXmlLoteRps(agendamento, BigDecimal.TEN, "1");
+
+        // Act
+        String soap = xmlBuilder.montarMensagemSoapRecepcao("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + lote);
+
+        // Assert
+        Document doc = parse(soap);
+        assertEquals("http://schemas.xmlsoap.org/soap/envelope/", doc.getDocumentElement().getNamespaceURI());
+        assertEquals(1, doc.getElementsByTagNameNS("http://www.e-nfs.com.br", "RecepcionarLoteRps.Execute").getLength());
+        assertEquals("V2010", texto(doc, "versaoDados"));
+        assertEquals("Nfsedadosmsg", doc.getElementsByTagName("EnviarLoteRpsEnvio").item(0).getParentNode().getNodeName());
+    }
+
+    @Test
+    void deveMontarMensagemSoapDeConsultaDeLote() throws Exception {
+        // Act
+        String soap = xmlBuilder.montarMensagemSoapConsultaLote(agendamento.getUnidade(), "PROT<1>");
+
+        // Assert
+        Document doc = parse(soap);
+        assertEquals(1, doc.getElementsByTagNameNS("http://www.e-nfs.com.br", "ConsultarLoteRps.Execute").getLength());
+        assertEquals("PROT<1>", texto(doc, "Protocolo"));
+        assertEquals("12345678000190", texto(doc, "Cnpj"));
+    }
+
+    private Agendamento criarAgendamento() {
+        Unidade unidade = Unidade.builder()
+                .id(1L)
+                .nome("Unidade Centro")
+                .cnpj("12.345.678/0001-90")
+                .build();
+
+        Cliente cliente = Cliente.builder()
+                .id(7L)
+                .nome("Ana & Filhos <Ltda> \"ME\"")
+                .cpfCnpj("123.456.789-00")
+                .email("ana@teste.com")
+                .build();
+
+        Servico servico = Servico.builder()
+                .id(3L)
+                .nome("Limpeza")
+                .valor(new BigDecimal("75"))
+                .duracaoMinutos(30)
+                .build();
+
+        Agendamento agendamento = Agendamento.builder()
+                .id(42L)
+                .cliente(cliente)
+                .unidade(unidade)
+                .build();
+
+        agendamento.setServicos(List.of(AgendamentoServico.builder()
+                .agendamento(agendamento)
+                .servico(servico)
+                .valor(new BigDecimal("75"))
+                .quantidade(2)
+                .valorTotal(new BigDecimal("150"))
+                .build()));
+        return agendamento;
+    }
+
+    private static Document parse(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String texto(Document doc, String tag) {
+        return doc.getElementsByTagName(tag).item(0).getTextContent();
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.agendainteligente.integration.nfse.xml;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH da leitura das respostas gravadas dos web services NFS-e.
+ *
+ * Compara a leitura StAX em uma passada (NfseXmlParser.extrair) com a leitura anterior,
+ * que montava um DOM completo para cada informação extraída (protocolo, mensagens e dados da NFSe).
+ *
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=br.com.agendainteligente.integration.nfse.xml.NfseXmlParserBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NfseXmlParserBenchmark {
+
+    @Param({"recepcao-lote-sucesso.xml", "recepcao-lote-erro.xml", "consulta-lote-nfse.xml"})
+    public String resposta;
+
+    private NfseXmlParser parser;
+    private String xml;
+
+    @Setup
+    public void setUp() throws Exception {
+        parser = new NfseXmlParser();
+        xml = NfseXmlParserTest.lerResposta(resposta);
+    }
+
+    @Benchmark
+    public NfseXmlParser.RespostaNfse staxUmaPassada() {
+        return parser.extrair(xml);
+    }
+
+    @Benchmark
+    public void domLegado(Blackhole bh) throws Exception {
+        // Mesma sequência do fluxo de emissão anterior: protocolo, mensagens e NFSe, cada um com seu parse
+        bh.consume(parseXml(xml).getElementsByTagName("Protocolo").getLength());
+
+        NodeList mensagens = parseXml(xml).getElementsByTagName("MensagemRetorno");
+        for (int i = 0; i < mensagens.getLength(); i++) {
+            Element mensagem = (Element) mensagens.item(i);
+            bh.consume(texto(mensagem, "Codigo"));
+            bh.consume(texto(mensagem, "Mensagem"));
+            bh.consume(texto(mensagem, "Correcao"));
+        }
+
+        NodeList compNfse = parseXml(xml).getElementsByTagName("CompNfse");
+        if (compNfse.getLength() > 0) {
+            Element infNfse = (Element) ((Element) compNfse.item(0)).getElementsByTagName("InfNfse").item(0);
+            bh.consume(texto(infNfse, "Numero"));
+            bh.consume(texto(infNfse, "CodigoVerificacao"));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NfseXmlParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    private static Document parseXml(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String texto(Element element, String tag) {
+        NodeList nodes = element.getElementsByTagName(tag);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent().trim() : "";
+    }
+}
@@ -0,0 +1,146 @@
+package br.com.agendainteligente.integration.nfse.xml;
+
+import br.com.agendainteligente.integration.nfse.xml.NfseXmlParser.DadosNfse;
+import br.com.agendainteligente.integration.nfse.xml.NfseXmlParser.MensagemRetorno;
+import br.com.agendainteligente.integration.nfse.xml.NfseXmlParser.RespostaNfse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NfseXmlParserTest {
+
+    private static final List<String> RESPOSTAS_GRAVADAS = List.of(
+            "recepcao-lote-sucesso.xml",
+            "recepcao-lote-erro.xml",
+            "consulta-lote-nfse.xml",
+            "consulta-lote-escapado.xml");
+
+    private NfseXmlParser xmlParser;
+
+    @BeforeEach
+    void setUp() {
+        xmlParser = new NfseXmlParser();
+    }
+
+    @Test
+    void deveExtrairProtocoloDaRecepcaoDeLote() throws Exception {
+        // Act
+        RespostaNfse resposta = xmlParser.extrair(lerResposta("recepcao-lote-sucesso.xml"));
+
+        // Assert
+        assertEquals("000000000123987", resposta.getProtocolo());
+        assertTrue(resposta.getMensagens().isEmpty());
+        assertNull(resposta.getDadosNfse());
+        assertFalse(resposta.temErros());
+    }
+
+    @Test
+    void deveExtrairMensagensDeRetornoComEntidadesECdata() throws Exception {
+        // Act
+        RespostaNfse resposta = xmlParser.extrair(lerResposta("recepcao-lote-erro.xml"));
+
+        // Assert
+        assertNull(resposta.getProtocolo());
+        assertEquals(2, resposta.getMensagens().size());
+        MensagemRetorno primeira = resposta.getMensagens().get(0);
+        assertEquals("E160", primeira.getCodigo());
+        assertEquals("Verifique o leiaute do lote & a assinatura.", primeira.getCorrecao());
+        MensagemRetorno segunda = resposta.getMensagens().get(1);
+        assertEquals("E46", segunda.getCodigo());
+        assertEquals("CNPJ do prestador <não> informado", segunda.getMensagem());
+        assertEquals("", segunda.getCorrecao());
+        assertTrue(resposta.temErros());
+    }
+
+    @Test
+    void deveExtrairDadosDaNfseEMensagemNaMesmaLeitura() throws Exception {
+        // Act
+        RespostaNfse resposta = xmlParser.extrair(lerResposta("consulta-lote-nfse.xml"));
+
+        // Assert
+        DadosNfse dados = resposta.getDadosNfse();
+        assertNotNull(dados);
+        assertEquals("2024000000158", dados.getNumero());
+        assertEquals("A1B2-C3D4", dados.getCodigoVerificacao());
+        assertEquals("2024-05-10T14:35:02", dados.getDataEmissao());
+        assertEquals(1, resposta.getMensagens().size());
+        assertFalse(resposta.temErros());
+    }
+
+    @Test
+    void deveLerXmlEscapadoDentroDoEnvelope() throws Exception {
+        // Act
+        DadosNfse dados = xmlParser.extrairDadosNfse(lerResposta("consulta-lote-escapado.xml"));
+
+        // Assert
+        assertNotNull(dados);
+        assertEquals("2024000000159", dados.getNumero());
+        assertEquals("E5F6-G7H8", dados.getCodigoVerificacao());
+    }
+
+    @Test
+    void naoDeveResolverEntidadesExternas() {
+        // Arrange
+        String xxe = """
+                <?xml version="1.0"?>
+                <!DOCTYPE r [<!ENTITY xxe SYSTEM "file:///etc/passwd">]>
+                <EnviarLoteRpsResposta><Protocolo>&xxe;</Protocolo></EnviarLoteRpsResposta>
+                """;
+
+        // Act
+        String protocolo = xmlParser.extrairProtocolo(xxe);
+
+        // Assert
+        assertTrue(protocolo == null || !protocolo.contains("root:"));
+    }
+
+    @Test
+    void deveTolerarRespostasVaziasOuInvalidas() {
+        assertNull(xmlParser.extrairProtocolo(null));
+        assertNull(xmlParser.extrairProtocolo(""));
+        assertTrue(xmlParser.extrairMensagensRetorno("<html>502 Bad Gateway").isEmpty());
+        assertNull(xmlParser.extrairDadosNfse("não é xml"));
+    }
+
+    @Test
+    void fuzzRespostasGravadasNaoDevemLancarExcecao() throws Exception {
+        // Mutações determinísticas (truncamento, troca e inserção de caracteres) sobre as respostas gravadas
+        Random random = new Random(20240510L);
+        String[] insercoes = {"<", ">", "&", "&#0;", "]]>", "<!--", "<![CDATA[", "\u0000", "\uFFFF", "<a:b xmlns:a=''>"};
+
+        for (String nome : RESPOSTAS_GRAVADAS) {
+            String original = lerResposta(nome);
+            for (int i = 0; i < 500; i++) {
+                StringBuilder mutante = new StringBuilder(original);
+                int mutacoes = 1 + random.nextInt(4);
+                for (int m = 0; m < mutacoes && !mutante.isEmpty(); m++) {
+                    int posicao = random.nextInt(mutante.length());
+                    switch (random.nextInt(3)) {
+                        case 0 -> mutante.setLength(posicao);
+                        case 1 -> mutante.setCharAt(posicao, (char) random.nextInt(0x80));
+                        default -> mutante.insert(posicao, insercoes[random.nextInt(insercoes.length)]);
+                    }
+                }
+
+                String xml = mutante.toString();
+                RespostaNfse resposta = assertDoesNotThrow(() -> xmlParser.extrair(xml), nome);
+                assertNotNull(resposta.getMensagens());
+                assertDoesNotThrow(resposta::temErros);
+            }
+        }
+    }
+
+    static String lerResposta(String nome) throws IOException {
+        try (InputStream in = NfseXmlParserTest.class.getResourceAsStream("/nfse/respostas/" + nome)) {
+            assertNotNull(in, "Resposta gravada não encontrada: " + nome);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
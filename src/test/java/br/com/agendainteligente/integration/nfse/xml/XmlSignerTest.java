@@ -0,0 +1,134 @@
+package br.com.agendainteligente.integration.nfse.xml;
+
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.utils.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Assinatura com certificados PKCS12 gerados pelo keytool do próprio JDK
+ */
+class XmlSignerTest {
+
+    private static final String SENHA = "senha-teste";
+    private static final String XML = "<EnviarLoteRpsEnvio xmlns=\"http://www.abrasf.org.br/nfse.xsd\">"
+            + "<LoteRps Id=\"lote1\"><NumeroLote>1</NumeroLote><Cnpj>12345678000199</Cnpj></LoteRps>"
+            + "</EnviarLoteRpsEnvio>";
+
+    @TempDir
+    Path diretorio;
+
+    private Path certificado;
+    private XmlSigner xmlSigner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        certificado = gerarCertificado("atual.p12", "CN=Prestador Atual");
+        xmlSigner = new XmlSigner();
+        ReflectionTestUtils.setField(xmlSigner, "usarAssinatura", true);
+        ReflectionTestUtils.setField(xmlSigner, "caminhoCertificado", certificado.toString());
+        ReflectionTestUtils.setField(xmlSigner, "senhaCertificado", SENHA);
+    }
+
+    @Test
+    void deveAssinarXmlVerificavelComOCertificadoDoKeyInfo() throws Exception {
+        XMLSignature assinatura = lerAssinatura(xmlSigner.assinarXml(XML));
+
+        X509Certificate certificadoKeyInfo = assinatura.getKeyInfo().getX509Certificate();
+        assertEquals("CN=Prestador Atual", certificadoKeyInfo.getSubjectX500Principal().getName());
+        assertTrue(assinatura.checkSignatureValue(certificadoKeyInfo));
+    }
+
+    @Test
+    void deveReferenciarOIdDoLoteRps() throws Exception {
+        String assinado = xmlSigner.assinarXml(XML);
+        XMLSignature assinatura = lerAssinatura(assinado);
+
+        assertEquals(1, assinatura.getSignedInfo().getLength());
+        assertEquals("#lote1", assinatura.getSignedInfo().item(0).getURI());
+        // Assinatura sem prefixo, irmã do LoteRps
+        assertTrue(assinado.contains("</LoteRps><Signature xmlns=\"http://www.w3.org/2000/09/xmldsig#\">"));
+    }
+
+    @Test
+    void deveFalharVerificacaoDeXmlAlteradoAposAssinatura() throws Exception {
+        String adulterado = xmlSigner.assinarXml(XML).replace("<NumeroLote>1<", "<NumeroLote>2<");
+        XMLSignature assinatura = lerAssinatura(adulterado);
+
+        assertFalse(assinatura.checkSignatureValue(assinatura.getKeyInfo().getX509Certificate()));
+    }
+
+    @Test
+    void deveRecarregarCertificadoQuandoArquivoMuda() throws Exception {
+        X509Certificate anterior = lerAssinatura(xmlSigner.assinarXml(XML)).getKeyInfo().getX509Certificate();
+
+        // Sem mudança no arquivo, o material carregado continua o mesmo
+        xmlSigner.verificarAtualizacaoCertificado();
+        assertEquals(anterior, lerAssinatura(xmlSigner.assinarXml(XML)).getKeyInfo().getX509Certificate());
+
+        Path renovado = gerarCertificado("renovado.p12", "CN=Prestador Renovado");
+        Files.move(renovado, certificado, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(certificado, FileTime.from(Instant.now().plusSeconds(60)));
+        xmlSigner.verificarAtualizacaoCertificado();
+
+        XMLSignature assinatura = lerAssinatura(xmlSigner.assinarXml(XML));
+        X509Certificate atual = assinatura.getKeyInfo().getX509Certificate();
+        assertEquals("CN=Prestador Renovado", atual.getSubjectX500Principal().getName());
+        assertNotEquals(anterior.getPublicKey(), atual.getPublicKey());
+        assertTrue(assinatura.checkSignatureValue(atual));
+        assertFalse(assinatura.checkSignatureValue(anterior));
+    }
+
+    @Test
+    void deveManterCertificadoAtualQuandoArquivoNovoEInvalido() throws Exception {
+        X509Certificate anterior = lerAssinatura(xmlSigner.assinarXml(XML)).getKeyInfo().getX509Certificate();
+
+        Files.writeString(certificado, "não é um PKCS12");
+        Files.setLastModifiedTime(certificado, FileTime.from(Instant.now().plusSeconds(60)));
+        xmlSigner.verificarAtualizacaoCertificado();
+
+        assertEquals(anterior, lerAssinatura(xmlSigner.assinarXml(XML)).getKeyInfo().getX509Certificate());
+    }
+
+    private Path gerarCertificado(String arquivo, String titular) throws IOException, InterruptedException {
+        Path destino = diretorio.resolve(arquivo);
+        Process keytool = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "nfse", "-keyalg", "RSA", "-keysize", "2048", "-validity", "30",
+                "-dname", titular, "-storetype", "PKCS12", "-keystore", destino.toString(),
+                "-storepass", SENHA, "-keypass", SENHA)
+                .redirectErrorStream(true)
+                .start();
+        String saida = new String(keytool.getInputStream().readAllBytes());
+        assertEquals(0, keytool.waitFor(), saida);
+        return destino;
+    }
+
+    private static XMLSignature lerAssinatura(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document doc = factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        ((Element) doc.getElementsByTagName("LoteRps").item(0)).setIdAttribute("Id", true);
+        Element elemento = (Element) doc.getElementsByTagNameNS(Constants.SignatureSpecNS, "Signature").item(0);
+        assertNotNull(elemento, "XML sem Signature");
+        // RSA-SHA1 (exigido pelo padrão ABRASF) é recusado pela validação segura do Santuario
+        return new XMLSignature(elemento, "", false);
+    }
+}
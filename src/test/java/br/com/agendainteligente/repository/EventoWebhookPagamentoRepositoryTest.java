@@ -0,0 +1,127 @@
+package br.com.agendainteligente.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fila de webhooks de pagamento com dois consumidores (instâncias) ao mesmo tempo, em um Postgres embutido.
+ * O SQL é o da anotação de findPendentesParaProcessar.
+ */
+class EventoWebhookPagamentoRepositoryTest {
+
+    private static EmbeddedPostgres postgres;
+    private static String sqlPendentes;
+
+    @BeforeAll
+    static void setUp() throws IOException, NoSuchMethodException {
+        postgres = EmbeddedPostgres.builder().start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        sqlPendentes = EventoWebhookPagamentoRepository.class
+                .getMethod("findPendentesParaProcessar", LocalDateTime.class, int.class)
+                .getAnnotation(Query.class)
+                .value()
+                .replace(":agora", "?")
+                .replace(":limite", "?");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void testFindPendentesParaProcessar_ConsumidoresConcorrentesRecebemLotesDisjuntos() throws SQLException {
+        try (Connection primeiro = postgres.getPostgresDatabase().getConnection();
+             Connection segundo = postgres.getPostgresDatabase().getConnection()) {
+            try (Statement statement = primeiro.createStatement()) {
+                statement.execute("INSERT INTO eventos_webhook_pagamento (payload, data_recebimento) " +
+                        "SELECT '{\"idTransacao\":\"TXN_' || i || '\"}', now() FROM generate_series(1, 5) i");
+                statement.execute("UPDATE eventos_webhook_pagamento SET status = 'PROCESSADO' " +
+                        "WHERE id = (SELECT MIN(id) FROM eventos_webhook_pagamento)");
+            }
+            primeiro.setAutoCommit(false);
+            segundo.setAutoCommit(false);
+
+            // O primeiro lote fica travado até o commit; o segundo consumidor pula essas linhas sem esperar
+            List<Long> lotePrimeiro = lerLote(primeiro, 2);
+            List<Long> loteSegundo = lerLote(segundo, 10);
+
+            assertEquals(2, lotePrimeiro.size());
+            assertEquals(2, loteSegundo.size());
+            assertTrue(lotePrimeiro.get(1) < loteSegundo.get(0), "Lotes em ordem de chegada");
+            Set<Long> todos = new HashSet<>(lotePrimeiro);
+            todos.addAll(loteSegundo);
+            assertEquals(4, todos.size());
+
+            // Após o commit sem processar, os eventos do primeiro lote voltam a ficar disponíveis
+            primeiro.commit();
+            assertEquals(todos, new HashSet<>(lerLote(segundo, 10)));
+            segundo.rollback();
+        }
+    }
+
+    @Test
+    void testFindPendentesParaProcessar_EventoAguardandoNovaTentativaFicaDeFora() throws SQLException {
+        try (Connection conexao = postgres.getPostgresDatabase().getConnection()) {
+            conexao.setAutoCommit(false);
+            Long vencido = inserir(conexao, "now() - interval '1 minute'");
+            Long aguardando = inserir(conexao, "now() + interval '1 minute'");
+
+            List<Long> lote = lerLote(conexao, 100);
+
+            assertTrue(lote.contains(vencido));
+            assertFalse(lote.contains(aguardando));
+            conexao.rollback();
+        }
+    }
+
+    private static Long inserir(Connection conexao, String proximaTentativa) throws SQLException {
+        try (Statement statement = conexao.createStatement();
+             ResultSet resultado = statement.executeQuery("INSERT INTO eventos_webhook_pagamento " +
+                     "(payload, data_recebimento, proxima_tentativa) VALUES ('{}', now(), " + proximaTentativa + ") " +
+                     "RETURNING id")) {
+            resultado.next();
+            return resultado.getLong("id");
+        }
+    }
+
+    private static List<Long> lerLote(Connection conexao, int limite) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement statement = conexao.prepareStatement(sqlPendentes)) {
+            statement.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setInt(2, limite);
+            try (ResultSet resultado = statement.executeQuery()) {
+                while (resultado.next()) {
+                    ids.add(resultado.getLong("id"));
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,155 @@
+package br.com.agendainteligente.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partições mensais de agendamentos (V37) e arquivamento com os registros dependentes (V42), em um
+ * Postgres embutido com todas as migrações do Flyway
+ */
+class ParticionamentoAgendamentosMigracaoTest {
+
+    private static EmbeddedPostgres postgres;
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    private static Long clienteId;
+    private static Long unidadeId;
+    private static Long atendenteId;
+    private static Long servicoId;
+
+    @BeforeAll
+    static void setUp() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        dataSource = new SingleConnectionDataSource(postgres.getPostgresDatabase().getConnection(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Atendente e cliente dos dados iniciais das migrações
+        atendenteId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM atendentes", Long.class);
+        unidadeId = jdbcTemplate.queryForObject("SELECT unidade_id FROM atendentes WHERE id = ?", Long.class,
+                atendenteId);
+        clienteId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM clientes", Long.class);
+        servicoId = jdbcTemplate.queryForObject("INSERT INTO servicos (nome, valor, duracao_minutos, unidade_id, " +
+                "data_criacao) VALUES ('Corte', 50.00, 60, ?, now()) RETURNING id", Long.class, unidadeId);
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        if (dataSource != null) {
+            dataSource.destroy();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void testMigracao_AgendamentoVaiParaParticaoDoMes() {
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table " +
+                "WHERE partrelid = 'agendamentos'::regclass", Integer.class));
+
+        LocalDateTime inicio = LocalDate.now().plusDays(2).atTime(10, 0);
+        Long id = inserirAgendamento(inicio, inicio.plusHours(1));
+
+        assertEquals(particao(inicio.toLocalDate()), jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM agendamentos WHERE id = ?", String.class, id));
+    }
+
+    @Test
+    void testMigracao_RejeitaDuracaoAcimaDaMaxima() {
+        LocalDateTime inicio = LocalDate.now().plusDays(3).atTime(10, 0);
+
+        assertDoesNotThrow(() -> inserirAgendamento(inicio, inicio.plus(AgendamentoRepository.DURACAO_MAXIMA)));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> inserirAgendamento(inicio, inicio.plus(AgendamentoRepository.DURACAO_MAXIMA).plusMinutes(1)));
+    }
+
+    @Test
+    void testArquivarParticoes_LevaDependentesParaOSchemaArquivo() {
+        LocalDate mesAntigo = LocalDate.now().withDayOfMonth(1).minusMonths(40);
+        jdbcTemplate.queryForObject("SELECT criar_particoes_agendamentos(?, ?)", Integer.class,
+                mesAntigo, mesAntigo.plusMonths(1));
+
+        LocalDateTime inicioAntigo = mesAntigo.plusDays(9).atTime(14, 0);
+        Long antigo = inserirAgendamento(inicioAntigo, inicioAntigo.plusHours(1));
+        inserirDependentes(antigo);
+        LocalDateTime inicioRecente = LocalDate.now().plusDays(5).atTime(9, 0);
+        Long recente = inserirAgendamento(inicioRecente, inicioRecente.plusHours(1));
+        inserirDependentes(recente);
+
+        Integer arquivadas = jdbcTemplate.queryForObject("SELECT arquivar_particoes_agendamentos(?)", Integer.class,
+                LocalDate.now().withDayOfMonth(1).minusMonths(36));
+
+        assertEquals(1, arquivadas);
+        String particao = particao(mesAntigo);
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, particao));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, "arquivo." + particao));
+        assertEquals(0, contar("agendamentos", "id", antigo));
+        assertEquals(1, contar("arquivo." + particao, "id", antigo));
+
+        for (String tabela : new String[]{"agendamento_servicos", "pagamentos", "notas_fiscais"}) {
+            assertEquals(0, contar(tabela, "agendamento_id", antigo), tabela);
+            assertEquals(1, contar("arquivo." + tabela, "agendamento_id", antigo), tabela);
+            assertEquals(1, contar(tabela, "agendamento_id", recente), tabela);
+        }
+        assertEquals(0, contarXml("notas_fiscais_xml", "notas_fiscais", antigo));
+        assertEquals(1, contarXml("arquivo.notas_fiscais_xml", "arquivo.notas_fiscais", antigo));
+        assertEquals(1, contarXml("notas_fiscais_xml", "notas_fiscais", recente));
+
+        // Nada mais a arquivar
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT arquivar_particoes_agendamentos(?)", Integer.class,
+                LocalDate.now().withDayOfMonth(1).minusMonths(36)));
+    }
+
+    private Long inserirAgendamento(LocalDateTime inicio, LocalDateTime fim) {
+        return jdbcTemplate.queryForObject("INSERT INTO agendamentos (cliente_id, unidade_id, atendente_id, " +
+                        "data_hora_inicio, data_hora_fim, valor_total, status, data_criacao, agendamento_recorrente) " +
+                        "VALUES (?, ?, ?, ?, ?, 50.00, 'AGENDADO', now(), false) RETURNING id", Long.class,
+                clienteId, unidadeId, atendenteId, Timestamp.valueOf(inicio), Timestamp.valueOf(fim));
+    }
+
+    private void inserirDependentes(Long agendamentoId) {
+        jdbcTemplate.update("INSERT INTO agendamento_servicos (agendamento_id, servico_id, valor, valor_total) " +
+                "VALUES (?, ?, 50.00, 50.00)", agendamentoId, servicoId);
+        jdbcTemplate.update("INSERT INTO pagamentos (agendamento_id, tipo_pagamento, valor, data_criacao) " +
+                "VALUES (?, 'PIX', 50.00, now())", agendamentoId);
+        Long notaId = jdbcTemplate.queryForObject("INSERT INTO notas_fiscais (agendamento_id, data_criacao) " +
+                "VALUES (?, now()) RETURNING id", Long.class, agendamentoId);
+        jdbcTemplate.update("INSERT INTO notas_fiscais_xml (nota_fiscal_id, compressao, tamanho_original, conteudo, " +
+                "data_criacao) VALUES (?, 'NENHUMA', 5, convert_to('<x/>', 'UTF8'), now())", notaId);
+    }
+
+    private int contar(String tabela, String coluna, Long agendamentoId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabela + " WHERE " + coluna + " = ?",
+                Integer.class, agendamentoId);
+    }
+
+    private int contarXml(String tabelaXml, String tabelaNotas, Long agendamentoId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabelaXml + " x JOIN " + tabelaNotas +
+                " nf ON nf.id = x.nota_fiscal_id WHERE nf.agendamento_id = ?", Integer.class, agendamentoId);
+    }
+
+    private static String particao(LocalDate data) {
+        return String.format("agendamentos_%d_%02d", data.getYear(), data.getMonthValue());
+    }
+}
@@ -0,0 +1,268 @@
+package br.com.agendainteligente.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regressão de planos das consultas mais frequentes de AgendamentoRepository em um Postgres embutido,
+ * com as migrações do Flyway (partições e índices) e volume de uma base em produção.
+ *
+ * Cada método do repositório é chamado de verdade; o SQL gerado pelo Hibernate e os parâmetros ligados são
+ * gravados no caminho para o banco e repetidos com EXPLAIN (ANALYZE, BUFFERS). O teste falha se algum
+ * Seq Scan ler mais de {@link #LINHAS_MAXIMAS_SEQ_SCAN} linhas ou se os blocos lidos passarem do orçamento
+ * da consulta, então alterar o JPQL de uma consulta já passa pela verificação.
+ *
+ * Fica fora do mvn test padrão (carga de 200 mil linhas). Execução: mvn test -Pplano-consultas
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Tag("plano-consultas")
+class PlanoConsultasAgendamentoTest {
+
+    private static final int AGENDAMENTOS = 200_000;
+    private static final int UNIDADES = 300;
+    private static final int ATENDENTES = 1_500;
+    private static final int CLIENTES = 20_000;
+    private static final int MESES_PASSADOS = 36;
+    private static final int MESES_FUTUROS = 12;
+    private static final int DESLOCAMENTO_USUARIOS = 100_000;
+
+    // Partições vazias ou quase vazias podem ser lidas inteiras
+    private static final long LINHAS_MAXIMAS_SEQ_SCAN = 1_000;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Comandos preparados pelo Hibernate, na ordem em que chegaram ao banco
+    private static final List<Comando> COMANDOS = new CopyOnWriteArrayList<>();
+
+    private static EmbeddedPostgres postgres;
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AgendamentoRepository agendamentoRepository;
+
+    /**
+     * DataSource do contexto JPA: o banco já migrado e populado em setUp, com os comandos gravados
+     */
+    @TestConfiguration
+    static class Configuracao {
+
+        @Bean
+        DataSource dataSource() {
+            return gravando(DataSource.class, postgres.getPostgresDatabase());
+        }
+    }
+
+    @BeforeAll
+    static void setUp() throws IOException, SQLException {
+        // Custo de leitura aleatória de SSD, como nos servidores de produção
+        postgres = EmbeddedPostgres.builder()
+                .setServerConfig("random_page_cost", "1.1")
+                .start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        dataSource = new SingleConnectionDataSource(postgres.getPostgresDatabase().getConnection(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        popular();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        if (dataSource != null) {
+            dataSource.destroy();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void testFindConflitoHorario() {
+        LocalDateTime inicio = LocalDate.now().plusDays(3).atTime(10, 0);
+
+        verificarPlano("findConflitoHorario", 60,
+                () -> agendamentoRepository.findConflitoHorario(42L, inicio, inicio.plusHours(1)));
+    }
+
+    @Test
+    void testListarOcupadosDoAtendente() {
+        LocalDateTime inicio = LocalDate.now().plusDays(1).atTime(9, 0);
+
+        verificarPlano("listarOcupados", 100,
+                () -> agendamentoRepository.listarOcupados(42L, inicio, inicio.plusDays(30)));
+    }
+
+    @Test
+    void testFindByUnidadeId() {
+        verificarPlano("findByUnidadeId", 1_500, () -> agendamentoRepository.findByUnidadeId(7L));
+    }
+
+    @Test
+    void testFindByClienteId() {
+        verificarPlano("findByClienteId", 400, () -> agendamentoRepository.findByClienteId(4_242L));
+    }
+
+    /**
+     * Agendamentos espalhados entre MESES_PASSADOS atrás e MESES_FUTUROS à frente, cada atendente em uma
+     * unidade. Unidades, atendentes e clientes são gravados com o mínimo de colunas, para as FKs de
+     * agendamentos (validadas ao anexar as partições) serem satisfeitas.
+     */
+    private static void popular() {
+        LocalDate primeiroMes = LocalDate.now().withDayOfMonth(1).minusMonths(MESES_PASSADOS);
+        LocalDate ultimoMes = LocalDate.now().withDayOfMonth(1).plusMonths(MESES_FUTUROS + 1);
+
+        // Os ids já usados pelos dados iniciais das migrações são mantidos (ON CONFLICT)
+        jdbcTemplate.update("INSERT INTO empresas (id, nome, data_criacao) VALUES (1, 'Empresa', now()) " +
+                "ON CONFLICT DO NOTHING");
+        jdbcTemplate.update("INSERT INTO unidades (id, nome, empresa_id, data_criacao) " +
+                "SELECT i, 'Unidade ' || i, 1, now() FROM generate_series(1, ?) i ON CONFLICT DO NOTHING", UNIDADES);
+        jdbcTemplate.update("INSERT INTO usuarios (id, email, senha, nome, data_criacao) " +
+                "SELECT ? + i, 'atendente' || i || '@teste.com', 'x', 'Atendente ' || i, now() " +
+                "FROM generate_series(1, ?) i", DESLOCAMENTO_USUARIOS, ATENDENTES);
+        jdbcTemplate.update("INSERT INTO atendentes (id, unidade_id, usuario_id, cpf, data_criacao) " +
+                "SELECT i, i % ? + 1, ? + i, lpad(i::text, 11, '0'), now() FROM generate_series(1, ?) i " +
+                "ON CONFLICT DO NOTHING", UNIDADES, DESLOCAMENTO_USUARIOS, ATENDENTES);
+        jdbcTemplate.update("INSERT INTO clientes (id, nome, cpf_cnpj, data_nascimento, unidade_id, data_criacao) " +
+                "SELECT i, 'Cliente ' || i, lpad(i::text, 11, '0'), DATE '1990-01-01', i % ? + 1, now() " +
+                "FROM generate_series(1, ?) i ON CONFLICT DO NOTHING", UNIDADES, CLIENTES);
+
+        jdbcTemplate.execute("SELECT setseed(0.42)");
+        jdbcTemplate.update("INSERT INTO agendamentos (cliente_id, unidade_id, atendente_id, data_hora_inicio, " +
+                        "data_hora_fim, valor_total, status, data_criacao, agendamento_recorrente) " +
+                        "SELECT c.cliente, c.atendente % ? + 1, c.atendente, c.inicio, c.inicio + INTERVAL '1 hour', " +
+                        "100.00, CASE WHEN random() < 0.1 THEN 'CANCELADO' WHEN c.inicio < now() THEN 'CONCLUIDO' " +
+                        "ELSE 'AGENDADO' END, c.inicio - INTERVAL '7 days', false " +
+                        "FROM (SELECT floor(random() * ?)::bigint + 1 AS cliente, floor(random() * ?)::bigint + 1 AS atendente, " +
+                        "date_trunc('hour', ?::timestamp + random() * (?::timestamp - ?::timestamp)) AS inicio " +
+                        "FROM generate_series(1, ?)) c",
+                UNIDADES, CLIENTES, ATENDENTES, Timestamp.valueOf(primeiroMes.atStartOfDay()),
+                Timestamp.valueOf(ultimoMes.atStartOfDay()), Timestamp.valueOf(primeiroMes.atStartOfDay()),
+                AGENDAMENTOS);
+
+        // Os meses anteriores à migração caíram na partição padrão; a função os move para partições próprias
+        jdbcTemplate.queryForObject("SELECT criar_particoes_agendamentos(?, ?)", Integer.class,
+                primeiroMes, ultimoMes);
+        jdbcTemplate.execute("VACUUM ANALYZE agendamentos");
+    }
+
+    private void verificarPlano(String consulta, long blocosMaximos, Runnable chamada) {
+        COMANDOS.clear();
+        chamada.run();
+        Comando comando = COMANDOS.stream()
+                .filter(c -> c.sql().contains("agendamentos"))
+                .reduce((primeiro, ultimo) -> ultimo)
+                .orElseThrow(() -> new AssertionError(consulta + " não consultou agendamentos: " + COMANDOS));
+
+        String json = jdbcTemplate.queryForObject("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + comando.sql(),
+                String.class, comando.parametros().values().toArray());
+        JsonNode plano;
+        try {
+            plano = objectMapper.readTree(json).get(0).get("Plan");
+        } catch (IOException e) {
+            throw new IllegalStateException("Plano inválido: " + json, e);
+        }
+
+        List<String> seqScans = new ArrayList<>();
+        coletarSeqScans(plano, seqScans);
+        long blocos = plano.path("Shared Hit Blocks").asLong() + plano.path("Shared Read Blocks").asLong();
+
+        assertTrue(seqScans.isEmpty(), () -> consulta + " leu tabela inteira em " + seqScans + "\n" + comando.sql() +
+                "\n" + plano.toPrettyString());
+        assertTrue(blocos <= blocosMaximos, () -> consulta + " leu " + blocos + " blocos (orçamento " + blocosMaximos +
+                ")\n" + plano.toPrettyString());
+    }
+
+    private static void coletarSeqScans(JsonNode no, List<String> seqScans) {
+        if ("Seq Scan".equals(no.path("Node Type").asText())) {
+            long linhasLidas = (no.path("Actual Rows").asLong() + no.path("Rows Removed by Filter").asLong())
+                    * Math.max(1, no.path("Actual Loops").asLong());
+            if (linhasLidas > LINHAS_MAXIMAS_SEQ_SCAN) {
+                seqScans.add(no.path("Relation Name").asText() + " (" + linhasLidas + " linhas)");
+            }
+        }
+        for (JsonNode filho : no.path("Plans")) {
+            coletarSeqScans(filho, seqScans);
+        }
+    }
+
+    /**
+     * Proxy JDBC que grava o SQL de cada PreparedStatement e os parâmetros ligados por índice
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T gravando(Class<T> tipo, T alvo) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+            Object resultado;
+            try {
+                resultado = metodo.invoke(alvo, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (resultado instanceof Connection conexao) {
+                return gravando(Connection.class, conexao);
+            }
+            if (resultado instanceof PreparedStatement comando && "prepareStatement".equals(metodo.getName())) {
+                Comando gravado = new Comando((String) args[0], new TreeMap<>());
+                COMANDOS.add(gravado);
+                return gravandoParametros(comando, gravado);
+            }
+            return resultado;
+        });
+    }
+
+    private static PreparedStatement gravandoParametros(PreparedStatement alvo, Comando gravado) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, metodo, args) -> {
+                    if (metodo.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer indice) {
+                        gravado.parametros().put(indice, args[1]);
+                    }
+                    try {
+                        return metodo.invoke(alvo, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private record Comando(String sql, Map<Integer, Object> parametros) {
+    }
+}
@@ -0,0 +1,94 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.Atendente;
+import br.com.agendainteligente.domain.entity.Cliente;
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Eventos da agenda passam pelo outbox: só chegam aos assinantes depois do commit da alteração
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AgendaEventosIntegrationTest {
+
+    private static final AtomicLong PROXIMO_ID = new AtomicLong(900_000);
+
+    @Autowired
+    private PublicadorEventosAgendamento publicadorEventosAgendamento;
+
+    @Autowired
+    private RelayEventosAgendamento relayEventosAgendamento;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpyBean
+    private AgendaEventosService agendaEventosService;
+
+    // Sem o relay periódico: o repasse acontece só pelo gatilho pós-commit ou quando o teste chama
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Test
+    void testPublicar_EntregaAosAssinantesSoAposOCommit() {
+        Long agendamentoId = PROXIMO_ID.incrementAndGet();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            publicadorEventosAgendamento.publicar(TipoEventoAgendamento.CRIADO, agendamento(agendamentoId));
+
+            // Outra thread drenando o outbox não enxerga o evento ainda não confirmado
+            CompletableFuture.runAsync(relayEventosAgendamento::repassar).join();
+            verify(agendaEventosService, never()).entregar(argThat(evento -> agendamentoId.equals(evento.getAgendamentoId())));
+        });
+
+        verify(agendaEventosService, timeout(5000))
+                .entregar(argThat(evento -> agendamentoId.equals(evento.getAgendamentoId())
+                        && evento.getTipo() == TipoEventoAgendamento.CRIADO
+                        && evento.getUnidadeId().equals(1L)));
+    }
+
+    @Test
+    void testPublicar_RollbackNaoEntregaEvento() {
+        Long agendamentoId = PROXIMO_ID.incrementAndGet();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            publicadorEventosAgendamento.publicar(TipoEventoAgendamento.CANCELADO, agendamento(agendamentoId));
+            status.setRollbackOnly();
+        });
+        relayEventosAgendamento.repassar();
+
+        verify(agendaEventosService, after(300).never())
+                .entregar(argThat(evento -> agendamentoId.equals(evento.getAgendamentoId())));
+    }
+
+    private static Agendamento agendamento(Long id) {
+        LocalDateTime inicio = LocalDateTime.now().plusDays(1);
+        return Agendamento.builder()
+                .id(id)
+                .unidade(Unidade.builder().id(1L).build())
+                .atendente(Atendente.builder().id(2L).build())
+                .cliente(Cliente.builder().id(3L).build())
+                .status(StatusAgendamento.AGENDADO)
+                .dataHoraInicio(inicio)
+                .dataHoraFim(inicio.plusHours(1))
+                .build();
+    }
+}
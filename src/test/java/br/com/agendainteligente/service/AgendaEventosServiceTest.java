@@ -0,0 +1,179 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedConstruction;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Fan-out dos eventos da agenda. Os SseEmitter criados pelo serviço são mocks (mockConstruction), e os envios
+ * acontecem nas virtual threads de cada assinante: as verificações esperam com timeout.
+ */
+@ExtendWith(MockitoExtension.class)
+class AgendaEventosServiceTest {
+
+    private static final long ESPERA_MS = 2000;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private AgendaEventosService agendaEventosService;
+
+    @BeforeEach
+    void setUp() {
+        agendaEventosService = new AgendaEventosService(stringRedisTemplate, new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(agendaEventosService, "distribuirViaRedis", false);
+        ReflectionTestUtils.setField(agendaEventosService, "timeout", 60000L);
+        ReflectionTestUtils.setField(agendaEventosService, "filaMaxima", 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        agendaEventosService.encerrar();
+    }
+
+    @Test
+    void testEntregar_SoParaAssinantesDaUnidadeEDoAtendente() throws IOException {
+        try (MockedConstruction<SseEmitter> emissores = mockConstruction(SseEmitter.class)) {
+            agendaEventosService.assinar(List.of(1L), null);
+            agendaEventosService.assinar(List.of(2L), null);
+            agendaEventosService.assinar(List.of(1L, 2L), 5L);
+            SseEmitter unidade1 = emissores.constructed().get(0);
+            SseEmitter unidade2 = emissores.constructed().get(1);
+            SseEmitter atendente5 = emissores.constructed().get(2);
+
+            agendaEventosService.entregar(evento(10L, 1L, 9L, TipoEventoAgendamento.CRIADO));
+            agendaEventosService.entregar(evento(11L, 2L, 5L, TipoEventoAgendamento.CANCELADO));
+            agendaEventosService.entregar(evento(12L, 3L, 5L, TipoEventoAgendamento.CRIADO));
+
+            assertEquals(List.of("conectado", "CRIADO"), nomesEnviados(unidade1, 2));
+            assertEquals(List.of("conectado", "CANCELADO"), nomesEnviados(unidade2, 2));
+            assertEquals(List.of("conectado", "CANCELADO"), nomesEnviados(atendente5, 2));
+        }
+    }
+
+    @Test
+    void testConclusaoDoEmitter_RemoveAssinante() throws IOException {
+        try (MockedConstruction<SseEmitter> emissores = mockConstruction(SseEmitter.class)) {
+            agendaEventosService.assinar(List.of(1L), null);
+            SseEmitter emitter = emissores.constructed().get(0);
+            ArgumentCaptor<Runnable> aoConcluir = ArgumentCaptor.forClass(Runnable.class);
+            verify(emitter).onCompletion(aoConcluir.capture());
+            verify(emitter, timeout(ESPERA_MS)).send(any(SseEmitter.SseEventBuilder.class));
+
+            aoConcluir.getValue().run();
+            agendaEventosService.entregar(evento(10L, 1L, 9L, TipoEventoAgendamento.CRIADO));
+
+            assertEquals(0, agendaEventosService.quantidadeAssinantes());
+            verify(emitter, after(200).times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        }
+    }
+
+    @Test
+    void testTimeoutDoEmitter_RemoveAssinanteSemAfetarOsDemais() throws IOException {
+        try (MockedConstruction<SseEmitter> emissores = mockConstruction(SseEmitter.class)) {
+            agendaEventosService.assinar(List.of(1L), null);
+            agendaEventosService.assinar(List.of(1L), null);
+            SseEmitter expirado = emissores.constructed().get(0);
+            SseEmitter ativo = emissores.constructed().get(1);
+            ArgumentCaptor<Runnable> aoExpirar = ArgumentCaptor.forClass(Runnable.class);
+            verify(expirado).onTimeout(aoExpirar.capture());
+
+            aoExpirar.getValue().run();
+            agendaEventosService.entregar(evento(10L, 1L, 9L, TipoEventoAgendamento.STATUS_ALTERADO));
+
+            assertEquals(1, agendaEventosService.quantidadeAssinantes());
+            assertEquals(List.of("conectado", "STATUS_ALTERADO"), nomesEnviados(ativo, 2));
+            verify(expirado, after(200).atMost(1)).send(any(SseEmitter.SseEventBuilder.class));
+        }
+    }
+
+    @Test
+    void testFalhaNoEnvio_RemoveAssinante() throws Exception {
+        try (MockedConstruction<SseEmitter> emissores = mockConstruction(SseEmitter.class, (emitter, contexto) ->
+                doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class)))) {
+            agendaEventosService.assinar(List.of(1L), null);
+
+            verify(emissores.constructed().get(0), timeout(ESPERA_MS)).send(any(SseEmitter.SseEventBuilder.class));
+            for (int i = 0; i < 40 && agendaEventosService.quantidadeAssinantes() > 0; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, agendaEventosService.quantidadeAssinantes());
+        }
+    }
+
+    @Test
+    void testProcessar_RedisIndisponivelEntregaLocalmente() throws IOException {
+        ReflectionTestUtils.setField(agendaEventosService, "distribuirViaRedis", true);
+        doThrow(new RedisConnectionFailureException("Redis fora"))
+                .when(stringRedisTemplate).convertAndSend(eq(AgendaEventosService.CANAL), anyString());
+
+        try (MockedConstruction<SseEmitter> emissores = mockConstruction(SseEmitter.class)) {
+            agendaEventosService.assinar(List.of(1L), null);
+
+            agendaEventosService.processar(List.of(evento(10L, 1L, 9L, TipoEventoAgendamento.CONCLUIDO)));
+
+            assertEquals(List.of("conectado", "CONCLUIDO"), nomesEnviados(emissores.constructed().get(0), 2));
+        }
+    }
+
+    @Test
+    void testReceber_EntregaMensagemPublicadaPorOutraInstancia() throws Exception {
+        String mensagem = new ObjectMapper().findAndRegisterModules()
+                .writeValueAsString(evento(10L, 1L, 9L, TipoEventoAgendamento.PAGAMENTO_CONFIRMADO));
+
+        try (MockedConstruction<SseEmitter> emissores = mockConstruction(SseEmitter.class)) {
+            agendaEventosService.assinar(List.of(1L), null);
+
+            agendaEventosService.receber(mensagem);
+
+            assertEquals(List.of("conectado", "PAGAMENTO_CONFIRMADO"), nomesEnviados(emissores.constructed().get(0), 2));
+        }
+    }
+
+    /**
+     * Espera a quantidade de envios e devolve o nome (event:) de cada um, na ordem
+     */
+    private static List<String> nomesEnviados(SseEmitter emitter, int quantidade) throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> enviados = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, timeout(ESPERA_MS).times(quantidade)).send(enviados.capture());
+        return enviados.getAllValues().stream()
+                .flatMap(evento -> evento.build().stream())
+                .map(parte -> parte.getData())
+                .filter(String.class::isInstance)
+                .flatMap(texto -> ((String) texto).lines())
+                .filter(linha -> linha.startsWith("event:"))
+                .map(linha -> linha.substring("event:".length()))
+                .toList();
+    }
+
+    private static AgendamentoEvent evento(Long agendamentoId, Long unidadeId, Long atendenteId,
+                                           TipoEventoAgendamento tipo) {
+        return AgendamentoEvent.builder()
+                .tipo(tipo)
+                .agendamentoId(agendamentoId)
+                .unidadeId(unidadeId)
+                .atendenteId(atendenteId)
+                .build();
+    }
+}
@@ -0,0 +1,188 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.AgendaInteligenteApplication;
+import br.com.agendainteligente.domain.entity.Atendente;
+import br.com.agendainteligente.domain.entity.Cliente;
+import br.com.agendainteligente.domain.entity.Empresa;
+import br.com.agendainteligente.domain.entity.Servico;
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.domain.entity.Usuario;
+import br.com.agendainteligente.domain.entity.Usuario.PerfilUsuario;
+import br.com.agendainteligente.dto.AgendamentoDTO;
+import br.com.agendainteligente.dto.AgendamentoServicoDTO;
+import br.com.agendainteligente.dto.RecorrenciaDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH da criação de uma série recorrente (agendamentos e serviços) com e sem INSERTs em lote.
+ *
+ * Cada execução cria a série e faz o flush dentro de uma transação que é desfeita no final, para o banco
+ * não crescer entre as iterações. batchSize=1 equivale ao comportamento com IDENTITY (um INSERT por
+ * linha). A quantidade de comandos preparados por série é impressa no fim de cada configuração.
+ *
+ * Por padrão usa o H2 do perfil de testes, que não tem ida e volta pela rede; para medir o ganho real,
+ * aponte para um Postgres migrado:
+ *   -Dspring.datasource.url=jdbc:postgresql://localhost:5432/agenda_inteligente?reWriteBatchedInserts=true
+ *   -Dspring.datasource.driver-class-name=org.postgresql.Driver -Dspring.jpa.hibernate.ddl-auto=validate
+ *
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=br.com.agendainteligente.service.AgendamentoRecorrenteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgendamentoRecorrenteBenchmark {
+
+    private static final int OCORRENCIAS = 200;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext contexto;
+    private AgendamentoRecorrenteService agendamentoRecorrenteService;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private Statistics estatisticas;
+    private long series;
+
+    private Cliente cliente;
+    private Unidade unidade;
+    private Atendente atendente;
+    private List<Servico> servicos;
+    private List<AgendamentoServicoDTO> servicosDTO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contexto = new SpringApplicationBuilder(AgendaInteligenteApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "logging.level.br.com.agendainteligente=WARN")
+                .run();
+        agendamentoRecorrenteService = contexto.getBean(AgendamentoRecorrenteService.class);
+        transactionTemplate = contexto.getBean(TransactionTemplate.class);
+        entityManager = contexto.getBean(EntityManager.class);
+        estatisticas = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Empresa empresa = persistir(Empresa.builder().nome("Empresa benchmark").build());
+            unidade = persistir(Unidade.builder().nome("Unidade benchmark").empresa(empresa).build());
+            Usuario usuario = persistir(Usuario.builder()
+                    .email("atendente.benchmark@test.com")
+                    .senha("senha")
+                    .nome("Atendente")
+                    .perfilSistema(PerfilUsuario.PROFISSIONAL)
+                    .ativo(true)
+                    .build());
+            atendente = persistir(Atendente.builder()
+                    .cpf("00000000000")
+                    .unidade(unidade)
+                    .usuario(usuario)
+                    .ativo(true)
+                    .build());
+            cliente = persistir(Cliente.builder()
+                    .nome("Cliente benchmark")
+                    .cpfCnpj("11111111111")
+                    .unidade(unidade)
+                    .build());
+            servicos = List.of(persistir(servico("Corte")), persistir(servico("Barba")));
+        });
+        servicosDTO = new ArrayList<>();
+        for (Servico servico : servicos) {
+            servicosDTO.add(AgendamentoServicoDTO.builder()
+                    .servicoId(servico.getId())
+                    .valor(servico.getValor())
+                    .quantidade(1)
+                    .valorTotal(servico.getValor())
+                    .build());
+        }
+        estatisticas.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n[batchSize=%d] comandos preparados por série de %d agendamentos: %d%n", batchSize,
+                OCORRENCIAS, series == 0 ? 0 : estatisticas.getPrepareStatementCount() / series);
+        contexto.close();
+    }
+
+    @Benchmark
+    public int criarSerie() {
+        Integer criados = transactionTemplate.execute(status -> {
+            int quantidade = agendamentoRecorrenteService.criarAgendamentosRecorrentes(
+                    AgendamentoDTO.builder().dataHoraInicio(LocalDateTime.now().plusDays(1)).build(),
+                    RecorrenciaDTO.builder()
+                            .recorrente(true)
+                            .tipoRecorrencia(RecorrenciaDTO.TipoRecorrencia.DIARIA)
+                            .tipoTermino(RecorrenciaDTO.TipoTermino.OCORRENCIAS)
+                            .numeroOcorrencias(OCORRENCIAS)
+                            .build(),
+                    cliente,
+                    unidade,
+                    atendente,
+                    servicos,
+                    servicosDTO,
+                    new BigDecimal("80.00"),
+                    60).size();
+            entityManager.flush();
+            status.setRollbackOnly();
+            return quantidade;
+        });
+        series++;
+        return criados;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AgendamentoRecorrenteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private <T> T persistir(T entidade) {
+        entityManager.persist(entidade);
+        return entidade;
+    }
+
+    private Servico servico(String nome) {
+        return Servico.builder()
+                .nome(nome)
+                .valor(new BigDecimal("40.00"))
+                .duracaoMinutos(30)
+                .unidade(unidade)
+                .ativo(true)
+                .build();
+    }
+}
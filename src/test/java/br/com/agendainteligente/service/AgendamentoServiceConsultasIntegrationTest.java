@@ -0,0 +1,196 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.*;
+import br.com.agendainteligente.domain.entity.Usuario.PerfilUsuario;
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.dto.AgendamentoDTO;
+import br.com.agendainteligente.dto.PaginaDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Quantidade de comandos SQL das consultas de agendamentos: não pode crescer com o número de linhas
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional
+class AgendamentoServiceConsultasIntegrationTest {
+
+    private static final int AGENDAMENTOS = 5;
+
+    @Autowired
+    private AgendamentoService agendamentoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // As estatísticas são da SessionFactory: os @Scheduled (outbox, webhooks) não podem rodar durante a contagem
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    private Statistics estatisticas;
+    private Long agendamentoId;
+    private Long clienteId;
+
+    @BeforeEach
+    void setUp() {
+        Usuario admin = persistir(Usuario.builder()
+                .email("admin.consultas@test.com")
+                .senha("senha")
+                .nome("Admin")
+                .perfilSistema(PerfilUsuario.ADMIN)
+                .ativo(true)
+                .build());
+        Empresa empresa = persistir(Empresa.builder().nome("Empresa").build());
+        Unidade unidade = persistir(Unidade.builder().nome("Unidade").empresa(empresa).build());
+        Unidade outraUnidade = persistir(Unidade.builder().nome("Outra unidade").empresa(empresa).build());
+        Servico corte = persistir(servico("Corte", unidade));
+        Servico barba = persistir(servico("Barba", unidade));
+
+        for (int i = 0; i < AGENDAMENTOS; i++) {
+            Usuario usuarioAtendente = persistir(Usuario.builder()
+                    .email("atendente" + i + "@test.com")
+                    .senha("senha")
+                    .nome("Atendente " + i)
+                    .perfilSistema(PerfilUsuario.PROFISSIONAL)
+                    .ativo(true)
+                    .build());
+            Atendente atendente = persistir(Atendente.builder()
+                    .cpf("0000000000" + i)
+                    .unidade(unidade)
+                    .usuario(usuarioAtendente)
+                    .ativo(true)
+                    .build());
+            Cliente cliente = persistir(Cliente.builder()
+                    .nome("Cliente " + i)
+                    .cpfCnpj("1111111111" + i)
+                    .dataNascimento(LocalDate.of(1990, 1, 1))
+                    .unidade(unidade)
+                    .unidades(new ArrayList<>(List.of(outraUnidade)))
+                    .build());
+
+            Agendamento agendamento = persistir(Agendamento.builder()
+                    .cliente(cliente)
+                    .unidade(unidade)
+                    .atendente(atendente)
+                    .dataHoraInicio(LocalDateTime.now().plusDays(i + 1))
+                    .dataHoraFim(LocalDateTime.now().plusDays(i + 1).plusHours(1))
+                    .valorTotal(new BigDecimal("80.00"))
+                    .status(StatusAgendamento.AGENDADO)
+                    .build());
+            persistir(itemServico(agendamento, corte));
+            persistir(itemServico(agendamento, barba));
+            agendamentoId = agendamento.getId();
+            clienteId = cliente.getId();
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                admin.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testListarTodos_ConsultasNaoDependemDaQuantidadeDeAgendamentos() {
+        List<AgendamentoDTO> agendamentos = agendamentoService.listarTodos();
+
+        assertEquals(AGENDAMENTOS, agendamentos.size());
+        agendamentos.forEach(dto -> {
+            assertEquals(2, dto.getServicos().size());
+            assertNotNull(dto.getServicos().get(0).getNomeServico());
+            assertNotNull(dto.getCliente().getNome());
+            assertNotNull(dto.getUnidade().getNome());
+            assertNotNull(dto.getAtendente().getNomeUsuario());
+        });
+        // usuário logado + agendamentos com nomes + serviços de todos os agendamentos
+        assertEquals(3, estatisticas.getPrepareStatementCount());
+        // Projeções: a única entidade carregada é o usuário logado
+        assertEquals(1, estatisticas.getEntityLoadCount());
+    }
+
+    @Test
+    void testBuscarPorId_CarregaDetalhesEmConsultasFixas() {
+        AgendamentoDTO dto = agendamentoService.buscarPorId(agendamentoId);
+
+        assertEquals(2, dto.getServicos().size());
+        assertNotNull(dto.getCliente().getNome());
+        assertEquals(1, dto.getCliente().getUnidades().size());
+        // agendamento com associações + usuário logado + unidades adicionais do cliente
+        assertEquals(3, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void testListarDoCliente_PaginaComServicosEmDuasConsultas() {
+        PaginaDTO<AgendamentoDTO> pagina = agendamentoService.listarDoCliente(clienteId, 0, null);
+
+        assertEquals(1, pagina.getConteudo().size());
+        assertEquals(1, pagina.getTotalElementos());
+        assertFalse(pagina.isTemProxima());
+        AgendamentoDTO dto = pagina.getConteudo().get(0);
+        assertEquals(agendamentoId, dto.getId());
+        assertEquals(2, dto.getServicos().size());
+        assertNotNull(dto.getUnidade().getNome());
+        assertNotNull(dto.getAtendente().getNomeUsuario());
+        // página com pagamento e nota fiscal + serviços; sem contagem, pois a página não está cheia
+        assertEquals(2, estatisticas.getPrepareStatementCount());
+        assertEquals(0, estatisticas.getEntityLoadCount());
+    }
+
+    private <T> T persistir(T entidade) {
+        entityManager.persist(entidade);
+        return entidade;
+    }
+
+    private static Servico servico(String nome, Unidade unidade) {
+        return Servico.builder()
+                .nome(nome)
+                .valor(new BigDecimal("40.00"))
+                .duracaoMinutos(30)
+                .unidade(unidade)
+                .ativo(true)
+                .build();
+    }
+
+    private static AgendamentoServico itemServico(Agendamento agendamento, Servico servico) {
+        return AgendamentoServico.builder()
+                .agendamento(agendamento)
+                .servico(servico)
+                .valor(servico.getValor())
+                .quantidade(1)
+                .valorTotal(servico.getValor())
+                .build();
+    }
+}
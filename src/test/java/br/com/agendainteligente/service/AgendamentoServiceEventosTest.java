@@ -0,0 +1,116 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Atendente;
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.domain.entity.Usuario;
+import br.com.agendainteligente.domain.entity.Usuario.PerfilUsuario;
+import br.com.agendainteligente.exception.BusinessException;
+import br.com.agendainteligente.repository.AtendenteRepository;
+import br.com.agendainteligente.repository.UnidadeRepository;
+import br.com.agendainteligente.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unidades e atendente repassados ao stream de eventos da agenda conforme o perfil do usuário
+ */
+@ExtendWith(MockitoExtension.class)
+class AgendamentoServiceEventosTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private UnidadeRepository unidadeRepository;
+
+    @Mock
+    private AtendenteRepository atendenteRepository;
+
+    @Mock
+    private AgendaEventosService agendaEventosService;
+
+    @InjectMocks
+    private AgendamentoService agendamentoService;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testAssinarEventos_AdminSemUnidadeRecebeTodasAsUnidades() {
+        autenticar(Usuario.builder().id(1L).email("admin@test.com").perfilSistema(PerfilUsuario.ADMIN).build());
+        when(unidadeRepository.findAll()).thenReturn(List.of(unidade(1L), unidade(2L)));
+        SseEmitter emitter = new SseEmitter();
+        when(agendaEventosService.assinar(Set.of(1L, 2L), null)).thenReturn(emitter);
+
+        assertSame(emitter, agendamentoService.assinarEventos(null));
+    }
+
+    @Test
+    void testAssinarEventos_UnidadeInformadaRestringeOStream() {
+        autenticar(Usuario.builder().id(1L).email("admin@test.com").perfilSistema(PerfilUsuario.ADMIN).build());
+        when(unidadeRepository.findAll()).thenReturn(List.of(unidade(1L), unidade(2L)));
+
+        agendamentoService.assinarEventos(2L);
+
+        verify(agendaEventosService).assinar(Set.of(2L), null);
+    }
+
+    @Test
+    void testAssinarEventos_ProfissionalRecebeSoOsEventosDoProprioAtendente() {
+        Usuario profissional = Usuario.builder()
+                .id(3L)
+                .email("profissional@test.com")
+                .perfilSistema(PerfilUsuario.PROFISSIONAL)
+                .unidades(List.of(unidade(1L)))
+                .build();
+        autenticar(profissional);
+        when(atendenteRepository.findByUsuarioId(3L)).thenReturn(Optional.of(Atendente.builder().id(7L).build()));
+
+        agendamentoService.assinarEventos(null);
+
+        verify(agendaEventosService).assinar(Set.of(1L), 7L);
+    }
+
+    @Test
+    void testAssinarEventos_UnidadeSemPermissao() {
+        Usuario profissional = Usuario.builder()
+                .id(3L)
+                .email("profissional@test.com")
+                .perfilSistema(PerfilUsuario.PROFISSIONAL)
+                .unidades(List.of(unidade(1L)))
+                .build();
+        autenticar(profissional);
+
+        assertThrows(BusinessException.class, () -> agendamentoService.assinarEventos(2L));
+
+        verify(agendaEventosService, never()).assinar(any(), any());
+    }
+
+    private void autenticar(Usuario usuario) {
+        when(usuarioRepository.findByEmail(usuario.getEmail())).thenReturn(Optional.of(usuario));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                usuario.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_" + usuario.getPerfil()))));
+    }
+
+    private static Unidade unidade(Long id) {
+        return Unidade.builder().id(id).nome("Unidade " + id).build();
+    }
+}
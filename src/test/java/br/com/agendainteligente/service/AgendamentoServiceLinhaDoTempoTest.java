@@ -0,0 +1,130 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.dto.AgendamentoDTO;
+import br.com.agendainteligente.dto.PaginaDTO;
+import br.com.agendainteligente.mapper.AgendamentoMapper;
+import br.com.agendainteligente.mapper.AgendamentoServicoMapper;
+import br.com.agendainteligente.repository.AgendamentoRepository;
+import br.com.agendainteligente.repository.AgendamentoServicoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageImpl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cache da primeira página da linha do tempo do cliente
+ */
+@ExtendWith(MockitoExtension.class)
+class AgendamentoServiceLinhaDoTempoTest {
+
+    private static final Long CLIENTE_ID = 7L;
+
+    @Mock
+    private AgendamentoRepository agendamentoRepository;
+
+    @Mock
+    private AgendamentoServicoRepository agendamentoServicoRepository;
+
+    @Mock
+    private AgendamentoMapper agendamentoMapper;
+
+    @Mock
+    private AgendamentoServicoMapper agendamentoServicoMapper;
+
+    @Spy
+    private CatalogoCache catalogoCache = new CatalogoCache(new ConcurrentMapCacheManager());
+
+    @InjectMocks
+    private AgendamentoService agendamentoService;
+
+    @BeforeEach
+    void setUp() {
+        when(agendamentoMapper.toDTO(any(AgendamentoRepository.Listagem.class))).thenAnswer(invocacao -> {
+            AgendamentoRepository.Listagem listagem = invocacao.getArgument(0);
+            AgendamentoDTO dto = new AgendamentoDTO();
+            dto.setId(listagem.getId());
+            dto.setDataHoraInicio(listagem.getDataHoraInicio());
+            return dto;
+        });
+    }
+
+    @Test
+    void testListarDoCliente_PrimeiraPaginaVemDoCacheEnquantoAOrdemNaoMuda() {
+        retornarLinhaDoTempo(Duration.ofDays(1), Duration.ofDays(-1));
+
+        assertEquals(List.of(1L, 2L), ids(agendamentoService.listarDoCliente(CLIENTE_ID, 0, null)));
+        assertEquals(List.of(1L, 2L), ids(agendamentoService.listarDoCliente(CLIENTE_ID, 0, null)));
+
+        verify(agendamentoRepository, times(1)).listarDoCliente(eq(CLIENTE_ID), any(), any());
+    }
+
+    @Test
+    void testListarDoCliente_RecarregaQuandoOPrimeiroAgendamentoProximoJaComecou() throws InterruptedException {
+        retornarLinhaDoTempo(Duration.ofMillis(300), Duration.ofDays(-1));
+
+        agendamentoService.listarDoCliente(CLIENTE_ID, 0, null);
+        Thread.sleep(400);
+        agendamentoService.listarDoCliente(CLIENTE_ID, 0, null);
+        agendamentoService.listarDoCliente(CLIENTE_ID, 0, null);
+
+        // A segunda chamada recarrega e grava a página nova; a terceira já usa a página nova do cache
+        verify(agendamentoRepository, times(2)).listarDoCliente(eq(CLIENTE_ID), any(), any());
+    }
+
+    @Test
+    void testListarDoCliente_SemAgendamentosProximosAOrdemNaoExpira() {
+        retornarLinhaDoTempo(Duration.ofHours(-1), Duration.ofDays(-1));
+
+        agendamentoService.listarDoCliente(CLIENTE_ID, 0, null);
+        agendamentoService.listarDoCliente(CLIENTE_ID, 0, null);
+
+        verify(agendamentoRepository, times(1)).listarDoCliente(eq(CLIENTE_ID), any(), any());
+    }
+
+    @Test
+    void testListarDoCliente_OutrasPaginasNaoUsamCache() {
+        retornarLinhaDoTempo(Duration.ofDays(1));
+
+        agendamentoService.listarDoCliente(CLIENTE_ID, 1, null);
+        agendamentoService.listarDoCliente(CLIENTE_ID, 1, null);
+
+        verify(agendamentoRepository, times(2)).listarDoCliente(eq(CLIENTE_ID), any(), any());
+        verify(catalogoCache, never()).obter(any(), any(), any());
+    }
+
+    private static List<Long> ids(PaginaDTO<AgendamentoDTO> pagina) {
+        return pagina.getConteudo().stream().map(AgendamentoDTO::getId).toList();
+    }
+
+    /**
+     * Linha do tempo com inícios relativos ao horário usado na consulta
+     */
+    private void retornarLinhaDoTempo(Duration... inicios) {
+        when(agendamentoRepository.listarDoCliente(eq(CLIENTE_ID), any(), any())).thenAnswer(invocacao -> {
+            LocalDateTime agora = invocacao.getArgument(1);
+            List<AgendamentoRepository.ListagemCliente> linhas = new ArrayList<>();
+            for (int i = 0; i < inicios.length; i++) {
+                AgendamentoRepository.ListagemCliente linha = mock(AgendamentoRepository.ListagemCliente.class);
+                when(linha.getId()).thenReturn(i + 1L);
+                when(linha.getDataHoraInicio()).thenReturn(agora.plus(inicios[i]));
+                linhas.add(linha);
+            }
+            return new PageImpl<>(linhas, invocacao.getArgument(2), linhas.size());
+        });
+    }
+}
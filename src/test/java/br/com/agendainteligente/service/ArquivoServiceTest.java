@@ -0,0 +1,71 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Arquivo;
+import br.com.agendainteligente.exception.BusinessException;
+import br.com.agendainteligente.repository.ArquivoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArquivoServiceTest {
+
+    // PNG 1x1
+    private static final String PNG_BASE64 =
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNk+M9QDwADhgGAWjR9awAAAABJRU5ErkJggg==";
+
+    @Mock
+    private ArquivoRepository arquivoRepository;
+
+    @InjectMocks
+    private ArquivoService arquivoService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(arquivoService, "tamanhoMaximo", 5 * 1024 * 1024);
+    }
+
+    @Test
+    void testSalvarDataUri_ContentTypeVemDoFormatoDecodificado() {
+        // Declarado como JPEG, mas o conteúdo é PNG
+        arquivoService.salvarDataUri("data:image/jpeg;base64," + PNG_BASE64);
+
+        ArgumentCaptor<Arquivo> salvo = ArgumentCaptor.forClass(Arquivo.class);
+        verify(arquivoRepository).save(salvo.capture());
+        assertEquals("image/png", salvo.getValue().getContentType());
+    }
+
+    @Test
+    void testSalvarDataUri_SvgRecusado() {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"><script>alert(1)</script></svg>";
+        String dataUri = "data:image/svg+xml;base64,"
+                + Base64.getEncoder().encodeToString(svg.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BusinessException.class, () -> arquivoService.salvarDataUri(dataUri));
+        verify(arquivoRepository, never()).save(any());
+    }
+
+    @Test
+    void testSalvarDataUri_ConteudoQueNaoDecodificaRecusado() {
+        // Assinatura de PNG seguida de lixo: o leitor é encontrado, mas a decodificação falha
+        byte[] truncado = Base64.getDecoder().decode(PNG_BASE64);
+        byte[] conteudo = Arrays.copyOf(truncado, 20);
+        String dataUri = "data:image/png;base64," + Base64.getEncoder().encodeToString(conteudo);
+
+        assertThrows(BusinessException.class, () -> arquivoService.salvarDataUri(dataUri));
+        verify(arquivoRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,180 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Empresa;
+import br.com.agendainteligente.domain.entity.Servico;
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.repository.EmpresaRepository;
+import br.com.agendainteligente.repository.ServicoRepository;
+import br.com.agendainteligente.repository.UnidadeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Cache de segundo nível das entidades de referência: a segunda leitura não vai ao banco e as alterações são
+ * repassadas às outras instâncias (Redis substituído por mocks)
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "cache.entidades.invalidacao-redis=true"})
+@ActiveProfiles("test")
+class CacheEntidadesIntegrationTest {
+
+    @Autowired
+    private ServicoRepository servicoRepository;
+
+    @Autowired
+    private UnidadeRepository unidadeRepository;
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheEntidades cacheEntidades;
+
+    // As estatísticas são da SessionFactory: os @Scheduled (outbox, webhooks) não podem rodar durante a contagem
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheEntidadesInvalidacao cacheEntidadesInvalidacao;
+
+    @MockBean
+    private StringRedisTemplate stringRedisTemplate;
+
+    @MockBean(name = "cacheEntidadesListenerContainer")
+    private RedisMessageListenerContainer cacheEntidadesListenerContainer;
+
+    private SessionFactory sessionFactory;
+    private Long servicoId;
+    private Long unidadeId;
+    private Long empresaId;
+
+    @BeforeEach
+    void setUp() {
+        Empresa empresa = empresaRepository.save(Empresa.builder().nome("Empresa cache").build());
+        Unidade unidade = unidadeRepository.save(Unidade.builder().nome("Unidade cache").empresa(empresa).build());
+        Servico servico = servicoRepository.save(Servico.builder()
+                .nome("Corte")
+                .valor(new BigDecimal("40.00"))
+                .duracaoMinutos(30)
+                .unidade(unidade)
+                .ativo(true)
+                .build());
+        empresaId = empresa.getId();
+        unidadeId = unidade.getId();
+        servicoId = servico.getId();
+
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getStatistics().clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        servicoRepository.deleteById(servicoId);
+        unidadeRepository.deleteById(unidadeId);
+        empresaRepository.deleteById(empresaId);
+    }
+
+    @Test
+    void testFindById_SegundaLeituraVemDoCache() {
+        Statistics estatisticas = sessionFactory.getStatistics();
+
+        transactionTemplate.executeWithoutResult(status -> servicoRepository.findById(servicoId).orElseThrow());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+        assertEquals(1, estatisticas.getSecondLevelCacheMissCount());
+
+        transactionTemplate.executeWithoutResult(status -> servicoRepository.findById(servicoId).orElseThrow());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+        assertEquals(1, estatisticas.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void testBuscarPorIds_ConsultaOBancoUmaVezSoPelosQueFaltamNoCache() {
+        Servico outro = servicoRepository.save(Servico.builder()
+                .nome("Escova")
+                .valor(new BigDecimal("30.00"))
+                .duracaoMinutos(20)
+                .unidade(unidadeRepository.getReferenceById(unidadeId))
+                .ativo(true)
+                .build());
+        try {
+            transactionTemplate.executeWithoutResult(status -> servicoRepository.findById(servicoId).orElseThrow());
+            Statistics estatisticas = sessionFactory.getStatistics();
+            estatisticas.clear();
+
+            List<Servico> servicos = transactionTemplate.execute(status -> cacheEntidades.buscarPorIds(Servico.class,
+                    List.of(servicoId, outro.getId(), servicoId, -1L), servicoRepository));
+
+            assertEquals(2, servicos.size());
+            assertEquals(1, estatisticas.getPrepareStatementCount());
+            assertEquals(1, estatisticas.getSecondLevelCacheHitCount());
+        } finally {
+            servicoRepository.deleteById(outro.getId());
+        }
+    }
+
+    @Test
+    void testAtualizacao_CacheRefleteNovoValor() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Servico servico = servicoRepository.findById(servicoId).orElseThrow();
+            servico.setValor(new BigDecimal("55.00"));
+        });
+        sessionFactory.getStatistics().clear();
+
+        Servico servico = transactionTemplate.execute(status -> servicoRepository.findById(servicoId).orElseThrow());
+
+        assertEquals(0, new BigDecimal("55.00").compareTo(servico.getValor()));
+        assertEquals(0, sessionFactory.getStatistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void testAtualizacao_PublicaInvalidacaoAposOCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            servicoRepository.findById(servicoId).orElseThrow().setValor(new BigDecimal("60.00"));
+            servicoRepository.flush();
+            verify(stringRedisTemplate, never()).convertAndSend(any(), any());
+        });
+
+        verify(stringRedisTemplate).convertAndSend(eq(CacheEntidadesInvalidacao.CANAL),
+                endsWith("|E|" + Servico.class.getName() + "|" + servicoId));
+    }
+
+    @Test
+    void testInvalidacaoDeOutraInstancia_RemoveEntidadeDoCache() {
+        transactionTemplate.executeWithoutResult(status -> servicoRepository.findById(servicoId).orElseThrow());
+        assertTrue(sessionFactory.getCache().containsEntity(Servico.class, servicoId));
+
+        cacheEntidadesInvalidacao.processarInvalidacao("outra-instancia|E|" + Servico.class.getName() + "|" + servicoId);
+
+        assertFalse(sessionFactory.getCache().containsEntity(Servico.class, servicoId));
+    }
+}
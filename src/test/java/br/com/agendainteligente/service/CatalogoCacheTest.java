@@ -0,0 +1,60 @@
+package br.com.agendainteligente.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogoCacheTest {
+
+    @Test
+    void testObter_CarregaUmaVezEServeDoCache() {
+        CatalogoCache catalogoCache = new CatalogoCache(new ConcurrentMapCacheManager(CatalogoCache.SERVICOS));
+        AtomicInteger carregamentos = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            List<String> valor = catalogoCache.obter(CatalogoCache.SERVICOS, CatalogoCache.chaveUnidade(1L), () -> {
+                carregamentos.incrementAndGet();
+                return List.of("Corte");
+            });
+            assertEquals(List.of("Corte"), valor);
+        }
+
+        assertEquals(1, carregamentos.get());
+    }
+
+    @Test
+    void testRemover_SoAChaveInformada() {
+        CatalogoCache catalogoCache = new CatalogoCache(new ConcurrentMapCacheManager(CatalogoCache.ATENDENTES));
+        catalogoCache.obter(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(1L), () -> "unidade 1");
+        catalogoCache.obter(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(2L), () -> "unidade 2");
+
+        catalogoCache.remover(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(1L), null);
+
+        assertEquals("recarregada", catalogoCache.obter(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(1L),
+                () -> "recarregada"));
+        assertEquals("unidade 2", catalogoCache.obter(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(2L),
+                () -> "recarregada"));
+    }
+
+    @Test
+    void testObter_RedisIndisponivelCarregaDoBanco() {
+        Cache cache = mock(Cache.class);
+        when(cache.get(any())).thenThrow(new RedisConnectionFailureException("sem conexão"));
+        doThrow(new RedisConnectionFailureException("sem conexão")).when(cache).put(any(), any());
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(CatalogoCache.UNIDADES)).thenReturn(cache);
+
+        String valor = new CatalogoCache(cacheManager).obter(CatalogoCache.UNIDADES, "ativas", () -> "do banco");
+
+        assertEquals("do banco", valor);
+    }
+}
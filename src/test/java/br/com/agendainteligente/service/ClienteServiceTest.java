@@ -20,7 +20,6 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -87,8 +86,15 @@ class ClienteServiceTest {
     @Test
     void deveListarTodosOsClientes() {
         // Arrange
-        List<Cliente> clientes = Arrays.asList(cliente);
-        when(clienteRepository.findAll()).thenReturn(clientes);
+        ClienteRepository.Listagem listagem = mock(ClienteRepository.Listagem.class);
+        when(listagem.getId()).thenReturn(1L);
+        when(listagem.getNome()).thenReturn("João Silva");
+        when(listagem.getUnidadeId()).thenReturn(1L);
+        ClienteRepository.Vinculo unidadeAdicional = mock(ClienteRepository.Vinculo.class);
+        when(unidadeAdicional.getId()).thenReturn(1L);
+        when(unidadeAdicional.getVinculadoId()).thenReturn(2L);
+        when(clienteRepository.listarTodos()).thenReturn(List.of(listagem));
+        when(clienteRepository.listarUnidadesAdicionais(List.of(1L))).thenReturn(List.of(unidadeAdicional));
 
         // Act
         List<ClienteDTO> result = clienteService.listarTodos();
@@ -97,7 +103,9 @@ class ClienteServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("João Silva", result.get(0).getNome());
-        verify(clienteRepository).findAll();
+        assertEquals(1L, result.get(0).getUnidadeId());
+        assertEquals(List.of(2L), result.get(0).getUnidadesIds());
+        verify(clienteRepository, never()).findAll();
     }
 
     @Test
@@ -0,0 +1,93 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.repository.ReclamacaoRepository;
+import br.com.agendainteligente.repository.UnidadeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContadorReclamacoesServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private ReclamacaoRepository reclamacaoRepository;
+
+    @Mock
+    private UnidadeRepository unidadeRepository;
+
+    @InjectMocks
+    private ContadorReclamacoesService contadorReclamacoesService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void testObter_SomaContadoresEInicializaOsQueFaltam() {
+        when(valueOperations.multiGet(List.of("reclamacoes:nao-lidas:1", "reclamacoes:nao-lidas:2")))
+                .thenReturn(Arrays.asList("3", null));
+        when(reclamacaoRepository.countByUnidadeIdAndLidaFalse(2L)).thenReturn(4L);
+
+        assertEquals(7L, contadorReclamacoesService.obter(List.of(1L, 2L)));
+
+        verify(valueOperations).setIfAbsent("reclamacoes:nao-lidas:2", "4");
+        verify(reclamacaoRepository, never()).countByUnidadeIdAndLidaFalse(1L);
+    }
+
+    @Test
+    void testObter_RedisIndisponivel_ContaNoBanco() {
+        when(valueOperations.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("fora"));
+        when(reclamacaoRepository.countByUnidadeIdAndLidaFalse(1L)).thenReturn(2L);
+
+        assertEquals(2L, contadorReclamacoesService.obter(1L));
+    }
+
+    @Test
+    void testReconciliar_CorrigeSoOsDivergentes() {
+        when(reclamacaoRepository.contarNaoLidasPorUnidade()).thenReturn(List.of(contagem(1L, 5L)));
+        when(unidadeRepository.findAll()).thenReturn(List.of(
+                Unidade.builder().id(1L).build(), Unidade.builder().id(2L).build(), Unidade.builder().id(3L).build()));
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList("6", "0", null));
+
+        contadorReclamacoesService.reconciliar();
+
+        verify(valueOperations).set("reclamacoes:nao-lidas:1", "5");
+        verify(valueOperations).set("reclamacoes:nao-lidas:3", "0");
+        verify(valueOperations, never()).set(eq("reclamacoes:nao-lidas:2"), anyString());
+    }
+
+    private static ReclamacaoRepository.ContagemUnidade contagem(Long unidadeId, Long quantidade) {
+        return new ReclamacaoRepository.ContagemUnidade() {
+            @Override
+            public Long getUnidadeId() {
+                return unidadeId;
+            }
+
+            @Override
+            public Long getQuantidade() {
+                return quantidade;
+            }
+        };
+    }
+}
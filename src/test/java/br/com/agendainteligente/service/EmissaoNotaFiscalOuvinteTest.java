@@ -0,0 +1,68 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import br.com.agendainteligente.repository.NotaFiscalRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmissaoNotaFiscalOuvinteTest {
+
+    @Mock
+    private NotaFiscalService notaFiscalService;
+
+    @Mock
+    private NotaFiscalRepository notaFiscalRepository;
+
+    @InjectMocks
+    private EmissaoNotaFiscalOuvinte emissaoNotaFiscalOuvinte;
+
+    @Test
+    void testProcessar_AgendamentoComNotaNaoVoltaParaAFila() {
+        when(notaFiscalRepository.findAgendamentoIdsComNota(List.of(1L, 2L))).thenReturn(Set.of(1L));
+
+        emissaoNotaFiscalOuvinte.processar(List.of(
+                evento(1L, TipoEventoAgendamento.CONCLUIDO),
+                evento(2L, TipoEventoAgendamento.CONCLUIDO),
+                evento(2L, TipoEventoAgendamento.PAGAMENTO_CONFIRMADO),
+                evento(3L, TipoEventoAgendamento.CRIADO)));
+
+        verify(notaFiscalService).emitirNotaFiscal(2L);
+        verifyNoMoreInteractions(notaFiscalService);
+    }
+
+    @Test
+    void testProcessar_FilaCheiaAdiaOsAgendamentosRestantes() {
+        when(notaFiscalRepository.findAgendamentoIdsComNota(any())).thenReturn(Set.of());
+        // O primeiro agendamento entra na fila; o segundo é recusado
+        when(notaFiscalService.emitirNotaFiscal(anyLong()))
+                .thenReturn(null)
+                .thenThrow(new TaskRejectedException("fila cheia"));
+
+        EventosAdiadosException erro = assertThrows(EventosAdiadosException.class, () ->
+                emissaoNotaFiscalOuvinte.processar(List.of(
+                        evento(1L, TipoEventoAgendamento.CONCLUIDO),
+                        evento(2L, TipoEventoAgendamento.CONCLUIDO),
+                        evento(3L, TipoEventoAgendamento.CONCLUIDO))));
+
+        assertEquals(Set.of(2L, 3L), erro.getAgendamentoIds());
+        verify(notaFiscalService, never()).emitirNotaFiscal(3L);
+    }
+
+    private static AgendamentoEvent evento(Long agendamentoId, TipoEventoAgendamento tipo) {
+        return AgendamentoEvent.builder().tipo(tipo).agendamentoId(agendamentoId).build();
+    }
+}
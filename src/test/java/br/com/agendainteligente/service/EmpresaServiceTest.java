@@ -31,7 +31,10 @@ class EmpresaServiceTest {
     private EmpresaMapper empresaMapper;
 
     @Mock
-    private ImageCompressionService imageCompressionService;
+    private ArquivoService arquivoService;
+
+    @Mock
+    private MiniaturaService miniaturaService;
 
     @InjectMocks
     private EmpresaService empresaService;
@@ -169,21 +172,23 @@ class EmpresaServiceTest {
     void testCriar_ComLogo() {
         // Arrange
         String logoBase64 = "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNk+M9QDwADhgGAWjR9awAAAABJRU5ErkJggg==";
-        String logoComprimida = "data:image/jpeg;base64,compressed";
         
         EmpresaDTO dtoCriacao = EmpresaDTO.builder()
                 .nome("Nova Empresa")
                 .logo(logoBase64)
                 .build();
 
+        String logoHash = "a".repeat(64);
+        String logoUrl = "http://localhost/api/publico/arquivos/" + logoHash;
+
         Empresa empresaSalva = Empresa.builder()
                 .id(2L)
                 .nome("Nova Empresa")
-                .logo(logoComprimida)
                 .build();
 
         when(empresaRepository.existsByCnpj(null)).thenReturn(false);
-        when(imageCompressionService.compressImage(logoBase64)).thenReturn(logoComprimida);
+        when(arquivoService.salvarDataUri(logoBase64)).thenReturn(logoHash);
+        when(arquivoService.url(logoHash, 200)).thenReturn(logoUrl);
         when(empresaMapper.toEntity(any(EmpresaDTO.class))).thenReturn(empresaSalva);
         when(empresaRepository.save(any(Empresa.class))).thenReturn(empresaSalva);
         when(empresaMapper.toDTO(empresaSalva)).thenReturn(dtoCriacao);
@@ -193,7 +198,9 @@ class EmpresaServiceTest {
 
         // Assert
         assertNotNull(result);
-        verify(imageCompressionService, times(1)).compressImage(logoBase64);
+        assertEquals(logoUrl, result.getLogo());
+        assertEquals(logoHash, empresaSalva.getLogoHash());
+        verify(miniaturaService, times(1)).agendarGeracaoAposCommit(logoHash);
         verify(empresaRepository, times(1)).save(any(Empresa.class));
     }
 
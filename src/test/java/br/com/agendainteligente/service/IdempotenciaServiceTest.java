@@ -0,0 +1,116 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.ChaveIdempotencia;
+import br.com.agendainteligente.repository.ChaveIdempotenciaRepository;
+import br.com.agendainteligente.service.IdempotenciaService.RespostaArmazenada;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceTest {
+
+    private static final String CHAVE = "abc:chave-1";
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    private IdempotenciaService idempotenciaService;
+
+    @BeforeEach
+    void setUp() {
+        idempotenciaService = new IdempotenciaService(redisTemplate, chaveIdempotenciaRepository);
+        ReflectionTestUtils.setField(idempotenciaService, "ttlHoras", 24L);
+        ReflectionTestUtils.setField(idempotenciaService, "ttlEmAndamentoSegundos", 60L);
+    }
+
+    @Test
+    void testReservar_UsaRedis() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("idempotencia:" + CHAVE), any(), eq(Duration.ofSeconds(60))))
+                .thenReturn(true, false);
+
+        assertTrue(idempotenciaService.reservar(CHAVE, "impressao"));
+        assertFalse(idempotenciaService.reservar(CHAVE, "impressao"));
+        verifyNoInteractions(chaveIdempotenciaRepository);
+    }
+
+    @Test
+    void testRedisIndisponivel_ReservaBuscaEConcluiNoBanco() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        RedisConnectionFailureException falha = new RedisConnectionFailureException("Redis fora");
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class))).thenThrow(falha);
+        when(valueOperations.get(anyString())).thenThrow(falha);
+        doThrow(falha).when(valueOperations).set(anyString(), any(), any(Duration.class));
+        when(chaveIdempotenciaRepository.reservar(eq(CHAVE), eq("impressao"), any(), any())).thenReturn(1);
+        when(chaveIdempotenciaRepository.findValida(eq(CHAVE), any())).thenReturn(Optional.of(ChaveIdempotencia.builder()
+                .chave(CHAVE)
+                .impressaoDigital("impressao")
+                .concluida(true)
+                .statusHttp(201)
+                .contentType("application/json")
+                .corpo("{\"id\":7}")
+                .expiraEm(LocalDateTime.now().plusHours(1))
+                .build()));
+
+        assertTrue(idempotenciaService.reservar(CHAVE, "impressao"));
+        idempotenciaService.concluir(CHAVE, new RespostaArmazenada("impressao", false, 201, "application/json",
+                "{\"id\":7}"));
+        Optional<RespostaArmazenada> armazenada = idempotenciaService.buscar(CHAVE);
+
+        verify(chaveIdempotenciaRepository).save(argThat(chave -> chave.getChave().equals(CHAVE)
+                && Boolean.TRUE.equals(chave.getConcluida()) && chave.getStatusHttp() == 201));
+        assertTrue(armazenada.isPresent());
+        assertTrue(armazenada.get().isConcluida());
+        assertEquals("{\"id\":7}", armazenada.get().getCorpo());
+    }
+
+    @Test
+    void testLiberar_ChaveNoRedisNaoConsultaOBanco() {
+        when(redisTemplate.delete("idempotencia:" + CHAVE)).thenReturn(true);
+
+        idempotenciaService.liberar(CHAVE);
+
+        verifyNoInteractions(chaveIdempotenciaRepository);
+    }
+
+    @Test
+    void testLiberar_ChaveReservadaNoBanco() {
+        when(redisTemplate.delete("idempotencia:" + CHAVE)).thenReturn(false);
+
+        idempotenciaService.liberar(CHAVE);
+
+        verify(chaveIdempotenciaRepository).deleteById(CHAVE);
+    }
+
+    @Test
+    void testLiberar_RedisIndisponivelRemoveDoBanco() {
+        when(redisTemplate.delete("idempotencia:" + CHAVE)).thenThrow(new RedisConnectionFailureException("Redis fora"));
+
+        idempotenciaService.liberar(CHAVE);
+
+        verify(chaveIdempotenciaRepository).deleteById(CHAVE);
+    }
+}
@@ -0,0 +1,123 @@
+package br.com.agendainteligente.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH do custo de CPU por upload de logo: geração das quatro miniaturas (512/200/96/48).
+ *
+ * Compara o pipeline atual (uma decodificação, redução progressiva encadeada) com a abordagem anterior
+ * aplicada às mesmas larguras (decodificação e redução em um único passo para cada tamanho). Roda em uma
+ * thread, então o tempo médio por operação corresponde ao tempo de CPU de um upload.
+ *
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=br.com.agendainteligente.service.ImageCompressionServiceBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageCompressionServiceBenchmark {
+
+    @Param({"1024", "3000"})
+    private int tamanhoOriginal;
+
+    private ImageCompressionService service;
+    private byte[] imagem;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = new ImageCompressionService();
+        imagem = criarImagemJpeg(tamanhoOriginal, tamanhoOriginal * 3 / 4);
+    }
+
+    @Benchmark
+    public List<ImageCompressionService.Miniatura> pipelineProgressivo() throws IOException {
+        return service.gerarMiniaturas(imagem);
+    }
+
+    @Benchmark
+    public List<byte[]> passoUnicoPorTamanho() throws IOException {
+        List<byte[]> resultado = new ArrayList<>(ImageCompressionService.LARGURAS.length);
+        for (int largura : ImageCompressionService.LARGURAS) {
+            resultado.add(reduzirPassoUnico(imagem, largura));
+        }
+        return resultado;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageCompressionServiceBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    /**
+     * Compressão anterior do ImageCompressionService, parametrizada pela largura
+     */
+    private static byte[] reduzirPassoUnico(byte[] imagem, int largura) throws IOException {
+        BufferedImage original = ImageIO.read(new ByteArrayInputStream(imagem));
+        double escala = Math.min(1.0, (double) largura / Math.max(original.getWidth(), original.getHeight()));
+        int novaLargura = (int) (original.getWidth() * escala);
+        int novaAltura = (int) (original.getHeight() * escala);
+
+        BufferedImage reduzida = new BufferedImage(novaLargura, novaAltura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = reduzida.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.drawImage(original, 0, 0, novaLargura, novaAltura, null);
+        g.dispose();
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        ImageIO.write(reduzida, "jpg", saida);
+        return saida.toByteArray();
+    }
+
+    /**
+     * Imagem sintética com gradiente e formas, para não favorecer a compressão como uma cor sólida
+     */
+    private static byte[] criarImagemJpeg(int largura, int altura) throws IOException {
+        BufferedImage imagem = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = imagem.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(37, 99, 235), largura, altura, new Color(250, 204, 21)));
+        g.fillRect(0, 0, largura, altura);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int i = 0; i < 40; i++) {
+            g.setColor(new Color((i * 53) % 256, (i * 97) % 256, (i * 151) % 256, 180));
+            g.fillOval((i * 73) % largura, (i * 131) % altura, largura / 8, altura / 8);
+        }
+        g.setColor(Color.WHITE);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, largura / 10));
+        g.drawString("Agenda", largura / 10, altura / 2);
+        g.dispose();
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        ImageIO.write(imagem, "jpg", saida);
+        return saida.toByteArray();
+    }
+}
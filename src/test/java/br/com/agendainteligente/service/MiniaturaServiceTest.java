@@ -0,0 +1,139 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Arquivo;
+import br.com.agendainteligente.domain.entity.ArquivoMiniatura;
+import br.com.agendainteligente.repository.ArquivoMiniaturaRepository;
+import br.com.agendainteligente.repository.ArquivoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MiniaturaServiceTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @Mock
+    private ArquivoMiniaturaRepository arquivoMiniaturaRepository;
+
+    @Mock
+    private ArquivoRepository arquivoRepository;
+
+    @Mock
+    private ArquivoService arquivoService;
+
+    @Mock
+    private ImageCompressionService imageCompressionService;
+
+    private MiniaturaService miniaturaService;
+
+    @BeforeEach
+    void setUp() {
+        // Executor síncrono: a geração termina antes de buscarHashMiniatura retornar
+        miniaturaService = new MiniaturaService(arquivoMiniaturaRepository, arquivoRepository, arquivoService,
+                imageCompressionService, Runnable::run);
+    }
+
+    @Test
+    void testBuscarHashMiniatura_MenorMiniaturaComALarguraPedida() {
+        when(arquivoMiniaturaRepository.findByArquivoHashOrderByLarguraAsc(HASH)).thenReturn(List.of(
+                miniatura(48, "m48"), miniatura(96, "m96"), miniatura(200, "m200"), miniatura(512, "m512")));
+
+        assertEquals(Optional.of("m96"), miniaturaService.buscarHashMiniatura(HASH, 60));
+        assertEquals(Optional.of("m512"), miniaturaService.buscarHashMiniatura(HASH, 1024));
+        verifyNoInteractions(arquivoRepository, imageCompressionService);
+    }
+
+    @Test
+    void testBuscarHashMiniatura_GeracaoInterrompidaCompletaSoAsLargurasQueFaltam() throws IOException {
+        when(arquivoMiniaturaRepository.findByArquivoHashOrderByLarguraAsc(HASH))
+                .thenReturn(List.of(miniatura(200, "m200"), miniatura(512, "m512")));
+        when(arquivoRepository.findContentTypeParaMiniaturas(HASH)).thenReturn(Optional.of("image/png"));
+        when(arquivoService.buscar(HASH)).thenReturn(Arquivo.builder()
+                .hash(HASH)
+                .contentType("image/png")
+                .conteudo(new byte[]{1, 2, 3})
+                .build());
+        when(imageCompressionService.gerarMiniaturas(any())).thenReturn(List.of(
+                new ImageCompressionService.Miniatura(512, new byte[]{1}, "image/png"),
+                new ImageCompressionService.Miniatura(200, new byte[]{2}, "image/png"),
+                new ImageCompressionService.Miniatura(96, new byte[]{3}, "image/png"),
+                new ImageCompressionService.Miniatura(48, new byte[]{4}, "image/png")));
+        when(arquivoService.salvar(any(), any())).thenReturn("m96", "m48");
+
+        // As larguras já gravadas continuam sendo servidas enquanto as demais são geradas
+        assertEquals(Optional.of("m200"), miniaturaService.buscarHashMiniatura(HASH, 96));
+
+        ArgumentCaptor<ArquivoMiniatura> gravadas = ArgumentCaptor.forClass(ArquivoMiniatura.class);
+        verify(arquivoMiniaturaRepository, times(2)).save(gravadas.capture());
+        assertEquals(List.of(96, 48), gravadas.getAllValues().stream().map(ArquivoMiniatura::getLargura).toList());
+    }
+
+    @Test
+    void testBuscarHashMiniatura_ArquivoQueNaoEImagemNaoAgendaGeracao() {
+        when(arquivoRepository.findContentTypeParaMiniaturas(HASH)).thenReturn(Optional.of("application/pdf"));
+
+        assertTrue(miniaturaService.buscarHashMiniatura(HASH, 200).isEmpty());
+
+        verifyNoInteractions(arquivoService, imageCompressionService);
+    }
+
+    @Test
+    void testBuscarHashMiniatura_FalhaDeDecodificacaoNaoETentadaDeNovo() throws IOException {
+        when(arquivoRepository.findContentTypeParaMiniaturas(HASH))
+                .thenReturn(Optional.of("image/jpeg"), Optional.empty());
+        when(arquivoService.buscar(HASH)).thenReturn(Arquivo.builder()
+                .hash(HASH)
+                .contentType("image/jpeg")
+                .conteudo(new byte[]{1, 2, 3})
+                .build());
+        when(imageCompressionService.gerarMiniaturas(any()))
+                .thenThrow(new IOException("Formato de imagem não suportado"));
+
+        assertTrue(miniaturaService.buscarHashMiniatura(HASH, 200).isEmpty());
+        verify(arquivoRepository).marcarMiniaturasIndisponiveis(HASH);
+
+        // Marcado como indisponível, as próximas requisições servem o original sem agendar outra tentativa
+        assertTrue(miniaturaService.buscarHashMiniatura(HASH, 200).isEmpty());
+        verify(imageCompressionService, times(1)).gerarMiniaturas(any());
+        verify(arquivoService, never()).salvar(any(), any());
+    }
+
+    @Test
+    void testBuscarHashMiniatura_GeraESalvaAsMiniaturasDaImagem() throws IOException {
+        when(arquivoRepository.findContentTypeParaMiniaturas(HASH)).thenReturn(Optional.of("image/png"));
+        when(arquivoService.buscar(HASH)).thenReturn(Arquivo.builder()
+                .hash(HASH)
+                .contentType("image/png")
+                .conteudo(new byte[]{1, 2, 3})
+                .build());
+        when(imageCompressionService.gerarMiniaturas(any())).thenReturn(List.of(
+                new ImageCompressionService.Miniatura(48, new byte[]{4}, "image/png"),
+                new ImageCompressionService.Miniatura(96, new byte[]{5}, "image/png")));
+        when(arquivoService.salvar(any(), any())).thenReturn("m48", "m96");
+
+        assertTrue(miniaturaService.buscarHashMiniatura(HASH, 96).isEmpty());
+
+        verify(arquivoMiniaturaRepository, times(2)).save(any(ArquivoMiniatura.class));
+        verify(arquivoRepository, never()).marcarMiniaturasIndisponiveis(any());
+    }
+
+    private static ArquivoMiniatura miniatura(int largura, String hash) {
+        return ArquivoMiniatura.builder()
+                .arquivoHash(HASH)
+                .largura(largura)
+                .miniaturaHash(hash)
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.Cliente;
+import br.com.agendainteligente.domain.entity.NotaFiscal;
+import br.com.agendainteligente.domain.enums.StatusNotaFiscal;
+import br.com.agendainteligente.integration.NfseManausIntegration;
+import br.com.agendainteligente.mapper.NotaFiscalMapper;
+import br.com.agendainteligente.repository.AgendamentoRepository;
+import br.com.agendainteligente.repository.NotaFiscalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotaFiscalServiceTest {
+
+    private static final Long AGENDAMENTO_ID = 10L;
+
+    @Mock
+    private NotaFiscalRepository notaFiscalRepository;
+
+    @Mock
+    private AgendamentoRepository agendamentoRepository;
+
+    @Mock
+    private NotaFiscalMapper notaFiscalMapper;
+
+    @Mock
+    private NfseManausIntegration nfseManausIntegration;
+
+    @Mock
+    private NotaFiscalXmlService notaFiscalXmlService;
+
+    @Mock
+    private CatalogoCache catalogoCache;
+
+    @InjectMocks
+    private NotaFiscalService notaFiscalService;
+
+    private Agendamento agendamento;
+
+    @BeforeEach
+    void setUp() {
+        agendamento = Agendamento.builder()
+                .id(AGENDAMENTO_ID)
+                .cliente(Cliente.builder().id(3L).build())
+                .valorTotal(new BigDecimal("150.00"))
+                .build();
+        when(agendamentoRepository.findById(AGENDAMENTO_ID)).thenReturn(Optional.of(agendamento));
+    }
+
+    @Test
+    void testEmitirNotaFiscal_ReservaANotaAntesDeChamarAPrefeitura() {
+        NotaFiscal notaFiscal = NotaFiscal.builder().id(1L).agendamento(agendamento)
+                .status(StatusNotaFiscal.PROCESSANDO).build();
+        when(notaFiscalRepository.reservarEmissao(AGENDAMENTO_ID)).thenReturn(1);
+        when(notaFiscalRepository.findByAgendamentoId(AGENDAMENTO_ID)).thenReturn(Optional.of(notaFiscal));
+        when(nfseManausIntegration.emitirNotaFiscal(agendamento, new BigDecimal("150.00")))
+                .thenReturn(NfseManausIntegration.ResultadoNfse.builder().numeroNfse("2024000123").xmlNfse("<Nfse/>").build());
+
+        notaFiscalService.emitirNotaFiscal(AGENDAMENTO_ID);
+
+        InOrder ordem = inOrder(notaFiscalRepository, nfseManausIntegration);
+        ordem.verify(notaFiscalRepository).reservarEmissao(AGENDAMENTO_ID);
+        ordem.verify(nfseManausIntegration).emitirNotaFiscal(any(), any());
+        ordem.verify(notaFiscalRepository).save(notaFiscal);
+        assertEquals(StatusNotaFiscal.EMITIDA, notaFiscal.getStatus());
+        assertEquals("2024000123", notaFiscal.getNumeroNfse());
+    }
+
+    @Test
+    void testEmitirNotaFiscal_FalhaAoGravarXmlMantemNotaEmitida() {
+        NotaFiscal notaFiscal = NotaFiscal.builder().id(1L).agendamento(agendamento)
+                .status(StatusNotaFiscal.PROCESSANDO).build();
+        when(notaFiscalRepository.reservarEmissao(AGENDAMENTO_ID)).thenReturn(1);
+        when(notaFiscalRepository.findByAgendamentoId(AGENDAMENTO_ID)).thenReturn(Optional.of(notaFiscal));
+        when(nfseManausIntegration.emitirNotaFiscal(agendamento, new BigDecimal("150.00")))
+                .thenReturn(NfseManausIntegration.ResultadoNfse.builder().numeroNfse("2024000123").xmlNfse("<Nfse/>").build());
+        doThrow(new IllegalStateException("falha no banco")).when(notaFiscalXmlService).salvar(1L, "<Nfse/>");
+
+        notaFiscalService.emitirNotaFiscal(AGENDAMENTO_ID);
+
+        verify(notaFiscalRepository).save(notaFiscal);
+        assertEquals(StatusNotaFiscal.EMITIDA, notaFiscal.getStatus());
+        assertNull(notaFiscal.getMensagemErro());
+    }
+
+    @Test
+    void testEmitirNotaFiscal_NotaJaReservadaNaoEnviaOutroLote() {
+        when(notaFiscalRepository.reservarEmissao(AGENDAMENTO_ID)).thenReturn(0);
+
+        notaFiscalService.emitirNotaFiscal(AGENDAMENTO_ID);
+
+        verifyNoInteractions(nfseManausIntegration, notaFiscalXmlService);
+        verify(notaFiscalRepository, never()).save(any());
+    }
+}
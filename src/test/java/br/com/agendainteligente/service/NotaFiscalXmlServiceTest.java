@@ -0,0 +1,103 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.NotaFiscalXml;
+import br.com.agendainteligente.repository.NotaFiscalXmlRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotaFiscalXmlServiceTest {
+
+    private static final String XML = "<CompNfse xmlns=\"http://www.abrasf.org.br/nfse.xsd\"><Nfse><InfNfse Id=\"1\">"
+            + "<Numero>2024000123</Numero><Discriminacao>Serviço de manicure e pedicure – ção</Discriminacao>"
+            + "</InfNfse></Nfse></CompNfse>";
+
+    @Mock
+    private NotaFiscalXmlRepository notaFiscalXmlRepository;
+
+    private NotaFiscalXmlService notaFiscalXmlService;
+
+    @BeforeEach
+    void setUp() {
+        notaFiscalXmlService = new NotaFiscalXmlService(notaFiscalXmlRepository);
+    }
+
+    @Test
+    void deveCompactarESalvarEDepoisDescompactarOMesmoXml() {
+        String xml = XML.repeat(20);
+
+        notaFiscalXmlService.salvar(5L, xml);
+
+        ArgumentCaptor<NotaFiscalXml> salvo = ArgumentCaptor.forClass(NotaFiscalXml.class);
+        verify(notaFiscalXmlRepository).save(salvo.capture());
+        NotaFiscalXml registro = salvo.getValue();
+        assertEquals(NotaFiscalXml.COMPRESSAO_DEFLATE, registro.getCompressao());
+        assertEquals(xml.getBytes(StandardCharsets.UTF_8).length, registro.getTamanhoOriginal());
+        assertTrue(registro.getConteudo().length < registro.getTamanhoOriginal() / 4);
+
+        when(notaFiscalXmlRepository.findById(5L)).thenReturn(Optional.of(registro));
+        assertEquals(Optional.of(xml), notaFiscalXmlService.carregar(5L));
+    }
+
+    @Test
+    void naoDeveSalvarXmlVazio() {
+        notaFiscalXmlService.salvar(5L, "");
+        notaFiscalXmlService.salvar(5L, null);
+
+        verify(notaFiscalXmlRepository, never()).save(any());
+    }
+
+    @Test
+    void deveLerXmlMigradoSemCompactacao() {
+        when(notaFiscalXmlRepository.findById(6L)).thenReturn(Optional.of(naoCompactado(6L, XML)));
+
+        assertEquals(Optional.of(XML), notaFiscalXmlService.carregar(6L));
+    }
+
+    @Test
+    void deveRecompactarXmlsMigradosSemAlterarOConteudo() {
+        NotaFiscalXml primeiro = naoCompactado(1L, XML);
+        NotaFiscalXml segundo = naoCompactado(2L, XML.repeat(10));
+        when(notaFiscalXmlRepository.findNaoCompactadosParaRecompactar(100)).thenReturn(List.of(primeiro, segundo));
+
+        assertEquals(2, notaFiscalXmlService.recompactarLote(100));
+
+        assertEquals(NotaFiscalXml.COMPRESSAO_DEFLATE, segundo.getCompressao());
+        assertTrue(segundo.getConteudo().length < segundo.getTamanhoOriginal());
+        when(notaFiscalXmlRepository.findById(1L)).thenReturn(Optional.of(primeiro));
+        when(notaFiscalXmlRepository.findById(2L)).thenReturn(Optional.of(segundo));
+        assertEquals(Optional.of(XML), notaFiscalXmlService.carregar(1L));
+        assertEquals(Optional.of(XML.repeat(10)), notaFiscalXmlService.carregar(2L));
+    }
+
+    @Test
+    void deveRecusarConteudoCorrompido() {
+        NotaFiscalXml registro = naoCompactado(7L, XML);
+        registro.setCompressao(NotaFiscalXml.COMPRESSAO_DEFLATE);
+        when(notaFiscalXmlRepository.findById(7L)).thenReturn(Optional.of(registro));
+
+        assertThrows(IllegalStateException.class, () -> notaFiscalXmlService.carregar(7L));
+    }
+
+    private static NotaFiscalXml naoCompactado(Long notaFiscalId, String xml) {
+        byte[] conteudo = xml.getBytes(StandardCharsets.UTF_8);
+        return NotaFiscalXml.builder()
+                .notaFiscalId(notaFiscalId)
+                .compressao(NotaFiscalXml.COMPRESSAO_NENHUMA)
+                .tamanhoOriginal(conteudo.length)
+                .conteudo(conteudo)
+                .build();
+    }
+}
@@ -0,0 +1,222 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.Cliente;
+import br.com.agendainteligente.domain.entity.EventoWebhookPagamento;
+import br.com.agendainteligente.domain.entity.Pagamento;
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.StatusEventoWebhook;
+import br.com.agendainteligente.domain.enums.StatusPagamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import br.com.agendainteligente.repository.EventoWebhookPagamentoRepository;
+import br.com.agendainteligente.repository.PagamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PagamentoWebhookServiceTest {
+
+    private static final String SEGREDO = "segredo-teste";
+    private static final byte[] CORPO = "{\"idTransacao\":\"TXN_1\",\"status\":\"APROVADO\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private EventoWebhookPagamentoRepository eventoRepository;
+
+    @Mock
+    private PagamentoRepository pagamentoRepository;
+
+    @Mock
+    private CatalogoCache catalogoCache;
+
+    @Mock
+    private PublicadorEventosAgendamento publicadorEventosAgendamento;
+
+    @Mock
+    private ResumoFaturamentoService resumoFaturamentoService;
+
+    private PagamentoWebhookService pagamentoWebhookService;
+
+    @BeforeEach
+    void setUp() {
+        pagamentoWebhookService = new PagamentoWebhookService(eventoRepository, pagamentoRepository,
+                new ObjectMapper(), catalogoCache, publicadorEventosAgendamento, resumoFaturamentoService);
+        ReflectionTestUtils.setField(pagamentoWebhookService, "webhookSecret", SEGREDO);
+        ReflectionTestUtils.setField(pagamentoWebhookService, "maxTentativas", 2);
+        ReflectionTestUtils.setField(pagamentoWebhookService, "esperaInicial", 5000L);
+        ReflectionTestUtils.setField(pagamentoWebhookService, "esperaMaxima", 300000L);
+    }
+
+    @Test
+    void testAssinaturaValida_HmacDoCorpo() throws Exception {
+        String assinatura = hmac(CORPO);
+
+        assertTrue(pagamentoWebhookService.assinaturaValida(CORPO, assinatura));
+        assertTrue(pagamentoWebhookService.assinaturaValida(CORPO, "sha256=" + assinatura.toUpperCase()));
+    }
+
+    @Test
+    void testAssinaturaValida_CorpoAdulterado() throws Exception {
+        String assinatura = hmac(CORPO);
+        byte[] adulterado = "{\"idTransacao\":\"TXN_1\",\"status\":\"REEMBOLSADO\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(pagamentoWebhookService.assinaturaValida(adulterado, assinatura));
+        assertFalse(pagamentoWebhookService.assinaturaValida(CORPO, "nao-e-hex"));
+    }
+
+    @Test
+    void testAssinaturaValida_SemAssinaturaOuSemSegredo() throws Exception {
+        assertFalse(pagamentoWebhookService.assinaturaValida(CORPO, null));
+        assertFalse(pagamentoWebhookService.assinaturaValida(CORPO, " "));
+
+        ReflectionTestUtils.setField(pagamentoWebhookService, "webhookSecret", "");
+        assertFalse(pagamentoWebhookService.assinaturaValida(CORPO, hmac(CORPO)));
+    }
+
+    @Test
+    void testProcessarLote_EventoRepetidoNoMesmoLoteEIgnorado() {
+        EventoWebhookPagamento primeiro = evento(1L, "TXN_1", "APROVADO");
+        EventoWebhookPagamento repetido = evento(2L, "TXN_1", "APROVADO");
+        EventoWebhookPagamento invalido = EventoWebhookPagamento.builder().id(3L).payload("{").build();
+        Pagamento pagamento = pagamento("TXN_1", StatusPagamento.PENDENTE);
+        when(eventoRepository.findPendentesParaProcessar(any(), eq(100))).thenReturn(List.of(primeiro, repetido, invalido));
+        when(pagamentoRepository.findByIdTransacaoGatewayIn(Set.of("TXN_1"))).thenReturn(List.of(pagamento));
+
+        PagamentoWebhookService.ResultadoLote resultado = pagamentoWebhookService.processarLote(100);
+
+        assertEquals(3, resultado.getEventosLidos());
+        assertEquals(List.of(10L), resultado.getAgendamentosAprovados());
+        assertEquals(StatusEventoWebhook.PROCESSADO, primeiro.getStatus());
+        assertEquals(StatusEventoWebhook.IGNORADO, repetido.getStatus());
+        assertEquals(StatusEventoWebhook.ERRO, invalido.getStatus());
+        assertEquals(StatusPagamento.APROVADO, pagamento.getStatus());
+        verify(resumoFaturamentoService).alterarStatus(pagamento.getAgendamento(), StatusAgendamento.CONFIRMADO);
+        verify(pagamentoRepository, times(1)).findByIdTransacaoGatewayIn(any());
+        verify(publicadorEventosAgendamento, times(1))
+                .publicar(TipoEventoAgendamento.PAGAMENTO_CONFIRMADO, pagamento.getAgendamento());
+    }
+
+    @Test
+    void testProcessarLote_PendenteAtrasadoNaoDesfazAprovacao() {
+        EventoWebhookPagamento aprovado = evento(1L, "TXN_1", "APROVADO");
+        EventoWebhookPagamento atrasado = evento(2L, "TXN_1", "PENDENTE");
+        Pagamento pagamento = pagamento("TXN_1", StatusPagamento.PENDENTE);
+        when(eventoRepository.findPendentesParaProcessar(any(), eq(100))).thenReturn(List.of(aprovado, atrasado));
+        when(pagamentoRepository.findByIdTransacaoGatewayIn(Set.of("TXN_1"))).thenReturn(List.of(pagamento));
+
+        PagamentoWebhookService.ResultadoLote resultado = pagamentoWebhookService.processarLote(100);
+
+        assertEquals(List.of(10L), resultado.getAgendamentosAprovados());
+        assertEquals(StatusPagamento.APROVADO, pagamento.getStatus());
+        assertEquals(StatusEventoWebhook.PROCESSADO, aprovado.getStatus());
+        assertEquals(StatusEventoWebhook.IGNORADO, atrasado.getStatus());
+    }
+
+    @Test
+    void testProcessarLote_RecusaSeguidaDeAprovacaoAplicaAmbas() {
+        EventoWebhookPagamento recusado = evento(1L, "TXN_1", "RECUSADO");
+        EventoWebhookPagamento aprovado = evento(2L, "TXN_1", "APROVADO");
+        Pagamento pagamento = pagamento("TXN_1", StatusPagamento.PENDENTE);
+        when(eventoRepository.findPendentesParaProcessar(any(), eq(100))).thenReturn(List.of(recusado, aprovado));
+        when(pagamentoRepository.findByIdTransacaoGatewayIn(Set.of("TXN_1"))).thenReturn(List.of(pagamento));
+
+        pagamentoWebhookService.processarLote(100);
+
+        assertEquals(StatusPagamento.APROVADO, pagamento.getStatus());
+        assertEquals(StatusEventoWebhook.PROCESSADO, recusado.getStatus());
+        assertEquals(StatusEventoWebhook.PROCESSADO, aprovado.getStatus());
+    }
+
+    @Test
+    void testProcessarLote_AprovacaoDeAgendamentoConcluidoMantemOStatus() {
+        EventoWebhookPagamento aprovado = evento(4L, "TXN_1", "APROVADO");
+        Pagamento pagamento = pagamento("TXN_1", StatusPagamento.PENDENTE);
+        pagamento.getAgendamento().setStatus(StatusAgendamento.CONCLUIDO);
+        when(eventoRepository.findPendentesParaProcessar(any(), eq(100))).thenReturn(List.of(aprovado));
+        when(pagamentoRepository.findByIdTransacaoGatewayIn(Set.of("TXN_1"))).thenReturn(List.of(pagamento));
+
+        pagamentoWebhookService.processarLote(100);
+
+        assertEquals(StatusPagamento.APROVADO, pagamento.getStatus());
+        assertEquals(StatusAgendamento.CONCLUIDO, pagamento.getAgendamento().getStatus());
+        verifyNoInteractions(resumoFaturamentoService);
+        verify(publicadorEventosAgendamento)
+                .publicar(TipoEventoAgendamento.PAGAMENTO_CONFIRMADO, pagamento.getAgendamento());
+    }
+
+    @Test
+    void testProcessarLote_EventoRepetidoEmOutroLoteEIgnorado() {
+        EventoWebhookPagamento repetido = evento(5L, "TXN_1", "APROVADO");
+        Pagamento pagamento = pagamento("TXN_1", StatusPagamento.APROVADO);
+        when(eventoRepository.findPendentesParaProcessar(any(), eq(100))).thenReturn(List.of(repetido));
+        when(pagamentoRepository.findByIdTransacaoGatewayIn(Set.of("TXN_1"))).thenReturn(List.of(pagamento));
+
+        PagamentoWebhookService.ResultadoLote resultado = pagamentoWebhookService.processarLote(100);
+
+        assertTrue(resultado.getAgendamentosAprovados().isEmpty());
+        assertEquals(StatusEventoWebhook.IGNORADO, repetido.getStatus());
+        verifyNoInteractions(publicadorEventosAgendamento, catalogoCache);
+    }
+
+    @Test
+    void testProcessarLote_PagamentoAindaNaoGravadoTentaDeNovo() {
+        EventoWebhookPagamento evento = evento(7L, "TXN_9", "APROVADO");
+        when(eventoRepository.findPendentesParaProcessar(any(), eq(100))).thenReturn(List.of(evento));
+        when(pagamentoRepository.findByIdTransacaoGatewayIn(Set.of("TXN_9"))).thenReturn(List.of());
+
+        LocalDateTime antes = LocalDateTime.now();
+        pagamentoWebhookService.processarLote(100);
+        assertEquals(StatusEventoWebhook.PENDENTE, evento.getStatus());
+        assertEquals(1, evento.getTentativas());
+        assertFalse(evento.getProximaTentativa().isBefore(antes.plusSeconds(5)));
+
+        pagamentoWebhookService.processarLote(100);
+        assertEquals(StatusEventoWebhook.ERRO, evento.getStatus());
+        assertEquals("Pagamento não encontrado", evento.getMensagemErro());
+    }
+
+    private static String hmac(byte[] corpo) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SEGREDO.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(corpo));
+    }
+
+    private static EventoWebhookPagamento evento(Long id, String idTransacao, String status) {
+        return EventoWebhookPagamento.builder()
+                .id(id)
+                .payload("{\"idTransacao\":\"" + idTransacao + "\",\"status\":\"" + status + "\"}")
+                .build();
+    }
+
+    private static Pagamento pagamento(String idTransacao, StatusPagamento status) {
+        Agendamento agendamento = Agendamento.builder()
+                .id(10L)
+                .cliente(Cliente.builder().id(20L).build())
+                .status(StatusAgendamento.AGENDADO)
+                .build();
+        return Pagamento.builder()
+                .id(30L)
+                .idTransacaoGateway(idTransacao)
+                .status(status)
+                .agendamento(agendamento)
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.EventoAgendamento;
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.domain.enums.StatusEventoAgendamento;
+import br.com.agendainteligente.domain.enums.TipoEventoAgendamento;
+import br.com.agendainteligente.domain.event.AgendamentoEvent;
+import br.com.agendainteligente.repository.EventoAgendamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RelayEventosAgendamentoServiceTest {
+
+    @Mock
+    private EventoAgendamentoRepository eventoAgendamentoRepository;
+
+    @Mock
+    private OuvinteEventosAgendamento ouvinte;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private RelayEventosAgendamentoService relayEventosAgendamentoService;
+
+    @BeforeEach
+    void setUp() {
+        relayEventosAgendamentoService = new RelayEventosAgendamentoService(
+                eventoAgendamentoRepository, objectMapper, List.of(ouvinte));
+        ReflectionTestUtils.setField(relayEventosAgendamentoService, "maxTentativas", 2);
+    }
+
+    @Test
+    void testProcessarLote_RepassaEventosEMarcaProcessados() throws Exception {
+        EventoAgendamento registro = registro(10L);
+        EventoAgendamento invalido = EventoAgendamento.builder().id(2L).payload("{").tentativas(0).build();
+        when(eventoAgendamentoRepository.findPendentesParaProcessar(100)).thenReturn(List.of(registro, invalido));
+
+        assertEquals(2, relayEventosAgendamentoService.processarLote(100));
+
+        verify(ouvinte).processar(argThat(eventos -> eventos.size() == 1
+                && eventos.get(0).getAgendamentoId().equals(10L)
+                && eventos.get(0).getTipo() == TipoEventoAgendamento.CONCLUIDO));
+        assertEquals(StatusEventoAgendamento.PROCESSADO, registro.getStatus());
+        assertNotNull(registro.getDataProcessamento());
+        assertEquals(StatusEventoAgendamento.ERRO, invalido.getStatus());
+    }
+
+    @Test
+    void testProcessarLote_FalhaDoOuvinte_MantemPendenteAteMaxTentativas() throws Exception {
+        EventoAgendamento registro = registro(10L);
+        when(eventoAgendamentoRepository.findPendentesParaProcessar(100)).thenReturn(List.of(registro));
+        doThrow(new IllegalStateException("fila cheia")).when(ouvinte).processar(anyList());
+
+        assertEquals(0, relayEventosAgendamentoService.processarLote(100));
+        assertEquals(StatusEventoAgendamento.PENDENTE, registro.getStatus());
+        assertEquals(1, registro.getTentativas());
+
+        relayEventosAgendamentoService.processarLote(100);
+        assertEquals(StatusEventoAgendamento.ERRO, registro.getStatus());
+        assertTrue(registro.getMensagemErro().contains("fila cheia"));
+    }
+
+    @Test
+    void testProcessarLote_EventosAdiadosContinuamPendentesSemContarTentativa() throws Exception {
+        EventoAgendamento adiado = registro(10L);
+        EventoAgendamento repassado = registro(11L);
+        when(eventoAgendamentoRepository.findPendentesParaProcessar(100)).thenReturn(List.of(adiado, repassado));
+        doThrow(new EventosAdiadosException(Set.of(10L))).when(ouvinte).processar(anyList());
+
+        assertEquals(1, relayEventosAgendamentoService.processarLote(100));
+
+        assertEquals(StatusEventoAgendamento.PENDENTE, adiado.getStatus());
+        assertEquals(0, adiado.getTentativas());
+        assertEquals(StatusEventoAgendamento.PROCESSADO, repassado.getStatus());
+    }
+
+    private EventoAgendamento registro(Long agendamentoId) throws Exception {
+        AgendamentoEvent evento = AgendamentoEvent.builder()
+                .tipo(TipoEventoAgendamento.CONCLUIDO)
+                .agendamentoId(agendamentoId)
+                .unidadeId(1L)
+                .atendenteId(2L)
+                .clienteId(3L)
+                .status(StatusAgendamento.CONCLUIDO)
+                .dataHoraInicio(LocalDateTime.of(2026, 3, 10, 14, 0))
+                .dataHoraFim(LocalDateTime.of(2026, 3, 10, 15, 0))
+                .ocorridoEm(LocalDateTime.now())
+                .build();
+        return EventoAgendamento.builder()
+                .id(1L)
+                .tipo(evento.getTipo())
+                .agendamentoId(agendamentoId)
+                .unidadeId(1L)
+                .payload(objectMapper.writeValueAsString(evento))
+                .build();
+    }
+}
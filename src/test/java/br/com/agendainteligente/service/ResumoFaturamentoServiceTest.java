@@ -0,0 +1,155 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Agendamento;
+import br.com.agendainteligente.domain.entity.Atendente;
+import br.com.agendainteligente.domain.entity.ResumoFaturamento;
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.domain.entity.Usuario;
+import br.com.agendainteligente.domain.enums.StatusAgendamento;
+import br.com.agendainteligente.exception.BusinessException;
+import br.com.agendainteligente.repository.ResumoFaturamentoRepository;
+import br.com.agendainteligente.repository.UnidadeRepository;
+import br.com.agendainteligente.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumoFaturamentoServiceTest {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 3, 10);
+
+    @Mock
+    private ResumoFaturamentoRepository resumoFaturamentoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private UnidadeRepository unidadeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ResumoFaturamentoService resumoFaturamentoService;
+
+    private Agendamento agendamento;
+
+    @BeforeEach
+    void setUp() {
+        agendamento = Agendamento.builder()
+                .id(1L)
+                .unidade(Unidade.builder().id(2L).build())
+                .atendente(Atendente.builder().id(3L).build())
+                .dataHoraInicio(DATA.atTime(14, 0))
+                .valorTotal(new BigDecimal("100.00"))
+                .valorFinal(new BigDecimal("120.00"))
+                .valorComissao(new BigDecimal("12.00"))
+                .status(StatusAgendamento.CONCLUIDO)
+                .build();
+    }
+
+    @Test
+    void testCalcularComissao_UsaPercentualDoUsuarioQuandoAtendenteNaoTem() {
+        Atendente atendente = Atendente.builder()
+                .percentualComissao(BigDecimal.ZERO)
+                .usuario(Usuario.builder().percentualComissao(new BigDecimal("12.50")).build())
+                .build();
+
+        assertEquals(new BigDecimal("15.00"), resumoFaturamentoService.calcularComissao(atendente, new BigDecimal("120.00")));
+    }
+
+    @Test
+    void testConclusao_SomaAoResumoExistente() {
+        when(resumoFaturamentoRepository.acumular(eq(2L), eq(3L), eq(DATA), anyInt(), anyInt(), any(), any(), any(), any()))
+                .thenReturn(1);
+
+        resumoFaturamentoService.registrarMudancaStatus(agendamento, StatusAgendamento.AGENDADO);
+
+        verify(resumoFaturamentoRepository).acumular(eq(2L), eq(3L), eq(DATA), eq(1), eq(0),
+                eq(new BigDecimal("100.00")), eq(new BigDecimal("120.00")), eq(new BigDecimal("12.00")),
+                any(LocalDateTime.class));
+        verify(resumoFaturamentoRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testSaidaDeConcluido_SubtraiValoresGravados() {
+        agendamento.setStatus(StatusAgendamento.CANCELADO);
+        when(resumoFaturamentoRepository.acumular(eq(2L), eq(3L), eq(DATA), anyInt(), anyInt(), any(), any(), any(), any()))
+                .thenReturn(1);
+
+        resumoFaturamentoService.registrarMudancaStatus(agendamento, StatusAgendamento.CONCLUIDO);
+
+        verify(resumoFaturamentoRepository).acumular(eq(2L), eq(3L), eq(DATA), eq(-1), eq(1),
+                eq(new BigDecimal("-100.00")), eq(new BigDecimal("-120.00")), eq(new BigDecimal("-12.00")),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void testPrimeiroDoDia_CriaResumoESoma() {
+        agendamento.setStatus(StatusAgendamento.CANCELADO);
+        when(resumoFaturamentoRepository.acumular(eq(2L), eq(3L), eq(DATA), anyInt(), anyInt(), any(), any(), any(), any()))
+                .thenReturn(0, 1);
+
+        resumoFaturamentoService.registrarMudancaStatus(agendamento, StatusAgendamento.AGENDADO);
+
+        verify(resumoFaturamentoRepository).saveAndFlush(any(ResumoFaturamento.class));
+        verify(resumoFaturamentoRepository, times(2)).acumular(eq(2L), eq(3L), eq(DATA), eq(0), eq(1),
+                any(), any(), any(), any());
+    }
+
+    @Test
+    void testStatusSemEfeitoNoResumo_NaoAltera() {
+        agendamento.setStatus(StatusAgendamento.CONFIRMADO);
+
+        resumoFaturamentoService.registrarMudancaStatus(agendamento, StatusAgendamento.AGENDADO);
+
+        verifyNoInteractions(resumoFaturamentoRepository);
+    }
+
+    @Test
+    void testAlterarStatus_RegistraAMudancaNoResumo() {
+        agendamento.setStatus(StatusAgendamento.CONCLUIDO);
+        when(resumoFaturamentoRepository.acumular(eq(2L), eq(3L), eq(DATA), anyInt(), anyInt(), any(), any(), any(), any()))
+                .thenReturn(1);
+
+        resumoFaturamentoService.alterarStatus(agendamento, StatusAgendamento.CONFIRMADO);
+
+        assertEquals(StatusAgendamento.CONFIRMADO, agendamento.getStatus());
+        verify(resumoFaturamentoRepository).acumular(eq(2L), eq(3L), eq(DATA), eq(-1), eq(0),
+                any(), any(), any(), any());
+    }
+
+    @Test
+    void testReconstruir_RecalculaAPartirDaData() {
+        when(resumoFaturamentoRepository.bloquearReconstrucao()).thenReturn(true);
+        when(resumoFaturamentoRepository.recalcularAPartirDe(eq(DATA.atStartOfDay()), any())).thenReturn(4);
+
+        assertEquals(4, resumoFaturamentoService.reconstruir(DATA));
+
+        verify(resumoFaturamentoRepository).removerAPartirDe(DATA);
+    }
+
+    @Test
+    void testReconstruir_EmAndamentoEmOutraInstancia() {
+        when(resumoFaturamentoRepository.bloquearReconstrucao()).thenReturn(false);
+
+        assertThrows(BusinessException.class, () -> resumoFaturamentoService.reconstruir(DATA));
+
+        verify(resumoFaturamentoRepository, never()).removerAPartirDe(any());
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.agendainteligente.service;
+
+import br.com.agendainteligente.domain.entity.Empresa;
+import br.com.agendainteligente.domain.entity.Unidade;
+import br.com.agendainteligente.domain.entity.Usuario;
+import br.com.agendainteligente.domain.entity.Usuario.PerfilUsuario;
+import br.com.agendainteligente.dto.UnidadeDTO;
+import br.com.agendainteligente.exception.ResourceNotFoundException;
+import br.com.agendainteligente.mapper.UnidadeMapper;
+import br.com.agendainteligente.repository.AtendenteRepository;
+import br.com.agendainteligente.repository.UnidadeRepository;
+import br.com.agendainteligente.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnidadeServiceTest {
+
+    @Mock
+    private UnidadeRepository unidadeRepository;
+
+    @Mock
+    private UnidadeMapper unidadeMapper;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private AtendenteRepository atendenteRepository;
+
+    @Mock
+    private CatalogoCache catalogoCache;
+
+    @InjectMocks
+    private UnidadeService unidadeService;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testBuscarPorId_VemDoCacheSemListarUnidades() {
+        autenticar(Usuario.builder().id(3L).email("profissional@test.com").perfilSistema(PerfilUsuario.PROFISSIONAL)
+                .unidades(List.of(Unidade.builder().id(1L).build())).build());
+        UnidadeDTO emCache = UnidadeDTO.builder().id(1L).nome("Centro").build();
+        when(catalogoCache.obter(eq(CatalogoCache.UNIDADES), eq(1L), any())).thenReturn(emCache);
+
+        assertSame(emCache, unidadeService.buscarPorId(1L));
+
+        verifyNoInteractions(unidadeRepository);
+    }
+
+    @Test
+    void testBuscarPorId_UnidadeSemPermissao() {
+        autenticar(Usuario.builder().id(3L).email("profissional@test.com").perfilSistema(PerfilUsuario.PROFISSIONAL)
+                .unidades(List.of(Unidade.builder().id(1L).build())).build());
+        when(catalogoCache.obter(eq(CatalogoCache.UNIDADES), eq(2L), any()))
+                .thenReturn(UnidadeDTO.builder().id(2L).nome("Norte").build());
+
+        assertThrows(ResourceNotFoundException.class, () -> unidadeService.buscarPorId(2L));
+    }
+
+    @Test
+    void testAtualizar_RemoveAtendentesEmCachePorId() {
+        Unidade unidade = Unidade.builder().id(1L).nome("Centro").empresa(Empresa.builder().id(5L).build()).build();
+        when(unidadeRepository.findById(1L)).thenReturn(Optional.of(unidade));
+        when(unidadeRepository.save(unidade)).thenReturn(unidade);
+        when(atendenteRepository.listarIdsPorUnidade(1L)).thenReturn(List.of(7L, 8L));
+
+        unidadeService.atualizar(1L, UnidadeDTO.builder().nome("Centro Novo").build());
+
+        verify(catalogoCache).remover(CatalogoCache.UNIDADES, "ativas", 1L);
+        verify(catalogoCache).remover(CatalogoCache.ATENDENTES, CatalogoCache.chaveUnidade(1L));
+        verify(catalogoCache).remover(CatalogoCache.ATENDENTES, 7L, 8L);
+    }
+
+    private void autenticar(Usuario usuario) {
+        when(usuarioRepository.findByEmail(usuario.getEmail())).thenReturn(Optional.of(usuario));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                usuario.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_" + usuario.getPerfil()))));
+    }
+}